@@ -0,0 +1,112 @@
+package gumtree.addressbook.http;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import gumtree.addressbook.persistence.RepositoryImplementation;
+import gumtree.addressbook.persistence.SyntheticAddressBook;
+import gumtree.addressbook.service.AddressBookService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * A local load generator for {@link AddressBookHttpServer}: 16 client threads send requests over keep-alive
+ * connections. The throughput mode reports requests per second, and the sample time mode reports the p50, p99 and
+ * p99.9 latencies. Use {@code -t} to change the number of clients.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(16)
+@Fork(1)
+public class AddressBookHttpServerBenchmark {
+
+    @Param({"1000000"})
+    private int numberOfContacts;
+
+    @Param({"INDEXED"})
+    private RepositoryImplementation implementation;
+
+    private AddressBookHttpServer httpServer;
+
+    @Setup(Level.Trial)
+    public void startServer() {
+        AddressBookService addressBookService = new AddressBookService(implementation.loadSynthetic(numberOfContacts));
+        httpServer = new AddressBookHttpServer(addressBookService,
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        httpServer.start();
+    }
+
+    @TearDown(Level.Trial)
+    public void stopServer() {
+        httpServer.close();
+    }
+
+    @Benchmark
+    public int countByGender() throws IOException {
+        return get("/contacts/count?gender=male");
+    }
+
+    @Benchmark
+    public int findAllByFullName() throws IOException {
+        return get("/contacts?fullName=" + randomFullName());
+    }
+
+    @Benchmark
+    public int ageDifferenceInDays() throws IOException {
+        return get("/age-difference?first=" + randomFullName() + "&second=" + randomFullName());
+    }
+
+    @Benchmark
+    public int batchOfTenLookups() throws IOException {
+        StringBuilder pathAndQuery = new StringBuilder("/contacts/batch?");
+        for (int i = 0; i < 10; i++) {
+            pathAndQuery.append(i == 0 ? "" : "&").append("fullName=").append(randomFullName());
+        }
+        return get(pathAndQuery.toString());
+    }
+
+    private String randomFullName() throws IOException {
+        String fullName = SyntheticAddressBook.fullName(ThreadLocalRandom.current().nextInt(numberOfContacts));
+        return URLEncoder.encode(fullName, "UTF-8");
+    }
+
+    /**
+     * Reads the whole response so the connection goes back to the JDK's keep-alive cache.
+     */
+    private int get(String pathAndQuery) throws IOException {
+        InetSocketAddress address = httpServer.getAddress();
+        URL url = new URL("http", address.getHostString(), address.getPort(), pathAndQuery);
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        int status = connection.getResponseCode();
+        int length = 0;
+        try (InputStream body = status < 400 ? connection.getInputStream() : connection.getErrorStream()) {
+            byte[] buffer = new byte[8192];
+            for (int read; (read = body.read(buffer)) > 0; ) {
+                length += read;
+            }
+        }
+        return status * 31 + length;
+    }
+}
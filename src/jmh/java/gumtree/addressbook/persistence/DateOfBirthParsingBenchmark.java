@@ -0,0 +1,51 @@
+package gumtree.addressbook.persistence;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of mapping one date of birth value, as found in a record, to a {@link LocalDate}. Run with
+ * {@code -prof gc} to compare allocation rates.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DateOfBirthParsingBenchmark {
+    private final String[] dobValues = {" 16/03/77", " 15/01/85", " 20/11/91", " 20/09/80", " 14/08/74"};
+    private final DateOfBirthParser dateOfBirthParser = new DateOfBirthParser();
+    private int next;
+
+    @Benchmark
+    public LocalDate simpleDateFormat() throws ParseException {
+        Date parsedDate = new SimpleDateFormat("dd/MM/yy").parse(nextDobValue().trim());
+        return parsedDate.toInstant().atZone(ZoneId.systemDefault()).toLocalDate();
+    }
+
+    @Benchmark
+    public LocalDate dateOfBirthParser() {
+        String dobValue = nextDobValue();
+        return LocalDate.ofEpochDay(dateOfBirthParser.parseEpochDay(dobValue, 0, dobValue.length()));
+    }
+
+    private String nextDobValue() {
+        next = next == dobValues.length - 1 ? 0 : next + 1;
+        return dobValues[next];
+    }
+}
@@ -0,0 +1,68 @@
+package gumtree.addressbook.persistence;
+
+import java.net.MalformedURLException;
+import java.nio.file.Path;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Loading throughput of the sequential readers against the parallel reader for an increasing number of threads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ParallelCsvLoadBenchmark {
+
+    @Param({"1000000"})
+    private int numberOfContacts;
+
+    @Param({"1", "2", "4", "8"})
+    private int parallelism;
+
+    private Path addressBook;
+    private ForkJoinPool forkJoinPool;
+
+    @Setup(Level.Trial)
+    public void writeAddressBook() {
+        addressBook = SyntheticAddressBook.write(numberOfContacts);
+        forkJoinPool = new ForkJoinPool(parallelism);
+    }
+
+    @TearDown(Level.Trial)
+    public void shutdownForkJoinPool() {
+        forkJoinPool.shutdownNow();
+    }
+
+    @Benchmark
+    public void sequentialRead(Blackhole blackhole) throws MalformedURLException {
+        new CsvAddressBookReader(addressBook.toUri().toURL()).read(blackhole::consume);
+    }
+
+    @Benchmark
+    public void mappedRead(Blackhole blackhole) {
+        new MappedCsvAddressBookReader(addressBook).read(blackhole::consume);
+    }
+
+    @Benchmark
+    public void parallelRead(Blackhole blackhole) {
+        new ParallelCsvAddressBookReader(addressBook, forkJoinPool).read(blackhole::consume);
+    }
+}
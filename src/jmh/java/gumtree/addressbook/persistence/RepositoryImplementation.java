@@ -0,0 +1,42 @@
+package gumtree.addressbook.persistence;
+
+import java.nio.file.Path;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Every {@link AddressBookRepository} implementation, so benchmarks can compare them side by side through a
+ * {@code @Param}.
+ */
+public enum RepositoryImplementation {
+    IN_MEMORY {
+        @Override
+        public AddressBookRepository load(Path csvFilePath) {
+            return new InMemoryAddressBookRepository(new MappedCsvAddressBookReader(csvFilePath).read());
+        }
+    },
+    IN_MEMORY_PARALLEL {
+        @Override
+        public AddressBookRepository load(Path csvFilePath) {
+            return AddressBookRepositoryFactory.newScanningCsvFileInstance(csvFilePath, ForkJoinPool.commonPool(),
+                    InMemoryAddressBookRepository.DEFAULT_PARALLEL_THRESHOLD);
+        }
+    },
+    SHARDED {
+        @Override
+        public AddressBookRepository load(Path csvFilePath) {
+            return AddressBookRepositoryFactory.newShardedCsvFileInstance(csvFilePath,
+                    Runtime.getRuntime().availableProcessors(), StorageLayout.COLUMNAR, ForkJoinPool.commonPool());
+        }
+    },
+    INDEXED,
+    COLUMNAR,
+    OFF_HEAP;
+
+    public AddressBookRepository load(Path csvFilePath) {
+        return AddressBookRepositoryFactory.newCsvFileInstance(csvFilePath, StorageLayout.valueOf(name()));
+    }
+
+    public AddressBookRepository loadSynthetic(int numberOfContacts) {
+        return load(SyntheticAddressBook.write(numberOfContacts));
+    }
+}
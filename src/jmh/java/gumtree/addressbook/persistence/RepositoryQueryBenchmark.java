@@ -0,0 +1,110 @@
+package gumtree.addressbook.persistence;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import gumtree.addressbook.domain.Contact;
+import gumtree.addressbook.domain.Gender;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Latency of every {@link AddressBookRepository} query for each implementation and address book size. Lookups
+ * pick a random contact that exists on each invocation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RepositoryQueryBenchmark {
+
+    @Param({"1000", "1000000"})
+    private int numberOfContacts;
+
+    @Param({"IN_MEMORY", "IN_MEMORY_PARALLEL", "INDEXED", "COLUMNAR", "OFF_HEAP"})
+    private RepositoryImplementation implementation;
+
+    private AddressBookRepository repository;
+
+    @Setup(Level.Trial)
+    public void loadRepository() {
+        repository = implementation.loadSynthetic(numberOfContacts);
+    }
+
+    @Benchmark
+    public int countByGender() {
+        return repository.countByGender(Gender.MALE);
+    }
+
+    @Benchmark
+    public Optional<Contact> findByFullName() {
+        return repository.findByFullName(SyntheticAddressBook.fullName(randomContact()));
+    }
+
+    @Benchmark
+    public Optional<Contact> findByFullNameNotFound() {
+        return repository.findByFullName("Not In The Address Book");
+    }
+
+    @Benchmark
+    public List<Contact> findByFullNamePrefix() {
+        String fullName = SyntheticAddressBook.fullName(randomContact());
+        return repository.findByFullNamePrefix(fullName.substring(0, 3), 0, 20);
+    }
+
+    @Benchmark
+    public List<Contact> findByFullNameSimilarTo() {
+        String fullName = SyntheticAddressBook.fullName(randomContact());
+        return repository.findByFullNameSimilarTo(fullName.substring(1), 2, 20);
+    }
+
+    @Benchmark
+    public Optional<LocalDate> findEarliestDateOfBirth() {
+        return repository.findEarliestDateOfBirth();
+    }
+
+    @Benchmark
+    public Optional<LocalDate> findLatestDateOfBirth() {
+        return repository.findLatestDateOfBirth();
+    }
+
+    @Benchmark
+    public List<Contact> findByDateOfBirth() {
+        return repository.findByDateOfBirth(SyntheticAddressBook.dateOfBirth(randomContact()));
+    }
+
+    @Benchmark
+    public List<Contact> findByDateOfBirthBetween() {
+        LocalDate from = SyntheticAddressBook.dateOfBirth(randomContact());
+        return repository.findByDateOfBirthBetween(from, from.plusDays(7));
+    }
+
+    @Benchmark
+    public List<Contact> findOldest() {
+        return repository.findOldest(10);
+    }
+
+    @Benchmark
+    public List<Contact> findYoungest() {
+        return repository.findYoungest(10);
+    }
+
+    private int randomContact() {
+        return ThreadLocalRandom.current().nextInt(numberOfContacts);
+    }
+}
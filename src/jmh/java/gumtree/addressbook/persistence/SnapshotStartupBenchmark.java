@@ -0,0 +1,61 @@
+package gumtree.addressbook.persistence;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Time from nothing to a queryable repository, loading the Csv file against restoring the snapshot of it. Every
+ * measurement runs in a fresh fork without warmup to capture cold start.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(10)
+public class SnapshotStartupBenchmark {
+
+    @Param({"1000000"})
+    private int numberOfContacts;
+
+    private Path csvFilePath;
+    private Path snapshotPath;
+
+    @Setup(Level.Trial)
+    public void writeAddressBookAndSnapshot() throws IOException {
+        csvFilePath = SyntheticAddressBook.write(numberOfContacts);
+        snapshotPath = Files.createTempFile("SyntheticAddressBook-" + numberOfContacts + "-", ".snapshot");
+        AddressBookRepositoryFactory.newSnapshotBackedInstance(csvFilePath, snapshotPath);
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteSnapshot() throws IOException {
+        Files.deleteIfExists(snapshotPath);
+    }
+
+    @Benchmark
+    public AddressBookRepository coldStartFromCsv() {
+        return AddressBookRepositoryFactory.newCsvFileInstance(csvFilePath, StorageLayout.OFF_HEAP);
+    }
+
+    @Benchmark
+    public AddressBookRepository coldStartFromSnapshot() {
+        return AddressBookRepositoryFactory.newSnapshotBackedInstance(csvFilePath, snapshotPath);
+    }
+}
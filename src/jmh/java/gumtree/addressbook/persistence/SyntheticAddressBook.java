@@ -0,0 +1,93 @@
+package gumtree.addressbook.persistence;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+
+import gumtree.addressbook.domain.Gender;
+
+/**
+ * Reproducible Csv address books of any size, from a thousand to tens of millions of contacts. Contact {@code i}
+ * is always the same, so benchmarks can look up contacts that are known to exist without reading the file. First
+ * names and surnames repeat the way they do in real data.
+ * <p>
+ * Generated files are kept in {@code java.io.tmpdir} and reused by later runs.
+ */
+public final class SyntheticAddressBook {
+    private static final String[] FIRST_NAMES = {
+            "Bill", "Paul", "Gemma", "Sarah", "Wes", "Anna", "James", "Maria", "John", "Laura",
+            "David", "Emma", "Peter", "Sofia", "Mark", "Chloe", "Tom", "Lucy", "Sam", "Olivia"
+    };
+    private static final String[] SURNAMES = {
+            "McKnight", "Robinson", "Lane", "Stone", "Jackson", "Smith", "Jones", "Taylor", "Brown", "Wilson",
+            "Evans", "Thomas", "Roberts", "Walker", "Wright", "Green", "Hall", "Wood", "Clarke", "Hughes"
+    };
+    private static final long FIRST_DATE_OF_BIRTH = LocalDate.of(1950, 1, 1).toEpochDay();
+    private static final int DAYS_OF_BIRTH = (int) (LocalDate.of(2020, 1, 1).toEpochDay() - FIRST_DATE_OF_BIRTH);
+
+    private SyntheticAddressBook() {}
+
+    public static Path write(int numberOfContacts) {
+        Path addressBook = Paths.get(System.getProperty("java.io.tmpdir"), "SyntheticAddressBook-" + numberOfContacts + ".csv");
+        if (Files.isRegularFile(addressBook)) {
+            return addressBook;
+        }
+
+        try {
+            Path temporaryAddressBook = Files.createTempFile(addressBook.getParent(), addressBook.getFileName().toString(), ".tmp");
+            write(temporaryAddressBook, numberOfContacts);
+            return Files.move(temporaryAddressBook, addressBook, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public static void write(Path addressBook, int numberOfContacts) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(addressBook, StandardCharsets.UTF_8)) {
+            for (int i = 0; i < numberOfContacts; i++) {
+                LocalDate dateOfBirth = dateOfBirth(i);
+                writer.append(fullName(i))
+                        .append(gender(i) == Gender.MALE ? ", Male, " : ", Female, ")
+                        .append(twoDigits(dateOfBirth.getDayOfMonth())).append('/')
+                        .append(twoDigits(dateOfBirth.getMonthValue())).append('/')
+                        .append(twoDigits(dateOfBirth.getYear() % 100))
+                        .append('\n');
+            }
+        }
+    }
+
+    public static String fullName(int i) {
+        int mixed = mix(i);
+        return FIRST_NAMES[Math.floorMod(mixed, FIRST_NAMES.length)] + ' '
+                + SURNAMES[Math.floorMod(mixed >>> 8, SURNAMES.length)] + ' '
+                + Integer.toString(i, 36);
+    }
+
+    public static Gender gender(int i) {
+        return (mix(i) >>> 16 & 1) == 0 ? Gender.MALE : Gender.FEMALE;
+    }
+
+    /**
+     * Dates of birth between 1950 and 2019, which the default two digit year pivot reads back unchanged.
+     */
+    public static LocalDate dateOfBirth(int i) {
+        return LocalDate.ofEpochDay(FIRST_DATE_OF_BIRTH + Math.floorMod(mix(~i), DAYS_OF_BIRTH));
+    }
+
+    private static int mix(int value) {
+        int hash = value * 0x9e3779b9;
+        hash ^= hash >>> 15;
+        hash *= 0x85ebca6b;
+        return hash ^ (hash >>> 13);
+    }
+
+    private static String twoDigits(int value) {
+        return value < 10 ? "0" + value : Integer.toString(value);
+    }
+}
@@ -0,0 +1,65 @@
+package gumtree.addressbook.service;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import gumtree.addressbook.domain.Contact;
+import gumtree.addressbook.domain.Gender;
+import gumtree.addressbook.persistence.RepositoryImplementation;
+import gumtree.addressbook.persistence.SyntheticAddressBook;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The three questions the application answers, over each repository implementation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AddressBookServiceBenchmark {
+
+    @Param({"1000", "1000000"})
+    private int numberOfContacts;
+
+    @Param({"IN_MEMORY", "INDEXED", "COLUMNAR", "OFF_HEAP"})
+    private RepositoryImplementation implementation;
+
+    private AddressBookService addressBookService;
+
+    @Setup(Level.Trial)
+    public void loadRepository() {
+        addressBookService = new AddressBookService(implementation.loadSynthetic(numberOfContacts));
+    }
+
+    @Benchmark
+    public int countByGender() {
+        return addressBookService.countByGender(Gender.MALE);
+    }
+
+    @Benchmark
+    public List<Contact> findOldestPeople() {
+        return addressBookService.findOldestPeople();
+    }
+
+    @Benchmark
+    public long ageDifferenceInDays() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return addressBookService.ageDifferenceInDays(
+                SyntheticAddressBook.fullName(random.nextInt(numberOfContacts)),
+                SyntheticAddressBook.fullName(random.nextInt(numberOfContacts)));
+    }
+}
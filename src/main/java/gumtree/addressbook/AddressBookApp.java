@@ -1,9 +1,11 @@
 package gumtree.addressbook;
 
+import java.net.InetSocketAddress;
 import java.util.List;
 
 import gumtree.addressbook.domain.Contact;
 import gumtree.addressbook.domain.Gender;
+import gumtree.addressbook.http.AddressBookHttpServer;
 import gumtree.addressbook.service.AddressBookService;
 
 import static java.util.stream.Collectors.toList;
@@ -27,7 +29,19 @@ public class AddressBookApp {
         return addressBookService.ageDifferenceInDays("Bill McKnight", "Paul Robinson");
     }
 
+    /**
+     * Prints the answers, or with {@code serve [port]} serves queries over HTTP until the process is stopped.
+     */
     public static void main(String... args) {
+        if (args.length > 0 && args[0].equals("serve")) {
+            int port = args.length > 1 ? Integer.parseInt(args[1]) : 8080;
+            AddressBookHttpServer httpServer =
+                    AddressBookAppFactory.newHttpServer("AddressBook", new InetSocketAddress(port));
+            httpServer.start();
+            System.out.printf("Serving the address book on port %d\n", httpServer.getAddress().getPort());
+            return;
+        }
+
         AddressBookApp addressBookApp = AddressBookAppFactory.newInstance("AddressBook");
 
         System.out.printf("Number of males in the address book: %d\n", addressBookApp.countNumberOfMales());
@@ -1,7 +1,12 @@
 package gumtree.addressbook;
 
+import java.net.InetSocketAddress;
+
+import gumtree.addressbook.http.AddressBookHttpServer;
+import gumtree.addressbook.metrics.Metrics;
 import gumtree.addressbook.persistence.AddressBookRepository;
 import gumtree.addressbook.persistence.AddressBookRepositoryFactory;
+import gumtree.addressbook.persistence.CachingAddressBookRepository;
 import gumtree.addressbook.service.AddressBookService;
 
 public class AddressBookAppFactory {
@@ -15,4 +20,34 @@ public class AddressBookAppFactory {
 
         return new AddressBookApp(addressBookService);
     }
+
+    public static CachingAddressBookApp newCachingInstance(String addressBookFilePath, int maximumCacheSize) {
+        CachingAddressBookRepository addressBookRepository = AddressBookRepositoryFactory.newCachingInstance(
+                AddressBookRepositoryFactory.newCsvInstance(addressBookFilePath), maximumCacheSize);
+
+        AddressBookService addressBookService = new AddressBookService(addressBookRepository);
+
+        return new CachingAddressBookApp(addressBookService, addressBookRepository);
+    }
+
+    /**
+     * Records the load, repository queries and service calls, e.g. into a
+     * {@link gumtree.addressbook.metrics.MetricsRegistry}.
+     */
+    public static AddressBookApp newInstrumentedInstance(String addressBookFilePath, Metrics metrics) {
+        AddressBookRepository addressBookRepository = AddressBookRepositoryFactory.newInstrumentedInstance(
+                AddressBookRepositoryFactory.newCsvInstance(addressBookFilePath, metrics), metrics);
+
+        AddressBookService addressBookService = new AddressBookService(addressBookRepository, metrics);
+
+        return new AddressBookApp(addressBookService);
+    }
+
+    public static AddressBookHttpServer newHttpServer(String addressBookFilePath, InetSocketAddress address) {
+        AddressBookRepository addressBookRepository = AddressBookRepositoryFactory.newCsvInstance(addressBookFilePath);
+
+        AddressBookService addressBookService = new AddressBookService(addressBookRepository);
+
+        return new AddressBookHttpServer(addressBookService, address);
+    }
 }
@@ -0,0 +1,21 @@
+package gumtree.addressbook;
+
+import gumtree.addressbook.persistence.CacheStatistics;
+import gumtree.addressbook.persistence.CachingAddressBookRepository;
+import gumtree.addressbook.service.AddressBookService;
+
+/**
+ * An {@link AddressBookApp} answered from a {@link CachingAddressBookRepository}, whose hit rate can be watched.
+ */
+public class CachingAddressBookApp extends AddressBookApp {
+    private final CachingAddressBookRepository cachingRepository;
+
+    public CachingAddressBookApp(AddressBookService addressBookService, CachingAddressBookRepository cachingRepository) {
+        super(addressBookService);
+        this.cachingRepository = cachingRepository;
+    }
+
+    public CacheStatistics getCacheStatistics() {
+        return cachingRepository.getStatistics();
+    }
+}
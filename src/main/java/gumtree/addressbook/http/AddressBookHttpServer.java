@@ -0,0 +1,348 @@
+package gumtree.addressbook.http;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.UnsupportedEncodingException;
+import java.lang.reflect.Method;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import gumtree.addressbook.domain.Gender;
+import gumtree.addressbook.service.AddressBookService;
+import gumtree.addressbook.service.AgeDifference;
+import gumtree.addressbook.service.DuplicateNamePolicy;
+import gumtree.addressbook.service.FullNamePair;
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVRecord;
+
+/**
+ * Serves {@link AddressBookService} queries as JSON over HTTP with the JDK's built-in server:
+ * <ul>
+ * <li>{@code GET /contacts/count?gender=male}</li>
+ * <li>{@code GET /contacts/oldest} and {@code GET /contacts/youngest}</li>
+ * <li>{@code GET /contacts?fullName=...}, every contact with the full name</li>
+ * <li>{@code GET /contacts/batch?fullName=...&fullName=...}, the first contact with each full name or null</li>
+ * <li>{@code GET /age-difference?first=...&second=...}, optionally with a {@code policy} for duplicate names</li>
+ * <li>{@code POST /age-differences} with one Csv record of two full names per pair</li>
+ * </ul>
+ * Invalid requests, including missing or empty parameters and malformed Csv, are answered with 400 and
+ * {@code {"error": "..."}}. Any other failure is logged and answered with 500.
+ */
+public final class AddressBookHttpServer implements Closeable {
+    private static final Logger LOGGER = Logger.getLogger(AddressBookHttpServer.class.getName());
+    private static final int BAD_REQUEST = 400;
+    private static final int NOT_FOUND = 404;
+    private static final int METHOD_NOT_ALLOWED = 405;
+    private static final int INTERNAL_SERVER_ERROR = 500;
+
+    static {
+        // The JDK server writes headers and body separately; with Nagle's algorithm the body then waits for the
+        // client's delayed ACK, about 40ms per request. The setting is read once, when the first server is created.
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+    }
+
+    private final AddressBookService addressBookService;
+    private final Map<String, Route> routes = new HashMap<>();
+    private final HttpServer httpServer;
+    private final ExecutorService executor;
+
+    /**
+     * Binds the server to the address, port 0 picking a free port, and handles every request on its own thread from
+     * {@link #newPerRequestExecutor()}.
+     */
+    public AddressBookHttpServer(AddressBookService addressBookService, InetSocketAddress address) {
+        this(addressBookService, address, newPerRequestExecutor());
+    }
+
+    public AddressBookHttpServer(AddressBookService addressBookService, InetSocketAddress address,
+                                 ExecutorService executor) {
+        this.addressBookService = Objects.requireNonNull(addressBookService, "addressBookService cannot be null");
+        Objects.requireNonNull(address, "address cannot be null");
+        this.executor = Objects.requireNonNull(executor, "executor cannot be null");
+
+        routes.put("/contacts/count", new Route("GET", this::countByGender));
+        routes.put("/contacts/oldest", new Route("GET", this::findOldestPeople));
+        routes.put("/contacts/youngest", new Route("GET", this::findYoungestPeople));
+        routes.put("/contacts", new Route("GET", this::findAllByFullName));
+        routes.put("/contacts/batch", new Route("GET", this::findByFullNames));
+        routes.put("/age-difference", new Route("GET", this::ageDifferenceInDays));
+        routes.put("/age-differences", new Route("POST", this::ageDifferencesInDays));
+
+        try {
+            this.httpServer = HttpServer.create(address, 0);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        httpServer.createContext("/", this::handle);
+        httpServer.setExecutor(executor);
+    }
+
+    /**
+     * A virtual thread per request when the JVM has them (Java 21 and later), otherwise a cached pool of daemon
+     * threads.
+     */
+    public static ExecutorService newPerRequestExecutor() {
+        try {
+            Method newVirtualThreadPerTaskExecutor = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) newVirtualThreadPerTaskExecutor.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            AtomicInteger threadNumber = new AtomicInteger();
+            return Executors.newCachedThreadPool(runnable -> {
+                Thread thread = new Thread(runnable, "address-book-http-" + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    public void start() {
+        httpServer.start();
+    }
+
+    public InetSocketAddress getAddress() {
+        return httpServer.getAddress();
+    }
+
+    /**
+     * Stops accepting requests, lets the ones in progress finish for up to a second, and shuts the executor down.
+     */
+    @Override
+    public void close() {
+        httpServer.stop(1);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            Route route = routes.get(exchange.getRequestURI().getPath());
+            if (route == null) {
+                respond(exchange, NOT_FOUND, error("Unknown path " + exchange.getRequestURI().getPath()));
+            } else if (!route.method.equals(exchange.getRequestMethod())) {
+                exchange.getResponseHeaders().set("Allow", route.method);
+                respond(exchange, METHOD_NOT_ALLOWED, error("Use " + route.method));
+            } else {
+                respond(exchange, 200, route.handler.handle(new Request(exchange)));
+            }
+        } catch (IllegalArgumentException e) {
+            respond(exchange, BAD_REQUEST, error(e.getMessage()));
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.SEVERE, "Request " + exchange.getRequestMethod() + " " + exchange.getRequestURI()
+                    + " failed", e);
+            respond(exchange, INTERNAL_SERVER_ERROR, error("Internal error"));
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private String countByGender(Request request) {
+        Gender gender = parseGender(request.required("gender"));
+
+        return new JsonWriter().beginObject()
+                .name("gender").value(gender.name())
+                .name("count").value(addressBookService.countByGender(gender))
+                .endObject().toString();
+    }
+
+    private String findOldestPeople(Request request) {
+        return new JsonWriter().contacts(addressBookService.findOldestPeople()).toString();
+    }
+
+    private String findYoungestPeople(Request request) {
+        return new JsonWriter().contacts(addressBookService.findYoungestPeople()).toString();
+    }
+
+    private String findAllByFullName(Request request) {
+        String fullName = request.required("fullName");
+
+        return new JsonWriter().contacts(addressBookService.findAllByFullName(fullName)).toString();
+    }
+
+    private String findByFullNames(Request request) {
+        List<String> fullNames = request.all("fullName");
+        if (fullNames.isEmpty() || fullNames.stream().anyMatch(AddressBookHttpServer::isBlank)) {
+            throw new IllegalArgumentException("fullName is required");
+        }
+
+        return new JsonWriter().optionalContacts(addressBookService.findByFullNames(fullNames)).toString();
+    }
+
+    private String ageDifferenceInDays(Request request) {
+        String first = request.required("first");
+        String second = request.required("second");
+        String policy = request.optional("policy");
+        long days = policy == null
+                ? addressBookService.ageDifferenceInDays(first, second)
+                : addressBookService.ageDifferenceInDays(first, second, parsePolicy(policy));
+
+        return new JsonWriter().beginObject()
+                .name("first").value(first)
+                .name("second").value(second)
+                .name("days").value(days)
+                .endObject().toString();
+    }
+
+    private String ageDifferencesInDays(Request request) throws IOException {
+        List<FullNamePair> fullNamePairs = new ArrayList<>();
+        try (Reader body = new InputStreamReader(request.exchange.getRequestBody(), StandardCharsets.UTF_8)) {
+            Iterator<CSVRecord> csvRecords = CSVFormat.DEFAULT.parse(body).iterator();
+            while (hasNext(csvRecords)) {
+                CSVRecord csvRecord = csvRecords.next();
+                if (csvRecord.size() != 2 || isBlank(csvRecord.get(0)) || isBlank(csvRecord.get(1))) {
+                    throw new IllegalArgumentException(
+                            "Line " + csvRecord.getRecordNumber() + " must have two full names");
+                }
+                fullNamePairs.add(new FullNamePair(csvRecord.get(0).trim(), csvRecord.get(1).trim()));
+            }
+        }
+
+        JsonWriter json = new JsonWriter().beginArray();
+        for (AgeDifference ageDifference : addressBookService.ageDifferencesInDays(fullNamePairs)) {
+            json.beginObject()
+                    .name("first").value(ageDifference.getFullNames().getFirstPersonFullName())
+                    .name("second").value(ageDifference.getFullNames().getSecondPersonFullName());
+            if (ageDifference.isFound()) {
+                json.name("days").value(ageDifference.getDays());
+            } else {
+                json.name("notFound").beginArray();
+                ageDifference.getMissingFullNames().forEach(json::value);
+                json.endArray();
+            }
+            json.endObject();
+        }
+        return json.endArray().toString();
+    }
+
+    /**
+     * Reads the next record ahead. The Csv parser's iterator wraps the {@link IOException} of a malformed record in
+     * a {@link RuntimeException}, which is the client's mistake rather than the server's.
+     */
+    private static boolean hasNext(Iterator<CSVRecord> csvRecords) {
+        try {
+            return csvRecords.hasNext();
+        } catch (RuntimeException e) {
+            if (e.getCause() instanceof IOException) {
+                throw new IllegalArgumentException("Body is not valid Csv: " + e.getCause().getMessage(), e);
+            }
+            throw e;
+        }
+    }
+
+    private static boolean isBlank(String value) {
+        return value.trim().isEmpty();
+    }
+
+    private static Gender parseGender(String gender) {
+        try {
+            return Gender.valueOf(gender.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("gender must be one of male or female");
+        }
+    }
+
+    private static DuplicateNamePolicy parsePolicy(String policy) {
+        try {
+            return DuplicateNamePolicy.valueOf(policy.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("policy must be one of first, oldest, youngest or reject");
+        }
+    }
+
+    private static String error(String message) {
+        return new JsonWriter().beginObject().name("error").value(message).endObject().toString();
+    }
+
+    private static void respond(HttpExchange exchange, int status, String json) throws IOException {
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream responseBody = exchange.getResponseBody()) {
+            responseBody.write(body);
+        }
+    }
+
+    @FunctionalInterface
+    private interface Handler {
+        String handle(Request request) throws IOException;
+    }
+
+    private static final class Route {
+        private final String method;
+        private final Handler handler;
+
+        private Route(String method, Handler handler) {
+            this.method = method;
+            this.handler = handler;
+        }
+    }
+
+    private static final class Request {
+        private final HttpExchange exchange;
+        private final Map<String, List<String>> parameters;
+
+        private Request(HttpExchange exchange) {
+            this.exchange = exchange;
+            this.parameters = parse(exchange.getRequestURI().getRawQuery());
+        }
+
+        private String required(String name) {
+            String value = optional(name);
+            if (value == null || isBlank(value)) {
+                throw new IllegalArgumentException(name + " is required");
+            }
+            return value;
+        }
+
+        private String optional(String name) {
+            List<String> values = parameters.get(name);
+            return values == null ? null : values.get(0);
+        }
+
+        private List<String> all(String name) {
+            return parameters.getOrDefault(name, Collections.emptyList());
+        }
+
+        private static Map<String, List<String>> parse(String rawQuery) {
+            Map<String, List<String>> parameters = new HashMap<>();
+            if (rawQuery == null || rawQuery.isEmpty()) {
+                return parameters;
+            }
+            for (String parameter : rawQuery.split("&")) {
+                int equals = parameter.indexOf('=');
+                String name = decode(equals < 0 ? parameter : parameter.substring(0, equals));
+                String value = equals < 0 ? "" : decode(parameter.substring(equals + 1));
+                parameters.computeIfAbsent(name, key -> new ArrayList<>()).add(value);
+            }
+            return parameters;
+        }
+
+        private static String decode(String value) {
+            try {
+                return URLDecoder.decode(value, "UTF-8");
+            } catch (UnsupportedEncodingException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
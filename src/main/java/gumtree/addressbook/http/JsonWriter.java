@@ -0,0 +1,138 @@
+package gumtree.addressbook.http;
+
+import java.util.List;
+import java.util.Optional;
+
+import gumtree.addressbook.domain.Contact;
+
+/**
+ * Writes the few JSON shapes the server responds with, straight into a {@link StringBuilder}.
+ */
+final class JsonWriter {
+    private final StringBuilder json = new StringBuilder(256);
+    private boolean firstMember = true;
+
+    JsonWriter beginObject() {
+        separate();
+        json.append('{');
+        firstMember = true;
+        return this;
+    }
+
+    JsonWriter endObject() {
+        json.append('}');
+        firstMember = false;
+        return this;
+    }
+
+    JsonWriter beginArray() {
+        separate();
+        json.append('[');
+        firstMember = true;
+        return this;
+    }
+
+    JsonWriter endArray() {
+        json.append(']');
+        firstMember = false;
+        return this;
+    }
+
+    JsonWriter name(String name) {
+        separate();
+        string(name);
+        json.append(':');
+        firstMember = true;
+        return this;
+    }
+
+    JsonWriter value(String value) {
+        separate();
+        if (value == null) {
+            json.append("null");
+        } else {
+            string(value);
+        }
+        return this;
+    }
+
+    JsonWriter value(long value) {
+        separate();
+        json.append(value);
+        return this;
+    }
+
+    JsonWriter value(boolean value) {
+        separate();
+        json.append(value);
+        return this;
+    }
+
+    JsonWriter contact(Contact contact) {
+        if (contact == null) {
+            separate();
+            json.append("null");
+            return this;
+        }
+        return beginObject()
+                .name("fullName").value(contact.getFullName())
+                .name("gender").value(contact.getGender().name())
+                .name("dateOfBirth").value(contact.getDateOfBirth().toString())
+                .endObject();
+    }
+
+    JsonWriter contacts(List<Contact> contacts) {
+        beginArray();
+        contacts.forEach(this::contact);
+        return endArray();
+    }
+
+    JsonWriter optionalContacts(List<Optional<Contact>> contacts) {
+        beginArray();
+        contacts.forEach(contact -> contact(contact.orElse(null)));
+        return endArray();
+    }
+
+    @Override
+    public String toString() {
+        return json.toString();
+    }
+
+    private void separate() {
+        if (!firstMember) {
+            json.append(',');
+        }
+        firstMember = false;
+    }
+
+    private void string(String value) {
+        json.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char character = value.charAt(i);
+            switch (character) {
+                case '"':
+                    json.append("\\\"");
+                    break;
+                case '\\':
+                    json.append("\\\\");
+                    break;
+                case '\n':
+                    json.append("\\n");
+                    break;
+                case '\r':
+                    json.append("\\r");
+                    break;
+                case '\t':
+                    json.append("\\t");
+                    break;
+                default:
+                    if (character < 0x20) {
+                        json.append(String.format("\\u%04x", (int) character));
+                    } else {
+                        json.append(character);
+                    }
+            }
+        }
+        json.append('"');
+    }
+}
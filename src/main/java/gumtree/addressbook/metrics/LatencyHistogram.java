@@ -0,0 +1,108 @@
+package gumtree.addressbook.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock free histogram of latencies in nanoseconds. Like HdrHistogram, values are counted in buckets whose width
+ * doubles with every power of two and that are split into {@value #SUB_BUCKETS} linear sub-buckets, so any recorded
+ * value is known to within about 3% in a fixed {@value #NUMBER_OF_BUCKETS} counters.
+ */
+public final class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 5;
+    static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    static final int NUMBER_OF_BUCKETS = (Long.SIZE - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(NUMBER_OF_BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder total = new LongAdder();
+    private final LongAccumulator maximum = new LongAccumulator(Math::max, 0);
+
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        counts.incrementAndGet(bucketOf(value));
+        count.increment();
+        total.add(value);
+        maximum.accumulate(value);
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public long getTotal() {
+        return total.sum();
+    }
+
+    public long getMaximum() {
+        return maximum.get();
+    }
+
+    /**
+     * The largest value that falls in the same bucket as the value at the percentile, capped at the maximum, or 0
+     * when nothing was recorded.
+     */
+    public long getValueAtPercentile(double percentile) {
+        if (percentile < 0 || percentile > 100) {
+            throw new IllegalArgumentException("percentile must be between 0 and 100");
+        }
+
+        long[] bucketCounts = new long[NUMBER_OF_BUCKETS];
+        long recorded = 0;
+        for (int bucket = 0; bucket < NUMBER_OF_BUCKETS; bucket++) {
+            bucketCounts[bucket] = counts.get(bucket);
+            recorded += bucketCounts[bucket];
+        }
+        if (recorded == 0) {
+            return 0;
+        }
+
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * recorded));
+        long seen = 0;
+        for (int bucket = 0; bucket < NUMBER_OF_BUCKETS; bucket++) {
+            seen += bucketCounts[bucket];
+            if (seen >= rank) {
+                return Math.min(highestValueOf(bucket), getMaximum());
+            }
+        }
+        return getMaximum();
+    }
+
+    public LatencySummary summarize() {
+        return new LatencySummary(getCount(), getTotal(), getValueAtPercentile(50), getValueAtPercentile(90),
+                getValueAtPercentile(99), getValueAtPercentile(99.9), getMaximum());
+    }
+
+    public void reset() {
+        for (int bucket = 0; bucket < NUMBER_OF_BUCKETS; bucket++) {
+            counts.set(bucket, 0);
+        }
+        count.reset();
+        total.reset();
+        maximum.reset();
+    }
+
+    /**
+     * Values below {@value #SUB_BUCKETS} have a bucket each. Larger values keep the {@value #SUB_BUCKET_BITS} bits
+     * after their highest one bit, and the number of bits dropped picks the group of sub-buckets.
+     */
+    static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int shift = Long.SIZE - 1 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return ((shift + 1) << SUB_BUCKET_BITS) + (int) ((value >>> shift) & (SUB_BUCKETS - 1));
+    }
+
+    static long highestValueOf(int bucket) {
+        int group = bucket >>> SUB_BUCKET_BITS;
+        if (group == 0) {
+            return bucket;
+        }
+        int shift = group - 1;
+        long subBucket = bucket & (SUB_BUCKETS - 1);
+        long highestValue = ((SUB_BUCKETS + subBucket + 1) << shift) - 1;
+        return highestValue < 0 ? Long.MAX_VALUE : highestValue;
+    }
+}
@@ -0,0 +1,94 @@
+package gumtree.addressbook.metrics;
+
+import java.beans.ConstructorProperties;
+import java.util.Objects;
+
+import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.apache.commons.lang3.builder.ToStringStyle;
+
+/**
+ * The count, total and percentiles of a {@link LatencyHistogram} at one point in time, in nanoseconds.
+ */
+public final class LatencySummary {
+    private final long count;
+    private final long totalNanos;
+    private final long medianNanos;
+    private final long percentile90Nanos;
+    private final long percentile99Nanos;
+    private final long percentile999Nanos;
+    private final long maximumNanos;
+
+    @ConstructorProperties({"count", "totalNanos", "medianNanos", "percentile90Nanos", "percentile99Nanos",
+            "percentile999Nanos", "maximumNanos"})
+    public LatencySummary(long count, long totalNanos, long medianNanos, long percentile90Nanos,
+                          long percentile99Nanos, long percentile999Nanos, long maximumNanos) {
+        this.count = count;
+        this.totalNanos = totalNanos;
+        this.medianNanos = medianNanos;
+        this.percentile90Nanos = percentile90Nanos;
+        this.percentile99Nanos = percentile99Nanos;
+        this.percentile999Nanos = percentile999Nanos;
+        this.maximumNanos = maximumNanos;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getTotalNanos() {
+        return totalNanos;
+    }
+
+    public long getMedianNanos() {
+        return medianNanos;
+    }
+
+    public long getPercentile90Nanos() {
+        return percentile90Nanos;
+    }
+
+    public long getPercentile99Nanos() {
+        return percentile99Nanos;
+    }
+
+    public long getPercentile999Nanos() {
+        return percentile999Nanos;
+    }
+
+    public long getMaximumNanos() {
+        return maximumNanos;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) return true;
+        if (other == null || getClass() != other.getClass()) return false;
+        LatencySummary summary = (LatencySummary) other;
+        return count == summary.count &&
+                totalNanos == summary.totalNanos &&
+                medianNanos == summary.medianNanos &&
+                percentile90Nanos == summary.percentile90Nanos &&
+                percentile99Nanos == summary.percentile99Nanos &&
+                percentile999Nanos == summary.percentile999Nanos &&
+                maximumNanos == summary.maximumNanos;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(count, totalNanos, medianNanos, percentile90Nanos, percentile99Nanos, percentile999Nanos,
+                maximumNanos);
+    }
+
+    @Override
+    public String toString() {
+        return new ToStringBuilder(this, ToStringStyle.JSON_STYLE)
+                .append("count", count)
+                .append("totalNanos", totalNanos)
+                .append("medianNanos", medianNanos)
+                .append("percentile90Nanos", percentile90Nanos)
+                .append("percentile99Nanos", percentile99Nanos)
+                .append("percentile999Nanos", percentile999Nanos)
+                .append("maximumNanos", maximumNanos)
+                .toString();
+    }
+}
@@ -0,0 +1,48 @@
+package gumtree.addressbook.metrics;
+
+/**
+ * Where instrumented code records how long calls take and how much work they do. Names are dotted paths such as
+ * {@code repository.findByFullName}.
+ * <p>
+ * Callers time a call with {@link #start()} and {@link #stop(String, long)}, which do not read the clock when
+ * metrics are {@link #disabled()}.
+ */
+public interface Metrics {
+
+    void recordLatency(String name, long nanos);
+
+    void increment(String name, long delta);
+
+    boolean isEnabled();
+
+    default long start() {
+        return isEnabled() ? System.nanoTime() : 0L;
+    }
+
+    default void stop(String name, long start) {
+        if (isEnabled()) {
+            recordLatency(name, System.nanoTime() - start);
+        }
+    }
+
+    static Metrics disabled() {
+        return DisabledMetrics.INSTANCE;
+    }
+
+    enum DisabledMetrics implements Metrics {
+        INSTANCE;
+
+        @Override
+        public void recordLatency(String name, long nanos) {
+        }
+
+        @Override
+        public void increment(String name, long delta) {
+        }
+
+        @Override
+        public boolean isEnabled() {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package gumtree.addressbook.metrics;
+
+import java.util.Map;
+
+/**
+ * The JMX view of a {@link MetricsRegistry}.
+ */
+public interface MetricsMXBean {
+
+    Map<String, Long> getCounters();
+
+    Map<String, LatencySummary> getLatencies();
+
+    void reset();
+}
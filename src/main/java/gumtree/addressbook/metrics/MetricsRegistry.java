@@ -0,0 +1,161 @@
+package gumtree.addressbook.metrics;
+
+import java.io.Closeable;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Objects;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Keeps a counter and a {@link LatencyHistogram} per name. Recording never takes a lock; counters and histograms
+ * are created the first time their name is recorded.
+ * <p>
+ * The registry can be published through JMX with {@link #registerMBean(String)} and handed to a
+ * {@link MetricsReporter} on a background thread with {@link #startReporting(MetricsReporter, Duration)}.
+ */
+public final class MetricsRegistry implements Metrics, MetricsMXBean, Closeable {
+    private static final Logger LOGGER = Logger.getLogger(MetricsRegistry.class.getName());
+
+    private final Map<String, LongAdder> counters = new ConcurrentHashMap<>();
+    private final Map<String, LatencyHistogram> latencies = new ConcurrentHashMap<>();
+    private final Object lifecycleLock = new Object();
+
+    private ObjectName objectName;
+    private ScheduledExecutorService scheduler;
+
+    @Override
+    public void recordLatency(String name, long nanos) {
+        LatencyHistogram histogram = latencies.get(name);
+        if (histogram == null) {
+            histogram = latencies.computeIfAbsent(Objects.requireNonNull(name, "name cannot be null"),
+                    key -> new LatencyHistogram());
+        }
+        histogram.record(nanos);
+    }
+
+    @Override
+    public void increment(String name, long delta) {
+        LongAdder counter = counters.get(name);
+        if (counter == null) {
+            counter = counters.computeIfAbsent(Objects.requireNonNull(name, "name cannot be null"),
+                    key -> new LongAdder());
+        }
+        counter.add(delta);
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return true;
+    }
+
+    @Override
+    public SortedMap<String, Long> getCounters() {
+        SortedMap<String, Long> values = new TreeMap<>();
+        counters.forEach((name, counter) -> values.put(name, counter.sum()));
+        return values;
+    }
+
+    @Override
+    public SortedMap<String, LatencySummary> getLatencies() {
+        SortedMap<String, LatencySummary> summaries = new TreeMap<>();
+        latencies.forEach((name, histogram) -> summaries.put(name, histogram.summarize()));
+        return summaries;
+    }
+
+    @Override
+    public void reset() {
+        counters.values().forEach(LongAdder::reset);
+        latencies.values().forEach(LatencyHistogram::reset);
+    }
+
+    public void report(MetricsReporter reporter) {
+        Objects.requireNonNull(reporter, "reporter cannot be null");
+
+        reporter.report(getCounters(), getLatencies());
+    }
+
+    /**
+     * Hands the metrics to the reporter on a background thread until {@link #close()} is called. A report that
+     * fails is logged, and the next one is still made.
+     */
+    public void startReporting(MetricsReporter reporter, Duration reportInterval) {
+        Objects.requireNonNull(reporter, "reporter cannot be null");
+        Objects.requireNonNull(reportInterval, "reportInterval cannot be null");
+        if (reportInterval.isNegative() || reportInterval.isZero()) {
+            throw new IllegalArgumentException("reportInterval must be positive");
+        }
+
+        synchronized (lifecycleLock) {
+            if (scheduler != null) {
+                throw new IllegalStateException("Reporting has already been started");
+            }
+            scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "address-book-metrics-reporter");
+                thread.setDaemon(true);
+                return thread;
+            });
+            long reportIntervalMillis = reportInterval.toMillis();
+            scheduler.scheduleAtFixedRate(() -> {
+                try {
+                    report(reporter);
+                } catch (RuntimeException e) {
+                    LOGGER.log(Level.WARNING, "Metrics could not be reported", e);
+                }
+            }, reportIntervalMillis, reportIntervalMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Registers the registry with the platform MBean server, e.g. under
+     * {@code gumtree.addressbook:type=Metrics}.
+     */
+    public void registerMBean(String objectName) {
+        Objects.requireNonNull(objectName, "objectName cannot be null");
+
+        synchronized (lifecycleLock) {
+            if (this.objectName != null) {
+                throw new IllegalStateException("Metrics have already been registered");
+            }
+            try {
+                ObjectName name = new ObjectName(objectName);
+                ManagementFactory.getPlatformMBeanServer().registerMBean(this, name);
+                this.objectName = name;
+            } catch (JMException e) {
+                throw new IllegalArgumentException("Metrics cannot be registered as " + objectName, e);
+            }
+        }
+    }
+
+    /**
+     * Stops reporting and unregisters the MBean.
+     */
+    @Override
+    public void close() {
+        synchronized (lifecycleLock) {
+            if (scheduler != null) {
+                scheduler.shutdownNow();
+            }
+            if (objectName != null) {
+                MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+                try {
+                    mBeanServer.unregisterMBean(objectName);
+                } catch (JMException e) {
+                    // Already unregistered by someone else.
+                }
+                objectName = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package gumtree.addressbook.metrics;
+
+import java.io.PrintStream;
+import java.util.Objects;
+import java.util.SortedMap;
+
+/**
+ * Receives the counters and latencies of a {@link MetricsRegistry}, for example to ship them to a monitoring system.
+ */
+@FunctionalInterface
+public interface MetricsReporter {
+
+    void report(SortedMap<String, Long> counters, SortedMap<String, LatencySummary> latencies);
+
+    /**
+     * Prints one line per counter and latency.
+     */
+    static MetricsReporter printingTo(PrintStream out) {
+        Objects.requireNonNull(out, "out cannot be null");
+
+        return (counters, latencies) -> {
+            counters.forEach((name, value) -> out.printf("%s %d%n", name, value));
+            latencies.forEach((name, summary) -> out.printf("%s %s%n", name, summary));
+        };
+    }
+}
@@ -3,18 +3,101 @@ package gumtree.addressbook.persistence;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.SortedMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import gumtree.addressbook.domain.Contact;
 import gumtree.addressbook.domain.Gender;
 
 public interface AddressBookRepository {
 
+    /**
+     * Every contact, in load order.
+     */
+    Stream<Contact> findAll();
+
     int countByGender(Gender gender);
 
     Optional<Contact> findByFullName(String fullName);
 
+    /**
+     * Every contact with the full name, in load order. The default implementation scans every contact.
+     */
+    default List<Contact> findAllByFullName(String fullName) {
+        Objects.requireNonNull(fullName, "fullName cannot be null");
+
+        return findAll()
+                .filter(contact -> contact.getFullName().equals(fullName))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Looks up every full name at once. The result has one element per requested name, in the same order, empty for
+     * names that are not in the address book.
+     */
+    default List<Optional<Contact>> findByFullNames(List<String> fullNames) {
+        Objects.requireNonNull(fullNames, "fullNames cannot be null");
+
+        return fullNames.stream()
+                .map(this::findByFullName)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Contacts whose full name starts with the prefix, ordered by full name and then load order, skipping the first
+     * {@code offset} of them. The default implementation scans every contact.
+     */
+    default List<Contact> findByFullNamePrefix(String prefix, int offset, int limit) {
+        return FullNameSearches.findByPrefix(findAll(), prefix, offset, limit);
+    }
+
+    /**
+     * Contacts whose full name is at most {@code maxDistance} single character insertions, deletions or
+     * substitutions away, closest first and then ordered by full name and load order. The default implementation
+     * scans every contact.
+     */
+    default List<Contact> findByFullNameSimilarTo(String fullName, int maxDistance, int limit) {
+        return FullNameSearches.findSimilar(findAll(), fullName, maxDistance, limit);
+    }
+
+    /**
+     * The statistics of every group of contacts, in group order, computed in a single pass. The default
+     * implementation scans every contact.
+     */
+    default <K extends Comparable<? super K>> SortedMap<K, ContactStatistics> aggregate(ContactGrouping<K> grouping) {
+        ContactAggregator<K> aggregator = new ContactAggregator<>(grouping);
+        findAll().forEachOrdered(aggregator::accept);
+        return aggregator.result();
+    }
+
     Optional<LocalDate> findEarliestDateOfBirth();
 
     List<Contact> findByDateOfBirth(LocalDate dateOfBirth);
+
+    Optional<LocalDate> findLatestDateOfBirth();
+
+    List<Contact> findByDateOfBirthBetween(LocalDate from, LocalDate to);
+
+    /**
+     * The contacts of {@link #findByDateOfBirthBetween(LocalDate, LocalDate)}, in the same order, produced one at a
+     * time as the stream is consumed, so a caller can page through a broad range or stop early without holding every
+     * match. The default implementation materialises the list; repositories indexed by date of birth read straight
+     * from the index.
+     */
+    default Stream<Contact> streamByDateOfBirthBetween(LocalDate from, LocalDate to) {
+        return findByDateOfBirthBetween(from, to).stream();
+    }
+
+    default Stream<Contact> streamByDateOfBirth(LocalDate dateOfBirth) {
+        Objects.requireNonNull(dateOfBirth, "dateOfBirth cannot be null");
+
+        return streamByDateOfBirthBetween(dateOfBirth, dateOfBirth);
+    }
+
+    List<Contact> findOldest(int limit);
+
+    List<Contact> findYoungest(int limit);
 }
@@ -0,0 +1,13 @@
+package gumtree.addressbook.persistence;
+
+import java.util.function.Consumer;
+
+import gumtree.addressbook.domain.Contact;
+
+/**
+ * Receives contacts one at a time, in the order they are read, and builds a repository over them.
+ */
+interface AddressBookRepositoryBuilder extends Consumer<Contact> {
+
+    AddressBookRepository build();
+}
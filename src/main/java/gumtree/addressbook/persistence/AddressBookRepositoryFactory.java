@@ -1,14 +1,49 @@
 package gumtree.addressbook.persistence;
 
+import java.io.IOException;
 import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import gumtree.addressbook.domain.Contact;
+import gumtree.addressbook.metrics.Metrics;
 
 public final class AddressBookRepositoryFactory {
+    private static final Logger LOGGER = Logger.getLogger(AddressBookRepositoryFactory.class.getName());
 
     private AddressBookRepositoryFactory() {}
 
     public static AddressBookRepository newCsvInstance(String csvFilePathInJar) {
+        return newCsvInstance(csvFilePathInJar, Metrics.disabled());
+    }
+
+    /**
+     * Records how long each phase of the load takes, as {@code load.parse}, {@code load.map} and
+     * {@code load.index}.
+     */
+    public static AddressBookRepository newCsvInstance(String csvFilePathInJar, Metrics metrics) {
+        return newCsvInstance(csvFilePathInJar, new DateOfBirthParser(), metrics);
+    }
+
+    /**
+     * Reads two digit years as falling in the hundred years that start with {@code twoDigitYearStart}, e.g. from
+     * 1950 "49" is 2049 and "50" is 1950, instead of the hundred years that start 80 years before the current year.
+     */
+    public static AddressBookRepository newCsvInstance(String csvFilePathInJar, int twoDigitYearStart) {
+        return newCsvInstance(csvFilePathInJar, new DateOfBirthParser(twoDigitYearStart), Metrics.disabled());
+    }
+
+    private static AddressBookRepository newCsvInstance(String csvFilePathInJar, DateOfBirthParser dateOfBirthParser,
+                                                        Metrics metrics) {
         Objects.requireNonNull(csvFilePathInJar, "csvFilePathInJar cannot be null");
+        Objects.requireNonNull(metrics, "metrics cannot be null");
 
         URL addressBookResourceUri = AddressBookRepositoryFactory.class.getClassLoader().getResource(csvFilePathInJar);
 
@@ -16,8 +51,301 @@ public final class AddressBookRepositoryFactory {
             throw new IllegalArgumentException("Address book file does not exist");
         }
 
-        CsvAddressBookReader csvAddressBookReader = new CsvAddressBookReader(addressBookResourceUri);
+        CsvAddressBookReader csvAddressBookReader =
+                new CsvAddressBookReader(addressBookResourceUri, dateOfBirthParser, metrics);
+
+        IndexedAddressBookRepository.Builder repositoryBuilder = new IndexedAddressBookRepository.Builder();
+        csvAddressBookReader.read(repositoryBuilder);
+
+        return repositoryBuilder.build();
+    }
+
+    public static AddressBookRepository newCsvFileInstance(Path csvFilePath) {
+        return newCsvFileInstance(csvFilePath, StorageLayout.INDEXED);
+    }
+
+    public static AddressBookRepository newCsvFileInstance(Path csvFilePath, StorageLayout storageLayout) {
+        return newCsvFileInstance(csvFilePath, storageLayout, Metrics.disabled());
+    }
+
+    /**
+     * Records how long each phase of the load takes, like {@link #newCsvInstance(String, Metrics)}.
+     */
+    public static AddressBookRepository newCsvFileInstance(Path csvFilePath, StorageLayout storageLayout,
+                                                           Metrics metrics) {
+        return newCsvFileInstance(csvFilePath, storageLayout, new DateOfBirthParser(), metrics);
+    }
+
+    /**
+     * Reads two digit years like {@link #newCsvInstance(String, int)}.
+     */
+    public static AddressBookRepository newCsvFileInstance(Path csvFilePath, StorageLayout storageLayout,
+                                                           int twoDigitYearStart) {
+        return newCsvFileInstance(csvFilePath, storageLayout, new DateOfBirthParser(twoDigitYearStart),
+                Metrics.disabled());
+    }
+
+    private static AddressBookRepository newCsvFileInstance(Path csvFilePath, StorageLayout storageLayout,
+                                                            DateOfBirthParser dateOfBirthParser, Metrics metrics) {
+        Objects.requireNonNull(csvFilePath, "csvFilePath cannot be null");
+        Objects.requireNonNull(storageLayout, "storageLayout cannot be null");
+        Objects.requireNonNull(metrics, "metrics cannot be null");
+
+        if (!Files.isRegularFile(csvFilePath)) {
+            throw new IllegalArgumentException("Address book file does not exist");
+        }
+
+        MappedCsvAddressBookReader csvAddressBookReader = new MappedCsvAddressBookReader(csvFilePath,
+                dateOfBirthParser, MappedCsvAddressBookReader.DEFAULT_WINDOW_SIZE, metrics);
+
+        AddressBookRepositoryBuilder repositoryBuilder = storageLayout.newBuilder();
+        csvAddressBookReader.read(repositoryBuilder);
+
+        return repositoryBuilder.build();
+    }
+
+    /**
+     * Loads the Csv file like {@link #newCsvFileInstance(Path, StorageLayout)}, but skips records that cannot be mapped
+     * to contacts instead of failing. The first {@code maximumNumberOfInvalidRecords} of them are returned with the
+     * repository.
+     */
+    public static LenientLoadResult newLenientCsvFileInstance(Path csvFilePath, StorageLayout storageLayout,
+                                                              int maximumNumberOfInvalidRecords) {
+        Objects.requireNonNull(csvFilePath, "csvFilePath cannot be null");
+        Objects.requireNonNull(storageLayout, "storageLayout cannot be null");
+        InvalidRecordCollector invalidRecordCollector = InvalidRecordCollector.lenient(maximumNumberOfInvalidRecords);
+
+        if (!Files.isRegularFile(csvFilePath)) {
+            throw new IllegalArgumentException("Address book file does not exist");
+        }
+
+        AddressBookRepositoryBuilder repositoryBuilder = storageLayout.newBuilder();
+        new MappedCsvAddressBookReader(csvFilePath).read(repositoryBuilder, invalidRecordCollector);
+
+        return new LenientLoadResult(repositoryBuilder.build(), invalidRecordCollector);
+    }
+
+    /**
+     * Loads and validates the Csv file in parallel like {@link #newParallelCsvInstance(Path, ForkJoinPool)}, skipping
+     * invalid records like {@link #newLenientCsvFileInstance(Path, StorageLayout, int)}.
+     */
+    public static LenientLoadResult newLenientParallelCsvInstance(Path csvFilePath, ForkJoinPool forkJoinPool,
+                                                                  int maximumNumberOfInvalidRecords) {
+        Objects.requireNonNull(csvFilePath, "csvFilePath cannot be null");
+        Objects.requireNonNull(forkJoinPool, "forkJoinPool cannot be null");
+        InvalidRecordCollector invalidRecordCollector = InvalidRecordCollector.lenient(maximumNumberOfInvalidRecords);
+
+        if (!Files.isRegularFile(csvFilePath)) {
+            throw new IllegalArgumentException("Address book file does not exist");
+        }
+
+        IndexedAddressBookRepository.Builder repositoryBuilder = new IndexedAddressBookRepository.Builder();
+        new ParallelCsvAddressBookReader(csvFilePath, forkJoinPool).read(repositoryBuilder, invalidRecordCollector);
+
+        return new LenientLoadResult(repositoryBuilder.build(), invalidRecordCollector);
+    }
+
+    /**
+     * Restores the repository from the snapshot when it was built from the current Csv file. Otherwise, or when the
+     * snapshot turns out to be corrupt, loads the Csv file into an off-heap repository and writes a new snapshot of
+     * it for the next start. A snapshot that cannot be written is logged and left for the next start to retry.
+     */
+    public static AddressBookRepository newSnapshotBackedInstance(Path csvFilePath, Path snapshotPath) {
+        Objects.requireNonNull(csvFilePath, "csvFilePath cannot be null");
+        Objects.requireNonNull(snapshotPath, "snapshotPath cannot be null");
+
+        if (!Files.isRegularFile(csvFilePath)) {
+            throw new IllegalArgumentException("Address book file does not exist");
+        }
+
+        try {
+            long csvFileSize = Files.size(csvFilePath);
+            long csvFileLastModified = Files.getLastModifiedTime(csvFilePath).to(TimeUnit.NANOSECONDS);
+
+            AddressBookSnapshotReader snapshotReader = new AddressBookSnapshotReader(snapshotPath);
+            if (snapshotReader.isUpToDate(csvFileSize, csvFileLastModified)) {
+                try {
+                    return snapshotReader.read();
+                } catch (PersistenceException e) {
+                    LOGGER.log(Level.WARNING, "Rebuilding unreadable snapshot " + snapshotPath, e);
+                }
+            }
+
+            OffHeapAddressBookRepository.Builder repositoryBuilder = new OffHeapAddressBookRepository.Builder();
+            new MappedCsvAddressBookReader(csvFilePath).read(repositoryBuilder);
+            OffHeapAddressBookRepository repository = repositoryBuilder.build();
+
+            try {
+                new AddressBookSnapshotWriter(snapshotPath).write(repository, csvFileSize, csvFileLastModified);
+            } catch (PersistenceException e) {
+                LOGGER.log(Level.WARNING, "Could not write snapshot " + snapshotPath, e);
+            }
+
+            return repository;
+        } catch (IOException e) {
+            throw new PersistenceException(e);
+        }
+    }
+
+    public static MutableAddressBookRepository newMutableCsvFileInstance(Path csvFilePath) {
+        Objects.requireNonNull(csvFilePath, "csvFilePath cannot be null");
+
+        if (!Files.isRegularFile(csvFilePath)) {
+            throw new IllegalArgumentException("Address book file does not exist");
+        }
+
+        ConcurrentAddressBookRepository.Builder repositoryBuilder = new ConcurrentAddressBookRepository.Builder();
+        new MappedCsvAddressBookReader(csvFilePath).read(repositoryBuilder);
+
+        return repositoryBuilder.build();
+    }
+
+    /**
+     * Loads the Csv file and replays the change log on top of it, creating the log when it does not exist. Every
+     * write to the repository is recorded in the log before it returns.
+     */
+    public static DurableAddressBookRepository newDurableCsvFileInstance(Path csvFilePath, Path changeLogPath) {
+        Objects.requireNonNull(csvFilePath, "csvFilePath cannot be null");
+
+        if (!Files.isRegularFile(csvFilePath)) {
+            throw new IllegalArgumentException("Address book file does not exist");
+        }
+
+        return newDurableInstance(changeLogPath, builder -> new MappedCsvAddressBookReader(csvFilePath).read(builder));
+    }
+
+    /**
+     * Replays the change log on top of the contacts of another repository, such as one restored from a snapshot.
+     */
+    public static DurableAddressBookRepository newDurableInstance(AddressBookRepository addressBookRepository,
+                                                                  Path changeLogPath) {
+        Objects.requireNonNull(addressBookRepository, "addressBookRepository cannot be null");
+
+        return newDurableInstance(changeLogPath, builder -> addressBookRepository.findAll().forEachOrdered(builder));
+    }
+
+    private static DurableAddressBookRepository newDurableInstance(
+            Path changeLogPath, Consumer<ConcurrentAddressBookRepository.Builder> loadBase) {
+        Objects.requireNonNull(changeLogPath, "changeLogPath cannot be null");
+
+        ConcurrentAddressBookRepository.Builder repositoryBuilder = new ConcurrentAddressBookRepository.Builder();
+        ContactChangeLog changeLog = new ContactChangeLog(changeLogPath);
+        try {
+            changeLog.replay(repositoryBuilder, () -> loadBase.accept(repositoryBuilder));
+        } catch (RuntimeException e) {
+            changeLog.close();
+            throw e;
+        }
+
+        return new DurableAddressBookRepository(repositoryBuilder.build(), changeLog,
+                DurableAddressBookRepository.DEFAULT_COMPACTION_THRESHOLD);
+    }
+
+    /**
+     * Loads the Csv file into a repository that follows later changes to the file, see
+     * {@link CsvAddressBookReloader#start(java.time.Duration)}.
+     */
+    public static CsvAddressBookReloader newReloadingCsvFileInstance(Path csvFilePath) {
+        Objects.requireNonNull(csvFilePath, "csvFilePath cannot be null");
+
+        if (!Files.isRegularFile(csvFilePath)) {
+            throw new IllegalArgumentException("Address book file does not exist");
+        }
+
+        return new CsvAddressBookReloader(csvFilePath);
+    }
+
+    public static CachingAddressBookRepository newCachingInstance(AddressBookRepository addressBookRepository,
+                                                                  int maximumCacheSize) {
+        return new CachingAddressBookRepository(addressBookRepository, maximumCacheSize);
+    }
+
+    public static InstrumentedAddressBookRepository newInstrumentedInstance(
+            AddressBookRepository addressBookRepository, Metrics metrics) {
+        return new InstrumentedAddressBookRepository(addressBookRepository, metrics);
+    }
+
+    /**
+     * Loads the Csv file into a repository that scans the contacts for every query, in parallel on the pool once
+     * the address book holds at least {@code parallelThreshold} contacts.
+     */
+    public static AddressBookRepository newScanningCsvFileInstance(Path csvFilePath, ForkJoinPool forkJoinPool,
+                                                                   int parallelThreshold) {
+        Objects.requireNonNull(csvFilePath, "csvFilePath cannot be null");
+        Objects.requireNonNull(forkJoinPool, "forkJoinPool cannot be null");
+
+        if (!Files.isRegularFile(csvFilePath)) {
+            throw new IllegalArgumentException("Address book file does not exist");
+        }
+
+        List<Contact> contacts = new MappedCsvAddressBookReader(csvFilePath).read();
+
+        return new InMemoryAddressBookRepository(contacts, forkJoinPool, parallelThreshold);
+    }
+
+    /**
+     * Loads the Csv file into {@code numberOfShards} shards of the given layout, partitioned by full name. Queries
+     * that are not by full name run on every shard at once on the pool.
+     */
+    public static ShardedAddressBookRepository newShardedCsvFileInstance(Path csvFilePath, int numberOfShards,
+                                                                         StorageLayout storageLayout,
+                                                                         ForkJoinPool forkJoinPool) {
+        Objects.requireNonNull(csvFilePath, "csvFilePath cannot be null");
+
+        if (!Files.isRegularFile(csvFilePath)) {
+            throw new IllegalArgumentException("Address book file does not exist");
+        }
+
+        ShardedAddressBookRepository.Builder repositoryBuilder =
+                new ShardedAddressBookRepository.Builder(numberOfShards, storageLayout, forkJoinPool);
+        new MappedCsvAddressBookReader(csvFilePath).read(repositoryBuilder);
+
+        return repositoryBuilder.build();
+    }
+
+    public static AddressBookRepository newParallelCsvInstance(Path csvFilePath) {
+        return newParallelCsvInstance(csvFilePath, ForkJoinPool.commonPool());
+    }
+
+    public static AddressBookRepository newParallelCsvInstance(Path csvFilePath, ForkJoinPool forkJoinPool) {
+        return newParallelCsvInstance(csvFilePath, forkJoinPool, Metrics.disabled());
+    }
+
+    /**
+     * Records how long each phase of the load takes, like {@link #newCsvInstance(String, Metrics)}; parsing and
+     * mapping add up the time of every thread.
+     */
+    public static AddressBookRepository newParallelCsvInstance(Path csvFilePath, ForkJoinPool forkJoinPool,
+                                                               Metrics metrics) {
+        return newParallelCsvInstance(csvFilePath, forkJoinPool, new DateOfBirthParser(), metrics);
+    }
+
+    /**
+     * Reads two digit years like {@link #newCsvInstance(String, int)}.
+     */
+    public static AddressBookRepository newParallelCsvInstance(Path csvFilePath, ForkJoinPool forkJoinPool,
+                                                               int twoDigitYearStart) {
+        return newParallelCsvInstance(csvFilePath, forkJoinPool, new DateOfBirthParser(twoDigitYearStart),
+                Metrics.disabled());
+    }
+
+    private static AddressBookRepository newParallelCsvInstance(Path csvFilePath, ForkJoinPool forkJoinPool,
+                                                                DateOfBirthParser dateOfBirthParser,
+                                                                Metrics metrics) {
+        Objects.requireNonNull(csvFilePath, "csvFilePath cannot be null");
+        Objects.requireNonNull(forkJoinPool, "forkJoinPool cannot be null");
+        Objects.requireNonNull(metrics, "metrics cannot be null");
+
+        if (!Files.isRegularFile(csvFilePath)) {
+            throw new IllegalArgumentException("Address book file does not exist");
+        }
+
+        ParallelCsvAddressBookReader csvAddressBookReader = new ParallelCsvAddressBookReader(csvFilePath, forkJoinPool,
+                ParallelCsvAddressBookReader.DEFAULT_MINIMUM_CHUNK_SIZE, dateOfBirthParser, metrics);
+
+        IndexedAddressBookRepository.Builder repositoryBuilder = new IndexedAddressBookRepository.Builder();
+        csvAddressBookReader.read(repositoryBuilder);
 
-        return new InMemoryAddressBookRepository(csvAddressBookReader.read());
+        return repositoryBuilder.build();
     }
 }
@@ -0,0 +1,48 @@
+package gumtree.addressbook.persistence;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.zip.CRC32;
+
+import gumtree.addressbook.domain.Gender;
+
+/**
+ * Binary snapshot layout shared by {@link AddressBookSnapshotWriter} and {@link AddressBookSnapshotReader}.
+ * <p>
+ * A little endian header holds the magic number, the format version, the size and last modified time of the Csv
+ * file the snapshot was built from, the gender counts, the length of each {@link OffHeapAddressBookRepository}
+ * section and the CRC-32 of the sections. The sections follow, each starting on an 8 byte boundary, byte for byte as
+ * they are laid out in memory.
+ */
+final class AddressBookSnapshotFormat {
+    static final long MAGIC = 0x3130_4b4f_4f42_5341L;
+    static final int VERSION = 3;
+    static final int NUMBER_OF_GENDERS = Gender.values().length;
+    static final int HEADER_SIZE = align(Long.BYTES + Integer.BYTES + 2 * Long.BYTES + NUMBER_OF_GENDERS * Integer.BYTES
+            + OffHeapAddressBookRepository.NUMBER_OF_SECTIONS * Long.BYTES + Integer.BYTES);
+
+    private AddressBookSnapshotFormat() {}
+
+    static ByteBuffer newHeaderBuffer() {
+        return ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * The CRC-32 of the remaining bytes of every section, in order. Leaves the positions of the sections unchanged.
+     */
+    static int checksum(ByteBuffer[] sections) {
+        CRC32 crc = new CRC32();
+        for (ByteBuffer section : sections) {
+            crc.update(section.duplicate());
+        }
+        return (int) crc.getValue();
+    }
+
+    static long align(long position) {
+        return (position + 7) & ~7L;
+    }
+
+    private static int align(int position) {
+        return (position + 7) & ~7;
+    }
+}
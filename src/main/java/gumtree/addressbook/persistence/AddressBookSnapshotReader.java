@@ -0,0 +1,94 @@
+package gumtree.addressbook.persistence;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+
+import static gumtree.addressbook.persistence.AddressBookSnapshotFormat.HEADER_SIZE;
+import static gumtree.addressbook.persistence.AddressBookSnapshotFormat.MAGIC;
+import static gumtree.addressbook.persistence.AddressBookSnapshotFormat.NUMBER_OF_GENDERS;
+import static gumtree.addressbook.persistence.AddressBookSnapshotFormat.VERSION;
+import static gumtree.addressbook.persistence.AddressBookSnapshotFormat.align;
+
+final class AddressBookSnapshotReader {
+
+    private final Path snapshotPath;
+
+    AddressBookSnapshotReader(Path snapshotPath) {
+        this.snapshotPath = Objects.requireNonNull(snapshotPath, "snapshotPath cannot be null");
+    }
+
+    /**
+     * @return whether the snapshot exists, has the current format and was built from a Csv file of the given size
+     * and last modified time
+     */
+    boolean isUpToDate(long csvFileSize, long csvFileLastModified) {
+        try (FileChannel channel = FileChannel.open(snapshotPath, StandardOpenOption.READ)) {
+            ByteBuffer header = readHeader(channel);
+            return header.getLong() == csvFileSize && header.getLong() == csvFileLastModified;
+        } catch (NoSuchFileException | PersistenceException e) {
+            return false;
+        } catch (IOException e) {
+            throw new PersistenceException(e);
+        }
+    }
+
+    /**
+     * Maps every section of the snapshot read only; nothing is copied onto the heap. The sections are read once to
+     * verify their checksum, which also brings them into the page cache.
+     */
+    OffHeapAddressBookRepository read() {
+        try (FileChannel channel = FileChannel.open(snapshotPath, StandardOpenOption.READ)) {
+            ByteBuffer header = readHeader(channel);
+            header.position(header.position() + 2 * Long.BYTES);
+
+            int[] genderCounts = new int[NUMBER_OF_GENDERS];
+            for (int i = 0; i < genderCounts.length; i++) {
+                genderCounts[i] = header.getInt();
+            }
+
+            ByteBuffer[] sections = new ByteBuffer[OffHeapAddressBookRepository.NUMBER_OF_SECTIONS];
+            long position = HEADER_SIZE;
+            for (int i = 0; i < sections.length; i++) {
+                long sectionSize = header.getLong();
+                if (sectionSize < 0 || sectionSize > Integer.MAX_VALUE || position + sectionSize > channel.size()) {
+                    throw corrupted();
+                }
+                sections[i] = channel.map(FileChannel.MapMode.READ_ONLY, position, sectionSize);
+                position = align(position + sectionSize);
+            }
+            if (header.getInt() != AddressBookSnapshotFormat.checksum(sections)) {
+                throw corrupted();
+            }
+
+            return new OffHeapAddressBookRepository(genderCounts, sections);
+        } catch (IllegalArgumentException e) {
+            throw corrupted();
+        } catch (IOException e) {
+            throw new PersistenceException(e);
+        }
+    }
+
+    private ByteBuffer readHeader(FileChannel channel) throws IOException {
+        ByteBuffer header = AddressBookSnapshotFormat.newHeaderBuffer();
+        while (header.hasRemaining()) {
+            if (channel.read(header, header.position()) < 0) {
+                throw corrupted();
+            }
+        }
+        header.flip();
+
+        if (header.getLong() != MAGIC || header.getInt() != VERSION) {
+            throw corrupted();
+        }
+        return header;
+    }
+
+    private PersistenceException corrupted() {
+        return new PersistenceException(new IOException(snapshotPath + " is not a valid address book snapshot"));
+    }
+}
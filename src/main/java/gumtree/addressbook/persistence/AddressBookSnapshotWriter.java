@@ -0,0 +1,78 @@
+package gumtree.addressbook.persistence;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+
+import static gumtree.addressbook.persistence.AddressBookSnapshotFormat.HEADER_SIZE;
+import static gumtree.addressbook.persistence.AddressBookSnapshotFormat.MAGIC;
+import static gumtree.addressbook.persistence.AddressBookSnapshotFormat.VERSION;
+import static gumtree.addressbook.persistence.AddressBookSnapshotFormat.align;
+
+final class AddressBookSnapshotWriter {
+
+    private final Path snapshotPath;
+
+    AddressBookSnapshotWriter(Path snapshotPath) {
+        this.snapshotPath = Objects.requireNonNull(snapshotPath, "snapshotPath cannot be null");
+    }
+
+    /**
+     * Writes the snapshot next to its final location first and then moves it into place, so readers never see a
+     * partially written snapshot. {@code csvFileLastModified} is compared as is by the reader, in whatever unit the
+     * caller chooses.
+     */
+    void write(OffHeapAddressBookRepository repository, long csvFileSize, long csvFileLastModified) {
+        Objects.requireNonNull(repository, "repository cannot be null");
+
+        ByteBuffer[] sections = repository.sections();
+        ByteBuffer header = AddressBookSnapshotFormat.newHeaderBuffer()
+                .putLong(MAGIC)
+                .putInt(VERSION)
+                .putLong(csvFileSize)
+                .putLong(csvFileLastModified);
+        for (int genderCount : repository.genderCounts()) {
+            header.putInt(genderCount);
+        }
+        for (ByteBuffer section : sections) {
+            header.putLong(section.remaining());
+        }
+        header.putInt(AddressBookSnapshotFormat.checksum(sections));
+        header.clear();
+
+        Path temporarySnapshotPath = snapshotPath.resolveSibling(snapshotPath.getFileName() + ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temporarySnapshotPath, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                writeFully(channel, header, 0);
+                long position = HEADER_SIZE;
+                for (ByteBuffer section : sections) {
+                    long sectionSize = section.remaining();
+                    writeFully(channel, section, position);
+                    position = align(position + sectionSize);
+                }
+                channel.force(true);
+            }
+            Files.move(temporarySnapshotPath, snapshotPath, StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            try {
+                Files.deleteIfExists(temporarySnapshotPath);
+            } catch (IOException suppressed) {
+                e.addSuppressed(suppressed);
+            }
+            throw new PersistenceException(e);
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+}
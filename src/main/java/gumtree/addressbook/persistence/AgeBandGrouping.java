@@ -0,0 +1,44 @@
+package gumtree.addressbook.persistence;
+
+import java.time.LocalDate;
+import java.time.Period;
+import java.util.Objects;
+
+import gumtree.addressbook.domain.Gender;
+
+/**
+ * The grouping of {@link ContactGrouping#ageBands(LocalDate, int)}. Groupings with the same date and band width are
+ * equal, so a cache keyed on the grouping answers a repeated histogram.
+ */
+final class AgeBandGrouping implements ContactGrouping<Integer> {
+    private final LocalDate on;
+    private final int yearsPerBand;
+
+    AgeBandGrouping(LocalDate on, int yearsPerBand) {
+        this.on = Objects.requireNonNull(on, "on cannot be null");
+        if (yearsPerBand < 1) {
+            throw new IllegalArgumentException("yearsPerBand must be positive");
+        }
+
+        this.yearsPerBand = yearsPerBand;
+    }
+
+    @Override
+    public Integer groupOf(Gender gender, LocalDate dateOfBirth) {
+        int age = Period.between(dateOfBirth, on).getYears();
+        return Math.floorDiv(age, yearsPerBand) * yearsPerBand;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) return true;
+        if (other == null || getClass() != other.getClass()) return false;
+        AgeBandGrouping grouping = (AgeBandGrouping) other;
+        return yearsPerBand == grouping.yearsPerBand && on.equals(grouping.on);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(on, yearsPerBand);
+    }
+}
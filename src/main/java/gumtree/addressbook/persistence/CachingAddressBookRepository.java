@@ -0,0 +1,199 @@
+package gumtree.addressbook.persistence;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.SortedMap;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import gumtree.addressbook.domain.Contact;
+import gumtree.addressbook.domain.Gender;
+
+/**
+ * Remembers the results of the most recently used queries of another repository, evicting the least recently used
+ * one beyond a maximum number of results. When the repository is a {@link MutableAddressBookRepository}, every
+ * result is dropped as soon as a write takes effect.
+ * <p>
+ * Queries are run outside the cache's lock, so two threads missing on the same query may both run it.
+ */
+public final class CachingAddressBookRepository implements AddressBookRepository {
+
+    private final AddressBookRepository addressBookRepository;
+    private final int maximumSize;
+    private final Object lock = new Object();
+    private final Map<List<Object>, Object> results;
+
+    private long cachedVersion;
+    private long hitCount;
+    private long missCount;
+    private long evictionCount;
+
+    CachingAddressBookRepository(AddressBookRepository addressBookRepository, int maximumSize) {
+        Objects.requireNonNull(addressBookRepository, "addressBookRepository cannot be null");
+        if (maximumSize < 1) {
+            throw new IllegalArgumentException("maximumSize must be positive");
+        }
+
+        this.addressBookRepository = addressBookRepository;
+        this.maximumSize = maximumSize;
+        this.cachedVersion = currentVersion();
+        this.results = new LinkedHashMap<List<Object>, Object>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<List<Object>, Object> eldest) {
+                if (size() > CachingAddressBookRepository.this.maximumSize) {
+                    evictionCount++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Not cached; every call reads the repository.
+     */
+    @Override
+    public Stream<Contact> findAll() {
+        return addressBookRepository.findAll();
+    }
+
+    @Override
+    public int countByGender(Gender gender) {
+        return cached(key("countByGender", gender), () -> addressBookRepository.countByGender(gender));
+    }
+
+    @Override
+    public Optional<Contact> findByFullName(String fullName) {
+        return cached(key("findByFullName", fullName), () -> addressBookRepository.findByFullName(fullName));
+    }
+
+    @Override
+    public List<Contact> findAllByFullName(String fullName) {
+        return cachedList(key("findAllByFullName", fullName), () -> addressBookRepository.findAllByFullName(fullName));
+    }
+
+    @Override
+    public List<Contact> findByFullNamePrefix(String prefix, int offset, int limit) {
+        return cachedList(key("findByFullNamePrefix", prefix, offset, limit),
+                () -> addressBookRepository.findByFullNamePrefix(prefix, offset, limit));
+    }
+
+    @Override
+    public List<Contact> findByFullNameSimilarTo(String fullName, int maxDistance, int limit) {
+        return cachedList(key("findByFullNameSimilarTo", fullName, maxDistance, limit),
+                () -> addressBookRepository.findByFullNameSimilarTo(fullName, maxDistance, limit));
+    }
+
+    /**
+     * Cached per grouping instance, so callers should reuse their groupings, e.g. {@link ContactGrouping#GENDER}.
+     */
+    @Override
+    public <K extends Comparable<? super K>> SortedMap<K, ContactStatistics> aggregate(ContactGrouping<K> grouping) {
+        // Callers share the cached map, so none of them may change it.
+        return cached(key("aggregate", grouping),
+                () -> Collections.unmodifiableSortedMap(addressBookRepository.aggregate(grouping)));
+    }
+
+    @Override
+    public Optional<LocalDate> findEarliestDateOfBirth() {
+        return cached(key("findEarliestDateOfBirth"), addressBookRepository::findEarliestDateOfBirth);
+    }
+
+    @Override
+    public List<Contact> findByDateOfBirth(LocalDate dateOfBirth) {
+        return cachedList(key("findByDateOfBirth", dateOfBirth),
+                () -> addressBookRepository.findByDateOfBirth(dateOfBirth));
+    }
+
+    @Override
+    public Optional<LocalDate> findLatestDateOfBirth() {
+        return cached(key("findLatestDateOfBirth"), addressBookRepository::findLatestDateOfBirth);
+    }
+
+    @Override
+    public List<Contact> findByDateOfBirthBetween(LocalDate from, LocalDate to) {
+        return cachedList(key("findByDateOfBirthBetween", from, to),
+                () -> addressBookRepository.findByDateOfBirthBetween(from, to));
+    }
+
+    /**
+     * Streams from the underlying repository; only materialised results are cached.
+     */
+    @Override
+    public Stream<Contact> streamByDateOfBirthBetween(LocalDate from, LocalDate to) {
+        return addressBookRepository.streamByDateOfBirthBetween(from, to);
+    }
+
+    @Override
+    public List<Contact> findOldest(int limit) {
+        return cachedList(key("findOldest", limit), () -> addressBookRepository.findOldest(limit));
+    }
+
+    @Override
+    public List<Contact> findYoungest(int limit) {
+        return cachedList(key("findYoungest", limit), () -> addressBookRepository.findYoungest(limit));
+    }
+
+    public CacheStatistics getStatistics() {
+        synchronized (lock) {
+            return new CacheStatistics(hitCount, missCount, evictionCount, results.size());
+        }
+    }
+
+    public void invalidateAll() {
+        synchronized (lock) {
+            results.clear();
+        }
+    }
+
+    private static List<Object> key(String query, Object... arguments) {
+        Object[] key = new Object[arguments.length + 1];
+        key[0] = query;
+        System.arraycopy(arguments, 0, key, 1, arguments.length);
+        return Arrays.asList(key);
+    }
+
+    private List<Contact> cachedList(List<Object> key, Supplier<List<Contact>> query) {
+        // Callers share the cached list, so none of them may change it.
+        return cached(key, () -> Collections.unmodifiableList(query.get()));
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T cached(List<Object> key, Supplier<T> query) {
+        long version = currentVersion();
+        synchronized (lock) {
+            if (version != cachedVersion) {
+                results.clear();
+                cachedVersion = version;
+            }
+            Object result = results.get(key);
+            if (result != null) {
+                hitCount++;
+                return (T) result;
+            }
+            missCount++;
+        }
+
+        T result = query.get();
+
+        synchronized (lock) {
+            // A write during the query leaves the result under the old version, so the next lookup drops it.
+            if (version == cachedVersion) {
+                results.put(key, result);
+            }
+        }
+        return result;
+    }
+
+    private long currentVersion() {
+        return addressBookRepository instanceof MutableAddressBookRepository
+                ? ((MutableAddressBookRepository) addressBookRepository).getVersion()
+                : 0;
+    }
+}
@@ -0,0 +1,392 @@
+package gumtree.addressbook.persistence;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.SortedMap;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import gumtree.addressbook.domain.Contact;
+import gumtree.addressbook.domain.Gender;
+
+/**
+ * Keeps each column of the address book in a primitive array: full names in a single arena with offsets, compressed
+ * by a {@link FullNameDictionary} of their repeated tokens, genders as ordinals and dates of birth as epoch days. On
+ * top of them sit an open addressing hash index on full name and the rows sorted by date of birth. {@link Contact}
+ * instances are only created for query results. The {@link FullNameIndex} for full name searches holds rows, not
+ * names, and is only built on the first search.
+ */
+public final class ColumnarAddressBookRepository implements AddressBookRepository {
+    private static final Gender[] GENDERS = Gender.values();
+    private static final int MAXIMUM_ARRAY_LENGTH = Integer.MAX_VALUE - 8;
+    private static final int MAXIMUM_NUMBER_OF_CONTACTS = 1 << 29;
+
+    private final int numberOfContacts;
+    private final FullNameDictionary fullNameDictionary;
+    private final byte[] fullNames;
+    private final int[] fullNameOffsets;
+    private final byte[] genders;
+    private final int[] datesOfBirth;
+    private final int[] genderCounts;
+    private final int[] fullNameIndex;
+    private final int[] nextRowsWithSameFullName;
+    private final int[] rowsByDateOfBirth;
+    private volatile FullNameIndex fullNameSearchIndex;
+
+    ColumnarAddressBookRepository(List<Contact> contacts) {
+        this(build(contacts));
+    }
+
+    private ColumnarAddressBookRepository(Builder builder) {
+        numberOfContacts = builder.numberOfContacts;
+        fullNameDictionary = FullNameDictionary.build(builder.fullNames, builder.fullNameOffsets, numberOfContacts);
+        fullNameOffsets = new int[numberOfContacts + 1];
+        fullNames = encodeFullNames(builder);
+        genders = Arrays.copyOf(builder.genders, numberOfContacts);
+        datesOfBirth = Arrays.copyOf(builder.datesOfBirth, numberOfContacts);
+        genderCounts = builder.genderCounts.clone();
+        nextRowsWithSameFullName = new int[numberOfContacts];
+        fullNameIndex = indexFullNames();
+        rowsByDateOfBirth = sortRowsByDateOfBirth();
+    }
+
+    private static Builder build(List<Contact> contacts) {
+        Objects.requireNonNull(contacts, "contacts cannot be null");
+
+        Builder builder = new Builder();
+        contacts.forEach(builder);
+        return builder;
+    }
+
+    @Override
+    public Stream<Contact> findAll() {
+        return IntStream.range(0, numberOfContacts).mapToObj(this::toContact);
+    }
+
+    @Override
+    public int countByGender(Gender gender) {
+        Objects.requireNonNull(gender, "gender cannot be null");
+
+        return genderCounts[gender.ordinal()];
+    }
+
+    @Override
+    public Optional<Contact> findByFullName(String fullName) {
+        Objects.requireNonNull(fullName, "fullName cannot be null");
+
+        int row = firstRowWithFullName(fullName);
+        return row < 0 ? Optional.empty() : Optional.of(toContact(row));
+    }
+
+    @Override
+    public List<Contact> findAllByFullName(String fullName) {
+        Objects.requireNonNull(fullName, "fullName cannot be null");
+
+        List<Contact> contacts = new ArrayList<>(1);
+        for (int row = firstRowWithFullName(fullName); row >= 0; row = nextRowsWithSameFullName[row] - 1) {
+            contacts.add(toContact(row));
+        }
+        return contacts;
+    }
+
+    @Override
+    public List<Contact> findByFullNamePrefix(String prefix, int offset, int limit) {
+        FullNameSearches.validatePrefixSearch(prefix, offset, limit);
+
+        return toContacts(fullNameSearchIndex().findByPrefix(prefix, offset, limit));
+    }
+
+    @Override
+    public List<Contact> findByFullNameSimilarTo(String fullName, int maxDistance, int limit) {
+        FullNameSearches.validateSimilaritySearch(fullName, maxDistance, limit);
+
+        return toContacts(fullNameSearchIndex().findSimilar(fullName, maxDistance, limit));
+    }
+
+    @Override
+    public <K extends Comparable<? super K>> SortedMap<K, ContactStatistics> aggregate(ContactGrouping<K> grouping) {
+        ContactAggregator<K> aggregator = new ContactAggregator<>(grouping);
+        for (int row : rowsByDateOfBirth) {
+            aggregator.accept(GENDERS[genders[row]], datesOfBirth[row]);
+        }
+        return aggregator.result();
+    }
+
+    @Override
+    public Optional<LocalDate> findEarliestDateOfBirth() {
+        return numberOfContacts == 0
+                ? Optional.empty()
+                : Optional.of(LocalDate.ofEpochDay(datesOfBirth[rowsByDateOfBirth[0]]));
+    }
+
+    @Override
+    public List<Contact> findByDateOfBirth(LocalDate dateOfBirth) {
+        Objects.requireNonNull(dateOfBirth, "dateOfBirth cannot be null");
+
+        long epochDay = dateOfBirth.toEpochDay();
+        return toContacts(firstPositionBornOnOrAfter(epochDay), firstPositionBornOnOrAfter(epochDay + 1));
+    }
+
+    @Override
+    public Optional<LocalDate> findLatestDateOfBirth() {
+        return numberOfContacts == 0
+                ? Optional.empty()
+                : Optional.of(LocalDate.ofEpochDay(datesOfBirth[rowsByDateOfBirth[numberOfContacts - 1]]));
+    }
+
+    @Override
+    public List<Contact> findByDateOfBirthBetween(LocalDate from, LocalDate to) {
+        DateOfBirthRanges.validate(from, to);
+
+        return toContacts(firstPositionBornOnOrAfter(from.toEpochDay()),
+                firstPositionBornOnOrAfter(to.toEpochDay() + 1));
+    }
+
+    @Override
+    public Stream<Contact> streamByDateOfBirthBetween(LocalDate from, LocalDate to) {
+        DateOfBirthRanges.validate(from, to);
+
+        return IntStream.range(firstPositionBornOnOrAfter(from.toEpochDay()),
+                firstPositionBornOnOrAfter(to.toEpochDay() + 1))
+                .mapToObj(position -> toContact(rowsByDateOfBirth[position]));
+    }
+
+    @Override
+    public List<Contact> findOldest(int limit) {
+        DateOfBirthRanges.validate(limit);
+
+        return toContacts(0, Math.min(limit, numberOfContacts));
+    }
+
+    @Override
+    public List<Contact> findYoungest(int limit) {
+        DateOfBirthRanges.validate(limit);
+
+        List<Contact> contacts = new ArrayList<>(Math.min(limit, numberOfContacts));
+        int groupEnd = numberOfContacts;
+        while (groupEnd > 0 && contacts.size() < limit) {
+            int groupStart = firstPositionBornOnOrAfter(datesOfBirth[rowsByDateOfBirth[groupEnd - 1]]);
+            for (int position = groupStart; position < groupEnd && contacts.size() < limit; position++) {
+                contacts.add(toContact(rowsByDateOfBirth[position]));
+            }
+            groupEnd = groupStart;
+        }
+        return contacts;
+    }
+
+    private int firstPositionBornOnOrAfter(long epochDay) {
+        int low = 0;
+        int high = numberOfContacts;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (datesOfBirth[rowsByDateOfBirth[middle]] < epochDay) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private List<Contact> toContacts(int fromPosition, int toPosition) {
+        List<Contact> contacts = new ArrayList<>(toPosition - fromPosition);
+        for (int position = fromPosition; position < toPosition; position++) {
+            contacts.add(toContact(rowsByDateOfBirth[position]));
+        }
+        return contacts;
+    }
+
+    private List<Contact> toContacts(int[] rows) {
+        List<Contact> contacts = new ArrayList<>(rows.length);
+        for (int row : rows) {
+            contacts.add(toContact(row));
+        }
+        return contacts;
+    }
+
+    private Contact toContact(int row) {
+        return new Contact(fullName(row), GENDERS[genders[row]], LocalDate.ofEpochDay(datesOfBirth[row]));
+    }
+
+    private String fullName(int row) {
+        return fullNameDictionary.decode(fullNames, fullNameOffsets[row], fullNameOffsets[row + 1]);
+    }
+
+    private FullNameIndex fullNameSearchIndex() {
+        FullNameIndex index = fullNameSearchIndex;
+        if (index == null) {
+            synchronized (this) {
+                index = fullNameSearchIndex;
+                if (index == null) {
+                    index = new FullNameIndex(numberOfContacts, this::fullName);
+                    fullNameSearchIndex = index;
+                }
+            }
+        }
+        return index;
+    }
+
+    private int firstRowWithFullName(String fullName) {
+        byte[] utf8FullName = fullName.getBytes(StandardCharsets.UTF_8);
+        byte[] encodedFullName = new byte[FullNameDictionary.maximumEncodedLength(utf8FullName.length)];
+        int encodedLength = fullNameDictionary.encode(utf8FullName, 0, utf8FullName.length, encodedFullName, 0);
+
+        int mask = fullNameIndex.length - 1;
+        int slot = FullNameHashing.hash(encodedFullName, 0, encodedLength) & mask;
+        while (fullNameIndex[slot] != FullNameHashing.EMPTY_SLOT) {
+            int row = fullNameIndex[slot] - 1;
+            if (hasFullName(row, encodedFullName, encodedLength)) {
+                return row;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private boolean hasFullName(int row, byte[] encodedFullName, int encodedLength) {
+        int offset = fullNameOffsets[row];
+        int length = fullNameOffsets[row + 1] - offset;
+        if (length != encodedLength) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (fullNames[offset + i] != encodedFullName[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean haveSameFullName(int row, int otherRow) {
+        int offset = fullNameOffsets[row];
+        int otherOffset = fullNameOffsets[otherRow];
+        int length = fullNameOffsets[row + 1] - offset;
+        if (length != fullNameOffsets[otherRow + 1] - otherOffset) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (fullNames[offset + i] != fullNames[otherOffset + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Encodes the UTF-8 full names read by the builder with the dictionary, filling in {@link #fullNameOffsets}.
+     */
+    private byte[] encodeFullNames(Builder builder) {
+        long encodedLength = 0;
+        for (int row = 0; row < numberOfContacts; row++) {
+            encodedLength += fullNameDictionary.encodedLength(builder.fullNames, builder.fullNameOffsets[row],
+                    builder.fullNameOffsets[row + 1]);
+        }
+        if (encodedLength > MAXIMUM_ARRAY_LENGTH) {
+            throw new IllegalStateException("Full names do not fit in a columnar repository");
+        }
+
+        byte[] encodedFullNames = new byte[(int) encodedLength];
+        for (int row = 0; row < numberOfContacts; row++) {
+            fullNameOffsets[row + 1] = fullNameDictionary.encode(builder.fullNames, builder.fullNameOffsets[row],
+                    builder.fullNameOffsets[row + 1], encodedFullNames, fullNameOffsets[row]);
+        }
+        return encodedFullNames;
+    }
+
+    /**
+     * Indexes the first row of every full name and chains the rows sharing it, in load order, through
+     * {@link #nextRowsWithSameFullName}.
+     */
+    private int[] indexFullNames() {
+        int[] index = new int[FullNameHashing.tableSize(numberOfContacts)];
+        int[] lastRows = new int[index.length];
+        int mask = index.length - 1;
+        for (int row = 0; row < numberOfContacts; row++) {
+            int slot = FullNameHashing.hash(fullNames, fullNameOffsets[row], fullNameOffsets[row + 1]) & mask;
+            while (index[slot] != FullNameHashing.EMPTY_SLOT && !haveSameFullName(index[slot] - 1, row)) {
+                slot = (slot + 1) & mask;
+            }
+            if (index[slot] == FullNameHashing.EMPTY_SLOT) {
+                index[slot] = row + 1;
+            } else {
+                nextRowsWithSameFullName[lastRows[slot] - 1] = row + 1;
+            }
+            lastRows[slot] = row + 1;
+        }
+        return index;
+    }
+
+    private int[] sortRowsByDateOfBirth() {
+        long[] dateOfBirthAndRow = new long[numberOfContacts];
+        for (int row = 0; row < numberOfContacts; row++) {
+            dateOfBirthAndRow[row] = ((long) datesOfBirth[row] << 32) | row;
+        }
+        Arrays.parallelSort(dateOfBirthAndRow);
+
+        int[] rows = new int[numberOfContacts];
+        for (int position = 0; position < numberOfContacts; position++) {
+            rows[position] = (int) dateOfBirthAndRow[position];
+        }
+        return rows;
+    }
+
+    static final class Builder implements AddressBookRepositoryBuilder {
+        private int numberOfContacts;
+        private byte[] fullNames = new byte[1024];
+        private int fullNamesLength;
+        private int[] fullNameOffsets = new int[17];
+        private byte[] genders = new byte[16];
+        private int[] datesOfBirth = new int[16];
+        private final int[] genderCounts = new int[GENDERS.length];
+        private boolean built;
+
+        @Override
+        public void accept(Contact contact) {
+            Objects.requireNonNull(contact, "contact cannot be null");
+            if (built) {
+                throw new IllegalStateException("Repository has already been built");
+            }
+            if (numberOfContacts == MAXIMUM_NUMBER_OF_CONTACTS) {
+                throw new IllegalStateException("Too many contacts for a columnar repository");
+            }
+
+            byte[] encodedFullName = contact.getFullName().getBytes(StandardCharsets.UTF_8);
+            if ((long) fullNamesLength + encodedFullName.length > MAXIMUM_ARRAY_LENGTH) {
+                throw new IllegalStateException("Full names do not fit in a columnar repository");
+            }
+            if (numberOfContacts == genders.length) {
+                int capacity = grow(genders.length);
+                genders = Arrays.copyOf(genders, capacity);
+                datesOfBirth = Arrays.copyOf(datesOfBirth, capacity);
+                fullNameOffsets = Arrays.copyOf(fullNameOffsets, capacity + 1);
+            }
+            if (fullNamesLength + encodedFullName.length > fullNames.length) {
+                fullNames = Arrays.copyOf(fullNames,
+                        Math.max(fullNamesLength + encodedFullName.length, grow(fullNames.length)));
+            }
+
+            System.arraycopy(encodedFullName, 0, fullNames, fullNamesLength, encodedFullName.length);
+            fullNamesLength += encodedFullName.length;
+            fullNameOffsets[numberOfContacts + 1] = fullNamesLength;
+            genders[numberOfContacts] = (byte) contact.getGender().ordinal();
+            datesOfBirth[numberOfContacts] = Math.toIntExact(contact.getDateOfBirth().toEpochDay());
+            genderCounts[contact.getGender().ordinal()]++;
+            numberOfContacts++;
+        }
+
+        @Override
+        public ColumnarAddressBookRepository build() {
+            built = true;
+            return new ColumnarAddressBookRepository(this);
+        }
+
+        private static int grow(int capacity) {
+            return (int) Math.min(MAXIMUM_ARRAY_LENGTH, capacity * 2L);
+        }
+    }
+}
@@ -0,0 +1,609 @@
+package gumtree.addressbook.persistence;
+
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.SortedMap;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.ToIntFunction;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import gumtree.addressbook.domain.Contact;
+import gumtree.addressbook.domain.Gender;
+
+import static java.util.Comparator.naturalOrder;
+
+/**
+ * A mutable repository that is safe to share between threads. Every query reads a single immutable snapshot of the
+ * indexes, published through a volatile field. Readers never take a lock, and gender counts and date of birth
+ * indexes always agree with each other. Writers are serialised and never block readers.
+ * <p>
+ * The indexes are {@link PersistentTreeSet}s of the same entries, ordered by load order, by full name and by date of
+ * birth. A write builds the next snapshot by copying the O(log n) nodes on the path to each entry it touches and
+ * sharing the rest of the trees with the current snapshot, so it never copies the address book.
+ * <p>
+ * Similarity search reads a trigram {@link FullNameIndex} over the full names of an earlier snapshot, plus the full
+ * names added since. The first search builds it, and so does the first search once the names added since outgrow
+ * an eighth of it; writers wait for those builds.
+ */
+public final class ConcurrentAddressBookRepository implements MutableAddressBookRepository {
+
+    private static final Comparator<Entry> LOAD_ORDER = Comparator.comparingLong(entry -> entry.sequence);
+    private static final Comparator<Entry> FULL_NAME_ORDER =
+            Comparator.comparing((Entry entry) -> entry.contact.getFullName()).thenComparing(LOAD_ORDER);
+    private static final Comparator<Entry> DATE_OF_BIRTH_ORDER =
+            Comparator.comparing((Entry entry) -> entry.contact.getDateOfBirth()).thenComparing(LOAD_ORDER);
+
+    private final Object writeLock = new Object();
+    private final Deque<Snapshot> staged = new ArrayDeque<>();
+    private volatile Snapshot snapshot;
+
+    ConcurrentAddressBookRepository(List<Contact> contacts) {
+        this(build(contacts));
+    }
+
+    private ConcurrentAddressBookRepository(Snapshot snapshot) {
+        this.snapshot = snapshot;
+    }
+
+    private static Snapshot build(List<Contact> contacts) {
+        Objects.requireNonNull(contacts, "contacts cannot be null");
+
+        Builder builder = new Builder();
+        contacts.forEach(builder);
+        return builder.snapshot();
+    }
+
+    @Override
+    public Stream<Contact> findAll() {
+        return stream(snapshot.entriesInLoadOrder.iterator());
+    }
+
+    @Override
+    public int countByGender(Gender gender) {
+        Objects.requireNonNull(gender, "gender cannot be null");
+
+        return snapshot.genderCounts[gender.ordinal()];
+    }
+
+    @Override
+    public Optional<Contact> findByFullName(String fullName) {
+        Objects.requireNonNull(fullName, "fullName cannot be null");
+
+        return snapshot.find(fullName, 0).map(entry -> entry.contact);
+    }
+
+    @Override
+    public List<Contact> findAllByFullName(String fullName) {
+        Objects.requireNonNull(fullName, "fullName cannot be null");
+
+        return collect(snapshot.entriesByFullName.iterator(withFullName(fullName)), 0, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public List<Optional<Contact>> findByFullNames(List<String> fullNames) {
+        Objects.requireNonNull(fullNames, "fullNames cannot be null");
+
+        Snapshot current = snapshot;
+        List<Optional<Contact>> contacts = new ArrayList<>(fullNames.size());
+        for (String fullName : fullNames) {
+            Objects.requireNonNull(fullName, "fullName cannot be null");
+            contacts.add(current.find(fullName, 0).map(entry -> entry.contact));
+        }
+        return contacts;
+    }
+
+    /**
+     * Reads the contacts with the prefix straight from the full name index, which holds them in the order the
+     * search returns them.
+     */
+    @Override
+    public List<Contact> findByFullNamePrefix(String prefix, int offset, int limit) {
+        FullNameSearches.validatePrefixSearch(prefix, offset, limit);
+
+        Iterator<Entry> entries = snapshot.entriesByFullName.iterator(entry -> {
+            String fullName = entry.contact.getFullName();
+            return fullName.startsWith(prefix) ? 0 : fullName.compareTo(prefix);
+        });
+        return collect(entries, offset, limit);
+    }
+
+    /**
+     * Finds the similar full names first, then reads the contacts holding each of them from the full name index.
+     */
+    @Override
+    public List<Contact> findByFullNameSimilarTo(String fullName, int maxDistance, int limit) {
+        FullNameSearches.validateSimilaritySearch(fullName, maxDistance, limit);
+
+        Snapshot current = snapshot;
+        if (!current.fullNames.isIndexed()) {
+            current = indexFullNames();
+        }
+        List<Contact> contacts = new ArrayList<>();
+        for (String similarFullName : current.fullNames.findSimilar(fullName, maxDistance)) {
+            if (contacts.size() == limit) {
+                break;
+            }
+            contacts.addAll(collect(current.entriesByFullName.iterator(withFullName(similarFullName)), 0,
+                    limit - contacts.size()));
+        }
+        return contacts;
+    }
+
+    @Override
+    public <K extends Comparable<? super K>> SortedMap<K, ContactStatistics> aggregate(ContactGrouping<K> grouping) {
+        ContactAggregator<K> aggregator = new ContactAggregator<>(grouping);
+        for (Entry entry : snapshot.entriesInLoadOrder) {
+            aggregator.accept(entry.contact);
+        }
+        return aggregator.result();
+    }
+
+    @Override
+    public Optional<LocalDate> findEarliestDateOfBirth() {
+        return Optional.ofNullable(snapshot.entriesByDateOfBirth.first()).map(entry -> entry.contact.getDateOfBirth());
+    }
+
+    @Override
+    public List<Contact> findByDateOfBirth(LocalDate dateOfBirth) {
+        Objects.requireNonNull(dateOfBirth, "dateOfBirth cannot be null");
+
+        return collect(snapshot.entriesByDateOfBirth.iterator(bornBetween(dateOfBirth, dateOfBirth)), 0,
+                Integer.MAX_VALUE);
+    }
+
+    @Override
+    public Optional<LocalDate> findLatestDateOfBirth() {
+        return Optional.ofNullable(snapshot.entriesByDateOfBirth.last()).map(entry -> entry.contact.getDateOfBirth());
+    }
+
+    @Override
+    public List<Contact> findByDateOfBirthBetween(LocalDate from, LocalDate to) {
+        DateOfBirthRanges.validate(from, to);
+
+        return collect(snapshot.entriesByDateOfBirth.iterator(bornBetween(from, to)), 0, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Reads the snapshot current when the stream is created; writes made while it is consumed are not seen.
+     */
+    @Override
+    public Stream<Contact> streamByDateOfBirthBetween(LocalDate from, LocalDate to) {
+        DateOfBirthRanges.validate(from, to);
+
+        return stream(snapshot.entriesByDateOfBirth.iterator(bornBetween(from, to)));
+    }
+
+    @Override
+    public List<Contact> findOldest(int limit) {
+        DateOfBirthRanges.validate(limit);
+
+        return collect(snapshot.entriesByDateOfBirth.iterator(), 0, limit);
+    }
+
+    /**
+     * Walks the dates of birth from the latest one back, returning the contacts born on each date in load order.
+     */
+    @Override
+    public List<Contact> findYoungest(int limit) {
+        DateOfBirthRanges.validate(limit);
+
+        PersistentTreeSet<Entry> entriesByDateOfBirth = snapshot.entriesByDateOfBirth;
+        List<Contact> contacts = new ArrayList<>();
+        Entry youngest = entriesByDateOfBirth.last();
+        while (youngest != null && contacts.size() < limit) {
+            LocalDate dateOfBirth = youngest.contact.getDateOfBirth();
+            contacts.addAll(collect(entriesByDateOfBirth.iterator(bornBetween(dateOfBirth, dateOfBirth)), 0,
+                    limit - contacts.size()));
+            youngest = entriesByDateOfBirth.lastBefore(bornBetween(dateOfBirth, dateOfBirth));
+        }
+        return contacts;
+    }
+
+    @Override
+    public void add(Contact contact) {
+        apply(Collections.singletonList(ContactChange.add(contact)));
+    }
+
+    @Override
+    public boolean update(String fullName, Contact contact) {
+        return apply(Collections.singletonList(ContactChange.update(fullName, contact))) == 1;
+    }
+
+    @Override
+    public boolean remove(String fullName) {
+        return apply(Collections.singletonList(ContactChange.remove(fullName))) == 1;
+    }
+
+    @Override
+    public int apply(List<ContactChange> changes) {
+        synchronized (writeLock) {
+            int applied = stage(changes, () -> { });
+            publish(latest().version);
+            return applied;
+        }
+    }
+
+    /**
+     * Like {@link #apply(List)}, but readers only see the changes once {@link #publish(long)} is called with
+     * {@link #getStagedVersion()} or a later version; until then later changes are staged on top of them. Runs
+     * {@code beforeStaging} once some of the changes are known to take effect, and drops them when it throws.
+     */
+    int stage(List<ContactChange> changes, Runnable beforeStaging) {
+        Objects.requireNonNull(changes, "changes cannot be null");
+        for (ContactChange change : changes) {
+            Objects.requireNonNull(change, "change cannot be null");
+        }
+
+        synchronized (writeLock) {
+            Snapshot next = latest();
+            int applied = 0;
+            for (ContactChange change : changes) {
+                Snapshot changed = next.apply(change);
+                if (changed != next) {
+                    next = changed;
+                    applied++;
+                }
+            }
+            if (applied > 0) {
+                beforeStaging.run();
+                staged.addLast(next.nextVersion());
+            }
+            return applied;
+        }
+    }
+
+    /**
+     * @return the version holding every staged change, published or not
+     */
+    long getStagedVersion() {
+        synchronized (writeLock) {
+            return latest().version;
+        }
+    }
+
+    /**
+     * Shows readers every change staged up to the version. Publishing a version older than the published one does
+     * nothing.
+     */
+    void publish(long version) {
+        synchronized (writeLock) {
+            Snapshot published = snapshot;
+            while (!staged.isEmpty() && staged.peekFirst().version <= version) {
+                published = staged.removeFirst();
+            }
+            snapshot = published;
+        }
+    }
+
+    /**
+     * Every contact, including the staged changes that are not published yet.
+     */
+    Stream<Contact> findAllStaged() {
+        synchronized (writeLock) {
+            return stream(latest().entriesInLoadOrder.iterator());
+        }
+    }
+
+    @Override
+    public long getVersion() {
+        return snapshot.version;
+    }
+
+    private Snapshot latest() {
+        return staged.isEmpty() ? snapshot : staged.peekLast();
+    }
+
+    /**
+     * Indexes the full names of the published snapshot and of the staged ones together, so that the index holds
+     * every full name of each of them.
+     */
+    private Snapshot indexFullNames() {
+        synchronized (writeLock) {
+            if (!snapshot.fullNames.isIndexed()) {
+                List<Snapshot> snapshots = new ArrayList<>(staged.size() + 1);
+                snapshots.add(snapshot);
+                snapshots.addAll(staged);
+                FullNames fullNames = FullNames.of(snapshots);
+
+                snapshot = snapshot.withFullNames(fullNames);
+                staged.clear();
+                for (Snapshot stagedSnapshot : snapshots.subList(1, snapshots.size())) {
+                    staged.addLast(stagedSnapshot.withFullNames(fullNames));
+                }
+            }
+            return snapshot;
+        }
+    }
+
+    private static ToIntFunction<Entry> withFullName(String fullName) {
+        return entry -> entry.contact.getFullName().compareTo(fullName);
+    }
+
+    private static ToIntFunction<Entry> bornBetween(LocalDate from, LocalDate to) {
+        return entry -> {
+            LocalDate dateOfBirth = entry.contact.getDateOfBirth();
+            return dateOfBirth.isBefore(from) ? -1 : dateOfBirth.isAfter(to) ? 1 : 0;
+        };
+    }
+
+    private static List<Contact> collect(Iterator<Entry> entries, int offset, int limit) {
+        List<Contact> contacts = new ArrayList<>();
+        for (int skipped = 0; skipped < offset && entries.hasNext(); skipped++) {
+            entries.next();
+        }
+        while (contacts.size() < limit && entries.hasNext()) {
+            contacts.add(entries.next().contact);
+        }
+        return contacts;
+    }
+
+    private static Stream<Contact> stream(Iterator<Entry> entries) {
+        Spliterator<Entry> spliterator =
+                Spliterators.spliteratorUnknownSize(entries, Spliterator.ORDERED | Spliterator.NONNULL);
+        return StreamSupport.stream(spliterator, false).map(entry -> entry.contact);
+    }
+
+    /**
+     * A contact and its position in the address book. Updated contacts keep their position, so ties are always
+     * returned in the order contacts were first added.
+     */
+    private static final class Entry {
+        private final long sequence;
+        private final Contact contact;
+
+        private Entry(long sequence, Contact contact) {
+            this.sequence = sequence;
+            this.contact = contact;
+        }
+    }
+
+    /**
+     * The indexes at one point in time. Applying a change returns a new snapshot and leaves this one as it was.
+     */
+    private static final class Snapshot {
+        private final PersistentTreeSet<Entry> entriesInLoadOrder;
+        private final PersistentTreeSet<Entry> entriesByFullName;
+        private final PersistentTreeSet<Entry> entriesByDateOfBirth;
+        private final int[] genderCounts;
+        private final FullNames fullNames;
+        private final long version;
+        private final long nextSequence;
+
+        private Snapshot(PersistentTreeSet<Entry> entriesInLoadOrder, PersistentTreeSet<Entry> entriesByFullName,
+                         PersistentTreeSet<Entry> entriesByDateOfBirth, int[] genderCounts, FullNames fullNames,
+                         long version, long nextSequence) {
+            this.entriesInLoadOrder = entriesInLoadOrder;
+            this.entriesByFullName = entriesByFullName;
+            this.entriesByDateOfBirth = entriesByDateOfBirth;
+            this.genderCounts = genderCounts;
+            this.fullNames = fullNames;
+            this.version = version;
+            this.nextSequence = nextSequence;
+        }
+
+        private Optional<Entry> find(String fullName, int occurrence) {
+            Iterator<Entry> entries = entriesByFullName.iterator(withFullName(fullName));
+            for (int skipped = 0; skipped < occurrence && entries.hasNext(); skipped++) {
+                entries.next();
+            }
+            return entries.hasNext() ? Optional.of(entries.next()) : Optional.empty();
+        }
+
+        /**
+         * @return the snapshot with the change applied, or this snapshot when the change does not take effect
+         */
+        private Snapshot apply(ContactChange change) {
+            switch (change.getType()) {
+                case ADD:
+                    return add(change.getContact());
+                case UPDATE:
+                    return find(change.getFullName(), change.getOccurrence())
+                            .map(entry -> replace(entry, new Entry(entry.sequence, change.getContact())))
+                            .orElse(this);
+                case REMOVE:
+                    return find(change.getFullName(), change.getOccurrence())
+                            .map(entry -> replace(entry, null))
+                            .orElse(this);
+                default:
+                    throw new IllegalArgumentException("Unknown change " + change.getType());
+            }
+        }
+
+        private Snapshot add(Contact contact) {
+            Entry entry = new Entry(nextSequence, contact);
+            int[] newGenderCounts = genderCounts.clone();
+            newGenderCounts[contact.getGender().ordinal()]++;
+
+            return new Snapshot(entriesInLoadOrder.with(entry), entriesByFullName.with(entry),
+                    entriesByDateOfBirth.with(entry), newGenderCounts, fullNames.with(contact.getFullName()), version,
+                    nextSequence + 1);
+        }
+
+        /**
+         * Replaces the entry with one at the same position, or removes it when the replacement is null.
+         */
+        private Snapshot replace(Entry entry, Entry replacement) {
+            int[] newGenderCounts = genderCounts.clone();
+            newGenderCounts[entry.contact.getGender().ordinal()]--;
+            PersistentTreeSet<Entry> newEntriesInLoadOrder = entriesInLoadOrder.without(entry);
+            PersistentTreeSet<Entry> newEntriesByFullName = entriesByFullName.without(entry);
+            PersistentTreeSet<Entry> newEntriesByDateOfBirth = entriesByDateOfBirth.without(entry);
+            FullNames newFullNames = fullNames;
+
+            if (replacement != null) {
+                newGenderCounts[replacement.contact.getGender().ordinal()]++;
+                newEntriesInLoadOrder = newEntriesInLoadOrder.with(replacement);
+                newEntriesByFullName = newEntriesByFullName.with(replacement);
+                newEntriesByDateOfBirth = newEntriesByDateOfBirth.with(replacement);
+                newFullNames = fullNames.with(replacement.contact.getFullName());
+            }
+            return new Snapshot(newEntriesInLoadOrder, newEntriesByFullName, newEntriesByDateOfBirth,
+                    newGenderCounts, newFullNames, version, nextSequence);
+        }
+
+        private Snapshot nextVersion() {
+            return new Snapshot(entriesInLoadOrder, entriesByFullName, entriesByDateOfBirth, genderCounts, fullNames,
+                    version + 1, nextSequence);
+        }
+
+        private Snapshot withFullNames(FullNames newFullNames) {
+            return new Snapshot(entriesInLoadOrder, entriesByFullName, entriesByDateOfBirth, genderCounts,
+                    newFullNames, version, nextSequence);
+        }
+    }
+
+    /**
+     * A {@link FullNameIndex} over the distinct full names of an earlier snapshot and the full names added since,
+     * which together hold every full name of the snapshot. Names removed since are still there, and searches find
+     * no contacts for them. Once the names added outgrow an eighth of the index it is dropped, to be rebuilt by the
+     * next similarity search.
+     */
+    private static final class FullNames {
+        private static final int MINIMUM_ADDED_FULL_NAMES = 1024;
+        private static final FullNames UNINDEXED = new FullNames(null, null, PersistentTreeSet.empty(naturalOrder()));
+
+        private final String[] indexedFullNames;
+        private final FullNameIndex index;
+        private final PersistentTreeSet<String> added;
+
+        private FullNames(String[] indexedFullNames, FullNameIndex index, PersistentTreeSet<String> added) {
+            this.indexedFullNames = indexedFullNames;
+            this.index = index;
+            this.added = added;
+        }
+
+        /**
+         * Indexes the full names of every snapshot; a name held by several of them is indexed once per snapshot.
+         */
+        private static FullNames of(List<Snapshot> snapshots) {
+            List<String> fullNames = new ArrayList<>();
+            for (Snapshot snapshot : snapshots) {
+                String previousFullName = null;
+                for (Entry entry : snapshot.entriesByFullName) {
+                    String fullName = entry.contact.getFullName();
+                    if (!fullName.equals(previousFullName)) {
+                        fullNames.add(fullName);
+                        previousFullName = fullName;
+                    }
+                }
+            }
+            String[] indexedFullNames = fullNames.toArray(new String[0]);
+            return new FullNames(indexedFullNames,
+                    new FullNameIndex(indexedFullNames.length, row -> indexedFullNames[row]), UNINDEXED.added);
+        }
+
+        private boolean isIndexed() {
+            return index != null;
+        }
+
+        private FullNames with(String fullName) {
+            if (index == null || index.containsFullName(fullName)) {
+                return this;
+            }
+            PersistentTreeSet<String> newAdded = added.with(fullName);
+            if (newAdded.size() > Math.max(MINIMUM_ADDED_FULL_NAMES, index.getNumberOfFullNames() / 8)) {
+                return UNINDEXED;
+            }
+            return new FullNames(indexedFullNames, index, newAdded);
+        }
+
+        /**
+         * @return the full names within the distance of the query, closest first and then ordered by name
+         */
+        private List<String> findSimilar(String query, int maxDistance) {
+            List<String> matches = new ArrayList<>();
+            for (int row : index.findSimilar(query, maxDistance, Integer.MAX_VALUE)) {
+                // Rows sharing a full name come one after the other.
+                if (matches.isEmpty() || !matches.get(matches.size() - 1).equals(indexedFullNames[row])) {
+                    matches.add(indexedFullNames[row]);
+                }
+            }
+            int indexed = matches.size();
+            for (String fullName : added) {
+                if (FullNameSearches.distance(query, fullName, maxDistance) <= maxDistance) {
+                    matches.add(fullName);
+                }
+            }
+            if (matches.size() > indexed) {
+                matches.sort(Comparator.comparingInt((String fullName) ->
+                        FullNameSearches.distance(query, fullName, maxDistance)).thenComparing(naturalOrder()));
+            }
+            return matches;
+        }
+    }
+
+    /**
+     * Collects contacts as they are read, for loading a mutable repository from a Csv file, and builds every index
+     * in one go once they are all read. Changes replayed from a {@link ContactChangeLog} are applied one at a time to
+     * the indexes built from the contacts accepted before them.
+     */
+    static final class Builder implements AddressBookRepositoryBuilder {
+        private final List<Entry> entries = new ArrayList<>();
+        private final int[] genderCounts = new int[Gender.values().length];
+        private Snapshot snapshot;
+        private boolean built;
+
+        @Override
+        public void accept(Contact contact) {
+            Objects.requireNonNull(contact, "contact cannot be null");
+            checkNotBuilt();
+
+            if (snapshot == null) {
+                entries.add(new Entry(entries.size(), contact));
+                genderCounts[contact.getGender().ordinal()]++;
+            } else {
+                snapshot = snapshot.add(contact);
+            }
+        }
+
+        /**
+         * Applies a change to the contacts accepted so far, for replaying a {@link ContactChangeLog}.
+         */
+        void apply(ContactChange change) {
+            Objects.requireNonNull(change, "change cannot be null");
+            checkNotBuilt();
+
+            snapshot = snapshot().apply(change);
+        }
+
+        @Override
+        public ConcurrentAddressBookRepository build() {
+            checkNotBuilt();
+            Snapshot builtSnapshot = snapshot();
+            built = true;
+            return new ConcurrentAddressBookRepository(builtSnapshot);
+        }
+
+        private void checkNotBuilt() {
+            if (built) {
+                throw new IllegalStateException("Repository has already been built");
+            }
+        }
+
+        private Snapshot snapshot() {
+            if (snapshot == null) {
+                List<Entry> entriesByFullName = new ArrayList<>(entries);
+                entriesByFullName.sort(FULL_NAME_ORDER);
+                List<Entry> entriesByDateOfBirth = new ArrayList<>(entries);
+                entriesByDateOfBirth.sort(DATE_OF_BIRTH_ORDER);
+
+                snapshot = new Snapshot(PersistentTreeSet.ofSorted(LOAD_ORDER, entries),
+                        PersistentTreeSet.ofSorted(FULL_NAME_ORDER, entriesByFullName),
+                        PersistentTreeSet.ofSorted(DATE_OF_BIRTH_ORDER, entriesByDateOfBirth),
+                        genderCounts.clone(), FullNames.UNINDEXED, 0, entries.size());
+                entries.clear();
+            }
+            return snapshot;
+        }
+    }
+}
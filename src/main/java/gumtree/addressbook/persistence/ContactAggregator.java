@@ -0,0 +1,93 @@
+package gumtree.addressbook.persistence;
+
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.Objects;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import gumtree.addressbook.domain.Contact;
+import gumtree.addressbook.domain.Gender;
+
+/**
+ * Accumulates the statistics of every group in one pass. Contacts fed in date of birth order, as the date of birth
+ * indexes produce them, only have their group worked out once per distinct gender and date of birth.
+ */
+final class ContactAggregator<K extends Comparable<? super K>> {
+    private static final Gender[] GENDERS = Gender.values();
+
+    private final ContactGrouping<K> grouping;
+    private final Map<K, Accumulator> accumulators = new TreeMap<>();
+    private final Accumulator[] lastAccumulators = new Accumulator[GENDERS.length];
+    private long lastEpochDay = Long.MIN_VALUE;
+
+    ContactAggregator(ContactGrouping<K> grouping) {
+        this.grouping = Objects.requireNonNull(grouping, "grouping cannot be null");
+    }
+
+    void accept(Contact contact) {
+        LocalDate dateOfBirth = contact.getDateOfBirth();
+        accept(contact.getGender(), dateOfBirth.toEpochDay(), dateOfBirth);
+    }
+
+    void accept(Gender gender, long epochDay) {
+        accept(gender, epochDay, null);
+    }
+
+    private void accept(Gender gender, long epochDay, LocalDate dateOfBirth) {
+        if (epochDay != lastEpochDay) {
+            lastEpochDay = epochDay;
+            for (int i = 0; i < lastAccumulators.length; i++) {
+                lastAccumulators[i] = null;
+            }
+        }
+
+        Accumulator accumulator = lastAccumulators[gender.ordinal()];
+        if (accumulator == null) {
+            K group = grouping.groupOf(gender, dateOfBirth != null ? dateOfBirth : LocalDate.ofEpochDay(epochDay));
+            accumulator = accumulators.computeIfAbsent(
+                    Objects.requireNonNull(group, "grouping cannot return a null group"), key -> new Accumulator());
+            lastAccumulators[gender.ordinal()] = accumulator;
+        }
+        accumulator.add(gender, epochDay);
+    }
+
+    /**
+     * Adds the groups of another aggregator over a different part of the same contacts.
+     */
+    void addAll(ContactAggregator<K> other) {
+        other.accumulators.forEach((group, accumulator) ->
+                accumulators.computeIfAbsent(group, key -> new Accumulator()).addAll(accumulator));
+    }
+
+    SortedMap<K, ContactStatistics> result() {
+        SortedMap<K, ContactStatistics> statistics = new TreeMap<>();
+        accumulators.forEach((group, accumulator) -> statistics.put(group, accumulator.toStatistics()));
+        return statistics;
+    }
+
+    private static final class Accumulator {
+        private final int[] genderCounts = new int[GENDERS.length];
+        private long earliestEpochDay = Long.MAX_VALUE;
+        private long latestEpochDay = Long.MIN_VALUE;
+
+        private void add(Gender gender, long epochDay) {
+            genderCounts[gender.ordinal()]++;
+            earliestEpochDay = Math.min(earliestEpochDay, epochDay);
+            latestEpochDay = Math.max(latestEpochDay, epochDay);
+        }
+
+        private void addAll(Accumulator other) {
+            for (int i = 0; i < genderCounts.length; i++) {
+                genderCounts[i] += other.genderCounts[i];
+            }
+            earliestEpochDay = Math.min(earliestEpochDay, other.earliestEpochDay);
+            latestEpochDay = Math.max(latestEpochDay, other.latestEpochDay);
+        }
+
+        private ContactStatistics toStatistics() {
+            return new ContactStatistics(genderCounts, LocalDate.ofEpochDay(earliestEpochDay),
+                    LocalDate.ofEpochDay(latestEpochDay));
+        }
+    }
+}
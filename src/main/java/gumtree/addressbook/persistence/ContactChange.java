@@ -0,0 +1,124 @@
+package gumtree.addressbook.persistence;
+
+import java.util.Objects;
+
+import gumtree.addressbook.domain.Contact;
+import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.apache.commons.lang3.builder.ToStringStyle;
+
+/**
+ * One write to a {@link MutableAddressBookRepository}.
+ */
+public final class ContactChange {
+
+    public enum Type {
+        ADD,
+        UPDATE,
+        REMOVE
+    }
+
+    private final Type type;
+    private final String fullName;
+    private final int occurrence;
+    private final Contact contact;
+
+    private ContactChange(Type type, String fullName, int occurrence, Contact contact) {
+        this.type = type;
+        this.fullName = fullName;
+        this.occurrence = occurrence;
+        this.contact = contact;
+    }
+
+    public static ContactChange add(Contact contact) {
+        Objects.requireNonNull(contact, "contact cannot be null");
+
+        return new ContactChange(Type.ADD, contact.getFullName(), 0, contact);
+    }
+
+    public static ContactChange update(String fullName, Contact contact) {
+        return update(fullName, 0, contact);
+    }
+
+    /**
+     * Replaces the contact at the given occurrence of the full name, counting from 0 in load order.
+     */
+    public static ContactChange update(String fullName, int occurrence, Contact contact) {
+        Objects.requireNonNull(fullName, "fullName cannot be null");
+        Objects.requireNonNull(contact, "contact cannot be null");
+        validate(occurrence);
+
+        return new ContactChange(Type.UPDATE, fullName, occurrence, contact);
+    }
+
+    public static ContactChange remove(String fullName) {
+        return remove(fullName, 0);
+    }
+
+    /**
+     * Removes the contact at the given occurrence of the full name, counting from 0 in load order.
+     */
+    public static ContactChange remove(String fullName, int occurrence) {
+        Objects.requireNonNull(fullName, "fullName cannot be null");
+        validate(occurrence);
+
+        return new ContactChange(Type.REMOVE, fullName, occurrence, null);
+    }
+
+    private static void validate(int occurrence) {
+        if (occurrence < 0) {
+            throw new IllegalArgumentException("occurrence cannot be negative");
+        }
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * The full name of the contact the change acts on. For an add, the full name of the new contact.
+     */
+    public String getFullName() {
+        return fullName;
+    }
+
+    /**
+     * Which of the contacts sharing the full name the change acts on, 0 being the one found by
+     * {@link AddressBookRepository#findByFullName(String)}.
+     */
+    public int getOccurrence() {
+        return occurrence;
+    }
+
+    /**
+     * The new contact, or null for a remove.
+     */
+    public Contact getContact() {
+        return contact;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) return true;
+        if (other == null || getClass() != other.getClass()) return false;
+        ContactChange change = (ContactChange) other;
+        return type == change.type &&
+                occurrence == change.occurrence &&
+                Objects.equals(fullName, change.fullName) &&
+                Objects.equals(contact, change.contact);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(type, fullName, occurrence, contact);
+    }
+
+    @Override
+    public String toString() {
+        return new ToStringBuilder(this, ToStringStyle.JSON_STYLE)
+                .append("type", type)
+                .append("fullName", fullName)
+                .append("occurrence", occurrence)
+                .append("contact", contact)
+                .toString();
+    }
+}
@@ -0,0 +1,525 @@
+package gumtree.addressbook.persistence;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+import gumtree.addressbook.domain.Contact;
+import gumtree.addressbook.domain.Gender;
+
+/**
+ * Append-only log of the changes made to a {@link ConcurrentAddressBookRepository}, so that they survive a restart.
+ * <p>
+ * The file starts with a magic number and a format version. Each record then holds its payload length, the CRC-32
+ * of the payload and the payload: one atomic batch of changes, or part of a checkpoint of every contact, written when
+ * the log is compacted. A checkpoint is a run of records of at most {@value #CHECKPOINT_BATCH_SIZE} contacts closed
+ * by one holding their total, so no record grows with the address book. Names are stored as length prefixed UTF-8.
+ * Replay stops at the first record that is cut short or fails its checksum, which is where a crash in the middle of
+ * a write leaves the log, and the file is truncated there.
+ * <p>
+ * Writers append records to memory and then wait for them to reach the disk. The first writer to wait writes every
+ * pending record and forces the file once; writers that arrive meanwhile queue up behind it and find their records
+ * already durable, so one {@code fsync} commits a whole group of writes.
+ */
+class ContactChangeLog implements Closeable {
+    static final long MAGIC = 0x3130_474f_4c42_5341L;
+    static final int VERSION = 2;
+    static final int HEADER_SIZE = Long.BYTES + Integer.BYTES;
+    static final int CHECKPOINT_BATCH_SIZE = 4096;
+    private static final int RECORD_HEADER_SIZE = 2 * Integer.BYTES;
+
+    private static final byte CHANGES = 0;
+    private static final byte CHECKPOINT = 1;
+    private static final byte CHECKPOINT_END = 2;
+    private static final ContactChange.Type[] TYPES = ContactChange.Type.values();
+    private static final Gender[] GENDERS = Gender.values();
+
+    private final Path logPath;
+    private final Object appendLock = new Object();
+    private final Object syncLock = new Object();
+
+    private List<byte[]> pendingRecords = new ArrayList<>();
+    private List<byte[]> compactionTail;
+    private long appendedSequence;
+    private boolean closed;
+
+    private FileChannel channel;
+    private volatile long durableSequence;
+    private volatile long size;
+    private volatile long syncCount;
+    private volatile IOException failure;
+
+    ContactChangeLog(Path logPath) {
+        this.logPath = Objects.requireNonNull(logPath, "logPath cannot be null");
+        try {
+            channel = FileChannel.open(logPath, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+            if (channel.size() == 0) {
+                writeFully(channel, header(), 0);
+                channel.force(true);
+            }
+            size = channel.size();
+        } catch (IOException e) {
+            throw new PersistenceException(e);
+        }
+    }
+
+    /**
+     * Feeds the logged changes to the builder, starting from the last checkpoint when there is one and from the
+     * contacts {@code loadBase} feeds it otherwise. Truncates whatever follows the last intact record.
+     *
+     * @return the number of records replayed, counting a checkpoint as one
+     */
+    int replay(ConcurrentAddressBookRepository.Builder builder, Runnable loadBase) {
+        Objects.requireNonNull(builder, "builder cannot be null");
+        Objects.requireNonNull(loadBase, "loadBase cannot be null");
+
+        synchronized (syncLock) {
+            try {
+                channel.position(0);
+                DataInputStream input = new DataInputStream(new BufferedInputStream(
+                        Channels.newInputStream(channel), 1 << 16));
+                if (input.readLong() != MAGIC || input.readInt() != VERSION) {
+                    throw corrupted();
+                }
+
+                long validSize = HEADER_SIZE;
+                int records = 0;
+                boolean loaded = false;
+                long checkpointContacts = -1;
+                byte[] payload;
+                while ((payload = readRecord(input, channel.size() - validSize)) != null) {
+                    DataInputStream record = new DataInputStream(new ByteArrayInputStream(payload));
+                    byte kind = record.readByte();
+                    int count = record.readInt();
+                    if (kind == CHECKPOINT && !loaded) {
+                        for (int i = 0; i < count; i++) {
+                            builder.accept(readContact(record));
+                        }
+                        checkpointContacts = Math.max(checkpointContacts, 0) + count;
+                    } else if (kind == CHECKPOINT_END && !loaded && count == Math.max(checkpointContacts, 0)) {
+                        checkpointContacts = -1;
+                        loaded = true;
+                        records++;
+                    } else if (kind == CHANGES && checkpointContacts < 0) {
+                        if (!loaded) {
+                            loadBase.run();
+                            loaded = true;
+                        }
+                        for (int i = 0; i < count; i++) {
+                            builder.apply(readChange(record));
+                        }
+                        records++;
+                    } else {
+                        throw corrupted();
+                    }
+                    validSize += RECORD_HEADER_SIZE + payload.length;
+                }
+                // A checkpoint is forced to disk before it replaces the log, so it cannot be cut short by a crash.
+                if (checkpointContacts >= 0) {
+                    throw corrupted();
+                }
+                if (!loaded) {
+                    loadBase.run();
+                }
+
+                channel.truncate(validSize);
+                channel.position(validSize);
+                size = validSize;
+                return records;
+            } catch (EOFException | IllegalArgumentException | IndexOutOfBoundsException e) {
+                throw corrupted();
+            } catch (IOException e) {
+                throw new PersistenceException(e);
+            }
+        }
+    }
+
+    /**
+     * Queues the changes as one record; they are only durable once {@link #sync(long)} returns for the sequence.
+     *
+     * @return the sequence number of the record
+     */
+    long append(List<ContactChange> changes) {
+        byte[] record = record(CHANGES, changes.size(), output -> {
+            for (ContactChange change : changes) {
+                writeChange(output, change);
+            }
+        });
+
+        synchronized (appendLock) {
+            if (closed) {
+                throw new IllegalStateException("Change log is closed");
+            }
+            pendingRecords.add(record);
+            if (compactionTail != null) {
+                compactionTail.add(record);
+            }
+            return ++appendedSequence;
+        }
+    }
+
+    /**
+     * Throws the error that made an earlier record fail to reach the disk; no record appended since will.
+     */
+    void checkNotFailed() {
+        IOException lastFailure = failure;
+        if (lastFailure != null) {
+            throw new PersistenceException(lastFailure);
+        }
+    }
+
+    /**
+     * Returns once the record with the sequence number, and every record before it, is on disk.
+     */
+    void sync(long sequence) {
+        synchronized (syncLock) {
+            if (durableSequence >= sequence) {
+                return;
+            }
+            if (failure != null) {
+                throw new PersistenceException(failure);
+            }
+
+            List<byte[]> records;
+            long lastSequence;
+            synchronized (appendLock) {
+                records = pendingRecords;
+                pendingRecords = new ArrayList<>();
+                lastSequence = appendedSequence;
+            }
+
+            try {
+                long position = size;
+                for (byte[] record : records) {
+                    writeFully(channel, ByteBuffer.wrap(record), position);
+                    position += record.length;
+                }
+                channel.force(false);
+                size = position;
+                durableSequence = lastSequence;
+                syncCount++;
+            } catch (IOException e) {
+                failure = e;
+                throw new PersistenceException(e);
+            }
+        }
+    }
+
+    /**
+     * Starts a compaction. The contacts later given to {@link #compact(Stream)} must reflect every record appended
+     * before this call, so callers take them together with it, without appending in between.
+     */
+    void beginCompaction() {
+        synchronized (appendLock) {
+            if (closed) {
+                throw new IllegalStateException("Change log is closed");
+            }
+            if (compactionTail != null) {
+                throw new IllegalStateException("Change log is already being compacted");
+            }
+            compactionTail = new ArrayList<>();
+        }
+    }
+
+    /**
+     * Replaces the log with a checkpoint of the contacts followed by the records appended since
+     * {@link #beginCompaction()}. The checkpoint is written next to the log while appends and syncs go on; only
+     * copying the records appended meanwhile and moving the new log into place hold back syncs. A crash leaves either
+     * log. A failure before the move leaves the current log in use, with the records still pending; only a failure
+     * after it makes the log fail every later sync.
+     */
+    void compact(Stream<Contact> contacts) {
+        Objects.requireNonNull(contacts, "contacts cannot be null");
+        synchronized (appendLock) {
+            if (compactionTail == null) {
+                throw new IllegalStateException("Compaction has not begun");
+            }
+        }
+
+        Path temporaryLogPath = logPath.resolveSibling(logPath.getFileName() + ".tmp");
+        try {
+            long checkpointEnd;
+            try (FileChannel temporaryChannel = FileChannel.open(temporaryLogPath, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                writeFully(temporaryChannel, header(), 0);
+                checkpointEnd = writeCheckpoint(temporaryChannel, contacts.iterator(), HEADER_SIZE);
+                temporaryChannel.force(true);
+            }
+
+            synchronized (syncLock) {
+                checkNotFailed();
+                List<byte[]> tail;
+                List<byte[]> unsyncedRecords;
+                long lastSequence;
+                synchronized (appendLock) {
+                    if (closed) {
+                        throw new IllegalStateException("Change log is closed");
+                    }
+                    tail = compactionTail;
+                    compactionTail = null;
+                    unsyncedRecords = pendingRecords;
+                    pendingRecords = new ArrayList<>();
+                    lastSequence = appendedSequence;
+                }
+
+                long position = checkpointEnd;
+                try {
+                    try (FileChannel temporaryChannel = FileChannel.open(temporaryLogPath,
+                            StandardOpenOption.WRITE)) {
+                        for (byte[] record : tail) {
+                            writeFully(temporaryChannel, ByteBuffer.wrap(record), position);
+                            position += record.length;
+                        }
+                        temporaryChannel.force(true);
+                    }
+                    Files.move(temporaryLogPath, logPath, StandardCopyOption.REPLACE_EXISTING,
+                            StandardCopyOption.ATOMIC_MOVE);
+                } catch (IOException | RuntimeException e) {
+                    // The current log stays in use, so the records it lacks must still be written to it.
+                    synchronized (appendLock) {
+                        unsyncedRecords.addAll(pendingRecords);
+                        pendingRecords = unsyncedRecords;
+                    }
+                    throw e;
+                }
+
+                // From here on the records appended before the move only exist in the new log.
+                try {
+                    forceDirectory(logPath.toAbsolutePath().getParent());
+                    channel.close();
+                    channel = FileChannel.open(logPath, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                    size = position;
+                    durableSequence = lastSequence;
+                } catch (IOException e) {
+                    failure = e;
+                    throw e;
+                }
+            }
+        } catch (IOException e) {
+            throw new PersistenceException(e);
+        } finally {
+            synchronized (appendLock) {
+                compactionTail = null;
+            }
+            try {
+                Files.deleteIfExists(temporaryLogPath);
+            } catch (IOException e) {
+                // Overwritten by the next compaction.
+            }
+        }
+    }
+
+    /**
+     * @return the position after the checkpoint
+     */
+    private static long writeCheckpoint(FileChannel channel, Iterator<Contact> contacts, long position)
+            throws IOException {
+        long count = 0;
+        List<Contact> batch = new ArrayList<>(CHECKPOINT_BATCH_SIZE);
+        while (contacts.hasNext()) {
+            batch.clear();
+            while (contacts.hasNext() && batch.size() < CHECKPOINT_BATCH_SIZE) {
+                batch.add(contacts.next());
+            }
+            byte[] record = record(CHECKPOINT, batch.size(), output -> {
+                for (Contact contact : batch) {
+                    writeContact(output, contact);
+                }
+            });
+            writeFully(channel, ByteBuffer.wrap(record), position);
+            position += record.length;
+            count += batch.size();
+        }
+        if (count > Integer.MAX_VALUE) {
+            throw new IOException("Cannot checkpoint more than " + Integer.MAX_VALUE + " contacts");
+        }
+
+        byte[] end = record(CHECKPOINT_END, (int) count, output -> { });
+        writeFully(channel, ByteBuffer.wrap(end), position);
+        return position + end.length;
+    }
+
+    private static void forceDirectory(Path directory) throws IOException {
+        try (FileChannel directoryChannel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            directoryChannel.force(true);
+        }
+    }
+
+    /**
+     * The size of the log file in bytes, not counting records that are still pending.
+     */
+    long size() {
+        return size;
+    }
+
+    /**
+     * How many times the log has been forced to disk.
+     */
+    long syncCount() {
+        return syncCount;
+    }
+
+    /**
+     * Writes any pending record and closes the file. Appending afterwards fails.
+     */
+    @Override
+    public void close() {
+        long sequence;
+        synchronized (appendLock) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            sequence = appendedSequence;
+        }
+
+        try {
+            sync(sequence);
+        } finally {
+            synchronized (syncLock) {
+                try {
+                    channel.close();
+                } catch (IOException e) {
+                    throw new PersistenceException(e);
+                }
+            }
+        }
+    }
+
+    private static ByteBuffer header() {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).putLong(MAGIC).putInt(VERSION);
+        header.flip();
+        return header;
+    }
+
+    private static byte[] record(byte kind, int count, RecordWriter writer) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream output = new DataOutputStream(bytes);
+            output.writeInt(0);
+            output.writeInt(0);
+            output.writeByte(kind);
+            output.writeInt(count);
+            writer.write(output);
+            output.flush();
+
+            byte[] record = bytes.toByteArray();
+            int payloadLength = record.length - RECORD_HEADER_SIZE;
+            CRC32 crc = new CRC32();
+            crc.update(record, RECORD_HEADER_SIZE, payloadLength);
+            ByteBuffer.wrap(record).putInt(payloadLength).putInt((int) crc.getValue());
+            return record;
+        } catch (IOException e) {
+            throw new PersistenceException(e);
+        }
+    }
+
+    /**
+     * The payload of the next record, or null when the log ends or the record is torn or corrupt.
+     */
+    private static byte[] readRecord(DataInputStream input, long remaining) throws IOException {
+        if (remaining < RECORD_HEADER_SIZE) {
+            return null;
+        }
+        int payloadLength = input.readInt();
+        int checksum = input.readInt();
+        if (payloadLength <= 0 || payloadLength > remaining - RECORD_HEADER_SIZE) {
+            return null;
+        }
+
+        byte[] payload = new byte[payloadLength];
+        input.readFully(payload);
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        return (int) crc.getValue() == checksum ? payload : null;
+    }
+
+    private static void writeChange(DataOutputStream output, ContactChange change) throws IOException {
+        output.writeByte(change.getType().ordinal());
+        writeString(output, change.getFullName());
+        output.writeInt(change.getOccurrence());
+        if (change.getType() != ContactChange.Type.REMOVE) {
+            writeContact(output, change.getContact());
+        }
+    }
+
+    private static ContactChange readChange(DataInputStream input) throws IOException {
+        ContactChange.Type type = TYPES[input.readUnsignedByte()];
+        String fullName = readString(input);
+        int occurrence = input.readInt();
+        switch (type) {
+            case ADD:
+                return ContactChange.add(readContact(input));
+            case UPDATE:
+                return ContactChange.update(fullName, occurrence, readContact(input));
+            default:
+                return ContactChange.remove(fullName, occurrence);
+        }
+    }
+
+    private static void writeContact(DataOutputStream output, Contact contact) throws IOException {
+        writeString(output, contact.getFullName());
+        output.writeByte(contact.getGender().ordinal());
+        output.writeLong(contact.getDateOfBirth().toEpochDay());
+    }
+
+    private static Contact readContact(DataInputStream input) throws IOException {
+        String fullName = readString(input);
+        Gender gender = GENDERS[input.readUnsignedByte()];
+        return new Contact(fullName, gender, LocalDate.ofEpochDay(input.readLong()));
+    }
+
+    private static void writeString(DataOutputStream output, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+
+    /**
+     * Reads a string from a record payload, which is fully in memory, so its length can be checked before use.
+     */
+    private static String readString(DataInputStream input) throws IOException {
+        int length = input.readInt();
+        if (length < 0 || length > input.available()) {
+            throw new EOFException("String of " + length + " bytes runs past the end of the record");
+        }
+        byte[] bytes = new byte[length];
+        input.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+
+    private PersistenceException corrupted() {
+        return new PersistenceException(new IOException(logPath + " is not a valid address book change log"));
+    }
+
+    private interface RecordWriter {
+        void write(DataOutputStream output) throws IOException;
+    }
+}
@@ -0,0 +1,32 @@
+package gumtree.addressbook.persistence;
+
+import java.time.LocalDate;
+
+import gumtree.addressbook.domain.Gender;
+
+/**
+ * Puts a contact in a group from its gender and date of birth, for {@link AddressBookRepository#aggregate}.
+ * Repositories call it once per distinct gender and date of birth where their indexes allow, not once per contact.
+ */
+@FunctionalInterface
+public interface ContactGrouping<K extends Comparable<? super K>> {
+
+    ContactGrouping<Gender> GENDER = (gender, dateOfBirth) -> gender;
+
+    ContactGrouping<Integer> BIRTH_YEAR = (gender, dateOfBirth) -> dateOfBirth.getYear();
+
+    /**
+     * The first year of the decade, e.g. 1980 for contacts born from 1980 to 1989.
+     */
+    ContactGrouping<Integer> BIRTH_DECADE = (gender, dateOfBirth) -> Math.floorDiv(dateOfBirth.getYear(), 10) * 10;
+
+    K groupOf(Gender gender, LocalDate dateOfBirth);
+
+    /**
+     * Groups by age on the given date, in bands of the given number of years keyed by the youngest age of the band.
+     * Groupings made with the same arguments are equal.
+     */
+    static ContactGrouping<Integer> ageBands(LocalDate on, int yearsPerBand) {
+        return new AgeBandGrouping(on, yearsPerBand);
+    }
+}
@@ -0,0 +1,84 @@
+package gumtree.addressbook.persistence;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Objects;
+
+import gumtree.addressbook.domain.Gender;
+import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.apache.commons.lang3.builder.ToStringStyle;
+
+/**
+ * Count, gender split and date of birth range of a group of contacts.
+ */
+public final class ContactStatistics {
+    private final int[] genderCounts;
+    private final LocalDate earliestDateOfBirth;
+    private final LocalDate latestDateOfBirth;
+
+    ContactStatistics(int[] genderCounts, LocalDate earliestDateOfBirth, LocalDate latestDateOfBirth) {
+        this.genderCounts = genderCounts.clone();
+        this.earliestDateOfBirth = earliestDateOfBirth;
+        this.latestDateOfBirth = latestDateOfBirth;
+    }
+
+    public int getCount() {
+        return Arrays.stream(genderCounts).sum();
+    }
+
+    public int getCount(Gender gender) {
+        Objects.requireNonNull(gender, "gender cannot be null");
+
+        return genderCounts[gender.ordinal()];
+    }
+
+    public LocalDate getEarliestDateOfBirth() {
+        return earliestDateOfBirth;
+    }
+
+    public LocalDate getLatestDateOfBirth() {
+        return latestDateOfBirth;
+    }
+
+    /**
+     * The statistics of both groups together.
+     */
+    ContactStatistics plus(ContactStatistics other) {
+        int[] counts = genderCounts.clone();
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] += other.genderCounts[i];
+        }
+        LocalDate earliest = earliestDateOfBirth.isAfter(other.earliestDateOfBirth)
+                ? other.earliestDateOfBirth : earliestDateOfBirth;
+        LocalDate latest = latestDateOfBirth.isBefore(other.latestDateOfBirth)
+                ? other.latestDateOfBirth : latestDateOfBirth;
+        return new ContactStatistics(counts, earliest, latest);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) return true;
+        if (other == null || getClass() != other.getClass()) return false;
+        ContactStatistics statistics = (ContactStatistics) other;
+        return Arrays.equals(genderCounts, statistics.genderCounts) &&
+                Objects.equals(earliestDateOfBirth, statistics.earliestDateOfBirth) &&
+                Objects.equals(latestDateOfBirth, statistics.latestDateOfBirth);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(Arrays.hashCode(genderCounts), earliestDateOfBirth, latestDateOfBirth);
+    }
+
+    @Override
+    public String toString() {
+        ToStringBuilder builder = new ToStringBuilder(this, ToStringStyle.JSON_STYLE).append("count", getCount());
+        for (Gender gender : Gender.values()) {
+            builder.append(gender.name(), genderCounts[gender.ordinal()]);
+        }
+        return builder
+                .append("earliestDateOfBirth", earliestDateOfBirth)
+                .append("latestDateOfBirth", latestDateOfBirth)
+                .toString();
+    }
+}
@@ -3,77 +3,123 @@ package gumtree.addressbook.persistence;
 import java.io.IOException;
 import java.net.URL;
 import java.nio.charset.Charset;
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
-import java.time.LocalDate;
-import java.time.ZoneId;
 import java.util.ArrayList;
-import java.util.Date;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
 
 import gumtree.addressbook.domain.Contact;
-import gumtree.addressbook.domain.Gender;
+import gumtree.addressbook.metrics.Metrics;
 import org.apache.commons.csv.CSVFormat;
 import org.apache.commons.csv.CSVParser;
 import org.apache.commons.csv.CSVRecord;
 
-import static java.lang.String.format;
-
+/**
+ * Reads a Csv address book with commons-csv. When metrics are enabled, every load records the time it spent in each
+ * phase: {@code load.parse} splitting records, {@code load.map} validating and mapping them to contacts, and
+ * {@code load.index} handing them to the consumer, together with {@code load.total} and the number of
+ * {@code load.records}.
+ */
 final class CsvAddressBookReader {
-    private static final int FULL_NAME_COLUMN_INDEX = 0;
-    private static final int GENDER_COLUMN_INDEX = 1;
-    private static final int DATE_OF_BIRTH_COLUMN_INDEX = 2;
 
     private final URL csvAddressBookUrl;
+    private final CsvContactMapper csvContactMapper;
+    private final Metrics metrics;
 
     CsvAddressBookReader(URL csvAddressBookUrl) {
+        this(csvAddressBookUrl, new DateOfBirthParser());
+    }
+
+    CsvAddressBookReader(URL csvAddressBookUrl, DateOfBirthParser dateOfBirthParser) {
+        this(csvAddressBookUrl, dateOfBirthParser, Metrics.disabled());
+    }
+
+    CsvAddressBookReader(URL csvAddressBookUrl, DateOfBirthParser dateOfBirthParser, Metrics metrics) {
         this.csvAddressBookUrl = csvAddressBookUrl;
+        this.csvContactMapper = new CsvContactMapper(dateOfBirthParser);
+        this.metrics = Objects.requireNonNull(metrics, "metrics cannot be null");
     }
 
     List<Contact> read() {
-        try {
-            CSVParser parse = CSVParser.parse(csvAddressBookUrl, Charset.forName("UTF-8"), CSVFormat.DEFAULT);
-            List<Contact> contacts = new ArrayList<>();
-            for (CSVRecord csvRecord : parse) {
-                validateNumberOfColumns(csvRecord);
+        List<Contact> contacts = new ArrayList<>();
+        read(contacts::add);
+        return contacts;
+    }
 
-                String fullName = csvRecord.get(FULL_NAME_COLUMN_INDEX);
-                Gender gender = mapToGender(csvRecord);
-                LocalDate dateOfBirth = mapToLocalDate(csvRecord);
+    void read(Consumer<Contact> contactConsumer) {
+        read(contactConsumer, InvalidRecordCollector.strict());
+    }
 
-                contacts.add(new Contact(fullName, gender, dateOfBirth));
-            }
+    /**
+     * Hands every invalid record to the collector, which either aborts the load or skips the record.
+     */
+    void read(Consumer<Contact> contactConsumer, InvalidRecordCollector invalidRecordCollector) {
+        Objects.requireNonNull(contactConsumer, "contactConsumer cannot be null");
+        Objects.requireNonNull(invalidRecordCollector, "invalidRecordCollector cannot be null");
 
-            return contacts;
+        long start = metrics.start();
+        try (CSVParser parse = CSVParser.parse(csvAddressBookUrl, Charset.forName("UTF-8"), CSVFormat.DEFAULT)) {
+            if (metrics.isEnabled()) {
+                readTimingEachPhase(parse, contactConsumer, invalidRecordCollector);
+            } else {
+                for (CSVRecord csvRecord : parse) {
+                    Contact contact = toContact(csvRecord, invalidRecordCollector);
+                    if (contact != null) {
+                        contactConsumer.accept(contact);
+                    }
+                }
+            }
         } catch (IOException e) {
             throw new PersistenceException(e);
+        } finally {
+            metrics.stop("load.total", start);
         }
     }
 
-    private void validateNumberOfColumns(CSVRecord csvRecord) {
-        if (csvRecord.size() != 3) {
-            throw new PersistenceException(csvRecord.getRecordNumber(), "There are missing fields");
-        }
-    }
-
-    private Gender mapToGender(CSVRecord csvRecord) {
-        String trimmedGenderValue = csvRecord.get(GENDER_COLUMN_INDEX).trim();
+    private void readTimingEachPhase(CSVParser parse, Consumer<Contact> contactConsumer,
+                                     InvalidRecordCollector invalidRecordCollector) {
+        long parseNanos = 0;
+        long mapNanos = 0;
+        long indexNanos = 0;
+        long numberOfRecords = 0;
         try {
-            return Gender.valueOf(trimmedGenderValue.toUpperCase());
-        } catch (IllegalArgumentException e) {
-            throw new PersistenceException(csvRecord.getRecordNumber(),
-                    format("Gender must be one of \"Male\" or \"Female\". value=\"%s\"", trimmedGenderValue));
+            Iterator<CSVRecord> csvRecords = parse.iterator();
+            long parseStart = System.nanoTime();
+            while (csvRecords.hasNext()) {
+                CSVRecord csvRecord = csvRecords.next();
+                long mapStart = System.nanoTime();
+                Contact contact = toContact(csvRecord, invalidRecordCollector);
+                long indexStart = System.nanoTime();
+                if (contact != null) {
+                    contactConsumer.accept(contact);
+                }
+                long indexEnd = System.nanoTime();
+
+                parseNanos += mapStart - parseStart;
+                mapNanos += indexStart - mapStart;
+                indexNanos += indexEnd - indexStart;
+                numberOfRecords++;
+                parseStart = indexEnd;
+            }
+            parseNanos += System.nanoTime() - parseStart;
+        } finally {
+            metrics.recordLatency("load.parse", parseNanos);
+            metrics.recordLatency("load.map", mapNanos);
+            metrics.recordLatency("load.index", indexNanos);
+            metrics.increment("load.records", numberOfRecords);
         }
     }
 
-    private LocalDate mapToLocalDate(CSVRecord csvRecord) {
-        String trimmedDobValue = csvRecord.get(DATE_OF_BIRTH_COLUMN_INDEX).trim();
+    /**
+     * @return the contact, or null when the record is invalid and the collector skips it
+     */
+    private Contact toContact(CSVRecord csvRecord, InvalidRecordCollector invalidRecordCollector) {
         try {
-            Date parsedDate = new SimpleDateFormat("dd/MM/yy").parse(trimmedDobValue);
-            return parsedDate.toInstant().atZone(ZoneId.systemDefault()).toLocalDate();
-        } catch (ParseException e) {
-            throw new PersistenceException(csvRecord.getRecordNumber(),
-                    format("Date of birth must have the format \"dd/MM/yy\". value=\"%s\"", trimmedDobValue));
+            return csvContactMapper.toContact(csvRecord);
+        } catch (InvalidRecordException e) {
+            invalidRecordCollector.add(csvRecord.getRecordNumber(), e);
+            return null;
         }
     }
 }
@@ -0,0 +1,221 @@
+package gumtree.addressbook.persistence;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import gumtree.addressbook.domain.Contact;
+
+/**
+ * Keeps a {@link ConcurrentAddressBookRepository} in step with the Csv file it was loaded from. When the file's size
+ * or modification time change, the file is streamed again and each record is compared with the one at the same
+ * position in the repository, so no second copy of the address book is kept. Only the records that were appended,
+ * changed or dropped are applied to the live repository, as one atomic write, so queries keep being served from the
+ * old state until the new one is published.
+ * <p>
+ * The repository must only be changed through this reloader; its records are matched by position in the file.
+ */
+public final class CsvAddressBookReloader implements Closeable {
+    private static final Logger LOGGER = Logger.getLogger(CsvAddressBookReloader.class.getName());
+
+    private final Path csvFilePath;
+    private final ConcurrentAddressBookRepository repository;
+    private final Object reloadLock = new Object();
+
+    private FileStamp loadedStamp;
+    private FileStamp failedStamp;
+    private volatile PersistenceException lastFailure;
+    private ScheduledExecutorService scheduler;
+
+    CsvAddressBookReloader(Path csvFilePath) {
+        this.csvFilePath = Objects.requireNonNull(csvFilePath, "csvFilePath cannot be null");
+
+        FileStamp stamp = FileStamp.of(csvFilePath);
+        this.repository = new ConcurrentAddressBookRepository(new MappedCsvAddressBookReader(csvFilePath).read());
+        this.loadedStamp = stamp;
+    }
+
+    public AddressBookRepository getRepository() {
+        return repository;
+    }
+
+    /**
+     * Applies the changes made to the Csv file since the last load. A file that cannot be read or parsed leaves the
+     * repository as it was; the error is thrown and kept in {@link #getLastFailure()}.
+     *
+     * @return the number of records that were appended, changed or dropped
+     */
+    public int reload() {
+        synchronized (reloadLock) {
+            FileStamp stamp = FileStamp.of(csvFilePath);
+            if (stamp.equals(loadedStamp)) {
+                return 0;
+            }
+
+            // Only this reloader writes to the repository, so the records streamed here are the loaded ones.
+            ChangeCollector changeCollector = new ChangeCollector(repository.findAll().iterator());
+            try {
+                new MappedCsvAddressBookReader(csvFilePath).read(changeCollector);
+            } catch (PersistenceException e) {
+                failedStamp = stamp;
+                lastFailure = e;
+                throw e;
+            }
+
+            List<ContactChange> changes = changeCollector.finish();
+            repository.apply(changes);
+            loadedStamp = stamp;
+            lastFailure = null;
+            return changes.size();
+        }
+    }
+
+    /**
+     * Polls the Csv file for changes on a background thread until {@link #close()} is called.
+     */
+    public void start(Duration pollInterval) {
+        Objects.requireNonNull(pollInterval, "pollInterval cannot be null");
+        if (pollInterval.isNegative() || pollInterval.isZero()) {
+            throw new IllegalArgumentException("pollInterval must be positive");
+        }
+
+        synchronized (reloadLock) {
+            if (scheduler != null) {
+                throw new IllegalStateException("Reloader has already been started");
+            }
+            scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "address-book-reloader");
+                thread.setDaemon(true);
+                return thread;
+            });
+            long pollIntervalMillis = pollInterval.toMillis();
+            scheduler.scheduleWithFixedDelay(this::poll, pollIntervalMillis, pollIntervalMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * The error of the last reload, or null when it succeeded.
+     */
+    public PersistenceException getLastFailure() {
+        return lastFailure;
+    }
+
+    @Override
+    public void close() {
+        synchronized (reloadLock) {
+            if (scheduler != null) {
+                scheduler.shutdownNow();
+            }
+        }
+    }
+
+    private void poll() {
+        try {
+            synchronized (reloadLock) {
+                // A file that failed to load is only read again once it changes.
+                if (FileStamp.of(csvFilePath).equals(failedStamp)) {
+                    return;
+                }
+            }
+            reload();
+        } catch (PersistenceException e) {
+            lastFailure = e;
+            LOGGER.log(Level.WARNING, "Could not reload " + csvFilePath, e);
+        } catch (RuntimeException e) {
+            // An exception escaping the task would cancel every later poll.
+            LOGGER.log(Level.SEVERE, "Unexpected failure reloading " + csvFilePath, e);
+        }
+    }
+
+    /**
+     * Turns the previous records into the current ones. Records before the first difference are left alone, records
+     * after it are updated in place, and the remainder is appended or removed at the end. Every contact therefore
+     * keeps the position it would have after a full load.
+     */
+    static List<ContactChange> changes(List<Contact> previous, List<Contact> current) {
+        ChangeCollector changeCollector = new ChangeCollector(previous.iterator());
+        current.forEach(changeCollector);
+        return changeCollector.finish();
+    }
+
+    /**
+     * Compares the current records, as they are read, with the previous ones at the same position. Only the names
+     * seen so far are kept, to tell which occurrence of a name a change applies to.
+     */
+    private static final class ChangeCollector implements Consumer<Contact> {
+        private final Iterator<Contact> previous;
+        private final Map<String, Integer> occurrences = new HashMap<>();
+        private final List<ContactChange> changes = new ArrayList<>();
+
+        private ChangeCollector(Iterator<Contact> previous) {
+            this.previous = previous;
+        }
+
+        @Override
+        public void accept(Contact currentContact) {
+            if (!previous.hasNext()) {
+                changes.add(ContactChange.add(currentContact));
+                return;
+            }
+            Contact previousContact = previous.next();
+            if (!previousContact.equals(currentContact)) {
+                int occurrence = occurrences.getOrDefault(previousContact.getFullName(), 0);
+                changes.add(ContactChange.update(previousContact.getFullName(), occurrence, currentContact));
+            }
+            occurrences.merge(currentContact.getFullName(), 1, Integer::sum);
+        }
+
+        List<ContactChange> finish() {
+            while (previous.hasNext()) {
+                String fullName = previous.next().getFullName();
+                changes.add(ContactChange.remove(fullName, occurrences.getOrDefault(fullName, 0)));
+            }
+            return changes;
+        }
+    }
+
+    private static final class FileStamp {
+        private final long size;
+        private final long lastModified;
+
+        private FileStamp(long size, long lastModified) {
+            this.size = size;
+            this.lastModified = lastModified;
+        }
+
+        static FileStamp of(Path path) {
+            try {
+                return new FileStamp(Files.size(path), Files.getLastModifiedTime(path).toMillis());
+            } catch (IOException e) {
+                throw new PersistenceException(e);
+            }
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (this == other) return true;
+            if (other == null || getClass() != other.getClass()) return false;
+            FileStamp stamp = (FileStamp) other;
+            return size == stamp.size && lastModified == stamp.lastModified;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(size, lastModified);
+        }
+    }
+}
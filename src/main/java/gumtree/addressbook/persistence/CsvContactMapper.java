@@ -0,0 +1,72 @@
+package gumtree.addressbook.persistence;
+
+import java.time.LocalDate;
+import java.util.Objects;
+
+import gumtree.addressbook.domain.Contact;
+import gumtree.addressbook.domain.Gender;
+import org.apache.commons.csv.CSVRecord;
+
+import static java.lang.String.format;
+
+final class CsvContactMapper {
+    private static final int FULL_NAME_COLUMN_INDEX = 0;
+    private static final int GENDER_COLUMN_INDEX = 1;
+    private static final int DATE_OF_BIRTH_COLUMN_INDEX = 2;
+
+    private final DateOfBirthParser dateOfBirthParser;
+
+    CsvContactMapper(DateOfBirthParser dateOfBirthParser) {
+        this.dateOfBirthParser = Objects.requireNonNull(dateOfBirthParser, "dateOfBirthParser cannot be null");
+    }
+
+    Contact toContact(CSVRecord csvRecord) {
+        validateNumberOfColumns(csvRecord);
+
+        String fullName = csvRecord.get(FULL_NAME_COLUMN_INDEX);
+        Gender gender = mapToGender(csvRecord);
+        LocalDate dateOfBirth = mapToLocalDate(csvRecord);
+
+        return new Contact(fullName, gender, dateOfBirth);
+    }
+
+    private void validateNumberOfColumns(CSVRecord csvRecord) {
+        if (csvRecord.size() != 3) {
+            throw missingFields();
+        }
+    }
+
+    private Gender mapToGender(CSVRecord csvRecord) {
+        String trimmedGenderValue = csvRecord.get(GENDER_COLUMN_INDEX).trim();
+        try {
+            return Gender.valueOf(trimmedGenderValue.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw invalidGender(trimmedGenderValue);
+        }
+    }
+
+    private LocalDate mapToLocalDate(CSVRecord csvRecord) {
+        String dobValue = csvRecord.get(DATE_OF_BIRTH_COLUMN_INDEX);
+        try {
+            return LocalDate.ofEpochDay(dateOfBirthParser.parseEpochDay(dobValue, 0, dobValue.length()));
+        } catch (IllegalArgumentException e) {
+            throw invalidDateOfBirth(dobValue.trim());
+        }
+    }
+
+    static InvalidRecordException missingFields() {
+        return new InvalidRecordException("There are missing fields", null);
+    }
+
+    static InvalidRecordException invalidGender(String trimmedGenderValue) {
+        return new InvalidRecordException(
+                format("Gender must be one of \"Male\" or \"Female\". value=\"%s\"", trimmedGenderValue),
+                InvalidRecord.Column.GENDER);
+    }
+
+    static InvalidRecordException invalidDateOfBirth(String trimmedDobValue) {
+        return new InvalidRecordException(
+                format("Date of birth must have the format \"%s\". value=\"%s\"", DateOfBirthParser.FORMAT, trimmedDobValue),
+                InvalidRecord.Column.DATE_OF_BIRTH);
+    }
+}
@@ -0,0 +1,127 @@
+package gumtree.addressbook.persistence;
+
+import java.time.LocalDate;
+import java.time.Year;
+
+/**
+ * Parses dates in the "dd/MM/yy" format straight from the characters of a record, without creating intermediate
+ * strings or calendar objects. Day and month take one or two digits. A two digit year falls in the hundred years
+ * that start with {@code twoDigitYearStart}, and a four digit year is taken as is. The default start is the year 80
+ * years before the current one.
+ * <p>
+ * The pivot is a whole year. {@link java.text.SimpleDateFormat} pivots on the instant 80 years ago instead, so for a
+ * date earlier in the year than today it reads the two digit year of 80 years ago as a century later.
+ */
+final class DateOfBirthParser {
+    static final String FORMAT = "dd/MM/yy";
+
+    private static final int DAYS_PER_CYCLE = 146097;
+    private static final long DAYS_0000_TO_1970 = (DAYS_PER_CYCLE * 5L) - (30L * 365L + 7L);
+    private static final int[] DAYS_IN_MONTH = {31, 28, 31, 30, 31, 30, 31, 31, 30, 31, 30, 31};
+
+    private final int twoDigitYearStart;
+
+    DateOfBirthParser() {
+        this(Year.now().getValue() - 80);
+    }
+
+    DateOfBirthParser(int twoDigitYearStart) {
+        if (twoDigitYearStart < 0 || twoDigitYearStart > Year.MAX_VALUE - 100) {
+            throw new IllegalArgumentException("twoDigitYearStart is out of range");
+        }
+        this.twoDigitYearStart = twoDigitYearStart;
+    }
+
+    LocalDate parse(CharSequence text) {
+        return LocalDate.ofEpochDay(parseEpochDay(text, 0, text.length()));
+    }
+
+    /**
+     * @return the number of days since 1970-01-01 of the date found between {@code from} (inclusive) and
+     * {@code to} (exclusive), ignoring surrounding whitespace
+     * @throws IllegalArgumentException if the characters are not a valid date in the expected format
+     */
+    long parseEpochDay(CharSequence text, int from, int to) {
+        while (from < to && text.charAt(from) <= ' ') {
+            from++;
+        }
+        while (to > from && text.charAt(to - 1) <= ' ') {
+            to--;
+        }
+
+        int position = from;
+        int day = 0;
+        int dayDigits = 0;
+        while (position < to && isDigit(text.charAt(position))) {
+            day = day * 10 + text.charAt(position++) - '0';
+            dayDigits++;
+        }
+        if (dayDigits == 0 || dayDigits > 2 || position == to || text.charAt(position++) != '/') {
+            throw invalidDate();
+        }
+
+        int month = 0;
+        int monthDigits = 0;
+        while (position < to && isDigit(text.charAt(position))) {
+            month = month * 10 + text.charAt(position++) - '0';
+            monthDigits++;
+        }
+        if (monthDigits == 0 || monthDigits > 2 || position == to || text.charAt(position++) != '/') {
+            throw invalidDate();
+        }
+
+        int year = 0;
+        int yearDigits = 0;
+        while (position < to && isDigit(text.charAt(position))) {
+            year = year * 10 + text.charAt(position++) - '0';
+            yearDigits++;
+        }
+        if (position != to || (yearDigits != 2 && yearDigits != 4)) {
+            throw invalidDate();
+        }
+
+        if (yearDigits == 2) {
+            year = expandTwoDigitYear(year);
+        }
+        return toEpochDay(year, month, day);
+    }
+
+    private int expandTwoDigitYear(int twoDigitYear) {
+        int year = twoDigitYearStart - twoDigitYearStart % 100 + twoDigitYear;
+        return year < twoDigitYearStart ? year + 100 : year;
+    }
+
+    /**
+     * Same arithmetic as {@link LocalDate#toEpochDay()} for years from 0 onwards, without creating the date.
+     */
+    static long toEpochDay(int year, int month, int day) {
+        if (month < 1 || month > 12 || day < 1 || day > lengthOfMonth(year, month)) {
+            throw invalidDate();
+        }
+
+        long y = year;
+        long total = 365 * y + (y + 3) / 4 - (y + 99) / 100 + (y + 399) / 400;
+        total += (367 * month - 362) / 12;
+        total += day - 1;
+        if (month > 2) {
+            total -= isLeapYear(year) ? 1 : 2;
+        }
+        return total - DAYS_0000_TO_1970;
+    }
+
+    private static int lengthOfMonth(int year, int month) {
+        return month == 2 && isLeapYear(year) ? 29 : DAYS_IN_MONTH[month - 1];
+    }
+
+    private static boolean isLeapYear(int year) {
+        return (year & 3) == 0 && (year % 100 != 0 || year % 400 == 0);
+    }
+
+    private static boolean isDigit(char character) {
+        return character >= '0' && character <= '9';
+    }
+
+    private static IllegalArgumentException invalidDate() {
+        return new IllegalArgumentException("Date of birth must have the format \"" + FORMAT + "\"");
+    }
+}
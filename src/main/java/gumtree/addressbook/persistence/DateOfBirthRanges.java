@@ -0,0 +1,24 @@
+package gumtree.addressbook.persistence;
+
+import java.time.LocalDate;
+import java.util.Objects;
+
+final class DateOfBirthRanges {
+
+    private DateOfBirthRanges() {}
+
+    static void validate(LocalDate from, LocalDate to) {
+        Objects.requireNonNull(from, "from cannot be null");
+        Objects.requireNonNull(to, "to cannot be null");
+
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("from cannot be after to");
+        }
+    }
+
+    static void validate(int limit) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("limit cannot be negative");
+        }
+    }
+}
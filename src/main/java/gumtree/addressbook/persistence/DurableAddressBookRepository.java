@@ -0,0 +1,255 @@
+package gumtree.addressbook.persistence;
+
+import java.io.Closeable;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.SortedMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import gumtree.addressbook.domain.Contact;
+import gumtree.addressbook.domain.Gender;
+
+/**
+ * A {@link ConcurrentAddressBookRepository} whose writes are recorded in a {@link ContactChangeLog} before they
+ * return, and replayed on top of the Csv file or snapshot the next time it is opened. Readers only see a write once
+ * it is on disk, which is also when it returns; concurrent writes share a single {@code fsync}.
+ * <p>
+ * Once the log has grown to twice its size after the last compaction, and at least to the compaction threshold, it
+ * is rewritten on a background thread as one checkpoint of the whole address book. The checkpoint is taken from a
+ * snapshot of the address book, so neither writes nor queries wait while it is written.
+ */
+public final class DurableAddressBookRepository implements MutableAddressBookRepository, Closeable {
+    static final long DEFAULT_COMPACTION_THRESHOLD = 64L << 20;
+
+    private final ConcurrentAddressBookRepository repository;
+    private final ContactChangeLog changeLog;
+    private final long compactionThreshold;
+    private final Object writeLock = new Object();
+    private final Object compactionLock = new Object();
+    private final AtomicBoolean compacting = new AtomicBoolean();
+    private final ExecutorService compactor;
+
+    private boolean closed;
+    private long appendedSequence;
+    private volatile long nextCompactionSize;
+    private volatile PersistenceException lastCompactionFailure;
+
+    DurableAddressBookRepository(ConcurrentAddressBookRepository repository, ContactChangeLog changeLog,
+                                 long compactionThreshold) {
+        Objects.requireNonNull(repository, "repository cannot be null");
+        Objects.requireNonNull(changeLog, "changeLog cannot be null");
+        if (compactionThreshold < 1) {
+            throw new IllegalArgumentException("compactionThreshold must be positive");
+        }
+
+        this.repository = repository;
+        this.changeLog = changeLog;
+        this.compactionThreshold = compactionThreshold;
+        this.nextCompactionSize = Math.max(compactionThreshold, 2 * changeLog.size());
+        this.compactor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "address-book-change-log-compactor");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public Stream<Contact> findAll() {
+        return repository.findAll();
+    }
+
+    @Override
+    public int countByGender(Gender gender) {
+        return repository.countByGender(gender);
+    }
+
+    @Override
+    public Optional<Contact> findByFullName(String fullName) {
+        return repository.findByFullName(fullName);
+    }
+
+    @Override
+    public List<Contact> findAllByFullName(String fullName) {
+        return repository.findAllByFullName(fullName);
+    }
+
+    @Override
+    public List<Optional<Contact>> findByFullNames(List<String> fullNames) {
+        return repository.findByFullNames(fullNames);
+    }
+
+    @Override
+    public List<Contact> findByFullNamePrefix(String prefix, int offset, int limit) {
+        return repository.findByFullNamePrefix(prefix, offset, limit);
+    }
+
+    @Override
+    public List<Contact> findByFullNameSimilarTo(String fullName, int maxDistance, int limit) {
+        return repository.findByFullNameSimilarTo(fullName, maxDistance, limit);
+    }
+
+    @Override
+    public <K extends Comparable<? super K>> SortedMap<K, ContactStatistics> aggregate(ContactGrouping<K> grouping) {
+        return repository.aggregate(grouping);
+    }
+
+    @Override
+    public Optional<LocalDate> findEarliestDateOfBirth() {
+        return repository.findEarliestDateOfBirth();
+    }
+
+    @Override
+    public List<Contact> findByDateOfBirth(LocalDate dateOfBirth) {
+        return repository.findByDateOfBirth(dateOfBirth);
+    }
+
+    @Override
+    public Optional<LocalDate> findLatestDateOfBirth() {
+        return repository.findLatestDateOfBirth();
+    }
+
+    @Override
+    public List<Contact> findByDateOfBirthBetween(LocalDate from, LocalDate to) {
+        return repository.findByDateOfBirthBetween(from, to);
+    }
+
+    @Override
+    public Stream<Contact> streamByDateOfBirthBetween(LocalDate from, LocalDate to) {
+        return repository.streamByDateOfBirthBetween(from, to);
+    }
+
+    @Override
+    public List<Contact> findOldest(int limit) {
+        return repository.findOldest(limit);
+    }
+
+    @Override
+    public List<Contact> findYoungest(int limit) {
+        return repository.findYoungest(limit);
+    }
+
+    @Override
+    public void add(Contact contact) {
+        apply(Collections.singletonList(ContactChange.add(contact)));
+    }
+
+    @Override
+    public boolean update(String fullName, Contact contact) {
+        return apply(Collections.singletonList(ContactChange.update(fullName, contact))) == 1;
+    }
+
+    @Override
+    public boolean remove(String fullName) {
+        return apply(Collections.singletonList(ContactChange.remove(fullName))) == 1;
+    }
+
+    /**
+     * Logs the changes as one record and stages them, in the same order as every other write, so that replaying the
+     * log gives the same result. Changes that do not take effect are logged along with those that do; they do not
+     * take effect on replay either, and a write where none does is not logged at all. The changes are published to
+     * readers once the record is on disk; later writes are staged on top of them meanwhile.
+     * <p>
+     * Once a record cannot be written, the log is no longer trusted: this write and every later one fail with a
+     * {@link PersistenceException}. The writes waiting for the failed {@code fsync} are never published, although
+     * they may turn out to be on disk when the repository is opened again.
+     */
+    @Override
+    public int apply(List<ContactChange> changes) {
+        long sequence;
+        long version;
+        int applied;
+        synchronized (writeLock) {
+            checkNotClosed();
+            changeLog.checkNotFailed();
+            applied = repository.stage(changes, () -> appendedSequence = changeLog.append(changes));
+            if (applied == 0) {
+                return 0;
+            }
+            sequence = appendedSequence;
+            version = repository.getStagedVersion();
+        }
+        changeLog.sync(sequence);
+        repository.publish(version);
+
+        if (changeLog.size() >= nextCompactionSize && compacting.compareAndSet(false, true)) {
+            try {
+                compactor.execute(this::compactInBackground);
+            } catch (RejectedExecutionException e) {
+                compacting.set(false);
+            }
+        }
+        return applied;
+    }
+
+    @Override
+    public long getVersion() {
+        return repository.getVersion();
+    }
+
+    /**
+     * Rewrites the log as one checkpoint of the current address book, followed by the writes made while it is
+     * written. The checkpoint holds every logged write, including those still waiting to reach the disk.
+     */
+    public void compact() {
+        synchronized (compactionLock) {
+            Stream<Contact> contacts;
+            synchronized (writeLock) {
+                checkNotClosed();
+                changeLog.checkNotFailed();
+                contacts = repository.findAllStaged();
+                changeLog.beginCompaction();
+            }
+            changeLog.compact(contacts);
+            nextCompactionSize = Math.max(compactionThreshold, 2 * changeLog.size());
+        }
+    }
+
+    /**
+     * The error of the last background compaction, or null when it succeeded.
+     */
+    public PersistenceException getLastCompactionFailure() {
+        return lastCompactionFailure;
+    }
+
+    /**
+     * Waits for a running compaction and closes the log; writes fail afterwards.
+     */
+    @Override
+    public void close() {
+        compactor.shutdown();
+        try {
+            compactor.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (writeLock) {
+            closed = true;
+            changeLog.close();
+        }
+    }
+
+    private void checkNotClosed() {
+        if (closed) {
+            throw new IllegalStateException("Repository is closed");
+        }
+    }
+
+    private void compactInBackground() {
+        try {
+            compact();
+            lastCompactionFailure = null;
+        } catch (PersistenceException e) {
+            lastCompactionFailure = e;
+        } finally {
+            compacting.set(false);
+        }
+    }
+}
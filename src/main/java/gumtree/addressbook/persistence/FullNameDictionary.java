@@ -0,0 +1,281 @@
+package gumtree.addressbook.persistence;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Compresses UTF-8 full names by interning the space separated tokens that occur more than once, such as first
+ * names and surnames, into integer ids. A full name is encoded as one varint per token: {@code id << 1} for an
+ * interned token, or {@code length << 1 | 1} followed by the token's bytes for a token that only occurs once. The
+ * separating spaces are implied. Ids are handed out by descending frequency, so the most common tokens take a
+ * single byte.
+ * <p>
+ * Equal names always have equal encodings, so encoded names can be hashed and compared without decoding them.
+ */
+final class FullNameDictionary {
+    private static final byte SEPARATOR = ' ';
+
+    private static final int MAXIMUM_VARINT_LENGTH = 5;
+
+    private final byte[] tokens;
+    private final int[] tokenOffsets;
+    private final int[] ids;
+    private final int longestTokenLength;
+
+    private FullNameDictionary(byte[] tokens, int[] tokenOffsets) {
+        this.tokens = tokens;
+        this.tokenOffsets = tokenOffsets;
+        this.ids = new int[FullNameHashing.tableSize(tokenOffsets.length - 1)];
+        int longestTokenLength = 0;
+        int mask = ids.length - 1;
+        for (int id = 0; id < tokenOffsets.length - 1; id++) {
+            longestTokenLength = Math.max(longestTokenLength, tokenOffsets[id + 1] - tokenOffsets[id]);
+            int slot = FullNameHashing.hash(tokens, tokenOffsets[id], tokenOffsets[id + 1]) & mask;
+            while (ids[slot] != FullNameHashing.EMPTY_SLOT) {
+                slot = (slot + 1) & mask;
+            }
+            ids[slot] = id + 1;
+        }
+        this.longestTokenLength = longestTokenLength;
+    }
+
+    /**
+     * Interns every token that occurs more than once in the full names, which are stored back to back in
+     * {@code fullNames} and delimited by {@code fullNameOffsets}.
+     */
+    static FullNameDictionary build(byte[] fullNames, int[] fullNameOffsets, int numberOfFullNames) {
+        TokenCounts tokenCounts = new TokenCounts(fullNames);
+        for (int row = 0; row < numberOfFullNames; row++) {
+            int tokenStart = fullNameOffsets[row];
+            int end = fullNameOffsets[row + 1];
+            for (int i = tokenStart; i <= end; i++) {
+                if (i == end || fullNames[i] == SEPARATOR) {
+                    tokenCounts.add(tokenStart, i);
+                    tokenStart = i + 1;
+                }
+            }
+        }
+        return tokenCounts.toDictionary();
+    }
+
+    int numberOfTokens() {
+        return tokenOffsets.length - 1;
+    }
+
+    /**
+     * The most bytes the encoding of a UTF-8 full name of the given length can take: a varint and the bytes of
+     * every token.
+     */
+    static int maximumEncodedLength(int fullNameLength) {
+        return fullNameLength + MAXIMUM_VARINT_LENGTH * (fullNameLength + 1);
+    }
+
+    /**
+     * @return the encoding of the UTF-8 full name
+     */
+    byte[] encode(byte[] fullName) {
+        byte[] encoded = new byte[maximumEncodedLength(fullName.length)];
+        return Arrays.copyOf(encoded, encode(fullName, 0, fullName.length, encoded, 0));
+    }
+
+    int encodedLength(byte[] fullName, int from, int to) {
+        int length = 0;
+        int tokenStart = from;
+        for (int i = from; i <= to; i++) {
+            if (i == to || fullName[i] == SEPARATOR) {
+                int id = idOf(fullName, tokenStart, i);
+                length += id >= 0 ? varintLength(id << 1) : varintLength((i - tokenStart) << 1 | 1) + i - tokenStart;
+                tokenStart = i + 1;
+            }
+        }
+        return length;
+    }
+
+    /**
+     * Writes the encoding of {@code fullName[from, to)} at {@code offset}, which must leave room for
+     * {@link #encodedLength(byte[], int, int)} bytes.
+     *
+     * @return the offset after the encoding
+     */
+    int encode(byte[] fullName, int from, int to, byte[] target, int offset) {
+        int tokenStart = from;
+        for (int i = from; i <= to; i++) {
+            if (i == to || fullName[i] == SEPARATOR) {
+                int id = idOf(fullName, tokenStart, i);
+                if (id >= 0) {
+                    offset = writeVarint(id << 1, target, offset);
+                } else {
+                    offset = writeVarint((i - tokenStart) << 1 | 1, target, offset);
+                    System.arraycopy(fullName, tokenStart, target, offset, i - tokenStart);
+                    offset += i - tokenStart;
+                }
+                tokenStart = i + 1;
+            }
+        }
+        return offset;
+    }
+
+    String decode(byte[] encoded, int from, int to) {
+        // Every encoded byte decodes to at most a whole token and its separator.
+        byte[] fullName = new byte[(to - from) * (Math.max(1, longestTokenLength) + 1)];
+        int length = 0;
+        int position = from;
+        while (position < to) {
+            if (position > from) {
+                fullName[length++] = SEPARATOR;
+            }
+            int value = 0;
+            int shift = 0;
+            byte next;
+            do {
+                next = encoded[position++];
+                value |= (next & 0x7f) << shift;
+                shift += 7;
+            } while (next < 0);
+
+            if ((value & 1) == 0) {
+                int id = value >>> 1;
+                int tokenLength = tokenOffsets[id + 1] - tokenOffsets[id];
+                System.arraycopy(tokens, tokenOffsets[id], fullName, length, tokenLength);
+                length += tokenLength;
+            } else {
+                int tokenLength = value >>> 1;
+                System.arraycopy(encoded, position, fullName, length, tokenLength);
+                position += tokenLength;
+                length += tokenLength;
+            }
+        }
+        return new String(fullName, 0, length, StandardCharsets.UTF_8);
+    }
+
+    private int idOf(byte[] bytes, int from, int to) {
+        int mask = ids.length - 1;
+        int slot = FullNameHashing.hash(bytes, from, to) & mask;
+        while (ids[slot] != FullNameHashing.EMPTY_SLOT) {
+            int id = ids[slot] - 1;
+            if (equal(tokens, tokenOffsets[id], tokenOffsets[id + 1], bytes, from, to)) {
+                return id;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private static boolean equal(byte[] first, int firstFrom, int firstTo,
+                                 byte[] second, int secondFrom, int secondTo) {
+        if (firstTo - firstFrom != secondTo - secondFrom) {
+            return false;
+        }
+        for (int i = 0; i < firstTo - firstFrom; i++) {
+            if (first[firstFrom + i] != second[secondFrom + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int varintLength(int value) {
+        int length = 1;
+        while ((value & ~0x7f) != 0) {
+            value >>>= 7;
+            length++;
+        }
+        return length;
+    }
+
+    private static int writeVarint(int value, byte[] target, int offset) {
+        while ((value & ~0x7f) != 0) {
+            target[offset++] = (byte) (value & 0x7f | 0x80);
+            value >>>= 7;
+        }
+        target[offset++] = (byte) value;
+        return offset;
+    }
+
+    /**
+     * Counts the distinct tokens of the full names in an open addressing table of their first occurrences.
+     */
+    private static final class TokenCounts {
+        private final byte[] fullNames;
+        private int[] starts = new int[1024];
+        private int[] ends = new int[1024];
+        private int[] counts = new int[1024];
+        private int size;
+
+        private TokenCounts(byte[] fullNames) {
+            this.fullNames = fullNames;
+        }
+
+        private void add(int from, int to) {
+            int mask = counts.length - 1;
+            int slot = FullNameHashing.hash(fullNames, from, to) & mask;
+            while (counts[slot] != 0) {
+                if (equal(fullNames, starts[slot], ends[slot], fullNames, from, to)) {
+                    counts[slot]++;
+                    return;
+                }
+                slot = (slot + 1) & mask;
+            }
+            starts[slot] = from;
+            ends[slot] = to;
+            counts[slot] = 1;
+            if (++size * 2 > counts.length) {
+                grow();
+            }
+        }
+
+        private void grow() {
+            int[] oldStarts = starts;
+            int[] oldEnds = ends;
+            int[] oldCounts = counts;
+            starts = new int[oldCounts.length * 2];
+            ends = new int[oldCounts.length * 2];
+            counts = new int[oldCounts.length * 2];
+            int mask = counts.length - 1;
+            for (int oldSlot = 0; oldSlot < oldCounts.length; oldSlot++) {
+                if (oldCounts[oldSlot] != 0) {
+                    int slot = FullNameHashing.hash(fullNames, oldStarts[oldSlot], oldEnds[oldSlot]) & mask;
+                    while (counts[slot] != 0) {
+                        slot = (slot + 1) & mask;
+                    }
+                    starts[slot] = oldStarts[oldSlot];
+                    ends[slot] = oldEnds[oldSlot];
+                    counts[slot] = oldCounts[oldSlot];
+                }
+            }
+        }
+
+        /**
+         * Interns the repeated tokens, most frequent first.
+         */
+        private FullNameDictionary toDictionary() {
+            int numberOfRepeatedTokens = 0;
+            for (int count : counts) {
+                if (count > 1) {
+                    numberOfRepeatedTokens++;
+                }
+            }
+
+            long[] countAndSlot = new long[numberOfRepeatedTokens];
+            int next = 0;
+            int tokensLength = 0;
+            for (int slot = 0; slot < counts.length; slot++) {
+                if (counts[slot] > 1) {
+                    countAndSlot[next++] = (long) (Integer.MAX_VALUE - counts[slot]) << 32 | slot;
+                    tokensLength += ends[slot] - starts[slot];
+                }
+            }
+            Arrays.sort(countAndSlot);
+
+            byte[] tokens = new byte[tokensLength];
+            int[] tokenOffsets = new int[numberOfRepeatedTokens + 1];
+            for (int id = 0; id < numberOfRepeatedTokens; id++) {
+                int slot = (int) countAndSlot[id];
+                int length = ends[slot] - starts[slot];
+                System.arraycopy(fullNames, starts[slot], tokens, tokenOffsets[id], length);
+                tokenOffsets[id + 1] = tokenOffsets[id] + length;
+            }
+            return new FullNameDictionary(tokens, tokenOffsets);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package gumtree.addressbook.persistence;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Hashing of UTF-8 encoded full names shared by the open addressing indexes, so that the same name hashes the same
+ * whether it lives in a heap array or in a buffer.
+ */
+final class FullNameHashing {
+    static final int EMPTY_SLOT = 0;
+
+    private FullNameHashing() {}
+
+    /**
+     * @return the smallest power of two that keeps the load factor of the index at or below one half
+     */
+    static int tableSize(int numberOfEntries) {
+        int size = 2;
+        while (size < 2L * numberOfEntries) {
+            size <<= 1;
+        }
+        return size;
+    }
+
+    static int hash(byte[] bytes, int from, int to) {
+        int hash = 0;
+        for (int i = from; i < to; i++) {
+            hash = 31 * hash + bytes[i];
+        }
+        return mix(hash);
+    }
+
+    static int hash(ByteBuffer bytes, int from, int to) {
+        int hash = 0;
+        for (int i = from; i < to; i++) {
+            hash = 31 * hash + bytes.get(i);
+        }
+        return mix(hash);
+    }
+
+    static int mix(int hash) {
+        hash ^= hash >>> 16;
+        hash *= 0x85ebca6b;
+        hash ^= hash >>> 13;
+        hash *= 0xc2b2ae35;
+        return hash ^ (hash >>> 16);
+    }
+}
@@ -0,0 +1,249 @@
+package gumtree.addressbook.persistence;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import java.util.function.IntFunction;
+
+import static java.util.Comparator.comparing;
+
+/**
+ * The rows of a repository sorted by full name, for prefix search, and a trigram index over the distinct full names,
+ * for edit distance search. Searches return rows, and read full names back from the repository through the function
+ * the index was built with, so the index only holds row numbers.
+ * <p>
+ * A name within edit distance k of the query keeps at least {@code length + 2 - 3k} of the query's padded trigrams,
+ * because each edit touches at most three of them. Only names sharing that many trigram buckets have their distance
+ * computed; shorter queries, where the bound says nothing, compare every name of a suitable length.
+ */
+final class FullNameIndex {
+    private static final int TRIGRAM_BUCKETS = 1 << 16;
+    private static final char PADDING = '\u0000';
+    private static final int[] NO_ROWS = new int[0];
+
+    private final IntFunction<String> fullNameOfRow;
+    private final int numberOfRows;
+    private final int numberOfFullNames;
+    private final IntBuffer rowsByFullName;
+    private final IntBuffer fullNameStarts;
+    private final int[] trigramStarts = new int[TRIGRAM_BUCKETS + 1];
+    private final IntBuffer trigramFullNames;
+
+    FullNameIndex(int numberOfRows, IntFunction<String> fullNameOfRow) {
+        this(numberOfRows, fullNameOfRow, false);
+    }
+
+    /**
+     * @param offHeap whether to keep the index in direct buffers; building it still reads every full name onto the
+     *                heap once
+     */
+    FullNameIndex(int numberOfRows, IntFunction<String> fullNameOfRow, boolean offHeap) {
+        this.fullNameOfRow = fullNameOfRow;
+        this.numberOfRows = numberOfRows;
+
+        String[] fullNames = new String[numberOfRows];
+        Integer[] rows = new Integer[numberOfRows];
+        for (int row = 0; row < numberOfRows; row++) {
+            fullNames[row] = fullNameOfRow.apply(row);
+            rows[row] = row;
+        }
+        // A stable sort keeps rows that share a full name in load order.
+        Arrays.sort(rows, comparing((Integer row) -> fullNames[row]));
+
+        int[] sortedRows = new int[numberOfRows];
+        int[] starts = new int[numberOfRows + 1];
+        int distinct = 0;
+        for (int i = 0; i < numberOfRows; i++) {
+            sortedRows[i] = rows[i];
+            if (i == 0 || !fullNames[rows[i]].equals(fullNames[rows[i - 1]])) {
+                starts[distinct++] = i;
+            }
+        }
+        starts[distinct] = numberOfRows;
+        numberOfFullNames = distinct;
+        rowsByFullName = store(sortedRows, numberOfRows, offHeap);
+        fullNameStarts = store(starts, numberOfFullNames + 1, offHeap);
+
+        for (int fullName = 0; fullName < numberOfFullNames; fullName++) {
+            for (int bucket : distinctTrigramBuckets(fullNames[sortedRows[starts[fullName]]])) {
+                trigramStarts[bucket + 1]++;
+            }
+        }
+        for (int bucket = 0; bucket < TRIGRAM_BUCKETS; bucket++) {
+            trigramStarts[bucket + 1] += trigramStarts[bucket];
+        }
+        int[] postings = new int[trigramStarts[TRIGRAM_BUCKETS]];
+        int[] positions = Arrays.copyOf(trigramStarts, TRIGRAM_BUCKETS);
+        for (int fullName = 0; fullName < numberOfFullNames; fullName++) {
+            for (int bucket : distinctTrigramBuckets(fullNames[sortedRows[starts[fullName]]])) {
+                postings[positions[bucket]++] = fullName;
+            }
+        }
+        trigramFullNames = store(postings, postings.length, offHeap);
+    }
+
+    int getNumberOfFullNames() {
+        return numberOfFullNames;
+    }
+
+    boolean containsFullName(String fullName) {
+        int position = firstPositionNotBefore(fullName);
+        return position < numberOfRows && fullNameAt(position).equals(fullName);
+    }
+
+    /**
+     * @return the rows whose full name starts with the prefix, ordered by full name and then by row
+     */
+    int[] findByPrefix(String prefix, int offset, int limit) {
+        long first = (long) firstPositionNotBefore(prefix) + offset;
+        if (first >= numberOfRows) {
+            return NO_ROWS;
+        }
+        int[] rows = new int[(int) Math.min(limit, numberOfRows - first)];
+        int size = 0;
+        while (size < rows.length && fullNameAt((int) first + size).startsWith(prefix)) {
+            rows[size] = rowsByFullName.get((int) first + size);
+            size++;
+        }
+        return size == rows.length ? rows : Arrays.copyOf(rows, size);
+    }
+
+    /**
+     * @return the rows whose full name is within the distance of the query, closest first, then ordered by full name
+     * and then by row
+     */
+    int[] findSimilar(String query, int maxDistance, int limit) {
+        Matches matches = new Matches();
+
+        int minimumSharedTrigrams = query.length() + 2 - 3 * maxDistance;
+        if (minimumSharedTrigrams <= 0) {
+            for (int fullName = 0; fullName < numberOfFullNames; fullName++) {
+                matches.addIfSimilar(query, fullName, maxDistance);
+            }
+        } else {
+            int[] sharedTrigrams = new int[numberOfFullNames];
+            for (int bucket : trigramBuckets(query)) {
+                for (int i = trigramStarts[bucket]; i < trigramStarts[bucket + 1]; i++) {
+                    int fullName = trigramFullNames.get(i);
+                    if (++sharedTrigrams[fullName] == minimumSharedTrigrams) {
+                        matches.addIfSimilar(query, fullName, maxDistance);
+                    }
+                }
+            }
+        }
+
+        int[] rows = new int[Math.min(limit, 64)];
+        int size = 0;
+        for (long match : matches.sorted()) {
+            int fullName = (int) match;
+            for (int i = fullNameStarts.get(fullName); i < fullNameStarts.get(fullName + 1); i++) {
+                if (size == limit) {
+                    return rows;
+                }
+                if (size == rows.length) {
+                    rows = Arrays.copyOf(rows, (int) Math.min(limit, 2L * size));
+                }
+                rows[size++] = rowsByFullName.get(i);
+            }
+        }
+        return Arrays.copyOf(rows, size);
+    }
+
+    private String fullName(int fullName) {
+        return fullNameAt(fullNameStarts.get(fullName));
+    }
+
+    private String fullNameAt(int position) {
+        return fullNameOfRow.apply(rowsByFullName.get(position));
+    }
+
+    private int firstPositionNotBefore(String prefix) {
+        int low = 0;
+        int high = numberOfRows;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (fullNameAt(middle).compareTo(prefix) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private static IntBuffer store(int[] values, int length, boolean offHeap) {
+        if (!offHeap) {
+            return IntBuffer.wrap(length == values.length ? values : Arrays.copyOf(values, length));
+        }
+        if (length > Integer.MAX_VALUE / Integer.BYTES) {
+            throw new IllegalStateException("Full names do not fit in an off-heap index");
+        }
+        IntBuffer buffer = ByteBuffer.allocateDirect(length * Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN)
+                .asIntBuffer();
+        buffer.put(values, 0, length);
+        return buffer;
+    }
+
+    private static int[] distinctTrigramBuckets(String fullName) {
+        int[] buckets = trigramBuckets(fullName);
+        Arrays.sort(buckets);
+
+        int distinct = 0;
+        for (int i = 0; i < buckets.length; i++) {
+            if (i == 0 || buckets[i] != buckets[i - 1]) {
+                buckets[distinct++] = buckets[i];
+            }
+        }
+        return Arrays.copyOf(buckets, distinct);
+    }
+
+    /**
+     * The bucket of every trigram of the name padded with two characters on each side.
+     */
+    private static int[] trigramBuckets(String fullName) {
+        int length = fullName.length();
+        int[] buckets = new int[length + 2];
+        for (int i = 0; i < length + 2; i++) {
+            long trigram = ((long) charAt(fullName, i - 2) << 32)
+                    | ((long) charAt(fullName, i - 1) << 16)
+                    | charAt(fullName, i);
+            buckets[i] = bucket(trigram);
+        }
+        return buckets;
+    }
+
+    private static char charAt(String fullName, int index) {
+        return index < 0 || index >= fullName.length() ? PADDING : fullName.charAt(index);
+    }
+
+    private static int bucket(long trigram) {
+        long hash = trigram * 0x9E3779B97F4A7C15L;
+        return (int) (hash >>> 48) & (TRIGRAM_BUCKETS - 1);
+    }
+
+    /**
+     * Full name ordinals within the distance, each packed with its distance so that sorting puts the closest first
+     * and then orders by full name.
+     */
+    private final class Matches {
+        private long[] matches = new long[16];
+        private int size;
+
+        private void addIfSimilar(String query, int fullName, int maxDistance) {
+            int distance = FullNameSearches.distance(query, fullName(fullName), maxDistance);
+            if (distance <= maxDistance) {
+                if (size == matches.length) {
+                    matches = Arrays.copyOf(matches, size * 2);
+                }
+                matches[size++] = ((long) distance << 32) | fullName;
+            }
+        }
+
+        private long[] sorted() {
+            long[] sorted = Arrays.copyOf(matches, size);
+            Arrays.sort(sorted);
+            return sorted;
+        }
+    }
+}
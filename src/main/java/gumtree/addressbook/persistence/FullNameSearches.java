@@ -0,0 +1,114 @@
+package gumtree.addressbook.persistence;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import gumtree.addressbook.domain.Contact;
+
+import static java.util.Comparator.comparing;
+import static java.util.Comparator.comparingInt;
+
+/**
+ * Argument checks, scans and the edit distance shared by the full name searches of every repository.
+ */
+final class FullNameSearches {
+
+    private static final Comparator<Match> MATCH_ORDER =
+            comparingInt((Match match) -> match.distance).thenComparing(match -> match.contact.getFullName());
+
+    private FullNameSearches() {}
+
+    static void validatePrefixSearch(String prefix, int offset, int limit) {
+        Objects.requireNonNull(prefix, "prefix cannot be null");
+        if (offset < 0) {
+            throw new IllegalArgumentException("offset cannot be negative");
+        }
+        validateLimit(limit);
+    }
+
+    static void validateSimilaritySearch(String fullName, int maxDistance, int limit) {
+        Objects.requireNonNull(fullName, "fullName cannot be null");
+        if (maxDistance < 0) {
+            throw new IllegalArgumentException("maxDistance cannot be negative");
+        }
+        validateLimit(limit);
+    }
+
+    private static void validateLimit(int limit) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("limit cannot be negative");
+        }
+    }
+
+    static List<Contact> findByPrefix(Stream<Contact> contacts, String prefix, int offset, int limit) {
+        validatePrefixSearch(prefix, offset, limit);
+
+        return contacts
+                .filter(contact -> contact.getFullName().startsWith(prefix))
+                .sorted(comparing(Contact::getFullName))
+                .skip(offset)
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
+
+    static List<Contact> findSimilar(Stream<Contact> contacts, String fullName, int maxDistance, int limit) {
+        validateSimilaritySearch(fullName, maxDistance, limit);
+
+        return contacts
+                .map(contact -> new Match(distance(fullName, contact.getFullName(), maxDistance), contact))
+                .filter(match -> match.distance <= maxDistance)
+                .sorted(MATCH_ORDER)
+                .limit(limit)
+                .map(match -> match.contact)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * The Levenshtein distance between two names, or {@code maxDistance + 1} as soon as it is known to be larger
+     * than {@code maxDistance}.
+     */
+    static int distance(CharSequence first, CharSequence second, int maxDistance) {
+        int firstLength = first.length();
+        int secondLength = second.length();
+        if (Math.abs(firstLength - secondLength) > maxDistance) {
+            return maxDistance + 1;
+        }
+
+        int[] previous = new int[secondLength + 1];
+        int[] current = new int[secondLength + 1];
+        for (int j = 0; j <= secondLength; j++) {
+            previous[j] = j;
+        }
+
+        for (int i = 1; i <= firstLength; i++) {
+            current[0] = i;
+            int rowMinimum = i;
+            char firstChar = first.charAt(i - 1);
+            for (int j = 1; j <= secondLength; j++) {
+                int substitution = previous[j - 1] + (firstChar == second.charAt(j - 1) ? 0 : 1);
+                current[j] = Math.min(substitution, Math.min(previous[j], current[j - 1]) + 1);
+                rowMinimum = Math.min(rowMinimum, current[j]);
+            }
+            if (rowMinimum > maxDistance) {
+                return maxDistance + 1;
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return Math.min(previous[secondLength], maxDistance + 1);
+    }
+
+    private static final class Match {
+        private final int distance;
+        private final Contact contact;
+
+        private Match(int distance, Contact contact) {
+            this.distance = distance;
+            this.contact = contact;
+        }
+    }
+}
@@ -2,56 +2,199 @@ package gumtree.addressbook.persistence;
 
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.SortedMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import gumtree.addressbook.domain.Contact;
 import gumtree.addressbook.domain.Gender;
 
 import static java.util.Comparator.comparing;
+import static java.util.Comparator.naturalOrder;
+import static java.util.Comparator.reverseOrder;
 
+/**
+ * Answers every query by scanning a list of contacts. Once the list holds at least the parallel threshold, scans are
+ * split into partitions that run on the given {@link ForkJoinPool} and are merged in load order, so results are the
+ * same as those of a sequential scan. Smaller lists are scanned on the calling thread.
+ */
 public final class InMemoryAddressBookRepository implements AddressBookRepository {
+    static final int DEFAULT_PARALLEL_THRESHOLD = 1 << 16;
 
     private final List<Contact> contacts;
+    private final ForkJoinPool forkJoinPool;
+    private final boolean parallel;
 
     InMemoryAddressBookRepository(List<Contact> contacts) {
         Objects.requireNonNull(contacts, "contacts cannot be null");
         this.contacts = new ArrayList<>(contacts);
+        this.forkJoinPool = null;
+        this.parallel = false;
     }
 
+    InMemoryAddressBookRepository(List<Contact> contacts, ForkJoinPool forkJoinPool, int parallelThreshold) {
+        Objects.requireNonNull(contacts, "contacts cannot be null");
+        Objects.requireNonNull(forkJoinPool, "forkJoinPool cannot be null");
+        if (parallelThreshold < 1) {
+            throw new IllegalArgumentException("parallelThreshold must be positive");
+        }
+
+        this.contacts = new ArrayList<>(contacts);
+        this.forkJoinPool = forkJoinPool;
+        this.parallel = this.contacts.size() >= parallelThreshold;
+    }
+
+    /**
+     * Every contact in load order, on a sequential stream; the caller decides how to consume it.
+     */
+    @Override
+    public Stream<Contact> findAll() {
+        return contacts.stream();
+    }
+
+    @Override
     public int countByGender(Gender gender) {
         Objects.requireNonNull(gender, "gender cannot be null");
 
-        return (int) contacts.stream()
+        return scan(contacts -> (int) contacts
                 .filter(contact -> contact.getGender().equals(gender))
-                .count();
+                .count());
     }
 
     @Override
     public Optional<Contact> findByFullName(String fullName) {
         Objects.requireNonNull(fullName, "fullName cannot be null");
 
-        return contacts.stream()
+        return scan(contacts -> contacts
+                .filter(contact -> contact.getFullName().equals(fullName))
+                .findFirst());
+    }
+
+    @Override
+    public List<Contact> findAllByFullName(String fullName) {
+        Objects.requireNonNull(fullName, "fullName cannot be null");
+
+        return scan(contacts -> contacts
                 .filter(contact -> contact.getFullName().equals(fullName))
-                .findFirst();
+                .collect(Collectors.toList()));
+    }
+
+    @Override
+    public List<Optional<Contact>> findByFullNames(List<String> fullNames) {
+        Objects.requireNonNull(fullNames, "fullNames cannot be null");
+
+        Map<String, Contact> found = new HashMap<>();
+        for (String fullName : fullNames) {
+            Objects.requireNonNull(fullName, "fullName cannot be null");
+            found.put(fullName, null);
+        }
+
+        int pending = found.size();
+        for (int i = 0; i < contacts.size() && pending > 0; i++) {
+            Contact contact = contacts.get(i);
+            if (found.containsKey(contact.getFullName()) && found.get(contact.getFullName()) == null) {
+                found.put(contact.getFullName(), contact);
+                pending--;
+            }
+        }
+
+        return fullNames.stream()
+                .map(fullName -> Optional.ofNullable(found.get(fullName)))
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public List<Contact> findByFullNamePrefix(String prefix, int offset, int limit) {
+        FullNameSearches.validatePrefixSearch(prefix, offset, limit);
+
+        return scan(contacts -> FullNameSearches.findByPrefix(contacts, prefix, offset, limit));
+    }
+
+    @Override
+    public List<Contact> findByFullNameSimilarTo(String fullName, int maxDistance, int limit) {
+        FullNameSearches.validateSimilaritySearch(fullName, maxDistance, limit);
+
+        return scan(contacts -> FullNameSearches.findSimilar(contacts, fullName, maxDistance, limit));
+    }
+
+    @Override
+    public <K extends Comparable<? super K>> SortedMap<K, ContactStatistics> aggregate(ContactGrouping<K> grouping) {
+        Objects.requireNonNull(grouping, "grouping cannot be null");
+
+        return scan(contacts -> contacts
+                .collect(() -> new ContactAggregator<>(grouping), ContactAggregator::accept, ContactAggregator::addAll)
+                .result());
     }
 
     @Override
     public Optional<LocalDate> findEarliestDateOfBirth() {
-        return contacts.stream()
-                .sorted(comparing(Contact::getDateOfBirth))
-                .findFirst()
-                .map(Contact::getDateOfBirth);
+        return scan(contacts -> contacts
+                .map(Contact::getDateOfBirth)
+                .min(naturalOrder()));
     }
 
     @Override
     public List<Contact> findByDateOfBirth(LocalDate dateOfBirth) {
         Objects.requireNonNull(dateOfBirth, "dateOfBirth cannot be null");
 
-        return contacts.stream()
+        return scan(contacts -> contacts
                 .filter(contact -> contact.getDateOfBirth().equals(dateOfBirth))
-                .collect(Collectors.toList());
+                .collect(Collectors.toList()));
+    }
+
+    @Override
+    public Optional<LocalDate> findLatestDateOfBirth() {
+        return scan(contacts -> contacts
+                .map(Contact::getDateOfBirth)
+                .max(naturalOrder()));
+    }
+
+    @Override
+    public List<Contact> findByDateOfBirthBetween(LocalDate from, LocalDate to) {
+        DateOfBirthRanges.validate(from, to);
+
+        return scan(contacts -> contacts
+                .filter(contact -> !contact.getDateOfBirth().isBefore(from) && !contact.getDateOfBirth().isAfter(to))
+                .sorted(comparing(Contact::getDateOfBirth))
+                .collect(Collectors.toList()));
+    }
+
+    @Override
+    public List<Contact> findOldest(int limit) {
+        DateOfBirthRanges.validate(limit);
+
+        return scan(contacts -> contacts
+                .sorted(comparing(Contact::getDateOfBirth))
+                .limit(limit)
+                .collect(Collectors.toList()));
+    }
+
+    @Override
+    public List<Contact> findYoungest(int limit) {
+        DateOfBirthRanges.validate(limit);
+
+        return scan(contacts -> contacts
+                .sorted(comparing(Contact::getDateOfBirth, reverseOrder()))
+                .limit(limit)
+                .collect(Collectors.toList()));
+    }
+
+    /**
+     * Runs the query over every contact. A parallel query runs inside the pool, so the stream's partitions are
+     * forked there rather than in the common pool. The list is ordered, which keeps first matches, stable sorts and
+     * collected lists in load order.
+     */
+    private <T> T scan(Function<Stream<Contact>, T> query) {
+        if (!parallel) {
+            return query.apply(contacts.stream());
+        }
+        return forkJoinPool.submit(() -> query.apply(contacts.parallelStream())).join();
     }
 }
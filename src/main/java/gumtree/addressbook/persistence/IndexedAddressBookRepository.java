@@ -0,0 +1,243 @@
+package gumtree.addressbook.persistence;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+import gumtree.addressbook.domain.Contact;
+import gumtree.addressbook.domain.Gender;
+
+/**
+ * Answers every query from indexes built once at load time: a hash index on full name (first contact wins, as
+ * in the Csv file) with the contacts sharing a full name kept aside, a counter per gender and a date of birth index
+ * sorted from oldest to youngest. The index for full name searches is only built on the first search.
+ */
+public final class IndexedAddressBookRepository implements AddressBookRepository {
+
+    private final Map<String, Contact> contactsByFullName;
+    private final Map<String, List<Contact>> contactsSharingFullName;
+    private final Map<Gender, Integer> countsByGender = new EnumMap<>(Gender.class);
+    private final NavigableMap<LocalDate, List<Contact>> contactsByDateOfBirth;
+    private final List<Contact> contacts;
+    private volatile FullNameIndex fullNameIndex;
+
+    IndexedAddressBookRepository(List<Contact> contacts) {
+        this(build(contacts));
+    }
+
+    private IndexedAddressBookRepository(Builder builder) {
+        this.contactsByFullName = builder.contactsByFullName;
+        this.contactsSharingFullName = builder.contactsSharingFullName;
+        this.contactsByDateOfBirth = builder.contactsByDateOfBirth;
+        this.contacts = builder.contacts;
+
+        for (Gender gender : Gender.values()) {
+            countsByGender.put(gender, builder.genderCounts[gender.ordinal()]);
+        }
+    }
+
+    private static Builder build(List<Contact> contacts) {
+        Objects.requireNonNull(contacts, "contacts cannot be null");
+
+        Builder builder = new Builder(contacts.size());
+        contacts.forEach(builder);
+        return builder;
+    }
+
+    @Override
+    public Stream<Contact> findAll() {
+        return contacts.stream();
+    }
+
+    @Override
+    public int countByGender(Gender gender) {
+        Objects.requireNonNull(gender, "gender cannot be null");
+
+        return countsByGender.get(gender);
+    }
+
+    @Override
+    public Optional<Contact> findByFullName(String fullName) {
+        Objects.requireNonNull(fullName, "fullName cannot be null");
+
+        return Optional.ofNullable(contactsByFullName.get(fullName));
+    }
+
+    @Override
+    public List<Contact> findAllByFullName(String fullName) {
+        Objects.requireNonNull(fullName, "fullName cannot be null");
+
+        List<Contact> contacts = contactsSharingFullName.get(fullName);
+        if (contacts != null) {
+            return Collections.unmodifiableList(contacts);
+        }
+        Contact contact = contactsByFullName.get(fullName);
+        return contact == null ? Collections.emptyList() : Collections.singletonList(contact);
+    }
+
+    @Override
+    public List<Contact> findByFullNamePrefix(String prefix, int offset, int limit) {
+        FullNameSearches.validatePrefixSearch(prefix, offset, limit);
+
+        return toContacts(fullNameIndex().findByPrefix(prefix, offset, limit));
+    }
+
+    @Override
+    public List<Contact> findByFullNameSimilarTo(String fullName, int maxDistance, int limit) {
+        FullNameSearches.validateSimilaritySearch(fullName, maxDistance, limit);
+
+        return toContacts(fullNameIndex().findSimilar(fullName, maxDistance, limit));
+    }
+
+    @Override
+    public <K extends Comparable<? super K>> SortedMap<K, ContactStatistics> aggregate(ContactGrouping<K> grouping) {
+        ContactAggregator<K> aggregator = new ContactAggregator<>(grouping);
+        for (List<Contact> contactsBornOnTheSameDate : contactsByDateOfBirth.values()) {
+            for (Contact contact : contactsBornOnTheSameDate) {
+                aggregator.accept(contact);
+            }
+        }
+        return aggregator.result();
+    }
+
+    @Override
+    public Optional<LocalDate> findEarliestDateOfBirth() {
+        return contactsByDateOfBirth.isEmpty() ? Optional.empty() : Optional.of(contactsByDateOfBirth.firstKey());
+    }
+
+    @Override
+    public List<Contact> findByDateOfBirth(LocalDate dateOfBirth) {
+        Objects.requireNonNull(dateOfBirth, "dateOfBirth cannot be null");
+
+        return Collections.unmodifiableList(contactsByDateOfBirth.getOrDefault(dateOfBirth, Collections.emptyList()));
+    }
+
+    @Override
+    public Optional<LocalDate> findLatestDateOfBirth() {
+        return contactsByDateOfBirth.isEmpty() ? Optional.empty() : Optional.of(contactsByDateOfBirth.lastKey());
+    }
+
+    @Override
+    public List<Contact> findByDateOfBirthBetween(LocalDate from, LocalDate to) {
+        DateOfBirthRanges.validate(from, to);
+
+        return collect(contactsByDateOfBirth.subMap(from, true, to, true), Integer.MAX_VALUE);
+    }
+
+    @Override
+    public Stream<Contact> streamByDateOfBirthBetween(LocalDate from, LocalDate to) {
+        DateOfBirthRanges.validate(from, to);
+
+        return contactsByDateOfBirth.subMap(from, true, to, true).values().stream().flatMap(List::stream);
+    }
+
+    @Override
+    public List<Contact> findOldest(int limit) {
+        DateOfBirthRanges.validate(limit);
+
+        return collect(contactsByDateOfBirth, limit);
+    }
+
+    @Override
+    public List<Contact> findYoungest(int limit) {
+        DateOfBirthRanges.validate(limit);
+
+        return collect(contactsByDateOfBirth.descendingMap(), limit);
+    }
+
+    private FullNameIndex fullNameIndex() {
+        FullNameIndex index = fullNameIndex;
+        if (index == null) {
+            synchronized (this) {
+                index = fullNameIndex;
+                if (index == null) {
+                    index = new FullNameIndex(contacts.size(), row -> contacts.get(row).getFullName());
+                    fullNameIndex = index;
+                }
+            }
+        }
+        return index;
+    }
+
+    private List<Contact> toContacts(int[] rows) {
+        List<Contact> matches = new ArrayList<>(rows.length);
+        for (int row : rows) {
+            matches.add(contacts.get(row));
+        }
+        return matches;
+    }
+
+    private static List<Contact> collect(NavigableMap<LocalDate, List<Contact>> contactsByDateOfBirth, int limit) {
+        List<Contact> contacts = new ArrayList<>();
+        for (List<Contact> contactsBornOnTheSameDate : contactsByDateOfBirth.values()) {
+            for (Contact contact : contactsBornOnTheSameDate) {
+                if (contacts.size() == limit) {
+                    return contacts;
+                }
+                contacts.add(contact);
+            }
+        }
+        return contacts;
+    }
+
+    /**
+     * Indexes contacts as they are read so that no intermediate list of contacts is needed while loading.
+     */
+    static final class Builder implements AddressBookRepositoryBuilder {
+        private final Map<String, Contact> contactsByFullName;
+        private final Map<String, List<Contact>> contactsSharingFullName = new HashMap<>();
+        private final int[] genderCounts = new int[Gender.values().length];
+        private final NavigableMap<LocalDate, List<Contact>> contactsByDateOfBirth = new TreeMap<>();
+        private final List<Contact> contacts;
+        private boolean built;
+
+        Builder() {
+            this(16);
+        }
+
+        Builder(int expectedNumberOfContacts) {
+            contactsByFullName = new HashMap<>(Math.max(16, (int) (expectedNumberOfContacts / 0.75f) + 1));
+            contacts = new ArrayList<>(Math.max(16, expectedNumberOfContacts));
+        }
+
+        @Override
+        public void accept(Contact contact) {
+            Objects.requireNonNull(contact, "contact cannot be null");
+            if (built) {
+                throw new IllegalStateException("Repository has already been built");
+            }
+
+            contacts.add(contact);
+            Contact firstContact = contactsByFullName.putIfAbsent(contact.getFullName(), contact);
+            if (firstContact != null) {
+                contactsSharingFullName.computeIfAbsent(contact.getFullName(), fullName -> newList(firstContact))
+                        .add(contact);
+            }
+            genderCounts[contact.getGender().ordinal()]++;
+            contactsByDateOfBirth.computeIfAbsent(contact.getDateOfBirth(), dateOfBirth -> new ArrayList<>(1))
+                    .add(contact);
+        }
+
+        private static List<Contact> newList(Contact firstContact) {
+            List<Contact> contacts = new ArrayList<>(2);
+            contacts.add(firstContact);
+            return contacts;
+        }
+
+        @Override
+        public IndexedAddressBookRepository build() {
+            built = true;
+            return new IndexedAddressBookRepository(this);
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package gumtree.addressbook.persistence;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.SortedMap;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import gumtree.addressbook.domain.Contact;
+import gumtree.addressbook.domain.Gender;
+import gumtree.addressbook.metrics.Metrics;
+
+/**
+ * Records the latency of every query of another repository under {@code repository.<query>}, the number of contacts
+ * it returned under {@code repository.<query>.rows}, and whether lookups by full name or date of birth found
+ * anything under {@code repository.<query>.hits} and {@code repository.<query>.misses}.
+ */
+public final class InstrumentedAddressBookRepository implements AddressBookRepository {
+
+    private final AddressBookRepository addressBookRepository;
+    private final Metrics metrics;
+
+    InstrumentedAddressBookRepository(AddressBookRepository addressBookRepository, Metrics metrics) {
+        this.addressBookRepository = Objects.requireNonNull(addressBookRepository,
+                "addressBookRepository cannot be null");
+        this.metrics = Objects.requireNonNull(metrics, "metrics cannot be null");
+    }
+
+    /**
+     * Not timed, as the contacts are read by the caller.
+     */
+    @Override
+    public Stream<Contact> findAll() {
+        return addressBookRepository.findAll();
+    }
+
+    @Override
+    public int countByGender(Gender gender) {
+        return timed("repository.countByGender", () -> addressBookRepository.countByGender(gender));
+    }
+
+    @Override
+    public Optional<Contact> findByFullName(String fullName) {
+        Optional<Contact> contact = timed("repository.findByFullName",
+                () -> addressBookRepository.findByFullName(fullName));
+        countLookup("repository.findByFullName", contact.isPresent());
+        return contact;
+    }
+
+    @Override
+    public List<Contact> findAllByFullName(String fullName) {
+        List<Contact> contacts = timedList("repository.findAllByFullName",
+                () -> addressBookRepository.findAllByFullName(fullName));
+        countLookup("repository.findAllByFullName", !contacts.isEmpty());
+        return contacts;
+    }
+
+    @Override
+    public List<Optional<Contact>> findByFullNames(List<String> fullNames) {
+        List<Optional<Contact>> contacts = timed("repository.findByFullNames",
+                () -> addressBookRepository.findByFullNames(fullNames));
+        if (metrics.isEnabled()) {
+            long hits = contacts.stream().filter(Optional::isPresent).count();
+            metrics.increment("repository.findByFullNames.hits", hits);
+            metrics.increment("repository.findByFullNames.misses", contacts.size() - hits);
+        }
+        return contacts;
+    }
+
+    @Override
+    public List<Contact> findByFullNamePrefix(String prefix, int offset, int limit) {
+        return timedList("repository.findByFullNamePrefix",
+                () -> addressBookRepository.findByFullNamePrefix(prefix, offset, limit));
+    }
+
+    @Override
+    public List<Contact> findByFullNameSimilarTo(String fullName, int maxDistance, int limit) {
+        return timedList("repository.findByFullNameSimilarTo",
+                () -> addressBookRepository.findByFullNameSimilarTo(fullName, maxDistance, limit));
+    }
+
+    @Override
+    public <K extends Comparable<? super K>> SortedMap<K, ContactStatistics> aggregate(ContactGrouping<K> grouping) {
+        return timed("repository.aggregate", () -> addressBookRepository.aggregate(grouping));
+    }
+
+    @Override
+    public Optional<LocalDate> findEarliestDateOfBirth() {
+        return timed("repository.findEarliestDateOfBirth", addressBookRepository::findEarliestDateOfBirth);
+    }
+
+    @Override
+    public List<Contact> findByDateOfBirth(LocalDate dateOfBirth) {
+        List<Contact> contacts = timedList("repository.findByDateOfBirth",
+                () -> addressBookRepository.findByDateOfBirth(dateOfBirth));
+        countLookup("repository.findByDateOfBirth", !contacts.isEmpty());
+        return contacts;
+    }
+
+    @Override
+    public Optional<LocalDate> findLatestDateOfBirth() {
+        return timed("repository.findLatestDateOfBirth", addressBookRepository::findLatestDateOfBirth);
+    }
+
+    @Override
+    public List<Contact> findByDateOfBirthBetween(LocalDate from, LocalDate to) {
+        return timedList("repository.findByDateOfBirthBetween",
+                () -> addressBookRepository.findByDateOfBirthBetween(from, to));
+    }
+
+    /**
+     * Not timed: the work happens while the caller consumes the stream.
+     */
+    @Override
+    public Stream<Contact> streamByDateOfBirthBetween(LocalDate from, LocalDate to) {
+        return addressBookRepository.streamByDateOfBirthBetween(from, to);
+    }
+
+    @Override
+    public List<Contact> findOldest(int limit) {
+        return timedList("repository.findOldest", () -> addressBookRepository.findOldest(limit));
+    }
+
+    @Override
+    public List<Contact> findYoungest(int limit) {
+        return timedList("repository.findYoungest", () -> addressBookRepository.findYoungest(limit));
+    }
+
+    private List<Contact> timedList(String name, Supplier<List<Contact>> query) {
+        List<Contact> contacts = timed(name, query);
+        if (metrics.isEnabled()) {
+            metrics.increment(name + ".rows", contacts.size());
+        }
+        return contacts;
+    }
+
+    private <T> T timed(String name, Supplier<T> query) {
+        long start = metrics.start();
+        try {
+            return query.get();
+        } finally {
+            metrics.stop(name, start);
+        }
+    }
+
+    private void countLookup(String name, boolean found) {
+        if (metrics.isEnabled()) {
+            metrics.increment(found ? name + ".hits" : name + ".misses", 1);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package gumtree.addressbook.persistence;
+
+import java.util.Objects;
+
+import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.apache.commons.lang3.builder.ToStringStyle;
+
+/**
+ * A Csv record that was skipped by a lenient load, and why.
+ */
+public final class InvalidRecord {
+
+    public enum Column {
+        FULL_NAME,
+        GENDER,
+        DATE_OF_BIRTH
+    }
+
+    private final long recordNumber;
+    private final Column column;
+    private final String reason;
+
+    InvalidRecord(long recordNumber, Column column, String reason) {
+        this.recordNumber = recordNumber;
+        this.column = column;
+        this.reason = Objects.requireNonNull(reason, "reason cannot be null");
+    }
+
+    /**
+     * The number of the record in the file, counting from 1 and skipping empty lines.
+     */
+    public long getRecordNumber() {
+        return recordNumber;
+    }
+
+    /**
+     * The column holding the invalid value, or null when the record does not have the expected number of columns.
+     */
+    public Column getColumn() {
+        return column;
+    }
+
+    public String getReason() {
+        return reason;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) return true;
+        if (other == null || getClass() != other.getClass()) return false;
+        InvalidRecord invalidRecord = (InvalidRecord) other;
+        return recordNumber == invalidRecord.recordNumber &&
+                column == invalidRecord.column &&
+                Objects.equals(reason, invalidRecord.reason);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(recordNumber, column, reason);
+    }
+
+    @Override
+    public String toString() {
+        return new ToStringBuilder(this, ToStringStyle.JSON_STYLE)
+                .append("recordNumber", recordNumber)
+                .append("column", column)
+                .append("reason", reason)
+                .toString();
+    }
+}
@@ -0,0 +1,79 @@
+package gumtree.addressbook.persistence;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Decides what happens to records that cannot be mapped to contacts. A strict collector aborts the load with a
+ * {@link PersistenceException}; a lenient one counts every invalid record, keeps the first ones up to its maximum
+ * and lets the load carry on without them.
+ */
+final class InvalidRecordCollector {
+
+    private final boolean lenient;
+    private final int maximumNumberOfInvalidRecords;
+    private final List<InvalidRecord> invalidRecords = new ArrayList<>();
+    private long numberOfInvalidRecords;
+
+    private InvalidRecordCollector(boolean lenient, int maximumNumberOfInvalidRecords) {
+        this.lenient = lenient;
+        this.maximumNumberOfInvalidRecords = maximumNumberOfInvalidRecords;
+    }
+
+    static InvalidRecordCollector strict() {
+        return new InvalidRecordCollector(false, 0);
+    }
+
+    static InvalidRecordCollector lenient(int maximumNumberOfInvalidRecords) {
+        if (maximumNumberOfInvalidRecords < 0) {
+            throw new IllegalArgumentException("maximumNumberOfInvalidRecords cannot be negative");
+        }
+        return new InvalidRecordCollector(true, maximumNumberOfInvalidRecords);
+    }
+
+    boolean isLenient() {
+        return lenient;
+    }
+
+    void add(long recordNumber, InvalidRecordException e) {
+        if (!lenient) {
+            throw new PersistenceException(recordNumber, e.getMessage());
+        }
+
+        numberOfInvalidRecords++;
+        if (invalidRecords.size() < maximumNumberOfInvalidRecords) {
+            invalidRecords.add(new InvalidRecord(recordNumber, e.getColumn(), e.getMessage()));
+        }
+    }
+
+    /**
+     * A collector with the same settings for one part of the file, whose records are numbered from the start of
+     * the part.
+     */
+    InvalidRecordCollector newPart() {
+        return new InvalidRecordCollector(lenient, maximumNumberOfInvalidRecords);
+    }
+
+    /**
+     * Adds the invalid records of a part that follows the given number of records.
+     */
+    void addAll(InvalidRecordCollector part, long numberOfPreviousRecords) {
+        numberOfInvalidRecords += part.numberOfInvalidRecords;
+        for (InvalidRecord invalidRecord : part.invalidRecords) {
+            if (invalidRecords.size() == maximumNumberOfInvalidRecords) {
+                break;
+            }
+            invalidRecords.add(new InvalidRecord(numberOfPreviousRecords + invalidRecord.getRecordNumber(),
+                    invalidRecord.getColumn(), invalidRecord.getReason()));
+        }
+    }
+
+    List<InvalidRecord> getInvalidRecords() {
+        return Collections.unmodifiableList(invalidRecords);
+    }
+
+    long getNumberOfInvalidRecords() {
+        return numberOfInvalidRecords;
+    }
+}
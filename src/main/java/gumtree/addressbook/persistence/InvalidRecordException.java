@@ -0,0 +1,22 @@
+package gumtree.addressbook.persistence;
+
+/**
+ * Raised while mapping a single record. Readers hand it to an {@link InvalidRecordCollector} once they know the
+ * number of the record in the whole address book.
+ */
+final class InvalidRecordException extends RuntimeException {
+
+    private final InvalidRecord.Column column;
+
+    InvalidRecordException(String message, InvalidRecord.Column column) {
+        super(message, null, false, false);
+        this.column = column;
+    }
+
+    /**
+     * The column holding the invalid value, or null when the whole record is at fault.
+     */
+    InvalidRecord.Column getColumn() {
+        return column;
+    }
+}
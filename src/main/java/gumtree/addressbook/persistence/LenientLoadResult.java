@@ -0,0 +1,40 @@
+package gumtree.addressbook.persistence;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A repository loaded without the records that could not be mapped to contacts, and the first of those records.
+ */
+public final class LenientLoadResult {
+
+    private final AddressBookRepository repository;
+    private final List<InvalidRecord> invalidRecords;
+    private final long numberOfInvalidRecords;
+
+    LenientLoadResult(AddressBookRepository repository, InvalidRecordCollector invalidRecordCollector) {
+        this.repository = Objects.requireNonNull(repository, "repository cannot be null");
+        this.invalidRecords = Collections.unmodifiableList(new ArrayList<>(invalidRecordCollector.getInvalidRecords()));
+        this.numberOfInvalidRecords = invalidRecordCollector.getNumberOfInvalidRecords();
+    }
+
+    public AddressBookRepository getRepository() {
+        return repository;
+    }
+
+    /**
+     * The invalid records in file order, at most as many as the load was allowed to keep.
+     */
+    public List<InvalidRecord> getInvalidRecords() {
+        return invalidRecords;
+    }
+
+    /**
+     * Every record that was skipped, including those beyond the maximum that were only counted.
+     */
+    public long getNumberOfInvalidRecords() {
+        return numberOfInvalidRecords;
+    }
+}
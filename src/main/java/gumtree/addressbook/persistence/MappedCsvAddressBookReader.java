@@ -0,0 +1,412 @@
+package gumtree.addressbook.persistence;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+import gumtree.addressbook.domain.Contact;
+import gumtree.addressbook.domain.Gender;
+import gumtree.addressbook.metrics.Metrics;
+
+/**
+ * Reads a local Csv file by memory mapping it and tokenizing the three columns straight from the mapped bytes.
+ * Only the full name is decoded into a {@link String}; gender and date of birth are matched on the raw bytes.
+ * <p>
+ * Follows the commons-csv DEFAULT format: comma separated, optional double quoted values with {@code ""} as an
+ * escaped quote, empty lines skipped, and {@code \n}, {@code \r\n} or {@code \r} as record separators. Files larger
+ * than the mapping window are mapped one window at a time, each window starting on a record boundary.
+ * <p>
+ * When metrics are enabled, every load records the same phases as the {@link CsvAddressBookReader}:
+ * {@code load.parse}, {@code load.map}, {@code load.index}, {@code load.total} and {@code load.records}.
+ * <p>
+ * An instance keeps the state of the record being tokenized, so it reads one file range at a time.
+ */
+final class MappedCsvAddressBookReader {
+    static final int DEFAULT_WINDOW_SIZE = 1 << 30;
+
+    private static final int FULL_NAME_COLUMN_INDEX = 0;
+    private static final int GENDER_COLUMN_INDEX = 1;
+    private static final int DATE_OF_BIRTH_COLUMN_INDEX = 2;
+    private static final int NUMBER_OF_COLUMNS = 3;
+    private static final byte QUOTE = '"';
+    private static final byte DELIMITER = ',';
+    private static final Gender[] GENDERS = Gender.values();
+
+    private final Path csvAddressBookPath;
+    private final DateOfBirthParser dateOfBirthParser;
+    private final int windowSize;
+    private final Metrics metrics;
+
+    private final int[] fieldStarts = new int[NUMBER_OF_COLUMNS];
+    private final int[] fieldEnds = new int[NUMBER_OF_COLUMNS];
+    private final boolean[] fieldQuoted = new boolean[NUMBER_OF_COLUMNS];
+    private int numberOfFields;
+    private long numberOfRecordsRead;
+    private long parseNanos;
+    private long mapNanos;
+    private long indexNanos;
+    private byte[] decodeBuffer = new byte[64];
+
+    MappedCsvAddressBookReader(Path csvAddressBookPath) {
+        this(csvAddressBookPath, new DateOfBirthParser(), DEFAULT_WINDOW_SIZE);
+    }
+
+    MappedCsvAddressBookReader(Path csvAddressBookPath, DateOfBirthParser dateOfBirthParser, int windowSize) {
+        this(csvAddressBookPath, dateOfBirthParser, windowSize, Metrics.disabled());
+    }
+
+    MappedCsvAddressBookReader(Path csvAddressBookPath, DateOfBirthParser dateOfBirthParser, int windowSize,
+                               Metrics metrics) {
+        Objects.requireNonNull(csvAddressBookPath, "csvAddressBookPath cannot be null");
+        Objects.requireNonNull(dateOfBirthParser, "dateOfBirthParser cannot be null");
+        if (windowSize < 1) {
+            throw new IllegalArgumentException("windowSize must be positive");
+        }
+
+        this.csvAddressBookPath = csvAddressBookPath;
+        this.dateOfBirthParser = dateOfBirthParser;
+        this.windowSize = windowSize;
+        this.metrics = Objects.requireNonNull(metrics, "metrics cannot be null");
+    }
+
+    List<Contact> read() {
+        List<Contact> contacts = new ArrayList<>();
+        read(contacts::add);
+        return contacts;
+    }
+
+    void read(Consumer<Contact> contactConsumer) {
+        read(contactConsumer, InvalidRecordCollector.strict());
+    }
+
+    /**
+     * Hands every record that cannot be mapped to a contact to the collector, which either aborts the load or skips
+     * the record. Records the Csv format itself cannot delimit, such as an unterminated quoted value, always abort.
+     */
+    void read(Consumer<Contact> contactConsumer, InvalidRecordCollector invalidRecordCollector) {
+        Objects.requireNonNull(contactConsumer, "contactConsumer cannot be null");
+        Objects.requireNonNull(invalidRecordCollector, "invalidRecordCollector cannot be null");
+
+        long start = metrics.start();
+        try (FileChannel channel = FileChannel.open(csvAddressBookPath, StandardOpenOption.READ)) {
+            read(channel, 0, channel.size(), 0, contactConsumer, invalidRecordCollector);
+        } catch (IOException e) {
+            throw new PersistenceException(e);
+        } finally {
+            if (metrics.isEnabled()) {
+                metrics.recordLatency("load.parse", parseNanos);
+                metrics.recordLatency("load.map", mapNanos);
+                metrics.recordLatency("load.index", indexNanos);
+                metrics.increment("load.records", numberOfRecordsRead);
+            }
+            metrics.stop("load.total", start);
+        }
+    }
+
+    /**
+     * Reads the records that start from {@code start}, which must be where a record starts, up to {@code end}. The
+     * last record read may run past {@code end}. Records are numbered after {@code numberOfPreviousRecords}.
+     *
+     * @return where the record after the last one read starts, see {@link #getNumberOfRecordsRead()} for how many
+     * records were read and {@link #getParseNanos()} and its siblings for the time spent in each phase
+     */
+    long read(FileChannel channel, long start, long end, long numberOfPreviousRecords,
+              Consumer<Contact> contactConsumer, InvalidRecordCollector invalidRecordCollector) throws IOException {
+        boolean timed = metrics.isEnabled();
+        parseNanos = 0;
+        mapNanos = 0;
+        indexNanos = 0;
+        long fileSize = channel.size();
+        long windowStart = start;
+        long recordNumber = numberOfPreviousRecords;
+
+        try {
+            while (windowStart < Math.min(end, fileSize)) {
+                int windowLength = (int) Math.min(windowSize, fileSize - windowStart);
+                boolean lastWindow = windowStart + windowLength == fileSize;
+                MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, windowLength);
+                ByteBufferCharSequence windowCharacters = new ByteBufferCharSequence(window);
+
+                int position = 0;
+                long parseStart = timed ? System.nanoTime() : 0;
+                while (position < windowLength && windowStart + position < end) {
+                    int nextRecordStart = tokenize(window, position, windowLength, lastWindow, recordNumber + 1);
+                    if (nextRecordStart < 0) {
+                        break;
+                    }
+                    if (!isEmptyLine()) {
+                        recordNumber++;
+                        long mapStart = timed ? System.nanoTime() : 0;
+                        Contact contact = toContact(window, windowCharacters, recordNumber, invalidRecordCollector);
+                        long indexStart = timed ? System.nanoTime() : 0;
+                        if (contact != null) {
+                            contactConsumer.accept(contact);
+                        }
+                        if (timed) {
+                            long indexEnd = System.nanoTime();
+                            parseNanos += mapStart - parseStart;
+                            mapNanos += indexStart - mapStart;
+                            indexNanos += indexEnd - indexStart;
+                            parseStart = indexEnd;
+                        }
+                    }
+                    position = nextRecordStart;
+                }
+                if (timed) {
+                    parseNanos += System.nanoTime() - parseStart;
+                }
+
+                if (position == 0) {
+                    throw new IOException(String.format("Record %d is longer than %d bytes",
+                            recordNumber + 1, windowSize));
+                }
+                windowStart += position;
+            }
+        } finally {
+            numberOfRecordsRead = recordNumber - numberOfPreviousRecords;
+        }
+        return windowStart;
+    }
+
+    /**
+     * How many records, valid or not, the last call to {@link #read(FileChannel, long, long, long, Consumer,
+     * InvalidRecordCollector)} read.
+     */
+    long getNumberOfRecordsRead() {
+        return numberOfRecordsRead;
+    }
+
+    /**
+     * How long the last ranged read spent splitting records; zero unless metrics are enabled.
+     */
+    long getParseNanos() {
+        return parseNanos;
+    }
+
+    /**
+     * How long the last ranged read spent validating and mapping records; zero unless metrics are enabled.
+     */
+    long getMapNanos() {
+        return mapNanos;
+    }
+
+    /**
+     * How long the last ranged read spent handing contacts to the consumer; zero unless metrics are enabled.
+     */
+    long getIndexNanos() {
+        return indexNanos;
+    }
+
+    /**
+     * Finds the fields of the record that starts at {@code position}.
+     *
+     * @return where the next record starts, or -1 when the record does not end within this window
+     */
+    private int tokenize(ByteBuffer window, int position, int limit, boolean lastWindow, long recordNumber)
+            throws IOException {
+        numberOfFields = 0;
+        int fieldStart = position;
+        boolean quoted = false;
+        boolean insideQuotes = false;
+
+        int index = position;
+        if (index < limit && window.get(index) == QUOTE) {
+            quoted = insideQuotes = true;
+            index++;
+        }
+
+        while (index < limit) {
+            byte character = window.get(index);
+            if (insideQuotes) {
+                if (character == QUOTE) {
+                    if (index + 1 == limit && !lastWindow) {
+                        return -1;
+                    }
+                    if (index + 1 < limit && window.get(index + 1) == QUOTE) {
+                        index += 2;
+                        continue;
+                    }
+                    insideQuotes = false;
+                    if (index + 1 < limit && !isDelimiterOrLineBreak(window.get(index + 1))) {
+                        throw new IOException(String.format(
+                                "(record %d) invalid char between encapsulated token and delimiter", recordNumber));
+                    }
+                }
+                index++;
+            } else if (character == DELIMITER) {
+                addField(fieldStart, index, quoted);
+                fieldStart = ++index;
+                quoted = insideQuotes = index < limit && window.get(index) == QUOTE;
+                if (quoted) {
+                    index++;
+                }
+            } else if (character == '\n' || character == '\r') {
+                addField(fieldStart, index, quoted);
+                index++;
+                if (character == '\r') {
+                    if (index == limit && !lastWindow) {
+                        return -1;
+                    }
+                    if (index < limit && window.get(index) == '\n') {
+                        index++;
+                    }
+                }
+                return index;
+            } else {
+                index++;
+            }
+        }
+
+        if (!lastWindow) {
+            return -1;
+        }
+        if (insideQuotes) {
+            throw new IOException(String.format(
+                    "(record %d) EOF reached before encapsulated token finished", recordNumber));
+        }
+        addField(fieldStart, limit, quoted);
+        return limit;
+    }
+
+    private void addField(int start, int end, boolean quoted) {
+        if (numberOfFields < NUMBER_OF_COLUMNS) {
+            fieldStarts[numberOfFields] = quoted ? start + 1 : start;
+            fieldEnds[numberOfFields] = quoted ? end - 1 : end;
+            fieldQuoted[numberOfFields] = quoted;
+        }
+        numberOfFields++;
+    }
+
+    private boolean isEmptyLine() {
+        return numberOfFields == 1 && !fieldQuoted[0] && fieldStarts[0] == fieldEnds[0];
+    }
+
+    private static boolean isDelimiterOrLineBreak(byte character) {
+        return character == DELIMITER || character == '\n' || character == '\r';
+    }
+
+    /**
+     * @return the contact, or null when the record is invalid and the collector skips it
+     */
+    private Contact toContact(ByteBuffer window, ByteBufferCharSequence windowCharacters, long recordNumber,
+                              InvalidRecordCollector invalidRecordCollector) {
+        try {
+            if (numberOfFields != NUMBER_OF_COLUMNS) {
+                throw CsvContactMapper.missingFields();
+            }
+
+            String fullName = decode(window, FULL_NAME_COLUMN_INDEX, false);
+            Gender gender = mapToGender(window);
+            LocalDate dateOfBirth = mapToLocalDate(window, windowCharacters);
+
+            return new Contact(fullName, gender, dateOfBirth);
+        } catch (InvalidRecordException e) {
+            invalidRecordCollector.add(recordNumber, e);
+            return null;
+        }
+    }
+
+    private Gender mapToGender(ByteBuffer window) {
+        int start = fieldStarts[GENDER_COLUMN_INDEX];
+        int end = fieldEnds[GENDER_COLUMN_INDEX];
+        while (start < end && (window.get(start) & 0xff) <= ' ') {
+            start++;
+        }
+        while (end > start && (window.get(end - 1) & 0xff) <= ' ') {
+            end--;
+        }
+
+        for (Gender gender : GENDERS) {
+            if (equalsIgnoreCase(window, start, end, gender.name())) {
+                return gender;
+            }
+        }
+        throw CsvContactMapper.invalidGender(decode(window, GENDER_COLUMN_INDEX, true));
+    }
+
+    private LocalDate mapToLocalDate(ByteBuffer window, ByteBufferCharSequence windowCharacters) {
+        try {
+            return LocalDate.ofEpochDay(dateOfBirthParser.parseEpochDay(windowCharacters,
+                    fieldStarts[DATE_OF_BIRTH_COLUMN_INDEX], fieldEnds[DATE_OF_BIRTH_COLUMN_INDEX]));
+        } catch (IllegalArgumentException e) {
+            throw CsvContactMapper.invalidDateOfBirth(decode(window, DATE_OF_BIRTH_COLUMN_INDEX, true));
+        }
+    }
+
+    private static boolean equalsIgnoreCase(ByteBuffer window, int start, int end, String upperCaseValue) {
+        if (end - start != upperCaseValue.length()) {
+            return false;
+        }
+        for (int i = 0; i < upperCaseValue.length(); i++) {
+            byte character = window.get(start + i);
+            if (Character.toUpperCase((char) (character & 0xff)) != upperCaseValue.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private String decode(ByteBuffer window, int fieldIndex, boolean trim) {
+        int start = fieldStarts[fieldIndex];
+        int end = fieldEnds[fieldIndex];
+        if (decodeBuffer.length < end - start) {
+            decodeBuffer = new byte[Math.max(end - start, decodeBuffer.length * 2)];
+        }
+
+        int length = 0;
+        for (int index = start; index < end; index++) {
+            byte character = window.get(index);
+            decodeBuffer[length++] = character;
+            if (character == QUOTE && fieldQuoted[fieldIndex]) {
+                index++;
+            }
+        }
+
+        String value = new String(decodeBuffer, 0, length, StandardCharsets.UTF_8);
+        return trim ? value.trim() : value;
+    }
+
+    /**
+     * Exposes single byte characters of a buffer to the {@link DateOfBirthParser} without copying them.
+     */
+    private static final class ByteBufferCharSequence implements CharSequence {
+        private final ByteBuffer buffer;
+
+        private ByteBufferCharSequence(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int length() {
+            return buffer.limit();
+        }
+
+        @Override
+        public char charAt(int index) {
+            return (char) (buffer.get(index) & 0xff);
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            byte[] bytes = new byte[end - start];
+            for (int i = 0; i < bytes.length; i++) {
+                bytes[i] = buffer.get(start + i);
+            }
+            return new String(bytes, StandardCharsets.ISO_8859_1);
+        }
+
+        @Override
+        public String toString() {
+            return subSequence(0, length()).toString();
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package gumtree.addressbook.persistence;
+
+import java.util.List;
+
+import gumtree.addressbook.domain.Contact;
+
+/**
+ * An address book that can change after it is loaded. Where several contacts share a full name, update and remove
+ * act on the first one, the same contact {@link #findByFullName(String)} returns.
+ */
+public interface MutableAddressBookRepository extends AddressBookRepository {
+
+    void add(Contact contact);
+
+    /**
+     * @return false when there is no contact with the full name
+     */
+    boolean update(String fullName, Contact contact);
+
+    /**
+     * @return false when there is no contact with the full name
+     */
+    boolean remove(String fullName);
+
+    /**
+     * Applies every change, in order, as one atomic write: readers see either none or all of them.
+     *
+     * @return the number of changes that took effect
+     */
+    int apply(List<ContactChange> changes);
+
+    /**
+     * A number that grows with every write that takes effect, so that derived state such as cached query results can
+     * tell whether it is stale.
+     */
+    long getVersion();
+}
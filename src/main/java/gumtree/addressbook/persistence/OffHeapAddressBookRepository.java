@@ -0,0 +1,454 @@
+package gumtree.addressbook.persistence;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.SortedMap;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import gumtree.addressbook.domain.Contact;
+import gumtree.addressbook.domain.Gender;
+
+/**
+ * Same layout as the {@link ColumnarAddressBookRepository}, but every column and index lives in a direct
+ * {@link ByteBuffer} outside the Java heap, so the heap used by a loaded address book does not grow with the number
+ * of contacts. Rows are sorted by date of birth with a counting sort, which needs no heap either.
+ * <p>
+ * The {@link FullNameIndex} for full name searches is built on the first search, also in direct buffers; only
+ * building it reads the full names onto the heap.
+ * <p>
+ * All buffers are little endian and only read with absolute gets, so concurrent queries are safe.
+ */
+public final class OffHeapAddressBookRepository implements AddressBookRepository {
+    static final int NUMBER_OF_SECTIONS = 7;
+    private static final Gender[] GENDERS = Gender.values();
+
+    private final int numberOfContacts;
+    private final int[] genderCounts;
+    private final ByteBuffer fullNames;
+    private final ByteBuffer fullNameOffsets;
+    private final ByteBuffer genders;
+    private final ByteBuffer datesOfBirth;
+    private final ByteBuffer fullNameIndex;
+    private final ByteBuffer rowsByDateOfBirth;
+    private final ByteBuffer nextRowsWithSameFullName;
+    private final int fullNameIndexMask;
+    private volatile FullNameIndex fullNameSearchIndex;
+
+    OffHeapAddressBookRepository(List<Contact> contacts) {
+        this(build(contacts));
+    }
+
+    private OffHeapAddressBookRepository(Builder builder) {
+        numberOfContacts = builder.numberOfContacts;
+        genderCounts = builder.genderCounts.clone();
+        fullNames = trim(builder.fullNames);
+        fullNameOffsets = trim(builder.fullNameOffsets);
+        genders = trim(builder.genders);
+        datesOfBirth = trim(builder.datesOfBirth);
+        nextRowsWithSameFullName = allocate((long) numberOfContacts * Integer.BYTES);
+        fullNameIndex = indexFullNames();
+        rowsByDateOfBirth = sortRowsByDateOfBirth();
+        fullNameIndexMask = fullNameIndex.capacity() / Integer.BYTES - 1;
+    }
+
+    /**
+     * Restores a repository from the buffers returned by {@link #sections()}, e.g. mapped from a snapshot file.
+     */
+    OffHeapAddressBookRepository(int[] genderCounts, ByteBuffer[] sections) {
+        if (genderCounts.length != GENDERS.length || sections.length != NUMBER_OF_SECTIONS) {
+            throw new IllegalArgumentException("Unexpected repository layout");
+        }
+
+        this.numberOfContacts = sections[2].capacity();
+        this.genderCounts = genderCounts.clone();
+        this.fullNames = littleEndian(sections[0]);
+        this.fullNameOffsets = littleEndian(sections[1]);
+        this.genders = littleEndian(sections[2]);
+        this.datesOfBirth = littleEndian(sections[3]);
+        this.fullNameIndex = littleEndian(sections[4]);
+        this.rowsByDateOfBirth = littleEndian(sections[5]);
+        this.nextRowsWithSameFullName = littleEndian(sections[6]);
+        this.fullNameIndexMask = fullNameIndex.capacity() / Integer.BYTES - 1;
+
+        long expectedIntSectionSize = (long) numberOfContacts * Integer.BYTES;
+        if (fullNameOffsets.capacity() != expectedIntSectionSize + Integer.BYTES
+                || datesOfBirth.capacity() != expectedIntSectionSize
+                || rowsByDateOfBirth.capacity() != expectedIntSectionSize
+                || nextRowsWithSameFullName.capacity() != expectedIntSectionSize
+                || fullNameIndex.capacity() != (long) FullNameHashing.tableSize(numberOfContacts) * Integer.BYTES
+                || getInt(fullNameOffsets, numberOfContacts) != fullNames.capacity()) {
+            throw new IllegalArgumentException("Unexpected repository layout");
+        }
+    }
+
+    int[] genderCounts() {
+        return genderCounts.clone();
+    }
+
+    /**
+     * @return read only views of the columns and indexes, in the order the restoring constructor expects them
+     */
+    ByteBuffer[] sections() {
+        ByteBuffer[] sections = {
+                fullNames, fullNameOffsets, genders, datesOfBirth, fullNameIndex, rowsByDateOfBirth,
+                nextRowsWithSameFullName
+        };
+        for (int i = 0; i < sections.length; i++) {
+            sections[i] = sections[i].asReadOnlyBuffer();
+            sections[i].clear();
+        }
+        return sections;
+    }
+
+    private static Builder build(List<Contact> contacts) {
+        Objects.requireNonNull(contacts, "contacts cannot be null");
+
+        Builder builder = new Builder();
+        contacts.forEach(builder);
+        return builder;
+    }
+
+    @Override
+    public Stream<Contact> findAll() {
+        return IntStream.range(0, numberOfContacts).mapToObj(this::toContact);
+    }
+
+    @Override
+    public int countByGender(Gender gender) {
+        Objects.requireNonNull(gender, "gender cannot be null");
+
+        return genderCounts[gender.ordinal()];
+    }
+
+    @Override
+    public Optional<Contact> findByFullName(String fullName) {
+        Objects.requireNonNull(fullName, "fullName cannot be null");
+
+        int row = firstRowWithFullName(fullName);
+        return row < 0 ? Optional.empty() : Optional.of(toContact(row));
+    }
+
+    @Override
+    public List<Contact> findAllByFullName(String fullName) {
+        Objects.requireNonNull(fullName, "fullName cannot be null");
+
+        List<Contact> contacts = new ArrayList<>(1);
+        for (int row = firstRowWithFullName(fullName); row >= 0; row = getInt(nextRowsWithSameFullName, row) - 1) {
+            contacts.add(toContact(row));
+        }
+        return contacts;
+    }
+
+    @Override
+    public Stream<Contact> streamByDateOfBirthBetween(LocalDate from, LocalDate to) {
+        DateOfBirthRanges.validate(from, to);
+
+        return IntStream.range(firstPositionBornOnOrAfter(from.toEpochDay()),
+                firstPositionBornOnOrAfter(to.toEpochDay() + 1))
+                .mapToObj(position -> toContact(getInt(rowsByDateOfBirth, position)));
+    }
+
+    @Override
+    public List<Contact> findByFullNamePrefix(String prefix, int offset, int limit) {
+        FullNameSearches.validatePrefixSearch(prefix, offset, limit);
+
+        return toContacts(fullNameSearchIndex().findByPrefix(prefix, offset, limit));
+    }
+
+    @Override
+    public List<Contact> findByFullNameSimilarTo(String fullName, int maxDistance, int limit) {
+        FullNameSearches.validateSimilaritySearch(fullName, maxDistance, limit);
+
+        return toContacts(fullNameSearchIndex().findSimilar(fullName, maxDistance, limit));
+    }
+
+    @Override
+    public <K extends Comparable<? super K>> SortedMap<K, ContactStatistics> aggregate(ContactGrouping<K> grouping) {
+        ContactAggregator<K> aggregator = new ContactAggregator<>(grouping);
+        for (int position = 0; position < numberOfContacts; position++) {
+            int row = getInt(rowsByDateOfBirth, position);
+            aggregator.accept(GENDERS[genders.get(row)], getInt(datesOfBirth, row));
+        }
+        return aggregator.result();
+    }
+
+    @Override
+    public Optional<LocalDate> findEarliestDateOfBirth() {
+        return numberOfContacts == 0 ? Optional.empty() : Optional.of(dateOfBirthAt(0));
+    }
+
+    @Override
+    public List<Contact> findByDateOfBirth(LocalDate dateOfBirth) {
+        Objects.requireNonNull(dateOfBirth, "dateOfBirth cannot be null");
+
+        long epochDay = dateOfBirth.toEpochDay();
+        return toContacts(firstPositionBornOnOrAfter(epochDay), firstPositionBornOnOrAfter(epochDay + 1));
+    }
+
+    @Override
+    public Optional<LocalDate> findLatestDateOfBirth() {
+        return numberOfContacts == 0 ? Optional.empty() : Optional.of(dateOfBirthAt(numberOfContacts - 1));
+    }
+
+    @Override
+    public List<Contact> findByDateOfBirthBetween(LocalDate from, LocalDate to) {
+        DateOfBirthRanges.validate(from, to);
+
+        return toContacts(firstPositionBornOnOrAfter(from.toEpochDay()), firstPositionBornOnOrAfter(to.toEpochDay() + 1));
+    }
+
+    @Override
+    public List<Contact> findOldest(int limit) {
+        DateOfBirthRanges.validate(limit);
+
+        return toContacts(0, Math.min(limit, numberOfContacts));
+    }
+
+    @Override
+    public List<Contact> findYoungest(int limit) {
+        DateOfBirthRanges.validate(limit);
+
+        List<Contact> contacts = new ArrayList<>(Math.min(limit, numberOfContacts));
+        int groupEnd = numberOfContacts;
+        while (groupEnd > 0 && contacts.size() < limit) {
+            int groupStart = firstPositionBornOnOrAfter(getInt(datesOfBirth, getInt(rowsByDateOfBirth, groupEnd - 1)));
+            for (int position = groupStart; position < groupEnd && contacts.size() < limit; position++) {
+                contacts.add(toContact(getInt(rowsByDateOfBirth, position)));
+            }
+            groupEnd = groupStart;
+        }
+        return contacts;
+    }
+
+    private LocalDate dateOfBirthAt(int position) {
+        return LocalDate.ofEpochDay(getInt(datesOfBirth, getInt(rowsByDateOfBirth, position)));
+    }
+
+    private int firstPositionBornOnOrAfter(long epochDay) {
+        int low = 0;
+        int high = numberOfContacts;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (getInt(datesOfBirth, getInt(rowsByDateOfBirth, middle)) < epochDay) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private List<Contact> toContacts(int fromPosition, int toPosition) {
+        List<Contact> contacts = new ArrayList<>(toPosition - fromPosition);
+        for (int position = fromPosition; position < toPosition; position++) {
+            contacts.add(toContact(getInt(rowsByDateOfBirth, position)));
+        }
+        return contacts;
+    }
+
+    private List<Contact> toContacts(int[] rows) {
+        List<Contact> contacts = new ArrayList<>(rows.length);
+        for (int row : rows) {
+            contacts.add(toContact(row));
+        }
+        return contacts;
+    }
+
+    private Contact toContact(int row) {
+        return new Contact(fullName(row), GENDERS[genders.get(row)], LocalDate.ofEpochDay(getInt(datesOfBirth, row)));
+    }
+
+    private String fullName(int row) {
+        int offset = getInt(fullNameOffsets, row);
+        byte[] encodedFullName = new byte[getInt(fullNameOffsets, row + 1) - offset];
+        for (int i = 0; i < encodedFullName.length; i++) {
+            encodedFullName[i] = fullNames.get(offset + i);
+        }
+        return new String(encodedFullName, StandardCharsets.UTF_8);
+    }
+
+    private FullNameIndex fullNameSearchIndex() {
+        FullNameIndex index = fullNameSearchIndex;
+        if (index == null) {
+            synchronized (this) {
+                index = fullNameSearchIndex;
+                if (index == null) {
+                    index = new FullNameIndex(numberOfContacts, this::fullName, true);
+                    fullNameSearchIndex = index;
+                }
+            }
+        }
+        return index;
+    }
+
+    private int firstRowWithFullName(String fullName) {
+        byte[] encodedFullName = fullName.getBytes(StandardCharsets.UTF_8);
+        int slot = FullNameHashing.hash(encodedFullName, 0, encodedFullName.length) & fullNameIndexMask;
+        int entry;
+        while ((entry = getInt(fullNameIndex, slot)) != FullNameHashing.EMPTY_SLOT) {
+            int row = entry - 1;
+            if (hasFullName(row, encodedFullName)) {
+                return row;
+            }
+            slot = (slot + 1) & fullNameIndexMask;
+        }
+        return -1;
+    }
+
+    private boolean hasFullName(int row, byte[] encodedFullName) {
+        int offset = getInt(fullNameOffsets, row);
+        if (getInt(fullNameOffsets, row + 1) - offset != encodedFullName.length) {
+            return false;
+        }
+        for (int i = 0; i < encodedFullName.length; i++) {
+            if (fullNames.get(offset + i) != encodedFullName[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean haveSameFullName(int row, int otherRow) {
+        int offset = getInt(fullNameOffsets, row);
+        int otherOffset = getInt(fullNameOffsets, otherRow);
+        int length = getInt(fullNameOffsets, row + 1) - offset;
+        if (length != getInt(fullNameOffsets, otherRow + 1) - otherOffset) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (fullNames.get(offset + i) != fullNames.get(otherOffset + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Indexes the first row of every full name and chains the rows sharing it, in load order, through
+     * {@link #nextRowsWithSameFullName}.
+     */
+    private ByteBuffer indexFullNames() {
+        int tableSize = FullNameHashing.tableSize(numberOfContacts);
+        ByteBuffer index = allocate((long) tableSize * Integer.BYTES);
+        ByteBuffer lastRows = allocate((long) tableSize * Integer.BYTES);
+        int mask = tableSize - 1;
+        for (int row = 0; row < numberOfContacts; row++) {
+            int slot = FullNameHashing.hash(fullNames, getInt(fullNameOffsets, row), getInt(fullNameOffsets, row + 1)) & mask;
+            int entry;
+            while ((entry = getInt(index, slot)) != FullNameHashing.EMPTY_SLOT && !haveSameFullName(entry - 1, row)) {
+                slot = (slot + 1) & mask;
+            }
+            if (entry == FullNameHashing.EMPTY_SLOT) {
+                putInt(index, slot, row + 1);
+            } else {
+                putInt(nextRowsWithSameFullName, getInt(lastRows, slot) - 1, row + 1);
+            }
+            putInt(lastRows, slot, row + 1);
+        }
+        return index;
+    }
+
+    private ByteBuffer sortRowsByDateOfBirth() {
+        ByteBuffer rows = allocate((long) numberOfContacts * Integer.BYTES);
+        if (numberOfContacts == 0) {
+            return rows;
+        }
+
+        int earliest = Integer.MAX_VALUE;
+        int latest = Integer.MIN_VALUE;
+        for (int row = 0; row < numberOfContacts; row++) {
+            int epochDay = getInt(datesOfBirth, row);
+            earliest = Math.min(earliest, epochDay);
+            latest = Math.max(latest, epochDay);
+        }
+
+        ByteBuffer nextPositions = allocate(((long) latest - earliest + 2) * Integer.BYTES);
+        for (int row = 0; row < numberOfContacts; row++) {
+            int day = getInt(datesOfBirth, row) - earliest + 1;
+            putInt(nextPositions, day, getInt(nextPositions, day) + 1);
+        }
+        for (int day = 1; day <= latest - earliest + 1; day++) {
+            putInt(nextPositions, day, getInt(nextPositions, day) + getInt(nextPositions, day - 1));
+        }
+        for (int row = 0; row < numberOfContacts; row++) {
+            int day = getInt(datesOfBirth, row) - earliest;
+            int position = getInt(nextPositions, day);
+            putInt(rows, position, row);
+            putInt(nextPositions, day, position + 1);
+        }
+        return rows;
+    }
+
+    private static int getInt(ByteBuffer buffer, int index) {
+        return buffer.getInt(index << 2);
+    }
+
+    private static void putInt(ByteBuffer buffer, int index, int value) {
+        buffer.putInt(index << 2, value);
+    }
+
+    private static ByteBuffer allocate(long capacity) {
+        if (capacity > Integer.MAX_VALUE) {
+            throw new IllegalStateException("Address book does not fit in an off-heap repository");
+        }
+        return ByteBuffer.allocateDirect((int) capacity).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static ByteBuffer littleEndian(ByteBuffer buffer) {
+        return buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static ByteBuffer trim(ByteBuffer buffer) {
+        buffer.flip();
+        return allocate(buffer.remaining()).put(buffer);
+    }
+
+    static final class Builder implements AddressBookRepositoryBuilder {
+        private int numberOfContacts;
+        private ByteBuffer fullNames = allocate(1024);
+        private ByteBuffer fullNameOffsets = allocate(64).putInt(0);
+        private ByteBuffer genders = allocate(16);
+        private ByteBuffer datesOfBirth = allocate(64);
+        private final int[] genderCounts = new int[GENDERS.length];
+        private boolean built;
+
+        @Override
+        public void accept(Contact contact) {
+            Objects.requireNonNull(contact, "contact cannot be null");
+            if (built) {
+                throw new IllegalStateException("Repository has already been built");
+            }
+
+            byte[] encodedFullName = contact.getFullName().getBytes(StandardCharsets.UTF_8);
+            fullNames = ensureRemaining(fullNames, encodedFullName.length).put(encodedFullName);
+            fullNameOffsets = ensureRemaining(fullNameOffsets, Integer.BYTES).putInt(fullNames.position());
+            genders = ensureRemaining(genders, 1).put((byte) contact.getGender().ordinal());
+            datesOfBirth = ensureRemaining(datesOfBirth, Integer.BYTES)
+                    .putInt(Math.toIntExact(contact.getDateOfBirth().toEpochDay()));
+            genderCounts[contact.getGender().ordinal()]++;
+            numberOfContacts++;
+        }
+
+        @Override
+        public OffHeapAddressBookRepository build() {
+            built = true;
+            return new OffHeapAddressBookRepository(this);
+        }
+
+        private static ByteBuffer ensureRemaining(ByteBuffer buffer, int bytes) {
+            if (buffer.remaining() >= bytes) {
+                return buffer;
+            }
+            long capacity = Math.max((long) buffer.position() + bytes, Math.min(Integer.MAX_VALUE, buffer.capacity() * 2L));
+            buffer.flip();
+            return allocate(capacity).put(buffer);
+        }
+    }
+}
@@ -0,0 +1,231 @@
+package gumtree.addressbook.persistence;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Consumer;
+
+import gumtree.addressbook.domain.Contact;
+import gumtree.addressbook.metrics.Metrics;
+
+/**
+ * Splits a local Csv file into byte ranges that start after a line break and parses them concurrently on a
+ * {@link ForkJoinPool} with the tokenizer of the {@link MappedCsvAddressBookReader}. Contacts are handed over in file
+ * order and invalid records are reported with the same record number the sequential readers would report.
+ * <p>
+ * A line break inside a quoted value makes a range start in the middle of a record. Each range reads its last record
+ * to the end, wherever that is, so the merge knows where the next range should have started; a range that started
+ * anywhere else, or that failed, is read again from there.
+ * <p>
+ * Only a couple of ranges per thread are parsed ahead of the merge, so the contacts waiting to be merged take a
+ * bounded amount of memory whatever the size of the file.
+ * <p>
+ * When metrics are enabled, every load records the phases of the {@link CsvAddressBookReader}. {@code load.parse}
+ * and {@code load.map} add up the time of every thread, so together they may exceed {@code load.total};
+ * {@code load.index} is the time the merge spends handing contacts to the consumer.
+ */
+final class ParallelCsvAddressBookReader {
+    static final int DEFAULT_MINIMUM_CHUNK_SIZE = 1 << 20;
+    private static final int MAXIMUM_CHUNK_SIZE = 16 << 20;
+    private static final int CHUNKS_PER_THREAD = 4;
+    private static final int PARSED_CHUNKS_PER_THREAD = 2;
+    private static final int LINE_SCAN_BUFFER_SIZE = 8192;
+
+    private final Path csvAddressBookPath;
+    private final ForkJoinPool forkJoinPool;
+    private final int minimumChunkSize;
+    private final DateOfBirthParser dateOfBirthParser;
+    private final Metrics metrics;
+
+    ParallelCsvAddressBookReader(Path csvAddressBookPath, ForkJoinPool forkJoinPool) {
+        this(csvAddressBookPath, forkJoinPool, DEFAULT_MINIMUM_CHUNK_SIZE, new DateOfBirthParser());
+    }
+
+    ParallelCsvAddressBookReader(Path csvAddressBookPath, ForkJoinPool forkJoinPool, int minimumChunkSize,
+                                 DateOfBirthParser dateOfBirthParser) {
+        this(csvAddressBookPath, forkJoinPool, minimumChunkSize, dateOfBirthParser, Metrics.disabled());
+    }
+
+    ParallelCsvAddressBookReader(Path csvAddressBookPath, ForkJoinPool forkJoinPool, int minimumChunkSize,
+                                 DateOfBirthParser dateOfBirthParser, Metrics metrics) {
+        Objects.requireNonNull(csvAddressBookPath, "csvAddressBookPath cannot be null");
+        Objects.requireNonNull(forkJoinPool, "forkJoinPool cannot be null");
+        Objects.requireNonNull(dateOfBirthParser, "dateOfBirthParser cannot be null");
+        if (minimumChunkSize < 1) {
+            throw new IllegalArgumentException("minimumChunkSize must be positive");
+        }
+
+        this.csvAddressBookPath = csvAddressBookPath;
+        this.forkJoinPool = forkJoinPool;
+        this.minimumChunkSize = minimumChunkSize;
+        this.dateOfBirthParser = dateOfBirthParser;
+        this.metrics = Objects.requireNonNull(metrics, "metrics cannot be null");
+    }
+
+    List<Contact> read() {
+        List<Contact> contacts = new ArrayList<>();
+        read(contacts::add);
+        return contacts;
+    }
+
+    void read(Consumer<Contact> contactConsumer) {
+        read(contactConsumer, InvalidRecordCollector.strict());
+    }
+
+    /**
+     * Validates the chunks concurrently like the rest of the parsing. A strict collector aborts the load at the
+     * first invalid record; a lenient one receives every invalid record in file order once its chunk is merged.
+     */
+    void read(Consumer<Contact> contactConsumer, InvalidRecordCollector invalidRecordCollector) {
+        Objects.requireNonNull(contactConsumer, "contactConsumer cannot be null");
+        Objects.requireNonNull(invalidRecordCollector, "invalidRecordCollector cannot be null");
+
+        long start = metrics.start();
+        long parseNanos = 0;
+        long mapNanos = 0;
+        long indexNanos = 0;
+        long numberOfPreviousRecords = 0;
+        try (FileChannel channel = FileChannel.open(csvAddressBookPath, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            long chunkSize = chunkSize(fileSize);
+            int maximumParsedChunks = forkJoinPool.getParallelism() * PARSED_CHUNKS_PER_THREAD;
+            Queue<ParsedChunk> parsedChunks = new ArrayDeque<>();
+
+            long nextRecordStart = 0;
+            long nextChunkStart = 0;
+            try {
+                while (nextChunkStart < fileSize || !parsedChunks.isEmpty()) {
+                    while (nextChunkStart < fileSize && parsedChunks.size() < maximumParsedChunks) {
+                        long chunkEnd = nextChunkStart + chunkSize >= fileSize
+                                ? fileSize : endOfLine(channel, nextChunkStart + chunkSize - 1, fileSize);
+                        parsedChunks.add(parse(channel, nextChunkStart, chunkEnd, invalidRecordCollector.newPart()));
+                        nextChunkStart = chunkEnd;
+                    }
+
+                    ParsedChunk parsedChunk = parsedChunks.remove();
+                    ChunkResult chunkResult = parsedChunk.result.join();
+                    parseNanos += chunkResult.parseNanos;
+                    mapNanos += chunkResult.mapNanos;
+                    if (parsedChunk.end <= nextRecordStart) {
+                        continue;
+                    }
+
+                    if (parsedChunk.start == nextRecordStart && !chunkResult.failed) {
+                        long indexStart = System.nanoTime();
+                        chunkResult.contacts.forEach(contactConsumer);
+                        indexNanos += System.nanoTime() - indexStart;
+                        invalidRecordCollector.addAll(chunkResult.invalidRecords, numberOfPreviousRecords);
+                        numberOfPreviousRecords += chunkResult.numberOfRecords;
+                        nextRecordStart = chunkResult.nextRecordStart;
+                    } else {
+                        MappedCsvAddressBookReader reader = newChunkReader();
+                        try {
+                            nextRecordStart = reader.read(channel, nextRecordStart, parsedChunk.end,
+                                    numberOfPreviousRecords, contactConsumer, invalidRecordCollector);
+                        } finally {
+                            numberOfPreviousRecords += reader.getNumberOfRecordsRead();
+                            parseNanos += reader.getParseNanos();
+                            mapNanos += reader.getMapNanos();
+                            indexNanos += reader.getIndexNanos();
+                        }
+                    }
+                }
+            } finally {
+                parsedChunks.forEach(parsedChunk -> parsedChunk.result.cancel(false));
+            }
+        } catch (IOException e) {
+            throw new PersistenceException(e);
+        } finally {
+            if (metrics.isEnabled()) {
+                metrics.recordLatency("load.parse", parseNanos);
+                metrics.recordLatency("load.map", mapNanos);
+                metrics.recordLatency("load.index", indexNanos);
+                metrics.increment("load.records", numberOfPreviousRecords);
+            }
+            metrics.stop("load.total", start);
+        }
+    }
+
+    private long chunkSize(long fileSize) {
+        long targetChunkSize = fileSize / ((long) forkJoinPool.getParallelism() * CHUNKS_PER_THREAD) + 1;
+        return Math.max(minimumChunkSize, Math.min(MAXIMUM_CHUNK_SIZE, targetChunkSize));
+    }
+
+    private static long endOfLine(FileChannel channel, long position, long fileSize) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(LINE_SCAN_BUFFER_SIZE);
+        while (position < fileSize) {
+            buffer.clear();
+            int bytesRead = channel.read(buffer, position);
+            for (int i = 0; i < bytesRead; i++) {
+                if (buffer.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += bytesRead;
+        }
+        return fileSize;
+    }
+
+    /**
+     * Reads the records that start within the chunk, taking the chunk start as a record start. A record that cannot
+     * be read, or an invalid record in a strict load, leaves the chunk to be read again once its start is known.
+     */
+    private ParsedChunk parse(FileChannel channel, long start, long end, InvalidRecordCollector invalidRecords) {
+        return new ParsedChunk(start, end, forkJoinPool.submit(() -> {
+            ChunkResult chunkResult = new ChunkResult(invalidRecords);
+            MappedCsvAddressBookReader reader = newChunkReader();
+            try {
+                chunkResult.nextRecordStart = reader.read(channel, start, end, 0,
+                        chunkResult.contacts::add, invalidRecords);
+                chunkResult.numberOfRecords = reader.getNumberOfRecordsRead();
+            } catch (IOException | PersistenceException e) {
+                chunkResult.failed = true;
+                chunkResult.contacts.clear();
+            }
+            // Buffering the contacts for the merge counts as mapping them.
+            chunkResult.parseNanos = reader.getParseNanos();
+            chunkResult.mapNanos = reader.getMapNanos() + reader.getIndexNanos();
+            return chunkResult;
+        }));
+    }
+
+    private MappedCsvAddressBookReader newChunkReader() {
+        return new MappedCsvAddressBookReader(csvAddressBookPath, dateOfBirthParser,
+                MappedCsvAddressBookReader.DEFAULT_WINDOW_SIZE, metrics);
+    }
+
+    private static final class ParsedChunk {
+        private final long start;
+        private final long end;
+        private final ForkJoinTask<ChunkResult> result;
+
+        private ParsedChunk(long start, long end, ForkJoinTask<ChunkResult> result) {
+            this.start = start;
+            this.end = end;
+            this.result = result;
+        }
+    }
+
+    private static final class ChunkResult {
+        private final List<Contact> contacts = new ArrayList<>();
+        private final InvalidRecordCollector invalidRecords;
+        private long numberOfRecords;
+        private long nextRecordStart;
+        private long parseNanos;
+        private long mapNanos;
+        private boolean failed;
+
+        private ChunkResult(InvalidRecordCollector invalidRecords) {
+            this.invalidRecords = invalidRecords;
+        }
+    }
+}
@@ -0,0 +1,290 @@
+package gumtree.addressbook.persistence;
+
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.function.ToIntFunction;
+
+/**
+ * An immutable sorted set kept in an AVL tree. Adding or removing an element copies the path from the root to it and
+ * shares every other node with the original set, so a new version costs O(log n) time and memory and older versions
+ * stay valid for whoever still reads them.
+ * <p>
+ * Lookups take a range function instead of an element: it returns a negative number for elements before the range,
+ * zero for elements in it and a positive number for elements after it, so callers can search on part of the order,
+ * such as every entry with a given full name whatever its sequence number.
+ */
+final class PersistentTreeSet<E> implements Iterable<E> {
+
+    private final Comparator<? super E> comparator;
+    private final Node<E> root;
+
+    private PersistentTreeSet(Comparator<? super E> comparator, Node<E> root) {
+        this.comparator = comparator;
+        this.root = root;
+    }
+
+    static <E> PersistentTreeSet<E> empty(Comparator<? super E> comparator) {
+        return new PersistentTreeSet<>(Objects.requireNonNull(comparator, "comparator cannot be null"), null);
+    }
+
+    /**
+     * Builds a balanced set in linear time from elements already sorted by the comparator, without duplicates.
+     */
+    static <E> PersistentTreeSet<E> ofSorted(Comparator<? super E> comparator, List<E> sortedElements) {
+        Objects.requireNonNull(comparator, "comparator cannot be null");
+        Objects.requireNonNull(sortedElements, "sortedElements cannot be null");
+
+        return new PersistentTreeSet<>(comparator, build(sortedElements, 0, sortedElements.size()));
+    }
+
+    private static <E> Node<E> build(List<E> sortedElements, int from, int to) {
+        if (from == to) {
+            return null;
+        }
+        int middle = (from + to) >>> 1;
+        return node(sortedElements.get(middle),
+                build(sortedElements, from, middle), build(sortedElements, middle + 1, to));
+    }
+
+    int size() {
+        return size(root);
+    }
+
+    /**
+     * @return the set with the element, replacing an element the comparator considers equal
+     */
+    PersistentTreeSet<E> with(E element) {
+        Objects.requireNonNull(element, "element cannot be null");
+
+        return new PersistentTreeSet<>(comparator, with(root, element));
+    }
+
+    /**
+     * @return the set without the element, or this set when it does not hold it
+     */
+    PersistentTreeSet<E> without(E element) {
+        Objects.requireNonNull(element, "element cannot be null");
+
+        Node<E> newRoot = without(root, element);
+        return newRoot == root ? this : new PersistentTreeSet<>(comparator, newRoot);
+    }
+
+    /**
+     * @return the smallest element, or null when the set is empty
+     */
+    E first() {
+        Node<E> node = root;
+        if (node == null) {
+            return null;
+        }
+        while (node.left != null) {
+            node = node.left;
+        }
+        return node.element;
+    }
+
+    /**
+     * @return the largest element, or null when the set is empty
+     */
+    E last() {
+        Node<E> node = root;
+        if (node == null) {
+            return null;
+        }
+        while (node.right != null) {
+            node = node.right;
+        }
+        return node.element;
+    }
+
+    /**
+     * @return the largest element before the range, or null when there is none
+     */
+    E lastBefore(ToIntFunction<? super E> range) {
+        E last = null;
+        Node<E> node = root;
+        while (node != null) {
+            if (range.applyAsInt(node.element) < 0) {
+                last = node.element;
+                node = node.right;
+            } else {
+                node = node.left;
+            }
+        }
+        return last;
+    }
+
+    /**
+     * The elements in the range, in ascending order. Finding the first one takes O(log n), and each next one O(1)
+     * on average.
+     */
+    Iterator<E> iterator(ToIntFunction<? super E> range) {
+        Objects.requireNonNull(range, "range cannot be null");
+
+        return new RangeIterator<>(root, range);
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        return iterator(element -> 0);
+    }
+
+    private Node<E> with(Node<E> node, E element) {
+        if (node == null) {
+            return node(element, null, null);
+        }
+        int comparison = comparator.compare(element, node.element);
+        if (comparison < 0) {
+            return balance(node.element, with(node.left, element), node.right);
+        }
+        if (comparison > 0) {
+            return balance(node.element, node.left, with(node.right, element));
+        }
+        return new Node<>(element, node.left, node.right, node.height, node.size);
+    }
+
+    private Node<E> without(Node<E> node, E element) {
+        if (node == null) {
+            return null;
+        }
+        int comparison = comparator.compare(element, node.element);
+        if (comparison < 0) {
+            Node<E> left = without(node.left, element);
+            return left == node.left ? node : balance(node.element, left, node.right);
+        }
+        if (comparison > 0) {
+            Node<E> right = without(node.right, element);
+            return right == node.right ? node : balance(node.element, node.left, right);
+        }
+        if (node.left == null) {
+            return node.right;
+        }
+        if (node.right == null) {
+            return node.left;
+        }
+        Node<E> successor = node.right;
+        while (successor.left != null) {
+            successor = successor.left;
+        }
+        return balance(successor.element, node.left, withoutFirst(node.right));
+    }
+
+    private static <E> Node<E> withoutFirst(Node<E> node) {
+        if (node.left == null) {
+            return node.right;
+        }
+        return balance(node.element, withoutFirst(node.left), node.right);
+    }
+
+    private static <E> Node<E> balance(E element, Node<E> left, Node<E> right) {
+        int leftHeight = height(left);
+        int rightHeight = height(right);
+        if (leftHeight > rightHeight + 1) {
+            if (height(left.left) >= height(left.right)) {
+                return node(left.element, left.left, node(element, left.right, right));
+            }
+            return node(left.right.element,
+                    node(left.element, left.left, left.right.left),
+                    node(element, left.right.right, right));
+        }
+        if (rightHeight > leftHeight + 1) {
+            if (height(right.right) >= height(right.left)) {
+                return node(right.element, node(element, left, right.left), right.right);
+            }
+            return node(right.left.element,
+                    node(element, left, right.left.left),
+                    node(right.element, right.left.right, right.right));
+        }
+        return node(element, left, right);
+    }
+
+    private static <E> Node<E> node(E element, Node<E> left, Node<E> right) {
+        return new Node<>(element, left, right, Math.max(height(left), height(right)) + 1,
+                size(left) + size(right) + 1);
+    }
+
+    private static int height(Node<?> node) {
+        return node == null ? 0 : node.height;
+    }
+
+    private static int size(Node<?> node) {
+        return node == null ? 0 : node.size;
+    }
+
+    private static final class Node<E> {
+        private final E element;
+        private final Node<E> left;
+        private final Node<E> right;
+        private final int height;
+        private final int size;
+
+        private Node(E element, Node<E> left, Node<E> right, int height, int size) {
+            this.element = element;
+            this.left = left;
+            this.right = right;
+            this.height = height;
+            this.size = size;
+        }
+    }
+
+    /**
+     * Walks the tree in order from the first element in the range, keeping the nodes still to visit on a stack.
+     */
+    private static final class RangeIterator<E> implements Iterator<E> {
+        private final ToIntFunction<? super E> range;
+        private final Deque<Node<E>> path = new ArrayDeque<>();
+        private E next;
+
+        private RangeIterator(Node<E> root, ToIntFunction<? super E> range) {
+            this.range = range;
+
+            Node<E> node = root;
+            while (node != null) {
+                if (range.applyAsInt(node.element) >= 0) {
+                    path.push(node);
+                    node = node.left;
+                } else {
+                    node = node.right;
+                }
+            }
+            advance();
+        }
+
+        private void advance() {
+            next = null;
+            if (path.isEmpty()) {
+                return;
+            }
+
+            Node<E> node = path.pop();
+            if (range.applyAsInt(node.element) > 0) {
+                path.clear();
+                return;
+            }
+            next = node.element;
+            for (Node<E> left = node.right; left != null; left = left.left) {
+                path.push(left);
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public E next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            E element = next;
+            advance();
+            return element;
+        }
+    }
+}
@@ -0,0 +1,380 @@
+package gumtree.addressbook.persistence;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.SortedMap;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import gumtree.addressbook.domain.Contact;
+import gumtree.addressbook.domain.Gender;
+
+import static java.util.Comparator.comparing;
+import static java.util.Comparator.reverseOrder;
+
+/**
+ * Splits the address book into shards by a hash of the full name. Lookups by full name go to the one shard that
+ * holds the name; queries every shard answers in constant time are asked of each shard in turn on the calling
+ * thread, and every other query is sent to all shards at once on the given {@link ForkJoinPool} and their answers
+ * are merged. Results are those of a single repository, except that contacts sharing a date of birth come
+ * shard by shard rather than in load order.
+ */
+public final class ShardedAddressBookRepository implements AddressBookRepository {
+    static final int MAXIMUM_NUMBER_OF_SHARDS = 256;
+
+    private final AddressBookRepository[] shards;
+    private final byte[] shardOfRow;
+    private final ForkJoinPool forkJoinPool;
+
+    ShardedAddressBookRepository(List<Contact> contacts, int numberOfShards, StorageLayout storageLayout,
+                                 ForkJoinPool forkJoinPool) {
+        this(build(contacts, new Builder(numberOfShards, storageLayout, forkJoinPool)));
+    }
+
+    private ShardedAddressBookRepository(Builder builder) {
+        this.shards = builder.buildShards();
+        this.shardOfRow = Arrays.copyOf(builder.shardOfRow, builder.numberOfRows);
+        this.forkJoinPool = builder.forkJoinPool;
+    }
+
+    private static Builder build(List<Contact> contacts, Builder builder) {
+        Objects.requireNonNull(contacts, "contacts cannot be null");
+
+        contacts.forEach(builder);
+        return builder;
+    }
+
+    public int getNumberOfShards() {
+        return shards.length;
+    }
+
+    /**
+     * Every contact in load order, interleaving the shards as the contacts were read.
+     */
+    @Override
+    public Stream<Contact> findAll() {
+        List<Iterator<Contact>> iterators = new ArrayList<>(shards.length);
+        for (AddressBookRepository shard : shards) {
+            iterators.add(shard.findAll().iterator());
+        }
+        return IntStream.range(0, shardOfRow.length)
+                .mapToObj(row -> iterators.get(Byte.toUnsignedInt(shardOfRow[row])).next());
+    }
+
+    @Override
+    public int countByGender(Gender gender) {
+        Objects.requireNonNull(gender, "gender cannot be null");
+
+        int count = 0;
+        for (AddressBookRepository shard : shards) {
+            count += shard.countByGender(gender);
+        }
+        return count;
+    }
+
+    @Override
+    public Optional<Contact> findByFullName(String fullName) {
+        Objects.requireNonNull(fullName, "fullName cannot be null");
+
+        return shardOf(fullName).findByFullName(fullName);
+    }
+
+    @Override
+    public List<Contact> findAllByFullName(String fullName) {
+        Objects.requireNonNull(fullName, "fullName cannot be null");
+
+        return shardOf(fullName).findAllByFullName(fullName);
+    }
+
+    /**
+     * Sends each shard one batch holding only the names it owns and puts the answers back in request order.
+     */
+    @Override
+    public List<Optional<Contact>> findByFullNames(List<String> fullNames) {
+        Objects.requireNonNull(fullNames, "fullNames cannot be null");
+
+        List<List<Integer>> positionsByShard = new ArrayList<>(shards.length);
+        List<List<String>> fullNamesByShard = new ArrayList<>(shards.length);
+        for (int i = 0; i < shards.length; i++) {
+            positionsByShard.add(new ArrayList<>());
+            fullNamesByShard.add(new ArrayList<>());
+        }
+        for (int position = 0; position < fullNames.size(); position++) {
+            String fullName = Objects.requireNonNull(fullNames.get(position), "fullName cannot be null");
+            int shard = shardIndexOf(fullName, shards.length);
+            positionsByShard.get(shard).add(position);
+            fullNamesByShard.get(shard).add(fullName);
+        }
+
+        List<List<Optional<Contact>>> answers = scatter(shard -> fullNamesByShard.get(shard).isEmpty()
+                ? Collections.emptyList()
+                : shards[shard].findByFullNames(fullNamesByShard.get(shard)));
+
+        List<Optional<Contact>> contacts = new ArrayList<>(Collections.nCopies(fullNames.size(), Optional.empty()));
+        for (int shard = 0; shard < shards.length; shard++) {
+            List<Integer> positions = positionsByShard.get(shard);
+            for (int i = 0; i < positions.size(); i++) {
+                contacts.set(positions.get(i), answers.get(shard).get(i));
+            }
+        }
+        return contacts;
+    }
+
+    /**
+     * Asks every shard for its first {@code offset + limit} matches; a contact shares its shard with every other
+     * contact of the same full name, so merging by full name keeps load order within a name.
+     */
+    @Override
+    public List<Contact> findByFullNamePrefix(String prefix, int offset, int limit) {
+        FullNameSearches.validatePrefixSearch(prefix, offset, limit);
+
+        int shardLimit = (int) Math.min(Integer.MAX_VALUE, (long) offset + limit);
+        return gather(scatter(shard -> shards[shard].findByFullNamePrefix(prefix, 0, shardLimit))).stream()
+                .sorted(comparing(Contact::getFullName))
+                .skip(offset)
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public List<Contact> findByFullNameSimilarTo(String fullName, int maxDistance, int limit) {
+        FullNameSearches.validateSimilaritySearch(fullName, maxDistance, limit);
+
+        List<Contact> matches =
+                gather(scatter(shard -> shards[shard].findByFullNameSimilarTo(fullName, maxDistance, limit)));
+        return FullNameSearches.findSimilar(matches.stream(), fullName, maxDistance, limit);
+    }
+
+    @Override
+    public <K extends Comparable<? super K>> SortedMap<K, ContactStatistics> aggregate(ContactGrouping<K> grouping) {
+        Objects.requireNonNull(grouping, "grouping cannot be null");
+
+        SortedMap<K, ContactStatistics> statistics = new TreeMap<>();
+        for (SortedMap<K, ContactStatistics> shardStatistics : scatter(shard -> shards[shard].aggregate(grouping))) {
+            shardStatistics.forEach((group, groupStatistics) -> statistics.merge(group, groupStatistics,
+                    ContactStatistics::plus));
+        }
+        return statistics;
+    }
+
+    @Override
+    public Optional<LocalDate> findEarliestDateOfBirth() {
+        LocalDate earliest = null;
+        for (AddressBookRepository shard : shards) {
+            LocalDate dateOfBirth = shard.findEarliestDateOfBirth().orElse(null);
+            if (dateOfBirth != null && (earliest == null || dateOfBirth.isBefore(earliest))) {
+                earliest = dateOfBirth;
+            }
+        }
+        return Optional.ofNullable(earliest);
+    }
+
+    @Override
+    public List<Contact> findByDateOfBirth(LocalDate dateOfBirth) {
+        Objects.requireNonNull(dateOfBirth, "dateOfBirth cannot be null");
+
+        return gather(scatter(shard -> shards[shard].findByDateOfBirth(dateOfBirth)));
+    }
+
+    @Override
+    public Optional<LocalDate> findLatestDateOfBirth() {
+        LocalDate latest = null;
+        for (AddressBookRepository shard : shards) {
+            LocalDate dateOfBirth = shard.findLatestDateOfBirth().orElse(null);
+            if (dateOfBirth != null && (latest == null || dateOfBirth.isAfter(latest))) {
+                latest = dateOfBirth;
+            }
+        }
+        return Optional.ofNullable(latest);
+    }
+
+    @Override
+    public List<Contact> findByDateOfBirthBetween(LocalDate from, LocalDate to) {
+        DateOfBirthRanges.validate(from, to);
+
+        List<Contact> contacts = gather(scatter(shard -> shards[shard].findByDateOfBirthBetween(from, to)));
+        contacts.sort(comparing(Contact::getDateOfBirth));
+        return contacts;
+    }
+
+    /**
+     * Merges the shards' streams by date of birth as it is consumed, holding one contact per shard at a time.
+     */
+    @Override
+    public Stream<Contact> streamByDateOfBirthBetween(LocalDate from, LocalDate to) {
+        DateOfBirthRanges.validate(from, to);
+
+        PriorityQueue<ShardCursor> cursors = new PriorityQueue<>(shards.length,
+                comparing((ShardCursor cursor) -> cursor.current.getDateOfBirth())
+                        .thenComparingInt(cursor -> cursor.shard));
+        for (int shard = 0; shard < shards.length; shard++) {
+            ShardCursor cursor = new ShardCursor(shard, shards[shard].streamByDateOfBirthBetween(from, to).iterator());
+            if (cursor.advance()) {
+                cursors.add(cursor);
+            }
+        }
+
+        Iterator<Contact> merged = new Iterator<Contact>() {
+            @Override
+            public boolean hasNext() {
+                return !cursors.isEmpty();
+            }
+
+            @Override
+            public Contact next() {
+                ShardCursor cursor = cursors.remove();
+                Contact contact = cursor.current;
+                if (cursor.advance()) {
+                    cursors.add(cursor);
+                }
+                return contact;
+            }
+        };
+        return StreamSupport.stream(
+                Spliterators.spliteratorUnknownSize(merged, Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+
+    @Override
+    public List<Contact> findOldest(int limit) {
+        DateOfBirthRanges.validate(limit);
+
+        return gather(scatter(shard -> shards[shard].findOldest(limit))).stream()
+                .sorted(comparing(Contact::getDateOfBirth))
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public List<Contact> findYoungest(int limit) {
+        DateOfBirthRanges.validate(limit);
+
+        return gather(scatter(shard -> shards[shard].findYoungest(limit))).stream()
+                .sorted(comparing(Contact::getDateOfBirth, reverseOrder()))
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
+
+    private AddressBookRepository shardOf(String fullName) {
+        return shards[shardIndexOf(fullName, shards.length)];
+    }
+
+    static int shardIndexOf(String fullName, int numberOfShards) {
+        return Math.floorMod(FullNameHashing.mix(fullName.hashCode()), numberOfShards);
+    }
+
+    /**
+     * Runs the query against every shard on the pool and returns the answers in shard order.
+     */
+    private <T> List<T> scatter(Function<Integer, T> query) {
+        if (shards.length == 1) {
+            return Collections.singletonList(query.apply(0));
+        }
+
+        List<ForkJoinTask<T>> tasks = new ArrayList<>(shards.length);
+        for (int shard = 0; shard < shards.length; shard++) {
+            int index = shard;
+            tasks.add(forkJoinPool.submit(() -> query.apply(index)));
+        }
+        List<T> answers = new ArrayList<>(shards.length);
+        for (ForkJoinTask<T> task : tasks) {
+            answers.add(task.join());
+        }
+        return answers;
+    }
+
+    private static List<Contact> gather(List<List<Contact>> answers) {
+        List<Contact> contacts = new ArrayList<>(answers.stream().mapToInt(List::size).sum());
+        answers.forEach(contacts::addAll);
+        return contacts;
+    }
+
+    private static final class ShardCursor {
+        private final int shard;
+        private final Iterator<Contact> contacts;
+        private Contact current;
+
+        private ShardCursor(int shard, Iterator<Contact> contacts) {
+            this.shard = shard;
+            this.contacts = contacts;
+        }
+
+        private boolean advance() {
+            current = contacts.hasNext() ? contacts.next() : null;
+            return current != null;
+        }
+    }
+
+    /**
+     * Routes each contact to the builder of its shard, remembering the shard of every row so that {@link #findAll()}
+     * can return contacts in load order. The shards are built in parallel on the pool.
+     */
+    static final class Builder implements AddressBookRepositoryBuilder {
+        private final AddressBookRepositoryBuilder[] shardBuilders;
+        private final ForkJoinPool forkJoinPool;
+        private byte[] shardOfRow = new byte[1024];
+        private int numberOfRows;
+        private boolean built;
+
+        Builder(int numberOfShards, StorageLayout storageLayout, ForkJoinPool forkJoinPool) {
+            if (numberOfShards < 1) {
+                throw new IllegalArgumentException("numberOfShards must be positive");
+            }
+            if (numberOfShards > MAXIMUM_NUMBER_OF_SHARDS) {
+                throw new IllegalArgumentException("numberOfShards cannot be more than " + MAXIMUM_NUMBER_OF_SHARDS);
+            }
+            Objects.requireNonNull(storageLayout, "storageLayout cannot be null");
+            this.forkJoinPool = Objects.requireNonNull(forkJoinPool, "forkJoinPool cannot be null");
+
+            shardBuilders = new AddressBookRepositoryBuilder[numberOfShards];
+            for (int shard = 0; shard < numberOfShards; shard++) {
+                shardBuilders[shard] = storageLayout.newBuilder();
+            }
+        }
+
+        @Override
+        public void accept(Contact contact) {
+            Objects.requireNonNull(contact, "contact cannot be null");
+            if (built) {
+                throw new IllegalStateException("Repository has already been built");
+            }
+
+            int shard = shardIndexOf(contact.getFullName(), shardBuilders.length);
+            shardBuilders[shard].accept(contact);
+            if (numberOfRows == shardOfRow.length) {
+                shardOfRow = Arrays.copyOf(shardOfRow, shardOfRow.length * 2);
+            }
+            shardOfRow[numberOfRows++] = (byte) shard;
+        }
+
+        private AddressBookRepository[] buildShards() {
+            List<ForkJoinTask<AddressBookRepository>> tasks = new ArrayList<>(shardBuilders.length);
+            for (AddressBookRepositoryBuilder shardBuilder : shardBuilders) {
+                tasks.add(forkJoinPool.submit(shardBuilder::build));
+            }
+            return tasks.stream()
+                    .map(ForkJoinTask::join)
+                    .toArray(AddressBookRepository[]::new);
+        }
+
+        @Override
+        public ShardedAddressBookRepository build() {
+            built = true;
+            return new ShardedAddressBookRepository(this);
+        }
+    }
+}
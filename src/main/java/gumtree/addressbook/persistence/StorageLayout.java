@@ -0,0 +1,36 @@
+package gumtree.addressbook.persistence;
+
+/**
+ * How a loaded address book is laid out in memory.
+ */
+public enum StorageLayout {
+    /**
+     * One {@link gumtree.addressbook.domain.Contact} per record, indexed by hash maps and a tree map.
+     */
+    INDEXED {
+        @Override
+        AddressBookRepositoryBuilder newBuilder() {
+            return new IndexedAddressBookRepository.Builder();
+        }
+    },
+    /**
+     * Primitive arrays per column; contacts are only created for query results.
+     */
+    COLUMNAR {
+        @Override
+        AddressBookRepositoryBuilder newBuilder() {
+            return new ColumnarAddressBookRepository.Builder();
+        }
+    },
+    /**
+     * The columnar layout kept in direct buffers outside the Java heap.
+     */
+    OFF_HEAP {
+        @Override
+        AddressBookRepositoryBuilder newBuilder() {
+            return new OffHeapAddressBookRepository.Builder();
+        }
+    };
+
+    abstract AddressBookRepositoryBuilder newBuilder();
+}
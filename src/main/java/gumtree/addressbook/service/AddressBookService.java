@@ -2,40 +2,220 @@ package gumtree.addressbook.service;
 
 import java.time.LocalDate;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 import gumtree.addressbook.domain.Contact;
 import gumtree.addressbook.domain.Gender;
+import gumtree.addressbook.metrics.Metrics;
 import gumtree.addressbook.persistence.AddressBookRepository;
+import gumtree.addressbook.persistence.ContactGrouping;
+import gumtree.addressbook.persistence.ContactStatistics;
 
+/**
+ * When metrics are enabled, records the latency of every call under {@code service.<method>}.
+ */
 public final class AddressBookService {
     private final AddressBookRepository addressBookRepository;
+    private final Metrics metrics;
 
     public AddressBookService(AddressBookRepository addressBookRepository) {
+        this(addressBookRepository, Metrics.disabled());
+    }
+
+    public AddressBookService(AddressBookRepository addressBookRepository, Metrics metrics) {
         this.addressBookRepository = addressBookRepository;
+        this.metrics = Objects.requireNonNull(metrics, "metrics cannot be null");
     }
 
     public int countByGender(Gender gender) {
-        return addressBookRepository.countByGender(gender);
+        return timed("service.countByGender", () -> addressBookRepository.countByGender(gender));
     }
 
     public List<Contact> findOldestPeople() {
-        Optional<LocalDate> earliestDateOfBirth = addressBookRepository.findEarliestDateOfBirth();
+        return timed("service.findOldestPeople", () -> {
+            Optional<LocalDate> earliestDateOfBirth = addressBookRepository.findEarliestDateOfBirth();
+
+            return earliestDateOfBirth
+                    .map(addressBookRepository::findByDateOfBirth)
+                    .orElse(Collections.emptyList());
+        });
+    }
+
+    public List<Contact> findYoungestPeople() {
+        return timed("service.findYoungestPeople", () -> {
+            Optional<LocalDate> latestDateOfBirth = addressBookRepository.findLatestDateOfBirth();
+
+            return latestDateOfBirth
+                    .map(addressBookRepository::findByDateOfBirth)
+                    .orElse(Collections.emptyList());
+        });
+    }
+
+    public <K extends Comparable<? super K>> SortedMap<K, ContactStatistics> aggregate(ContactGrouping<K> grouping) {
+        return timed("service.aggregate", () -> addressBookRepository.aggregate(grouping));
+    }
 
-        return earliestDateOfBirth
-                .map(addressBookRepository::findByDateOfBirth)
-                .orElse(Collections.emptyList());
+    /**
+     * The number of people, and their gender split, per age band on the given date.
+     */
+    public SortedMap<Integer, ContactStatistics> ageHistogram(LocalDate on, int yearsPerBand) {
+        return timed("service.ageHistogram",
+                () -> addressBookRepository.aggregate(ContactGrouping.ageBands(on, yearsPerBand)));
+    }
+
+    public List<Contact> findPeopleBornBetween(LocalDate from, LocalDate to) {
+        return timed("service.findPeopleBornBetween", () -> addressBookRepository.findByDateOfBirthBetween(from, to));
+    }
+
+    /**
+     * The people of {@link #findPeopleBornBetween(LocalDate, LocalDate)}, produced as the stream is consumed. Only
+     * the call that opens the stream is timed.
+     */
+    public Stream<Contact> streamPeopleBornBetween(LocalDate from, LocalDate to) {
+        return timed("service.streamPeopleBornBetween",
+                () -> addressBookRepository.streamByDateOfBirthBetween(from, to));
+    }
+
+    public List<Contact> findAllByFullName(String fullName) {
+        return timed("service.findAllByFullName", () -> addressBookRepository.findAllByFullName(fullName));
+    }
+
+    public List<Contact> findByFullNamePrefix(String prefix, int offset, int limit) {
+        return timed("service.findByFullNamePrefix",
+                () -> addressBookRepository.findByFullNamePrefix(prefix, offset, limit));
+    }
+
+    public List<Contact> findByFullNameSimilarTo(String fullName, int maxDistance, int limit) {
+        return timed("service.findByFullNameSimilarTo",
+                () -> addressBookRepository.findByFullNameSimilarTo(fullName, maxDistance, limit));
     }
 
     public long ageDifferenceInDays(String firstPersonFullName, String secondPersonFullName) {
+        return timed("service.ageDifferenceInDays",
+                () -> ageDifferenceInDaysOfFirstPeople(firstPersonFullName, secondPersonFullName));
+    }
+
+    public long ageDifferenceInDays(String firstPersonFullName, String secondPersonFullName,
+                                    DuplicateNamePolicy duplicateNamePolicy) {
+        return timed("service.ageDifferenceInDays", () -> {
+            Objects.requireNonNull(duplicateNamePolicy, "duplicateNamePolicy cannot be null");
+            if (duplicateNamePolicy == DuplicateNamePolicy.FIRST) {
+                return ageDifferenceInDaysOfFirstPeople(firstPersonFullName, secondPersonFullName);
+            }
+
+            Contact firstPerson = findPerson(firstPersonFullName, "firstPersonFullName", duplicateNamePolicy);
+            Contact secondPerson = findPerson(secondPersonFullName, "secondPersonFullName", duplicateNamePolicy);
+
+            return daysBetween(firstPerson, secondPerson);
+        });
+    }
+
+    private long ageDifferenceInDaysOfFirstPeople(String firstPersonFullName, String secondPersonFullName) {
         Contact firstPerson = addressBookRepository.findByFullName(firstPersonFullName)
                 .orElseThrow(() -> new IllegalArgumentException("firstPersonFullName not found"));
 
         Contact secondPerson = addressBookRepository.findByFullName(secondPersonFullName)
                 .orElseThrow(() -> new IllegalArgumentException("secondPersonFullName not found"));
 
+        return daysBetween(firstPerson, secondPerson);
+    }
+
+    /**
+     * The age difference between every contact named like the first person and every contact named like the second
+     * one, ordered as the contacts are in the Csv file, first person first.
+     */
+    public List<Long> allAgeDifferencesInDays(String firstPersonFullName, String secondPersonFullName) {
+        return timed("service.allAgeDifferencesInDays", () -> {
+            List<Contact> firstPeople = findPeople(firstPersonFullName, "firstPersonFullName");
+            List<Contact> secondPeople = findPeople(secondPersonFullName, "secondPersonFullName");
+
+            List<Long> ageDifferences = new ArrayList<>(firstPeople.size() * secondPeople.size());
+            for (Contact firstPerson : firstPeople) {
+                for (Contact secondPerson : secondPeople) {
+                    ageDifferences.add(daysBetween(firstPerson, secondPerson));
+                }
+            }
+            return ageDifferences;
+        });
+    }
+
+    private Contact findPerson(String fullName, String parameterName, DuplicateNamePolicy duplicateNamePolicy) {
+        Contact person = duplicateNamePolicy.select(findPeople(fullName, parameterName));
+        if (person == null) {
+            throw new IllegalArgumentException(parameterName + " is ambiguous");
+        }
+        return person;
+    }
+
+    private List<Contact> findPeople(String fullName, String parameterName) {
+        List<Contact> people = addressBookRepository.findAllByFullName(fullName);
+        if (people.isEmpty()) {
+            throw new IllegalArgumentException(parameterName + " not found");
+        }
+        return people;
+    }
+
+    public List<Optional<Contact>> findByFullNames(List<String> fullNames) {
+        return timed("service.findByFullNames", () -> addressBookRepository.findByFullNames(fullNames));
+    }
+
+    public List<AgeDifference> ageDifferencesInDays(List<FullNamePair> fullNamePairs) {
+        return timed("service.ageDifferencesInDays", () -> ageDifferencesInDaysOf(fullNamePairs));
+    }
+
+    private List<AgeDifference> ageDifferencesInDaysOf(List<FullNamePair> fullNamePairs) {
+        Objects.requireNonNull(fullNamePairs, "fullNamePairs cannot be null");
+
+        Set<String> distinctFullNames = new LinkedHashSet<>();
+        for (FullNamePair fullNamePair : fullNamePairs) {
+            Objects.requireNonNull(fullNamePair, "fullNamePair cannot be null");
+            distinctFullNames.add(fullNamePair.getFirstPersonFullName());
+            distinctFullNames.add(fullNamePair.getSecondPersonFullName());
+        }
+
+        List<String> fullNames = new ArrayList<>(distinctFullNames);
+        List<Optional<Contact>> contacts = addressBookRepository.findByFullNames(fullNames);
+        Map<String, Contact> contactsByFullName = new HashMap<>();
+        for (int i = 0; i < fullNames.size(); i++) {
+            String fullName = fullNames.get(i);
+            contacts.get(i).ifPresent(contact -> contactsByFullName.put(fullName, contact));
+        }
+
+        List<AgeDifference> ageDifferences = new ArrayList<>(fullNamePairs.size());
+        for (FullNamePair fullNamePair : fullNamePairs) {
+            Contact firstPerson = contactsByFullName.get(fullNamePair.getFirstPersonFullName());
+            Contact secondPerson = contactsByFullName.get(fullNamePair.getSecondPersonFullName());
+
+            if (firstPerson != null && secondPerson != null) {
+                ageDifferences.add(AgeDifference.found(fullNamePair, daysBetween(firstPerson, secondPerson)));
+            } else {
+                ageDifferences.add(AgeDifference.notFound(fullNamePair, firstPerson != null, secondPerson != null));
+            }
+        }
+        return ageDifferences;
+    }
+
+    private <T> T timed(String name, Supplier<T> call) {
+        long start = metrics.start();
+        try {
+            return call.get();
+        } finally {
+            metrics.stop(name, start);
+        }
+    }
+
+    private static long daysBetween(Contact firstPerson, Contact secondPerson) {
         return Math.abs(ChronoUnit.DAYS.between(firstPerson.getDateOfBirth(), secondPerson.getDateOfBirth()));
     }
 }
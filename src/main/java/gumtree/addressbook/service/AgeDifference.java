@@ -0,0 +1,81 @@
+package gumtree.addressbook.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.apache.commons.lang3.builder.ToStringStyle;
+
+/**
+ * The outcome of one pair in a batch age difference request: either the difference in days, or the full names that
+ * could not be found.
+ */
+public final class AgeDifference {
+    private final FullNamePair fullNames;
+    private final long days;
+    private final List<String> missingFullNames;
+
+    private AgeDifference(FullNamePair fullNames, long days, List<String> missingFullNames) {
+        this.fullNames = fullNames;
+        this.days = days;
+        this.missingFullNames = missingFullNames;
+    }
+
+    static AgeDifference found(FullNamePair fullNames, long days) {
+        return new AgeDifference(fullNames, days, Collections.emptyList());
+    }
+
+    static AgeDifference notFound(FullNamePair fullNames, boolean firstPersonFound, boolean secondPersonFound) {
+        List<String> missingFullNames = new ArrayList<>(2);
+        if (!firstPersonFound) {
+            missingFullNames.add(fullNames.getFirstPersonFullName());
+        }
+        if (!secondPersonFound) {
+            missingFullNames.add(fullNames.getSecondPersonFullName());
+        }
+        return new AgeDifference(fullNames, -1, Collections.unmodifiableList(missingFullNames));
+    }
+
+    public FullNamePair getFullNames() {
+        return fullNames;
+    }
+
+    public boolean isFound() {
+        return missingFullNames.isEmpty();
+    }
+
+    public long getDays() {
+        if (!isFound()) {
+            throw new IllegalStateException("Age difference is unknown. Not found: " + missingFullNames);
+        }
+        return days;
+    }
+
+    public List<String> getMissingFullNames() {
+        return missingFullNames;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) return true;
+        if (other == null || getClass() != other.getClass()) return false;
+        AgeDifference that = (AgeDifference) other;
+        return days == that.days &&
+                Objects.equals(fullNames, that.fullNames) &&
+                Objects.equals(missingFullNames, that.missingFullNames);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(fullNames, days, missingFullNames);
+    }
+
+    @Override
+    public String toString() {
+        ToStringBuilder builder = new ToStringBuilder(this, ToStringStyle.JSON_STYLE).append("fullNames", fullNames);
+        return (isFound() ? builder.append("days", days) : builder.append("missingFullNames", missingFullNames))
+                .toString();
+    }
+}
@@ -0,0 +1,54 @@
+package gumtree.addressbook.service;
+
+import java.util.Comparator;
+import java.util.List;
+
+import gumtree.addressbook.domain.Contact;
+
+/**
+ * Which contact a full name stands for when several contacts share it.
+ */
+public enum DuplicateNamePolicy {
+    /**
+     * The first contact in the Csv file.
+     */
+    FIRST {
+        @Override
+        Contact select(List<Contact> contacts) {
+            return contacts.get(0);
+        }
+    },
+    /**
+     * The contact with the earliest date of birth, the first in the Csv file among those born the same day.
+     */
+    OLDEST {
+        @Override
+        Contact select(List<Contact> contacts) {
+            return contacts.stream().min(Comparator.comparing(Contact::getDateOfBirth)).get();
+        }
+    },
+    /**
+     * The contact with the latest date of birth, the first in the Csv file among those born the same day.
+     */
+    YOUNGEST {
+        @Override
+        Contact select(List<Contact> contacts) {
+            return contacts.stream().max(Comparator.comparing(Contact::getDateOfBirth)).get();
+        }
+    },
+    /**
+     * No contact: a full name shared by several contacts is rejected as ambiguous.
+     */
+    REJECT {
+        @Override
+        Contact select(List<Contact> contacts) {
+            return contacts.size() == 1 ? contacts.get(0) : null;
+        }
+    };
+
+    /**
+     * @param contacts the contacts sharing a full name, in load order; never empty
+     * @return the contact the full name stands for, or null when it is ambiguous
+     */
+    abstract Contact select(List<Contact> contacts);
+}
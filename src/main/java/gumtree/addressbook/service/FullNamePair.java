@@ -0,0 +1,46 @@
+package gumtree.addressbook.service;
+
+import java.util.Objects;
+
+import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.apache.commons.lang3.builder.ToStringStyle;
+
+public final class FullNamePair {
+    private final String firstPersonFullName;
+    private final String secondPersonFullName;
+
+    public FullNamePair(String firstPersonFullName, String secondPersonFullName) {
+        this.firstPersonFullName = Objects.requireNonNull(firstPersonFullName, "firstPersonFullName cannot be null");
+        this.secondPersonFullName = Objects.requireNonNull(secondPersonFullName, "secondPersonFullName cannot be null");
+    }
+
+    public String getFirstPersonFullName() {
+        return firstPersonFullName;
+    }
+
+    public String getSecondPersonFullName() {
+        return secondPersonFullName;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) return true;
+        if (other == null || getClass() != other.getClass()) return false;
+        FullNamePair pair = (FullNamePair) other;
+        return Objects.equals(firstPersonFullName, pair.firstPersonFullName) &&
+                Objects.equals(secondPersonFullName, pair.secondPersonFullName);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(firstPersonFullName, secondPersonFullName);
+    }
+
+    @Override
+    public String toString() {
+        return new ToStringBuilder(this, ToStringStyle.JSON_STYLE)
+                .append("firstPersonFullName", firstPersonFullName)
+                .append("secondPersonFullName", secondPersonFullName)
+                .toString();
+    }
+}
@@ -0,0 +1,193 @@
+package gumtree.addressbook.http;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+
+import gumtree.addressbook.domain.Gender;
+import gumtree.addressbook.persistence.AddressBookRepository;
+import gumtree.addressbook.persistence.AddressBookRepositoryFactory;
+import gumtree.addressbook.service.AddressBookService;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class AddressBookHttpServerTest {
+
+    private static final String PAUL = "{\"fullName\":\"Paul Robinson\",\"gender\":\"MALE\",\"dateOfBirth\":\"1985-01-15\"}";
+    private static final String GEMMA = "{\"fullName\":\"Gemma Lane\",\"gender\":\"FEMALE\",\"dateOfBirth\":\"1991-11-20\"}";
+    private static final String WES = "{\"fullName\":\"Wes Jackson\",\"gender\":\"MALE\",\"dateOfBirth\":\"1974-08-14\"}";
+
+    private AddressBookHttpServer httpServer;
+
+    @Before
+    public void startServer() {
+        AddressBookService addressBookService = new AddressBookService(
+                AddressBookRepositoryFactory.newCsvInstance("AddressBookWithMultipleContacts"));
+        httpServer = new AddressBookHttpServer(addressBookService,
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        httpServer.start();
+    }
+
+    @After
+    public void stopServer() {
+        httpServer.close();
+    }
+
+    @Test
+    public void countByGenderReturnsTheNumberOfContactsOfTheGender() throws Exception {
+        Response response = get("/contacts/count?gender=male");
+
+        assertThat(response.status).isEqualTo(200);
+        assertThat(response.body).isEqualTo("{\"gender\":\"MALE\",\"count\":2}");
+    }
+
+    @Test
+    public void oldestReturnsTheOldestContacts() throws Exception {
+        assertThat(get("/contacts/oldest").body).isEqualTo("[" + WES + "]");
+    }
+
+    @Test
+    public void youngestReturnsTheYoungestContacts() throws Exception {
+        assertThat(get("/contacts/youngest").body).isEqualTo("[" + GEMMA + "]");
+    }
+
+    @Test
+    public void contactsReturnsEveryContactWithTheFullName() throws Exception {
+        assertThat(get("/contacts?fullName=Paul+Robinson").body).isEqualTo("[" + PAUL + "]");
+    }
+
+    @Test
+    public void batchReturnsTheContactOrNullForEveryFullName() throws Exception {
+        Response response = get("/contacts/batch?fullName=Wes%20Jackson&fullName=Nobody&fullName=Paul%20Robinson");
+
+        assertThat(response.body).isEqualTo("[" + WES + ",null," + PAUL + "]");
+    }
+
+    @Test
+    public void ageDifferenceReturnsTheDaysBetweenTwoPeople() throws Exception {
+        Response response = get("/age-difference?first=Paul%20Robinson&second=Wes%20Jackson&policy=oldest");
+
+        assertThat(response.body).isEqualTo("{\"first\":\"Paul Robinson\",\"second\":\"Wes Jackson\",\"days\":3807}");
+    }
+
+    @Test
+    public void ageDifferencesReturnsTheDaysOrTheMissingNamesOfEveryPair() throws Exception {
+        Response response = post("/age-differences", "Paul Robinson,Wes Jackson\nGemma Lane,Nobody\n");
+
+        assertThat(response.status).isEqualTo(200);
+        assertThat(response.body).isEqualTo("["
+                + "{\"first\":\"Paul Robinson\",\"second\":\"Wes Jackson\",\"days\":3807},"
+                + "{\"first\":\"Gemma Lane\",\"second\":\"Nobody\",\"notFound\":[\"Nobody\"]}]");
+    }
+
+    @Test
+    public void invalidRequestsAreRejectedWithTheReason() throws Exception {
+        Response missingParameter = get("/contacts/count");
+        Response unknownPerson = get("/age-difference?first=Nobody&second=Wes%20Jackson");
+
+        assertThat(missingParameter.status).isEqualTo(400);
+        assertThat(missingParameter.body).isEqualTo("{\"error\":\"gender is required\"}");
+        assertThat(unknownPerson.status).isEqualTo(400);
+        assertThat(unknownPerson.body).isEqualTo("{\"error\":\"firstPersonFullName not found\"}");
+    }
+
+    @Test
+    public void missingAndEmptyParametersAreRejected() throws Exception {
+        Response emptyFullName = get("/contacts?fullName=");
+        Response blankFirst = get("/age-difference?first=%20&second=Wes%20Jackson");
+        Response noFullNames = get("/contacts/batch");
+        Response emptyFullNameInBatch = get("/contacts/batch?fullName=Wes%20Jackson&fullName=");
+
+        assertThat(emptyFullName.status).isEqualTo(400);
+        assertThat(emptyFullName.body).isEqualTo("{\"error\":\"fullName is required\"}");
+        assertThat(blankFirst.body).isEqualTo("{\"error\":\"first is required\"}");
+        assertThat(noFullNames.body).isEqualTo("{\"error\":\"fullName is required\"}");
+        assertThat(emptyFullNameInBatch.status).isEqualTo(400);
+    }
+
+    @Test
+    public void malformedAgeDifferencesBodyIsRejected() throws Exception {
+        Response unterminatedQuote = post("/age-differences", "Paul Robinson,Wes Jackson\n\"Gemma Lane,Nobody\n");
+        Response emptyFullName = post("/age-differences", "Paul Robinson,\n");
+
+        assertThat(unterminatedQuote.status).isEqualTo(400);
+        assertThat(unterminatedQuote.body).startsWith("{\"error\":\"Body is not valid Csv: ");
+        assertThat(emptyFullName.status).isEqualTo(400);
+        assertThat(emptyFullName.body).isEqualTo("{\"error\":\"Line 1 must have two full names\"}");
+    }
+
+    @Test
+    public void internalFailuresAreAnsweredWithServerError() throws Exception {
+        AddressBookRepository failingRepository = mock(AddressBookRepository.class);
+        when(failingRepository.countByGender(Gender.MALE)).thenThrow(new IllegalStateException("Repository is down"));
+        httpServer.close();
+        httpServer = new AddressBookHttpServer(new AddressBookService(failingRepository),
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        httpServer.start();
+
+        Response response = get("/contacts/count?gender=male");
+
+        assertThat(response.status).isEqualTo(500);
+        assertThat(response.body).isEqualTo("{\"error\":\"Internal error\"}");
+    }
+
+    @Test
+    public void unknownPathsAndMethodsAreRejected() throws Exception {
+        assertThat(get("/unknown").status).isEqualTo(404);
+        assertThat(get("/age-differences").status).isEqualTo(405);
+    }
+
+    private Response get(String pathAndQuery) throws IOException {
+        return send(open(pathAndQuery, "GET"));
+    }
+
+    private Response post(String path, String body) throws IOException {
+        HttpURLConnection connection = open(path, "POST");
+        connection.setDoOutput(true);
+        try (OutputStream requestBody = connection.getOutputStream()) {
+            requestBody.write(body.getBytes(StandardCharsets.UTF_8));
+        }
+        return send(connection);
+    }
+
+    private HttpURLConnection open(String pathAndQuery, String method) throws IOException {
+        URL url = new URL("http", httpServer.getAddress().getHostString(), httpServer.getAddress().getPort(),
+                pathAndQuery);
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        connection.setRequestMethod(method);
+        return connection;
+    }
+
+    private static Response send(HttpURLConnection connection) throws IOException {
+        int status = connection.getResponseCode();
+        try (InputStream responseBody = status < 400 ? connection.getInputStream() : connection.getErrorStream()) {
+            ByteArrayOutputStream body = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            for (int read; (read = responseBody.read(buffer)) > 0; ) {
+                body.write(buffer, 0, read);
+            }
+            return new Response(status, new String(body.toByteArray(), StandardCharsets.UTF_8));
+        }
+    }
+
+    private static final class Response {
+        private final int status;
+        private final String body;
+
+        private Response(int status, String body) {
+            this.status = status;
+            this.body = body;
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package gumtree.addressbook.metrics;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.assertj.core.api.Assertions.within;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void everyValueFallsInABucketWhoseHighestValueIsWithinThreePercent() {
+        Random random = new Random(42);
+        int previousBucket = -1;
+        for (long value = 0; value < 1_000_000; value += 1 + random.nextInt(50)) {
+            int bucket = LatencyHistogram.bucketOf(value);
+
+            assertThat(bucket).isGreaterThanOrEqualTo(previousBucket);
+            assertThat(LatencyHistogram.highestValueOf(bucket)).isBetween(value, value + value / 32);
+            previousBucket = bucket;
+        }
+        assertThat(LatencyHistogram.bucketOf(Long.MAX_VALUE)).isLessThan(LatencyHistogram.NUMBER_OF_BUCKETS);
+        assertThat(LatencyHistogram.highestValueOf(LatencyHistogram.bucketOf(Long.MAX_VALUE))).isEqualTo(Long.MAX_VALUE);
+    }
+
+    @Test
+    public void percentilesAreWithinThreePercentOfTheRecordedValues() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long nanos = 1; nanos <= 100_000; nanos++) {
+            histogram.record(nanos * 1_000);
+        }
+
+        assertThat(histogram.getCount()).isEqualTo(100_000);
+        assertThat(histogram.getMaximum()).isEqualTo(100_000_000);
+        assertThat((double) histogram.getValueAtPercentile(50)).isCloseTo(50_000_000, within(1_500_000.0));
+        assertThat((double) histogram.getValueAtPercentile(99)).isCloseTo(99_000_000, within(3_000_000.0));
+        assertThat(histogram.getValueAtPercentile(100)).isEqualTo(100_000_000);
+    }
+
+    @Test
+    public void summaryIsZeroWhenNothingWasRecorded() {
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        assertThat(histogram.summarize()).isEqualTo(new LatencySummary(0, 0, 0, 0, 0, 0, 0));
+    }
+
+    @Test
+    public void resetForgetsEveryRecordedValue() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(1_000);
+
+        histogram.reset();
+
+        assertThat(histogram.summarize()).isEqualTo(new LatencySummary(0, 0, 0, 0, 0, 0, 0));
+    }
+
+    @Test
+    public void getValueAtPercentileThrowsExceptionWhenPercentileIsOutOfRange() {
+
+        Throwable caughtException = catchThrowable(() -> new LatencyHistogram().getValueAtPercentile(101));
+
+        assertThat(caughtException).isExactlyInstanceOf(IllegalArgumentException.class);
+        assertThat(caughtException).hasMessage("percentile must be between 0 and 100");
+    }
+}
@@ -0,0 +1,172 @@
+package gumtree.addressbook.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SortedMap;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import javax.management.openmbean.TabularData;
+
+import org.junit.After;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+public class MetricsRegistryTest {
+
+    private static final String OBJECT_NAME = "gumtree.addressbook:type=Metrics,name=MetricsRegistryTest";
+
+    private MetricsRegistry metricsRegistry = new MetricsRegistry();
+
+    @After
+    public void closeMetricsRegistry() {
+        metricsRegistry.close();
+    }
+
+    @Test
+    public void countersAddUpEveryIncrement() {
+        metricsRegistry.increment("repository.findOldest.rows", 3);
+        metricsRegistry.increment("repository.findOldest.rows", 4);
+
+        assertThat(metricsRegistry.getCounters()).containsEntry("repository.findOldest.rows", 7L);
+    }
+
+    @Test
+    public void latenciesAreSummarisedPerName() {
+        metricsRegistry.recordLatency("service.countByGender", 1_000);
+        metricsRegistry.recordLatency("service.countByGender", 3_000);
+
+        LatencySummary summary = metricsRegistry.getLatencies().get("service.countByGender");
+
+        assertThat(summary.getCount()).isEqualTo(2);
+        assertThat(summary.getTotalNanos()).isEqualTo(4_000);
+        assertThat(summary.getMaximumNanos()).isEqualTo(3_000);
+    }
+
+    @Test
+    public void stopRecordsTheTimeSinceStart() {
+        long start = metricsRegistry.start();
+
+        metricsRegistry.stop("service.countByGender", start);
+
+        assertThat(metricsRegistry.getLatencies().get("service.countByGender").getCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void disabledMetricsNeverReadTheClock() {
+        Metrics metrics = Metrics.disabled();
+
+        assertThat(metrics.isEnabled()).isFalse();
+        assertThat(metrics.start()).isZero();
+    }
+
+    @Test
+    public void reportHandsEveryCounterAndLatencyToTheReporter() {
+        metricsRegistry.increment("load.records", 5);
+        metricsRegistry.recordLatency("load.total", 1_000);
+        List<SortedMap<String, ?>> reported = new ArrayList<>();
+
+        metricsRegistry.report((counters, latencies) -> {
+            reported.add(counters);
+            reported.add(latencies);
+        });
+
+        assertThat(reported.get(0)).containsOnlyKeys("load.records");
+        assertThat(reported.get(1)).containsOnlyKeys("load.total");
+    }
+
+    @Test
+    public void startReportingReportsInTheBackground() throws Exception {
+        List<SortedMap<String, Long>> reported = new ArrayList<>();
+        metricsRegistry.increment("load.records", 5);
+
+        metricsRegistry.startReporting((counters, latencies) -> {
+            synchronized (reported) {
+                reported.add(counters);
+                reported.notifyAll();
+            }
+        }, Duration.ofMillis(10));
+
+        synchronized (reported) {
+            long deadline = System.currentTimeMillis() + 5_000;
+            while (reported.isEmpty() && System.currentTimeMillis() < deadline) {
+                reported.wait(100);
+            }
+            assertThat(reported).isNotEmpty();
+            assertThat(reported.get(0)).containsEntry("load.records", 5L);
+        }
+    }
+
+    @Test
+    public void startReportingKeepsReportingAfterAReportFails() throws Exception {
+        List<SortedMap<String, Long>> reported = new ArrayList<>();
+
+        metricsRegistry.startReporting((counters, latencies) -> {
+            synchronized (reported) {
+                reported.add(counters);
+                reported.notifyAll();
+                if (reported.size() == 1) {
+                    throw new IllegalStateException("Reporter is unavailable");
+                }
+            }
+        }, Duration.ofMillis(10));
+
+        synchronized (reported) {
+            long deadline = System.currentTimeMillis() + 5_000;
+            while (reported.size() < 2 && System.currentTimeMillis() < deadline) {
+                reported.wait(100);
+            }
+            assertThat(reported.size()).isGreaterThanOrEqualTo(2);
+        }
+    }
+
+    @Test
+    public void startReportingThrowsExceptionWhenReportIntervalIsNotPositive() {
+
+        Throwable caughtException = catchThrowable(() ->
+                metricsRegistry.startReporting((counters, latencies) -> {}, Duration.ZERO));
+
+        assertThat(caughtException).isExactlyInstanceOf(IllegalArgumentException.class);
+        assertThat(caughtException).hasMessage("reportInterval must be positive");
+    }
+
+    @Test
+    public void registeredMetricsCanBeReadThroughJmx() throws Exception {
+        metricsRegistry.increment("load.records", 5);
+        metricsRegistry.recordLatency("load.total", 1_000);
+
+        metricsRegistry.registerMBean(OBJECT_NAME);
+
+        ObjectName objectName = new ObjectName(OBJECT_NAME);
+        TabularData counters = (TabularData) ManagementFactory.getPlatformMBeanServer()
+                .getAttribute(objectName, "Counters");
+        TabularData latencies = (TabularData) ManagementFactory.getPlatformMBeanServer()
+                .getAttribute(objectName, "Latencies");
+        CompositeData totalLoadTime = (CompositeData) latencies.get(new Object[]{"load.total"}).get("value");
+
+        assertThat(counters.get(new Object[]{"load.records"}).get("value")).isEqualTo(5L);
+        assertThat(totalLoadTime.get("count")).isEqualTo(1L);
+    }
+
+    @Test
+    public void closeUnregistersTheMBean() throws Exception {
+        metricsRegistry.registerMBean(OBJECT_NAME);
+
+        metricsRegistry.close();
+
+        assertThat(ManagementFactory.getPlatformMBeanServer().isRegistered(new ObjectName(OBJECT_NAME))).isFalse();
+    }
+
+    @Test
+    public void registerMBeanThrowsExceptionWhenMetricsHaveAlreadyBeenRegistered() {
+        metricsRegistry.registerMBean(OBJECT_NAME);
+
+        Throwable caughtException = catchThrowable(() -> metricsRegistry.registerMBean(OBJECT_NAME));
+
+        assertThat(caughtException).isExactlyInstanceOf(IllegalStateException.class);
+        assertThat(caughtException).hasMessage("Metrics have already been registered");
+    }
+}
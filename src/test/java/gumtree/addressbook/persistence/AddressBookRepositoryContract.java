@@ -0,0 +1,587 @@
+package gumtree.addressbook.persistence;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.SortedMap;
+import java.util.stream.Collectors;
+
+import gumtree.addressbook.domain.Contact;
+import gumtree.addressbook.domain.Gender;
+import org.junit.Test;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+public abstract class AddressBookRepositoryContract {
+
+    protected Contact paul = new Contact("Paul Robinson", Gender.MALE, LocalDate.of(1985, 1, 15));
+    protected Contact gemma = new Contact("Gemma Lane", Gender.FEMALE, LocalDate.of(1991, 11, 20));
+    protected Contact wes = new Contact("Wes Jackson", Gender.MALE, LocalDate.of(1974, 8, 14));
+    protected Contact sarah = new Contact("Sarah Stone", Gender.FEMALE, LocalDate.of(1980, 9, 20));
+
+    @Test
+    public void countFemalesReturnsZeroWhenRepositoryReturnsEmptyList() {
+        AddressBookRepository addressBookRepository = newRepository(emptyList());
+
+        int actualCount = addressBookRepository.countByGender(Gender.FEMALE);
+
+        assertThat(actualCount).isZero();
+    }
+
+    @Test
+    public void countMalesReturnsZeroWhenRepositoryReturnsEmptyList() {
+        AddressBookRepository addressBookRepository = newRepository(emptyList());
+
+        int actualCount = addressBookRepository.countByGender(Gender.MALE);
+
+        assertThat(actualCount).isZero();
+    }
+
+    @Test
+    public void countFemalesReturnsOneWhenRepositoryReturnsListWithOneFemale() {
+        AddressBookRepository addressBookRepository = newRepository(singletonList(gemma));
+
+        int actualCount = addressBookRepository.countByGender(Gender.FEMALE);
+
+        assertThat(actualCount).isEqualTo(1);
+    }
+
+    @Test
+    public void countMalesReturnsOneWhenRepositoryReturnsListWithOneMale() {
+        AddressBookRepository addressBookRepository = newRepository(singletonList(paul));
+
+        int actualCount = addressBookRepository.countByGender(Gender.MALE);
+
+        assertThat(actualCount).isEqualTo(1);
+    }
+
+    @Test
+    public void countFemalesReturnsFemaleCountWhenRepositoryReturnsListWithMixedGenders() {
+        AddressBookRepository addressBookRepository = newRepository(asList(gemma, paul, sarah));
+
+        int actualCount = addressBookRepository.countByGender(Gender.FEMALE);
+
+        assertThat(actualCount).isEqualTo(2);
+    }
+
+    @Test
+    public void countMalesReturnsMaleCountWhenRepositoryReturnsListWithMixedGenders() {
+        AddressBookRepository addressBookRepository = newRepository(asList(paul, gemma, wes));
+
+        int actualCount = addressBookRepository.countByGender(Gender.MALE);
+
+        assertThat(actualCount).isEqualTo(2);
+    }
+
+    @Test
+    public void countByGenderThrowsExceptionWhenGenderIsNull() {
+        AddressBookRepository addressBookRepository = newRepository(emptyList());
+
+        Throwable caughtException = catchThrowable(() -> addressBookRepository.countByGender(null));
+
+        assertThat(caughtException).isExactlyInstanceOf(NullPointerException.class);
+        assertThat(caughtException.getMessage()).isEqualTo("gender cannot be null");
+    }
+
+    @Test
+    public void findByNameReturnsEmptyWhenAddressBookIsEmpty() {
+        AddressBookRepository addressBook = newRepository(emptyList());
+
+        Optional<Contact> actualContact = addressBook.findByFullName("any name");
+
+        assertThat(actualContact).isEmpty();
+    }
+
+    @Test
+    public void findByNameReturnsContactWhenOneContactWithSameNameIsFound() {
+        AddressBookRepository addressBook = newRepository(asList(paul, gemma, wes));
+
+        Optional<Contact> actualContact = addressBook.findByFullName("Gemma Lane");
+
+        assertThat(actualContact).contains(gemma);
+    }
+
+    @Test
+    public void findByNameThrowsExceptionWhenFullNameIsNull() {
+        AddressBookRepository addressBook = newRepository(asList(paul, gemma, wes));
+
+        Throwable caughtException = catchThrowable(() -> addressBook.findByFullName(null));
+
+        assertThat(caughtException).isExactlyInstanceOf(NullPointerException.class);
+        assertThat(caughtException).hasMessage("fullName cannot be null");
+    }
+
+    @Test
+    public void findByNameReturnsFirstContactWhenMoreThanOneContactHasTheSameName() {
+        Contact anotherGemma = new Contact("Gemma Lane", Gender.FEMALE, LocalDate.of(1970, 1, 1));
+        AddressBookRepository addressBook = newRepository(asList(paul, gemma, anotherGemma, wes));
+
+        Optional<Contact> actualContact = addressBook.findByFullName("Gemma Lane");
+
+        assertThat(actualContact).contains(gemma);
+    }
+
+    @Test
+    public void findAllByFullNameReturnsEveryContactWithTheFullNameInLoadOrder() {
+        Contact anotherGemma = new Contact("Gemma Lane", Gender.FEMALE, LocalDate.of(1970, 1, 1));
+        Contact thirdGemma = new Contact("Gemma Lane", Gender.FEMALE, LocalDate.of(1999, 9, 9));
+        AddressBookRepository addressBook = newRepository(asList(paul, gemma, wes, anotherGemma, sarah, thirdGemma));
+
+        List<Contact> actualContacts = addressBook.findAllByFullName("Gemma Lane");
+
+        assertThat(actualContacts).containsExactly(gemma, anotherGemma, thirdGemma);
+    }
+
+    @Test
+    public void findAllByFullNameReturnsTheOnlyContactWithAUniqueFullName() {
+        AddressBookRepository addressBook = newRepository(asList(paul, gemma, wes));
+
+        List<Contact> actualContacts = addressBook.findAllByFullName("Wes Jackson");
+
+        assertThat(actualContacts).containsExactly(wes);
+    }
+
+    @Test
+    public void findAllByFullNameReturnsEmptyWhenNoContactHasTheFullName() {
+        AddressBookRepository addressBook = newRepository(asList(paul, gemma, wes));
+
+        List<Contact> actualContacts = addressBook.findAllByFullName("Sarah Stone");
+
+        assertThat(actualContacts).isEmpty();
+    }
+
+    @Test
+    public void findAllByFullNameThrowsExceptionWhenFullNameIsNull() {
+        AddressBookRepository addressBook = newRepository(asList(paul, gemma, wes));
+
+        Throwable caughtException = catchThrowable(() -> addressBook.findAllByFullName(null));
+
+        assertThat(caughtException).isExactlyInstanceOf(NullPointerException.class);
+        assertThat(caughtException).hasMessage("fullName cannot be null");
+    }
+
+    @Test
+    public void aggregateByGenderCountsAndFindsTheDateOfBirthRangeOfEachGender() {
+        AddressBookRepository addressBook = newRepository(asList(paul, gemma, wes, sarah));
+
+        SortedMap<Gender, ContactStatistics> actualStatistics = addressBook.aggregate(ContactGrouping.GENDER);
+
+        assertThat(actualStatistics.keySet()).containsExactly(Gender.FEMALE, Gender.MALE);
+        assertThat(actualStatistics.get(Gender.MALE).getCount()).isEqualTo(2);
+        assertThat(actualStatistics.get(Gender.MALE).getEarliestDateOfBirth()).isEqualTo(wes.getDateOfBirth());
+        assertThat(actualStatistics.get(Gender.MALE).getLatestDateOfBirth()).isEqualTo(paul.getDateOfBirth());
+        assertThat(actualStatistics.get(Gender.FEMALE).getCount(Gender.FEMALE)).isEqualTo(2);
+        assertThat(actualStatistics.get(Gender.FEMALE).getCount(Gender.MALE)).isZero();
+    }
+
+    @Test
+    public void aggregateByBirthDecadeSplitsEachDecadeByGender() {
+        Contact tom = new Contact("Tom Ford", Gender.MALE, LocalDate.of(1989, 12, 31));
+        AddressBookRepository addressBook = newRepository(asList(paul, gemma, wes, sarah, tom));
+
+        SortedMap<Integer, ContactStatistics> actualStatistics = addressBook.aggregate(ContactGrouping.BIRTH_DECADE);
+
+        assertThat(actualStatistics.keySet()).containsExactly(1970, 1980, 1990);
+        assertThat(actualStatistics.get(1980).getCount()).isEqualTo(3);
+        assertThat(actualStatistics.get(1980).getCount(Gender.MALE)).isEqualTo(2);
+        assertThat(actualStatistics.get(1980).getEarliestDateOfBirth()).isEqualTo(sarah.getDateOfBirth());
+        assertThat(actualStatistics.get(1980).getLatestDateOfBirth()).isEqualTo(tom.getDateOfBirth());
+    }
+
+    @Test
+    public void aggregateByAgeBandsGroupsByAgeOnTheGivenDate() {
+        AddressBookRepository addressBook = newRepository(asList(paul, gemma, wes, sarah));
+
+        SortedMap<Integer, ContactStatistics> actualStatistics =
+                addressBook.aggregate(ContactGrouping.ageBands(LocalDate.of(2020, 1, 1), 10));
+
+        assertThat(actualStatistics.keySet()).containsExactly(20, 30, 40);
+        assertThat(actualStatistics.get(30).getCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void aggregateReturnsNoGroupsWhenAddressBookIsEmpty() {
+        AddressBookRepository addressBook = newRepository(emptyList());
+
+        assertThat(addressBook.aggregate(ContactGrouping.BIRTH_YEAR)).isEmpty();
+    }
+
+    @Test
+    public void aggregateThrowsExceptionWhenGroupingIsNull() {
+        AddressBookRepository addressBook = newRepository(asList(paul, gemma, wes));
+
+        Throwable caughtException = catchThrowable(() -> addressBook.aggregate(null));
+
+        assertThat(caughtException).isExactlyInstanceOf(NullPointerException.class);
+        assertThat(caughtException).hasMessage("grouping cannot be null");
+    }
+
+    @Test
+    public void findAllReturnsEveryContactInLoadOrder() {
+        AddressBookRepository addressBook = newRepository(asList(paul, gemma, wes, sarah));
+
+        List<Contact> actualContacts = addressBook.findAll().collect(Collectors.toList());
+
+        assertThat(actualContacts).containsExactly(paul, gemma, wes, sarah);
+    }
+
+    @Test
+    public void findByFullNamePrefixReturnsMatchesOrderedByFullNameThenLoadOrder() {
+        Contact anotherGemma = new Contact("Gemma Lane", Gender.FEMALE, LocalDate.of(1970, 1, 1));
+        Contact gemmaAdams = new Contact("Gemma Adams", Gender.FEMALE, LocalDate.of(1990, 1, 1));
+        AddressBookRepository addressBook = newRepository(asList(gemma, paul, anotherGemma, gemmaAdams, wes));
+
+        List<Contact> actualContacts = addressBook.findByFullNamePrefix("Gem", 0, 10);
+
+        assertThat(actualContacts).containsExactly(gemmaAdams, gemma, anotherGemma);
+    }
+
+    @Test
+    public void findByFullNamePrefixReturnsTheRequestedPage() {
+        Contact gemmaAdams = new Contact("Gemma Adams", Gender.FEMALE, LocalDate.of(1990, 1, 1));
+        Contact gemmaStone = new Contact("Gemma Stone", Gender.FEMALE, LocalDate.of(1992, 1, 1));
+        AddressBookRepository addressBook = newRepository(asList(gemmaStone, paul, gemma, gemmaAdams));
+
+        assertThat(addressBook.findByFullNamePrefix("Gemma", 1, 1)).containsExactly(gemma);
+        assertThat(addressBook.findByFullNamePrefix("Gemma", 2, 5)).containsExactly(gemmaStone);
+        assertThat(addressBook.findByFullNamePrefix("Gemma", 3, 5)).isEmpty();
+        assertThat(addressBook.findByFullNamePrefix("Gemma", 0, 0)).isEmpty();
+    }
+
+    @Test
+    public void findByFullNamePrefixReturnsEveryContactForAnEmptyPrefix() {
+        AddressBookRepository addressBook = newRepository(asList(paul, gemma, wes));
+
+        List<Contact> actualContacts = addressBook.findByFullNamePrefix("", 0, 10);
+
+        assertThat(actualContacts).containsExactly(gemma, paul, wes);
+    }
+
+    @Test
+    public void findByFullNamePrefixThrowsExceptionWhenPrefixIsNull() {
+        AddressBookRepository addressBook = newRepository(asList(paul, gemma, wes));
+
+        Throwable caughtException = catchThrowable(() -> addressBook.findByFullNamePrefix(null, 0, 10));
+
+        assertThat(caughtException).isExactlyInstanceOf(NullPointerException.class);
+        assertThat(caughtException).hasMessage("prefix cannot be null");
+    }
+
+    @Test
+    public void findByFullNamePrefixThrowsExceptionWhenOffsetIsNegative() {
+        AddressBookRepository addressBook = newRepository(asList(paul, gemma, wes));
+
+        Throwable caughtException = catchThrowable(() -> addressBook.findByFullNamePrefix("G", -1, 10));
+
+        assertThat(caughtException).isExactlyInstanceOf(IllegalArgumentException.class);
+        assertThat(caughtException).hasMessage("offset cannot be negative");
+    }
+
+    @Test
+    public void findByFullNameSimilarToReturnsClosestMatchesFirst() {
+        Contact gemmaLate = new Contact("Gemma Late", Gender.FEMALE, LocalDate.of(1990, 1, 1));
+        Contact gemmaLan = new Contact("Gemma Lan", Gender.FEMALE, LocalDate.of(1992, 1, 1));
+        Contact jemmaLanes = new Contact("Jemma Lanes", Gender.FEMALE, LocalDate.of(1993, 1, 1));
+        Contact emmaLane = new Contact("Emma Lane", Gender.FEMALE, LocalDate.of(1994, 1, 1));
+        AddressBookRepository addressBook = newRepository(asList(jemmaLanes, paul, gemmaLate, emmaLane, gemmaLan, gemma, wes));
+
+        List<Contact> actualContacts = addressBook.findByFullNameSimilarTo("Gemma Lane", 2, 10);
+
+        assertThat(actualContacts).containsExactly(gemma, gemmaLan, gemmaLate, emmaLane, jemmaLanes);
+    }
+
+    @Test
+    public void findByFullNameSimilarToFindsShortNamesWithManyTypos() {
+        Contact al = new Contact("Al", Gender.MALE, LocalDate.of(1990, 1, 1));
+        AddressBookRepository addressBook = newRepository(asList(paul, al, gemma));
+
+        List<Contact> actualContacts = addressBook.findByFullNameSimilarTo("Ed", 2, 10);
+
+        assertThat(actualContacts).containsExactly(al);
+    }
+
+    @Test
+    public void findByFullNameSimilarToReturnsOnlyExactMatchesWhenMaxDistanceIsZero() {
+        Contact anotherGemma = new Contact("Gemma Lane", Gender.FEMALE, LocalDate.of(1970, 1, 1));
+        AddressBookRepository addressBook = newRepository(asList(gemma, paul, anotherGemma));
+
+        List<Contact> actualContacts = addressBook.findByFullNameSimilarTo("Gemma Lane", 0, 10);
+
+        assertThat(actualContacts).containsExactly(gemma, anotherGemma);
+    }
+
+    @Test
+    public void findByFullNameSimilarToReturnsAtMostLimitContacts() {
+        Contact anotherGemma = new Contact("Gemma Lane", Gender.FEMALE, LocalDate.of(1970, 1, 1));
+        Contact gemmaLan = new Contact("Gemma Lan", Gender.FEMALE, LocalDate.of(1992, 1, 1));
+        AddressBookRepository addressBook = newRepository(asList(gemmaLan, gemma, anotherGemma));
+
+        List<Contact> actualContacts = addressBook.findByFullNameSimilarTo("Gemma Lane", 1, 1);
+
+        assertThat(actualContacts).containsExactly(gemma);
+    }
+
+    @Test
+    public void findByFullNameSimilarToThrowsExceptionWhenMaxDistanceIsNegative() {
+        AddressBookRepository addressBook = newRepository(asList(paul, gemma, wes));
+
+        Throwable caughtException = catchThrowable(() -> addressBook.findByFullNameSimilarTo("Gemma Lane", -1, 10));
+
+        assertThat(caughtException).isExactlyInstanceOf(IllegalArgumentException.class);
+        assertThat(caughtException).hasMessage("maxDistance cannot be negative");
+    }
+
+    @Test
+    public void findByFullNameSimilarToThrowsExceptionWhenLimitIsNegative() {
+        AddressBookRepository addressBook = newRepository(asList(paul, gemma, wes));
+
+        Throwable caughtException = catchThrowable(() -> addressBook.findByFullNameSimilarTo("Gemma Lane", 1, -1));
+
+        assertThat(caughtException).isExactlyInstanceOf(IllegalArgumentException.class);
+        assertThat(caughtException).hasMessage("limit cannot be negative");
+    }
+
+    @Test
+    public void findByFullNamesReturnsOneResultPerNameInRequestOrder() {
+        Contact anotherGemma = new Contact("Gemma Lane", Gender.FEMALE, LocalDate.of(1970, 1, 1));
+        AddressBookRepository addressBook = newRepository(asList(paul, gemma, anotherGemma, wes));
+
+        List<Optional<Contact>> actualContacts =
+                addressBook.findByFullNames(asList("Wes Jackson", "Unknown", "Gemma Lane", "Wes Jackson"));
+
+        assertThat(actualContacts).containsExactly(
+                Optional.of(wes), Optional.empty(), Optional.of(gemma), Optional.of(wes));
+    }
+
+    @Test
+    public void findByFullNamesReturnsEmptyListWhenNoNamesAreGiven() {
+        AddressBookRepository addressBook = newRepository(asList(paul, gemma, wes));
+
+        List<Optional<Contact>> actualContacts = addressBook.findByFullNames(emptyList());
+
+        assertThat(actualContacts).isEmpty();
+    }
+
+    @Test
+    public void findByFullNamesThrowsExceptionWhenFullNamesIsNull() {
+        AddressBookRepository addressBook = newRepository(asList(paul, gemma, wes));
+
+        Throwable caughtException = catchThrowable(() -> addressBook.findByFullNames(null));
+
+        assertThat(caughtException).isExactlyInstanceOf(NullPointerException.class);
+        assertThat(caughtException).hasMessage("fullNames cannot be null");
+    }
+
+    @Test
+    public void findByFullNamesThrowsExceptionWhenAnyFullNameIsNull() {
+        AddressBookRepository addressBook = newRepository(asList(paul, gemma, wes));
+
+        Throwable caughtException = catchThrowable(() -> addressBook.findByFullNames(asList("Gemma Lane", null)));
+
+        assertThat(caughtException).isExactlyInstanceOf(NullPointerException.class);
+        assertThat(caughtException).hasMessage("fullName cannot be null");
+    }
+
+    @Test
+    public void findEarliestDateOfBirthReturnsEmptyWhenAddressBookIsEmpty() {
+        AddressBookRepository addressBook = newRepository(emptyList());
+
+        Optional<LocalDate> actualDateOfBirth = addressBook.findEarliestDateOfBirth();
+
+        assertThat(actualDateOfBirth).isEmpty();
+    }
+
+    @Test
+    public void findEarliestDateOfBirthReturnsTheDateOfBirthOfTheOldestContact() {
+        AddressBookRepository addressBook = newRepository(asList(paul, gemma, wes));
+
+        Optional<LocalDate> actualDateOfBirth = addressBook.findEarliestDateOfBirth();
+
+        assertThat(actualDateOfBirth).contains(wes.getDateOfBirth());
+    }
+
+    @Test
+    public void findByDateOfBirthReturnsEmptyWhenAddressBookIsEmpty() {
+        AddressBookRepository addressBook = newRepository(emptyList());
+
+        List<Contact> actualContacts = addressBook.findByDateOfBirth(LocalDate.now());
+
+        assertThat(actualContacts).isEmpty();
+    }
+
+    @Test
+    public void findByDateOfBirthReturnsEmptyWhenNoContactInAddressBookMatchesGivenDate() {
+        AddressBookRepository addressBook = newRepository(asList(paul, gemma, wes));
+
+        List<Contact> actualContacts = addressBook.findByDateOfBirth(LocalDate.now());
+
+        assertThat(actualContacts).isEmpty();
+    }
+
+    @Test
+    public void findByDateOfBirthReturnsSingleContactThatMatchesTheGivenDate() {
+        AddressBookRepository addressBook = newRepository(asList(paul, gemma, wes));
+
+        List<Contact> actualContacts = addressBook.findByDateOfBirth(wes.getDateOfBirth());
+
+        assertThat(actualContacts).containsExactly(wes);
+    }
+
+    @Test
+    public void findByDateOfBirthReturnsAllContactThatMatchTheGivenDate() {
+        Contact anotherContactWithSameDateOfBirthAsGemma = new Contact("new contact", Gender.MALE, gemma.getDateOfBirth());
+        AddressBookRepository addressBook = newRepository(asList(paul, gemma, wes, anotherContactWithSameDateOfBirthAsGemma));
+
+        List<Contact> actualContacts = addressBook.findByDateOfBirth(gemma.getDateOfBirth());
+
+        assertThat(actualContacts).containsOnly(gemma, anotherContactWithSameDateOfBirthAsGemma);
+    }
+
+    @Test
+    public void findByDateOfBirthThrowsExceptionWhenDateOfBirthIsNull() {
+        AddressBookRepository addressBook = newRepository(asList(paul, gemma, wes));
+
+        Throwable caughtException = catchThrowable(() -> addressBook.findByDateOfBirth(null));
+
+        assertThat(caughtException).isExactlyInstanceOf(NullPointerException.class);
+        assertThat(caughtException).hasMessage("dateOfBirth cannot be null");
+    }
+
+    @Test
+    public void findLatestDateOfBirthReturnsEmptyWhenAddressBookIsEmpty() {
+        AddressBookRepository addressBook = newRepository(emptyList());
+
+        Optional<LocalDate> actualDateOfBirth = addressBook.findLatestDateOfBirth();
+
+        assertThat(actualDateOfBirth).isEmpty();
+    }
+
+    @Test
+    public void findLatestDateOfBirthReturnsTheDateOfBirthOfTheYoungestContact() {
+        AddressBookRepository addressBook = newRepository(asList(paul, gemma, wes));
+
+        Optional<LocalDate> actualDateOfBirth = addressBook.findLatestDateOfBirth();
+
+        assertThat(actualDateOfBirth).contains(gemma.getDateOfBirth());
+    }
+
+    @Test
+    public void findByDateOfBirthBetweenReturnsContactsBornWithinTheInclusiveRangeFromOldestToYoungest() {
+        AddressBookRepository addressBook = newRepository(asList(gemma, paul, wes, sarah));
+
+        List<Contact> actualContacts = addressBook.findByDateOfBirthBetween(sarah.getDateOfBirth(), gemma.getDateOfBirth());
+
+        assertThat(actualContacts).containsExactly(sarah, paul, gemma);
+    }
+
+    @Test
+    public void findByDateOfBirthBetweenReturnsEmptyWhenNoContactIsBornWithinTheRange() {
+        AddressBookRepository addressBook = newRepository(asList(paul, gemma, wes));
+
+        List<Contact> actualContacts = addressBook.findByDateOfBirthBetween(LocalDate.of(2000, 1, 1), LocalDate.of(2010, 1, 1));
+
+        assertThat(actualContacts).isEmpty();
+    }
+
+    @Test
+    public void findByDateOfBirthBetweenThrowsExceptionWhenFromIsAfterTo() {
+        AddressBookRepository addressBook = newRepository(asList(paul, gemma, wes));
+
+        Throwable caughtException = catchThrowable(() -> addressBook.findByDateOfBirthBetween(LocalDate.of(2010, 1, 1), LocalDate.of(2000, 1, 1)));
+
+        assertThat(caughtException).isExactlyInstanceOf(IllegalArgumentException.class);
+        assertThat(caughtException).hasMessage("from cannot be after to");
+    }
+
+    @Test
+    public void findByDateOfBirthBetweenThrowsExceptionWhenFromIsNull() {
+        AddressBookRepository addressBook = newRepository(asList(paul, gemma, wes));
+
+        Throwable caughtException = catchThrowable(() -> addressBook.findByDateOfBirthBetween(null, LocalDate.now()));
+
+        assertThat(caughtException).isExactlyInstanceOf(NullPointerException.class);
+        assertThat(caughtException).hasMessage("from cannot be null");
+    }
+
+    @Test
+    public void streamByDateOfBirthBetweenReturnsTheSameContactsAsFindByDateOfBirthBetween() {
+        Contact anotherGemma = new Contact("Gemma Stone", Gender.FEMALE, paul.getDateOfBirth());
+        AddressBookRepository addressBook = newRepository(asList(gemma, paul, wes, anotherGemma, sarah));
+
+        List<Contact> actualContacts = addressBook.streamByDateOfBirthBetween(sarah.getDateOfBirth(), gemma.getDateOfBirth())
+                .collect(Collectors.toList());
+
+        assertThat(actualContacts).isEqualTo(addressBook.findByDateOfBirthBetween(sarah.getDateOfBirth(), gemma.getDateOfBirth()));
+        assertThat(actualContacts).hasSize(4);
+    }
+
+    @Test
+    public void streamByDateOfBirthReturnsContactsBornOnTheDate() {
+        AddressBookRepository addressBook = newRepository(asList(gemma, paul, wes, sarah));
+
+        assertThat(addressBook.streamByDateOfBirth(paul.getDateOfBirth())).containsExactly(paul);
+        assertThat(addressBook.streamByDateOfBirth(LocalDate.of(2000, 1, 1))).isEmpty();
+    }
+
+    @Test
+    public void streamByDateOfBirthBetweenThrowsExceptionBeforeTheStreamIsConsumedWhenFromIsAfterTo() {
+        AddressBookRepository addressBook = newRepository(asList(paul, gemma, wes));
+
+        Throwable caughtException = catchThrowable(() -> addressBook.streamByDateOfBirthBetween(LocalDate.of(2010, 1, 1), LocalDate.of(2000, 1, 1)));
+
+        assertThat(caughtException).isExactlyInstanceOf(IllegalArgumentException.class);
+        assertThat(caughtException).hasMessage("from cannot be after to");
+    }
+
+    @Test
+    public void findOldestReturnsTheGivenNumberOfContactsFromOldestToYoungest() {
+        AddressBookRepository addressBook = newRepository(asList(gemma, paul, wes, sarah));
+
+        List<Contact> actualContacts = addressBook.findOldest(3);
+
+        assertThat(actualContacts).containsExactly(wes, sarah, paul);
+    }
+
+    @Test
+    public void findOldestReturnsAllContactsWhenLimitIsGreaterThanTheNumberOfContacts() {
+        AddressBookRepository addressBook = newRepository(asList(gemma, paul));
+
+        List<Contact> actualContacts = addressBook.findOldest(5);
+
+        assertThat(actualContacts).containsExactly(paul, gemma);
+    }
+
+    @Test
+    public void findOldestThrowsExceptionWhenLimitIsNegative() {
+        AddressBookRepository addressBook = newRepository(asList(gemma, paul));
+
+        Throwable caughtException = catchThrowable(() -> addressBook.findOldest(-1));
+
+        assertThat(caughtException).isExactlyInstanceOf(IllegalArgumentException.class);
+        assertThat(caughtException).hasMessage("limit cannot be negative");
+    }
+
+    @Test
+    public void findYoungestReturnsTheGivenNumberOfContactsFromYoungestToOldest() {
+        AddressBookRepository addressBook = newRepository(asList(gemma, paul, wes, sarah));
+
+        List<Contact> actualContacts = addressBook.findYoungest(2);
+
+        assertThat(actualContacts).containsExactly(gemma, paul);
+    }
+
+    @Test
+    public void findYoungestReturnsEmptyWhenLimitIsZero() {
+        AddressBookRepository addressBook = newRepository(asList(gemma, paul, wes, sarah));
+
+        List<Contact> actualContacts = addressBook.findYoungest(0);
+
+        assertThat(actualContacts).isEmpty();
+    }
+
+    protected abstract AddressBookRepository newRepository(List<Contact> contacts);
+}
\ No newline at end of file
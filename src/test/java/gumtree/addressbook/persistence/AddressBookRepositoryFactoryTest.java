@@ -1,5 +1,14 @@
 package gumtree.addressbook.persistence;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+import gumtree.addressbook.domain.Contact;
+import gumtree.addressbook.domain.Gender;
 import org.junit.Test;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -24,4 +33,217 @@ public class AddressBookRepositoryFactoryTest {
         assertThat(caughtException).isExactlyInstanceOf(NullPointerException.class);
         assertThat(caughtException.getMessage()).isEqualTo("csvFilePathInJar cannot be null");
     }
-}
\ No newline at end of file
+
+    @Test
+    public void newCsvFileInstanceThrowsExceptionWhenAddressBookPathDoesNotExist() {
+
+        Throwable caughtException = catchThrowable(() -> AddressBookRepositoryFactory.newCsvFileInstance(Paths.get("does not exist")));
+
+        assertThat(caughtException).isExactlyInstanceOf(IllegalArgumentException.class);
+        assertThat(caughtException.getMessage()).isEqualTo("Address book file does not exist");
+    }
+
+    @Test
+    public void newCsvFileInstanceThrowsExceptionWhenAddressBookPathIsNull() {
+
+        Throwable caughtException = catchThrowable(() -> AddressBookRepositoryFactory.newCsvFileInstance(null));
+
+        assertThat(caughtException).isExactlyInstanceOf(NullPointerException.class);
+        assertThat(caughtException.getMessage()).isEqualTo("csvFilePath cannot be null");
+    }
+
+    @Test
+    public void newCsvFileInstanceLoadsTheAddressBookWithTheGivenStorageLayout() throws Exception {
+        Path csvFilePath = Paths.get(getClass().getClassLoader().getResource("AddressBookWithMultipleContacts").toURI());
+
+        for (StorageLayout storageLayout : StorageLayout.values()) {
+            AddressBookRepository addressBookRepository = AddressBookRepositoryFactory.newCsvFileInstance(csvFilePath, storageLayout);
+
+            assertThat(addressBookRepository.countByGender(Gender.MALE)).as(storageLayout.name()).isEqualTo(2);
+            assertThat(addressBookRepository.findEarliestDateOfBirth()).as(storageLayout.name()).contains(LocalDate.of(1974, 8, 14));
+        }
+    }
+
+    @Test
+    public void newCsvFileInstanceReadsTwoDigitYearsFromTheGivenStart() throws Exception {
+        Path csvFilePath = Paths.get(getClass().getClassLoader().getResource("AddressBookWithMultipleContacts").toURI());
+
+        AddressBookRepository addressBookRepository =
+                AddressBookRepositoryFactory.newCsvFileInstance(csvFilePath, StorageLayout.INDEXED, 1980);
+        AddressBookRepository parallelAddressBookRepository =
+                AddressBookRepositoryFactory.newParallelCsvInstance(csvFilePath, ForkJoinPool.commonPool(), 1980);
+
+        assertThat(addressBookRepository.findLatestDateOfBirth()).contains(LocalDate.of(2074, 8, 14));
+        assertThat(parallelAddressBookRepository.findLatestDateOfBirth()).contains(LocalDate.of(2074, 8, 14));
+    }
+
+    @Test
+    public void newMutableCsvFileInstanceLoadsTheAddressBookAndAcceptsChanges() throws Exception {
+        Path csvFilePath = Paths.get(getClass().getClassLoader().getResource("AddressBookWithMultipleContacts").toURI());
+
+        MutableAddressBookRepository addressBookRepository = AddressBookRepositoryFactory.newMutableCsvFileInstance(csvFilePath);
+        addressBookRepository.add(new Contact("Tom Ford", Gender.MALE, LocalDate.of(1970, 1, 1)));
+
+        assertThat(addressBookRepository.countByGender(Gender.MALE)).isEqualTo(3);
+        assertThat(addressBookRepository.findEarliestDateOfBirth()).contains(LocalDate.of(1970, 1, 1));
+    }
+
+    @Test
+    public void newMutableCsvFileInstanceThrowsExceptionWhenAddressBookPathDoesNotExist() {
+
+        Throwable caughtException = catchThrowable(() -> AddressBookRepositoryFactory.newMutableCsvFileInstance(Paths.get("does not exist")));
+
+        assertThat(caughtException).isExactlyInstanceOf(IllegalArgumentException.class);
+        assertThat(caughtException.getMessage()).isEqualTo("Address book file does not exist");
+    }
+
+    @Test
+    public void newReloadingCsvFileInstanceThrowsExceptionWhenAddressBookPathDoesNotExist() {
+
+        Throwable caughtException = catchThrowable(() -> AddressBookRepositoryFactory.newReloadingCsvFileInstance(Paths.get("does not exist")));
+
+        assertThat(caughtException).isExactlyInstanceOf(IllegalArgumentException.class);
+        assertThat(caughtException.getMessage()).isEqualTo("Address book file does not exist");
+    }
+
+    @Test
+    public void newSnapshotBackedInstanceWritesSnapshotWhenThereIsNoneAndReadsItOnTheNextStart() throws Exception {
+        Path directory = Files.createTempDirectory("AddressBook");
+        Path csvFilePath = directory.resolve("AddressBook.csv");
+        Path snapshotPath = directory.resolve("AddressBook.snapshot");
+        try {
+            Files.write(csvFilePath, "Bill McKnight, Male, 16/03/77\nSarah Stone, Female, 20/09/80\n".getBytes());
+
+            AddressBookRepository loadedFromCsv = AddressBookRepositoryFactory.newSnapshotBackedInstance(csvFilePath, snapshotPath);
+            long snapshotLastModified = Files.getLastModifiedTime(snapshotPath).toMillis();
+            AddressBookRepository restoredFromSnapshot = AddressBookRepositoryFactory.newSnapshotBackedInstance(csvFilePath, snapshotPath);
+
+            assertThat(loadedFromCsv.countByGender(Gender.FEMALE)).isEqualTo(1);
+            assertThat(restoredFromSnapshot.countByGender(Gender.FEMALE)).isEqualTo(1);
+            assertThat(restoredFromSnapshot.findByFullName("Bill McKnight")).isEqualTo(loadedFromCsv.findByFullName("Bill McKnight"));
+            assertThat(Files.getLastModifiedTime(snapshotPath).toMillis()).isEqualTo(snapshotLastModified);
+        } finally {
+            Files.deleteIfExists(csvFilePath);
+            Files.deleteIfExists(snapshotPath);
+            Files.delete(directory);
+        }
+    }
+
+    @Test
+    public void newSnapshotBackedInstanceLoadsTheCsvFileWhenSnapshotIsStale() throws Exception {
+        Path directory = Files.createTempDirectory("AddressBook");
+        Path csvFilePath = directory.resolve("AddressBook.csv");
+        Path snapshotPath = directory.resolve("AddressBook.snapshot");
+        try {
+            Files.write(csvFilePath, "Bill McKnight, Male, 16/03/77\n".getBytes());
+            AddressBookRepositoryFactory.newSnapshotBackedInstance(csvFilePath, snapshotPath);
+
+            Files.write(csvFilePath, "Bill McKnight, Male, 16/03/77\nSarah Stone, Female, 20/09/80\n".getBytes());
+            AddressBookRepository addressBookRepository = AddressBookRepositoryFactory.newSnapshotBackedInstance(csvFilePath, snapshotPath);
+
+            assertThat(addressBookRepository.countByGender(Gender.FEMALE)).isEqualTo(1);
+            assertThat(AddressBookRepositoryFactory.newSnapshotBackedInstance(csvFilePath, snapshotPath).countByGender(Gender.FEMALE)).isEqualTo(1);
+        } finally {
+            Files.deleteIfExists(csvFilePath);
+            Files.deleteIfExists(snapshotPath);
+            Files.delete(directory);
+        }
+    }
+
+    @Test
+    public void newSnapshotBackedInstanceLoadsTheCsvFileAndRewritesTheSnapshotWhenItIsCorrupt() throws Exception {
+        Path directory = Files.createTempDirectory("AddressBook");
+        Path csvFilePath = directory.resolve("AddressBook.csv");
+        Path snapshotPath = directory.resolve("AddressBook.snapshot");
+        try {
+            Files.write(csvFilePath, "Bill McKnight, Male, 16/03/77\nSarah Stone, Female, 20/09/80\n".getBytes());
+            AddressBookRepositoryFactory.newSnapshotBackedInstance(csvFilePath, snapshotPath);
+            byte[] snapshot = Files.readAllBytes(snapshotPath);
+            Files.write(snapshotPath, Arrays.copyOf(snapshot, snapshot.length - 8));
+
+            AddressBookRepository addressBookRepository = AddressBookRepositoryFactory.newSnapshotBackedInstance(csvFilePath, snapshotPath);
+
+            assertThat(addressBookRepository.countByGender(Gender.FEMALE)).isEqualTo(1);
+            assertThat(new AddressBookSnapshotReader(snapshotPath).read().countByGender(Gender.FEMALE)).isEqualTo(1);
+        } finally {
+            Files.deleteIfExists(csvFilePath);
+            Files.deleteIfExists(snapshotPath);
+            Files.delete(directory);
+        }
+    }
+
+    @Test
+    public void newSnapshotBackedInstanceReturnsTheCsvFileWhenTheSnapshotCannotBeWritten() throws Exception {
+        Path csvFilePath = Paths.get(getClass().getClassLoader().getResource("AddressBookWithMultipleContacts").toURI());
+        Path snapshotPath = Files.createTempDirectory("AddressBook").resolve("does not exist").resolve("AddressBook.snapshot");
+
+        AddressBookRepository addressBookRepository = AddressBookRepositoryFactory.newSnapshotBackedInstance(csvFilePath, snapshotPath);
+
+        assertThat(addressBookRepository.countByGender(Gender.FEMALE)).isEqualTo(1);
+        assertThat(snapshotPath).doesNotExist();
+        Files.delete(snapshotPath.getParent().getParent());
+    }
+
+    @Test
+    public void newParallelCsvInstanceThrowsExceptionWhenAddressBookPathDoesNotExist() {
+
+        Throwable caughtException = catchThrowable(() -> AddressBookRepositoryFactory.newParallelCsvInstance(Paths.get("does not exist")));
+
+        assertThat(caughtException).isExactlyInstanceOf(IllegalArgumentException.class);
+        assertThat(caughtException.getMessage()).isEqualTo("Address book file does not exist");
+    }
+
+    @Test
+    public void newParallelCsvInstanceThrowsExceptionWhenAddressBookPathIsNull() {
+
+        Throwable caughtException = catchThrowable(() -> AddressBookRepositoryFactory.newParallelCsvInstance(null));
+
+        assertThat(caughtException).isExactlyInstanceOf(NullPointerException.class);
+        assertThat(caughtException.getMessage()).isEqualTo("csvFilePath cannot be null");
+    }
+
+    @Test
+    public void newScanningCsvFileInstanceThrowsExceptionWhenAddressBookPathDoesNotExist() {
+
+        Throwable caughtException = catchThrowable(() -> AddressBookRepositoryFactory.newScanningCsvFileInstance(
+                Paths.get("does not exist"), ForkJoinPool.commonPool(), 1));
+
+        assertThat(caughtException).isExactlyInstanceOf(IllegalArgumentException.class);
+        assertThat(caughtException.getMessage()).isEqualTo("Address book file does not exist");
+    }
+
+    @Test
+    public void newShardedCsvFileInstanceThrowsExceptionWhenAddressBookPathDoesNotExist() {
+
+        Throwable caughtException = catchThrowable(() -> AddressBookRepositoryFactory.newShardedCsvFileInstance(
+                Paths.get("does not exist"), 4, StorageLayout.INDEXED, ForkJoinPool.commonPool()));
+
+        assertThat(caughtException).isExactlyInstanceOf(IllegalArgumentException.class);
+        assertThat(caughtException.getMessage()).isEqualTo("Address book file does not exist");
+    }
+
+    @Test
+    public void newLenientCsvFileInstanceThrowsExceptionWhenMaximumNumberOfInvalidRecordsIsNegative() {
+
+        Throwable caughtException = catchThrowable(() -> AddressBookRepositoryFactory.newLenientCsvFileInstance(
+                Paths.get("does not exist"), StorageLayout.INDEXED, -1));
+
+        assertThat(caughtException).isExactlyInstanceOf(IllegalArgumentException.class);
+        assertThat(caughtException.getMessage()).isEqualTo("maximumNumberOfInvalidRecords cannot be negative");
+    }
+
+    @Test
+    public void newLenientCsvFileInstanceReturnsTheValidContactsAndTheInvalidRecords() throws Exception {
+        Path csvFilePath = Paths.get(getClass().getClassLoader()
+                .getResource("AddressBookWithOneRecordWithInvalidDateOfBirth").toURI());
+
+        LenientLoadResult loadResult =
+                AddressBookRepositoryFactory.newLenientCsvFileInstance(csvFilePath, StorageLayout.COLUMNAR, 10);
+
+        assertThat(loadResult.getRepository().findByFullName("Gemma Lane")).isPresent();
+        assertThat(loadResult.getRepository().findByFullName("Wes Jackson")).isEmpty();
+        assertThat(loadResult.getInvalidRecords()).containsExactly(new InvalidRecord(3,
+                InvalidRecord.Column.DATE_OF_BIRTH, "Date of birth must have the format \"dd/MM/yy\". value=\"invalid dob\""));
+        assertThat(loadResult.getNumberOfInvalidRecords()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,114 @@
+package gumtree.addressbook.persistence;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+
+import gumtree.addressbook.domain.Contact;
+import gumtree.addressbook.domain.Gender;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static java.util.Arrays.asList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+public class AddressBookSnapshotReaderTest extends AddressBookRepositoryContract {
+
+    private Path snapshotPath;
+
+    @Before
+    public void createSnapshotPath() throws IOException {
+        snapshotPath = Files.createTempFile("AddressBook", ".snapshot");
+    }
+
+    @After
+    public void deleteSnapshot() throws IOException {
+        Files.deleteIfExists(snapshotPath);
+    }
+
+    @Test
+    public void isUpToDateReturnsTrueWhenSnapshotWasBuiltFromTheGivenCsvFile() {
+        new AddressBookSnapshotWriter(snapshotPath).write(new OffHeapAddressBookRepository(asList(paul, gemma)), 60, 1234);
+
+        assertThat(new AddressBookSnapshotReader(snapshotPath).isUpToDate(60, 1234)).isTrue();
+    }
+
+    @Test
+    public void isUpToDateReturnsFalseWhenCsvFileHasChanged() {
+        new AddressBookSnapshotWriter(snapshotPath).write(new OffHeapAddressBookRepository(asList(paul, gemma)), 60, 1234);
+
+        AddressBookSnapshotReader snapshotReader = new AddressBookSnapshotReader(snapshotPath);
+
+        assertThat(snapshotReader.isUpToDate(61, 1234)).isFalse();
+        assertThat(snapshotReader.isUpToDate(60, 1235)).isFalse();
+    }
+
+    @Test
+    public void isUpToDateReturnsFalseWhenSnapshotDoesNotExist() throws IOException {
+        Files.delete(snapshotPath);
+
+        assertThat(new AddressBookSnapshotReader(snapshotPath).isUpToDate(60, 1234)).isFalse();
+    }
+
+    @Test
+    public void isUpToDateReturnsFalseWhenFileIsNotASnapshot() throws IOException {
+        Files.write(snapshotPath, "Bill McKnight, Male, 16/03/77".getBytes());
+
+        assertThat(new AddressBookSnapshotReader(snapshotPath).isUpToDate(60, 1234)).isFalse();
+    }
+
+    @Test
+    public void readThrowsExceptionWhenFileIsNotASnapshot() throws IOException {
+        Files.write(snapshotPath, "Bill McKnight, Male, 16/03/77".getBytes());
+
+        Throwable caughtException = catchThrowable(() -> new AddressBookSnapshotReader(snapshotPath).read());
+
+        assertThat(caughtException).isExactlyInstanceOf(PersistenceException.class);
+        assertThat(caughtException.getCause()).hasMessage(snapshotPath + " is not a valid address book snapshot");
+    }
+
+    @Test
+    public void readThrowsExceptionWhenSnapshotIsTruncated() throws IOException {
+        new AddressBookSnapshotWriter(snapshotPath).write(new OffHeapAddressBookRepository(asList(paul, gemma, wes)), 60, 1234);
+        byte[] snapshot = Files.readAllBytes(snapshotPath);
+        Files.write(snapshotPath, Arrays.copyOf(snapshot, snapshot.length - 16));
+
+        Throwable caughtException = catchThrowable(() -> new AddressBookSnapshotReader(snapshotPath).read());
+
+        assertThat(caughtException).isExactlyInstanceOf(PersistenceException.class);
+    }
+
+    @Test
+    public void readThrowsExceptionWhenSnapshotBodyIsCorrupt() throws IOException {
+        new AddressBookSnapshotWriter(snapshotPath).write(new OffHeapAddressBookRepository(asList(paul, gemma, wes)), 60, 1234);
+        byte[] snapshot = Files.readAllBytes(snapshotPath);
+        snapshot[AddressBookSnapshotFormat.HEADER_SIZE] ^= 1;
+        Files.write(snapshotPath, snapshot);
+
+        Throwable caughtException = catchThrowable(() -> new AddressBookSnapshotReader(snapshotPath).read());
+
+        assertThat(caughtException).isExactlyInstanceOf(PersistenceException.class);
+        assertThat(caughtException.getCause()).hasMessage(snapshotPath + " is not a valid address book snapshot");
+    }
+
+    @Test
+    public void readReturnsRepositoryWithContactsWithNonAsciiFullNames() {
+        Contact zoe = new Contact("Zoë Åberg", Gender.FEMALE, LocalDate.of(2003, 2, 1));
+
+        AddressBookRepository addressBook = newRepository(asList(paul, zoe, wes));
+
+        assertThat(addressBook.findByFullName("Zoë Åberg")).contains(zoe);
+        assertThat(addressBook.findByDateOfBirth(zoe.getDateOfBirth())).containsExactly(zoe);
+    }
+
+    @Override
+    protected AddressBookRepository newRepository(List<Contact> contacts) {
+        new AddressBookSnapshotWriter(snapshotPath).write(new OffHeapAddressBookRepository(contacts), 0, 0);
+        return new AddressBookSnapshotReader(snapshotPath).read();
+    }
+}
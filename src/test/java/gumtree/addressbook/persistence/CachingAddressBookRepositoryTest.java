@@ -0,0 +1,150 @@
+package gumtree.addressbook.persistence;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.TreeMap;
+
+import gumtree.addressbook.domain.Contact;
+import gumtree.addressbook.domain.Gender;
+import org.junit.Test;
+
+import static java.util.Arrays.asList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class CachingAddressBookRepositoryTest extends AddressBookRepositoryContract {
+
+    private AddressBookRepository mockAddressBookRepository = mock(AddressBookRepository.class);
+
+    @Test
+    public void constructorThrowsExceptionWhenRepositoryIsNull() {
+
+        Throwable caughtException = catchThrowable(() -> new CachingAddressBookRepository(null, 10));
+
+        assertThat(caughtException).isExactlyInstanceOf(NullPointerException.class);
+        assertThat(caughtException).hasMessage("addressBookRepository cannot be null");
+    }
+
+    @Test
+    public void constructorThrowsExceptionWhenMaximumSizeIsNotPositive() {
+
+        Throwable caughtException = catchThrowable(() -> new CachingAddressBookRepository(mockAddressBookRepository, 0));
+
+        assertThat(caughtException).isExactlyInstanceOf(IllegalArgumentException.class);
+        assertThat(caughtException).hasMessage("maximumSize must be positive");
+    }
+
+    @Test
+    public void repeatedQueriesAreAnsweredFromTheCache() {
+        when(mockAddressBookRepository.findByFullName("Gemma Lane")).thenReturn(Optional.of(gemma));
+        CachingAddressBookRepository addressBook = new CachingAddressBookRepository(mockAddressBookRepository, 10);
+
+        addressBook.findByFullName("Gemma Lane");
+        Optional<Contact> actualContact = addressBook.findByFullName("Gemma Lane");
+
+        assertThat(actualContact).contains(gemma);
+        verify(mockAddressBookRepository, times(1)).findByFullName("Gemma Lane");
+        assertThat(addressBook.getStatistics().getHitCount()).isEqualTo(1);
+        assertThat(addressBook.getStatistics().getMissCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void repeatedAgeBandAggregatesAreAnsweredFromTheCache() {
+        LocalDate on = LocalDate.of(2020, 1, 1);
+        when(mockAddressBookRepository.aggregate(ContactGrouping.ageBands(on, 10))).thenReturn(new TreeMap<>());
+        when(mockAddressBookRepository.aggregate(ContactGrouping.ageBands(on, 5))).thenReturn(new TreeMap<>());
+        CachingAddressBookRepository addressBook = new CachingAddressBookRepository(mockAddressBookRepository, 10);
+
+        addressBook.aggregate(ContactGrouping.ageBands(on, 10));
+        addressBook.aggregate(ContactGrouping.ageBands(on, 10));
+        addressBook.aggregate(ContactGrouping.ageBands(on, 5));
+
+        verify(mockAddressBookRepository, times(1)).aggregate(ContactGrouping.ageBands(on, 10));
+        assertThat(addressBook.getStatistics().getHitCount()).isEqualTo(1);
+        assertThat(addressBook.getStatistics().getMissCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void queriesWithDifferentArgumentsAreCachedSeparately() {
+        when(mockAddressBookRepository.countByGender(Gender.MALE)).thenReturn(2);
+        when(mockAddressBookRepository.countByGender(Gender.FEMALE)).thenReturn(1);
+        CachingAddressBookRepository addressBook = new CachingAddressBookRepository(mockAddressBookRepository, 10);
+
+        assertThat(addressBook.countByGender(Gender.MALE)).isEqualTo(2);
+        assertThat(addressBook.countByGender(Gender.FEMALE)).isEqualTo(1);
+        assertThat(addressBook.getStatistics().getSize()).isEqualTo(2);
+    }
+
+    @Test
+    public void leastRecentlyUsedResultIsEvictedWhenTheCacheIsFull() {
+        when(mockAddressBookRepository.findOldest(1)).thenReturn(asList(wes));
+        when(mockAddressBookRepository.findOldest(2)).thenReturn(asList(wes, sarah));
+        when(mockAddressBookRepository.findOldest(3)).thenReturn(asList(wes, sarah, paul));
+        CachingAddressBookRepository addressBook = new CachingAddressBookRepository(mockAddressBookRepository, 2);
+
+        addressBook.findOldest(1);
+        addressBook.findOldest(2);
+        addressBook.findOldest(1);
+        addressBook.findOldest(3);
+        addressBook.findOldest(1);
+        addressBook.findOldest(2);
+
+        verify(mockAddressBookRepository, times(1)).findOldest(1);
+        verify(mockAddressBookRepository, times(2)).findOldest(2);
+        assertThat(addressBook.getStatistics().getEvictionCount()).isEqualTo(2);
+        assertThat(addressBook.getStatistics().getSize()).isEqualTo(2);
+    }
+
+    @Test
+    public void cachedListsCannotBeChanged() {
+        when(mockAddressBookRepository.findByDateOfBirth(wes.getDateOfBirth())).thenReturn(new ArrayList<>(asList(wes)));
+        CachingAddressBookRepository addressBook = new CachingAddressBookRepository(mockAddressBookRepository, 10);
+
+        List<Contact> actualContacts = addressBook.findByDateOfBirth(wes.getDateOfBirth());
+        Throwable caughtException = catchThrowable(actualContacts::clear);
+
+        assertThat(caughtException).isInstanceOf(UnsupportedOperationException.class);
+    }
+
+    @Test
+    public void writesToAMutableRepositoryInvalidateTheCache() {
+        ConcurrentAddressBookRepository mutableAddressBook = new ConcurrentAddressBookRepository(asList(paul, gemma));
+        CachingAddressBookRepository addressBook = new CachingAddressBookRepository(mutableAddressBook, 10);
+
+        assertThat(addressBook.findEarliestDateOfBirth()).contains(paul.getDateOfBirth());
+        mutableAddressBook.add(wes);
+
+        assertThat(addressBook.findEarliestDateOfBirth()).contains(wes.getDateOfBirth());
+        assertThat(addressBook.getStatistics().getHitCount()).isZero();
+    }
+
+    @Test
+    public void invalidateAllDropsEveryResult() {
+        when(mockAddressBookRepository.findLatestDateOfBirth()).thenReturn(Optional.of(LocalDate.of(1991, 11, 20)));
+        CachingAddressBookRepository addressBook = new CachingAddressBookRepository(mockAddressBookRepository, 10);
+
+        addressBook.findLatestDateOfBirth();
+        addressBook.invalidateAll();
+        addressBook.findLatestDateOfBirth();
+
+        verify(mockAddressBookRepository, times(2)).findLatestDateOfBirth();
+    }
+
+    @Test
+    public void hitRateIsZeroBeforeAnyLookup() {
+        CachingAddressBookRepository addressBook = new CachingAddressBookRepository(mockAddressBookRepository, 10);
+
+        assertThat(addressBook.getStatistics().getHitRate()).isZero();
+    }
+
+    @Override
+    protected AddressBookRepository newRepository(List<Contact> contacts) {
+        return new CachingAddressBookRepository(new IndexedAddressBookRepository(contacts), 10);
+    }
+}
@@ -0,0 +1,69 @@
+package gumtree.addressbook.persistence;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import gumtree.addressbook.domain.Contact;
+import gumtree.addressbook.domain.Gender;
+import org.junit.Test;
+
+import static java.util.Arrays.asList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+public class ColumnarAddressBookRepositoryTest extends AddressBookRepositoryContract {
+
+    @Test
+    public void constructorThrowsExceptionWhenListOfContactsIsNull() {
+
+        Throwable caughtException = catchThrowable(() -> new ColumnarAddressBookRepository(null));
+
+        assertThat(caughtException).isExactlyInstanceOf(NullPointerException.class);
+        assertThat(caughtException).hasMessage("contacts cannot be null");
+    }
+
+    @Test
+    public void findByNameReturnsContactWithNonAsciiFullName() {
+        Contact zoe = new Contact("Zoë Åberg", Gender.FEMALE, LocalDate.of(2003, 2, 1));
+        ColumnarAddressBookRepository addressBook = new ColumnarAddressBookRepository(asList(paul, zoe, wes));
+
+        Optional<Contact> actualContact = addressBook.findByFullName("Zoë Åberg");
+
+        assertThat(actualContact).contains(zoe);
+    }
+
+    @Test
+    public void fullNamesWithRepeatedAndUnusualSpacingAreReturnedUnchanged() {
+        Contact paulWithTwoSpaces = new Contact("Paul  Robinson", Gender.MALE, LocalDate.of(1985, 1, 15));
+        Contact paulWithTrailingSpace = new Contact("Paul Robinson ", Gender.MALE, LocalDate.of(1985, 1, 15));
+        Contact nobody = new Contact("", Gender.FEMALE, LocalDate.of(2000, 1, 1));
+        List<Contact> contacts = asList(paul, paulWithTwoSpaces, paulWithTrailingSpace, nobody, gemma);
+        ColumnarAddressBookRepository addressBook = new ColumnarAddressBookRepository(contacts);
+
+        assertThat(addressBook.findAll()).containsExactlyElementsOf(contacts);
+        assertThat(addressBook.findAllByFullName("Paul  Robinson")).containsExactly(paulWithTwoSpaces);
+        assertThat(addressBook.findByFullName("")).contains(nobody);
+        assertThat(addressBook.findByFullName("Paul Lane")).isEmpty();
+    }
+
+    @Test
+    public void findByNameFindsEveryContactWhenTheIndexHasManyCollisions() {
+        List<Contact> contacts = new ArrayList<>();
+        for (int i = 0; i < 10000; i++) {
+            contacts.add(new Contact("Contact " + i, i % 2 == 0 ? Gender.MALE : Gender.FEMALE, LocalDate.ofEpochDay(i)));
+        }
+        ColumnarAddressBookRepository addressBook = new ColumnarAddressBookRepository(contacts);
+
+        for (Contact contact : contacts) {
+            assertThat(addressBook.findByFullName(contact.getFullName())).contains(contact);
+        }
+        assertThat(addressBook.findByFullName("Contact 10000")).isEmpty();
+    }
+
+    @Override
+    protected AddressBookRepository newRepository(List<Contact> contacts) {
+        return new ColumnarAddressBookRepository(contacts);
+    }
+}
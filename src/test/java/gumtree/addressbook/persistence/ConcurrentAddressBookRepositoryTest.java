@@ -0,0 +1,263 @@
+package gumtree.addressbook.persistence;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import gumtree.addressbook.domain.Contact;
+import gumtree.addressbook.domain.Gender;
+import org.junit.Test;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+public class ConcurrentAddressBookRepositoryTest extends AddressBookRepositoryContract {
+
+    @Test
+    public void constructorThrowsExceptionWhenListOfContactsIsNull() {
+
+        Throwable caughtException = catchThrowable(() -> new ConcurrentAddressBookRepository(null));
+
+        assertThat(caughtException).isExactlyInstanceOf(NullPointerException.class);
+        assertThat(caughtException).hasMessage("contacts cannot be null");
+    }
+
+    @Test
+    public void addMakesTheContactVisibleToEveryQuery() {
+        ConcurrentAddressBookRepository addressBook = new ConcurrentAddressBookRepository(asList(paul, gemma));
+
+        addressBook.add(wes);
+
+        assertThat(addressBook.findByFullName("Wes Jackson")).contains(wes);
+        assertThat(addressBook.countByGender(Gender.MALE)).isEqualTo(2);
+        assertThat(addressBook.findEarliestDateOfBirth()).contains(wes.getDateOfBirth());
+        assertThat(addressBook.findOldest(1)).containsExactly(wes);
+    }
+
+    @Test
+    public void addThrowsExceptionWhenContactIsNull() {
+        ConcurrentAddressBookRepository addressBook = new ConcurrentAddressBookRepository(emptyList());
+
+        Throwable caughtException = catchThrowable(() -> addressBook.add(null));
+
+        assertThat(caughtException).isExactlyInstanceOf(NullPointerException.class);
+        assertThat(caughtException).hasMessage("contact cannot be null");
+    }
+
+    @Test
+    public void updateReplacesTheFirstContactWithTheFullNameAndKeepsItsPosition() {
+        Contact anotherGemma = new Contact("Gemma Lane", Gender.FEMALE, LocalDate.of(1970, 1, 1));
+        Contact renamedGemma = new Contact("Gemma Stone", Gender.FEMALE, paul.getDateOfBirth());
+        ConcurrentAddressBookRepository addressBook = new ConcurrentAddressBookRepository(asList(gemma, paul, anotherGemma));
+
+        boolean updated = addressBook.update("Gemma Lane", renamedGemma);
+
+        assertThat(updated).isTrue();
+        assertThat(addressBook.findByFullName("Gemma Lane")).contains(anotherGemma);
+        assertThat(addressBook.findByFullName("Gemma Stone")).contains(renamedGemma);
+        assertThat(addressBook.findByDateOfBirth(paul.getDateOfBirth())).containsExactly(renamedGemma, paul);
+        assertThat(addressBook.findLatestDateOfBirth()).contains(paul.getDateOfBirth());
+    }
+
+    @Test
+    public void updateReturnsFalseWhenNoContactHasTheFullName() {
+        ConcurrentAddressBookRepository addressBook = new ConcurrentAddressBookRepository(asList(paul, gemma));
+
+        boolean updated = addressBook.update("Wes Jackson", wes);
+
+        assertThat(updated).isFalse();
+        assertThat(addressBook.findByFullName("Wes Jackson")).isEmpty();
+    }
+
+    @Test
+    public void updateMovesTheContactBetweenGenderCounts() {
+        ConcurrentAddressBookRepository addressBook = new ConcurrentAddressBookRepository(asList(paul, gemma));
+
+        addressBook.update("Paul Robinson", new Contact("Paula Robinson", Gender.FEMALE, paul.getDateOfBirth()));
+
+        assertThat(addressBook.countByGender(Gender.MALE)).isZero();
+        assertThat(addressBook.countByGender(Gender.FEMALE)).isEqualTo(2);
+    }
+
+    @Test
+    public void findByFullNameSimilarToSeesWritesMadeAfterTheIndexIsBuilt() {
+        Contact gemmaLanes = new Contact("Gemma Lanes", Gender.FEMALE, LocalDate.of(1990, 1, 1));
+        Contact jemmaLane = new Contact("Jemma Lane", Gender.FEMALE, LocalDate.of(1991, 1, 1));
+        ConcurrentAddressBookRepository addressBook = new ConcurrentAddressBookRepository(asList(paul, gemma, wes));
+        assertThat(addressBook.findByFullNameSimilarTo("Gemma Lane", 1, 10)).containsExactly(gemma);
+
+        addressBook.add(gemmaLanes);
+        addressBook.update("Paul Robinson", jemmaLane);
+        addressBook.remove("Gemma Lane");
+
+        assertThat(addressBook.findByFullNameSimilarTo("Gemma Lane", 1, 10)).containsExactly(gemmaLanes, jemmaLane);
+        assertThat(addressBook.findByFullNameSimilarTo("Gemma Lane", 1, 1)).containsExactly(gemmaLanes);
+    }
+
+    @Test
+    public void findByFullNameSimilarToRebuildsTheIndexOnceManyNamesAreAdded() {
+        ConcurrentAddressBookRepository addressBook = new ConcurrentAddressBookRepository(asList(paul, gemma, wes));
+        assertThat(addressBook.findByFullNameSimilarTo("Person 1", 1, 10)).isEmpty();
+
+        List<Contact> people = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            Contact person = new Contact("Person " + i, Gender.FEMALE, LocalDate.of(1980, 1, 1));
+            people.add(person);
+            addressBook.add(person);
+        }
+
+        assertThat(addressBook.findByFullNameSimilarTo("Person 1", 1, 100))
+                .isEqualTo(FullNameSearches.findSimilar(people.stream(), "Person 1", 1, 100));
+    }
+
+    @Test
+    public void stagedChangesAreOnlySeenOncePublished() {
+        Contact gemmaLanes = new Contact("Gemma Lanes", Gender.FEMALE, LocalDate.of(1990, 1, 1));
+        ConcurrentAddressBookRepository addressBook = new ConcurrentAddressBookRepository(asList(paul, gemma));
+
+        addressBook.stage(asList(ContactChange.add(gemmaLanes)), () -> { });
+        long version = addressBook.getStagedVersion();
+        addressBook.stage(asList(ContactChange.remove("Paul Robinson")), () -> { });
+
+        assertThat(addressBook.findAll()).containsExactly(paul, gemma);
+        assertThat(addressBook.findByFullNameSimilarTo("Gemma Lane", 1, 10)).containsExactly(gemma);
+        assertThat(addressBook.findAllStaged()).containsExactly(gemma, gemmaLanes);
+
+        addressBook.publish(version);
+
+        assertThat(addressBook.getVersion()).isEqualTo(version);
+        assertThat(addressBook.findAll()).containsExactly(paul, gemma, gemmaLanes);
+        assertThat(addressBook.findByFullNameSimilarTo("Gemma Lane", 1, 10)).containsExactly(gemma, gemmaLanes);
+    }
+
+    @Test
+    public void removeDeletesTheFirstContactWithTheFullNameFromEveryIndex() {
+        Contact anotherWes = new Contact("Wes Jackson", Gender.MALE, LocalDate.of(1999, 1, 1));
+        ConcurrentAddressBookRepository addressBook = new ConcurrentAddressBookRepository(asList(wes, paul, anotherWes));
+
+        boolean removed = addressBook.remove("Wes Jackson");
+
+        assertThat(removed).isTrue();
+        assertThat(addressBook.findByFullName("Wes Jackson")).contains(anotherWes);
+        assertThat(addressBook.countByGender(Gender.MALE)).isEqualTo(2);
+        assertThat(addressBook.findEarliestDateOfBirth()).contains(paul.getDateOfBirth());
+        assertThat(addressBook.findByDateOfBirth(wes.getDateOfBirth())).isEmpty();
+    }
+
+    @Test
+    public void removeReturnsFalseWhenNoContactHasTheFullName() {
+        ConcurrentAddressBookRepository addressBook = new ConcurrentAddressBookRepository(asList(paul, gemma));
+
+        boolean removed = addressBook.remove("Wes Jackson");
+
+        assertThat(removed).isFalse();
+        assertThat(addressBook.countByGender(Gender.MALE)).isEqualTo(1);
+    }
+
+    @Test
+    public void applyReturnsTheNumberOfChangesThatTookEffect() {
+        ConcurrentAddressBookRepository addressBook = new ConcurrentAddressBookRepository(asList(paul, gemma));
+
+        int applied = addressBook.apply(asList(
+                ContactChange.add(wes),
+                ContactChange.remove("Sarah Stone"),
+                ContactChange.update("Gemma Lane", sarah)));
+
+        assertThat(applied).isEqualTo(2);
+        assertThat(addressBook.findOldest(3)).containsExactly(wes, sarah, paul);
+    }
+
+    @Test
+    public void applyThrowsExceptionWithoutApplyingAnythingWhenAChangeIsNull() {
+        ConcurrentAddressBookRepository addressBook = new ConcurrentAddressBookRepository(asList(paul, gemma));
+
+        Throwable caughtException = catchThrowable(() -> addressBook.apply(asList(ContactChange.add(wes), null)));
+
+        assertThat(caughtException).isExactlyInstanceOf(NullPointerException.class);
+        assertThat(caughtException).hasMessage("change cannot be null");
+        assertThat(addressBook.findByFullName("Wes Jackson")).isEmpty();
+    }
+
+    @Test
+    public void streamByDateOfBirthBetweenKeepsReadingTheSnapshotItWasCreatedFrom() {
+        ConcurrentAddressBookRepository addressBook = new ConcurrentAddressBookRepository(asList(paul, gemma, wes));
+
+        Stream<Contact> contacts = addressBook.streamByDateOfBirthBetween(wes.getDateOfBirth(), gemma.getDateOfBirth());
+        addressBook.remove("Paul Robinson");
+        addressBook.add(sarah);
+
+        assertThat(contacts).containsExactly(wes, paul, gemma);
+    }
+
+    @Test
+    public void getVersionOnlyChangesWhenAWriteTakesEffect() {
+        ConcurrentAddressBookRepository addressBook = new ConcurrentAddressBookRepository(asList(paul, gemma));
+        long initialVersion = addressBook.getVersion();
+
+        addressBook.remove("Wes Jackson");
+        long versionAfterNoChange = addressBook.getVersion();
+        addressBook.add(wes);
+
+        assertThat(versionAfterNoChange).isEqualTo(initialVersion);
+        assertThat(addressBook.getVersion()).isGreaterThan(initialVersion);
+    }
+
+    @Test
+    public void concurrentWritersAndReadersSeeConsistentGenderCounts() throws Exception {
+        ConcurrentAddressBookRepository addressBook = new ConcurrentAddressBookRepository(emptyList());
+        int writers = 4;
+        int contactsPerWriter = 500;
+        ExecutorService executor = Executors.newFixedThreadPool(writers + 1);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> writes = new ArrayList<>();
+            for (int writer = 0; writer < writers; writer++) {
+                int firstContact = writer * contactsPerWriter;
+                writes.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = firstContact; i < firstContact + contactsPerWriter; i++) {
+                        // A male and a female are always added together, so readers must never see them apart.
+                        addressBook.apply(asList(
+                                ContactChange.add(new Contact("Male " + i, Gender.MALE, LocalDate.of(1980, 1, 1))),
+                                ContactChange.add(new Contact("Female " + i, Gender.FEMALE, LocalDate.of(1980, 1, 1)))));
+                    }
+                    return null;
+                }));
+            }
+            Future<Integer> read = executor.submit(() -> {
+                start.await();
+                int inconsistentReads = 0;
+                while (addressBook.findByDateOfBirth(LocalDate.of(1980, 1, 1)).size() < 2 * writers * contactsPerWriter) {
+                    if (addressBook.findByDateOfBirth(LocalDate.of(1980, 1, 1)).size() % 2 != 0) {
+                        inconsistentReads++;
+                    }
+                }
+                return inconsistentReads;
+            });
+
+            start.countDown();
+            for (Future<?> write : writes) {
+                write.get(30, TimeUnit.SECONDS);
+            }
+
+            assertThat(read.get(30, TimeUnit.SECONDS)).isZero();
+            assertThat(addressBook.countByGender(Gender.MALE)).isEqualTo(writers * contactsPerWriter);
+            assertThat(addressBook.countByGender(Gender.FEMALE)).isEqualTo(writers * contactsPerWriter);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Override
+    protected AddressBookRepository newRepository(List<Contact> contacts) {
+        return new ConcurrentAddressBookRepository(contacts);
+    }
+}
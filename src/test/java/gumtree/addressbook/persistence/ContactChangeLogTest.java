@@ -0,0 +1,224 @@
+package gumtree.addressbook.persistence;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import gumtree.addressbook.domain.Contact;
+import gumtree.addressbook.domain.Gender;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static java.util.Collections.singletonList;
+import static java.util.stream.Collectors.toList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+public class ContactChangeLogTest {
+
+    private Contact paul = new Contact("Paul Robinson", Gender.MALE, LocalDate.of(1985, 1, 15));
+    private Contact gemma = new Contact("Gemma Lane", Gender.FEMALE, LocalDate.of(1991, 11, 20));
+    private Contact wes = new Contact("Wes Jackson", Gender.MALE, LocalDate.of(1974, 8, 14));
+
+    private Path changeLogPath;
+
+    @Before
+    public void createChangeLogPath() throws IOException {
+        changeLogPath = Files.createTempFile("AddressBook", ".log");
+    }
+
+    @After
+    public void deleteChangeLog() throws IOException {
+        Files.deleteIfExists(changeLogPath);
+    }
+
+    @Test
+    public void syncWritesEveryPendingRecordWithASingleForce() {
+        ContactChangeLog changeLog = new ContactChangeLog(changeLogPath);
+        changeLog.append(singletonList(ContactChange.add(paul)));
+        changeLog.append(singletonList(ContactChange.add(gemma)));
+        long sequence = changeLog.append(singletonList(ContactChange.remove("Paul Robinson")));
+
+        changeLog.sync(sequence);
+        changeLog.sync(1);
+        changeLog.close();
+
+        assertThat(changeLog.syncCount()).isEqualTo(1);
+        assertThat(replay()).containsExactly(gemma);
+    }
+
+    @Test
+    public void replayStopsAtARecordThatWasCutShortAndTruncatesIt() throws IOException {
+        ContactChangeLog changeLog = new ContactChangeLog(changeLogPath);
+        changeLog.sync(changeLog.append(singletonList(ContactChange.add(paul))));
+        long sizeAfterFirstRecord = changeLog.size();
+        changeLog.sync(changeLog.append(singletonList(ContactChange.add(gemma))));
+        changeLog.close();
+
+        try (FileChannel channel = FileChannel.open(changeLogPath, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 3);
+        }
+
+        assertThat(replay()).containsExactly(paul);
+        assertThat(Files.size(changeLogPath)).isEqualTo(sizeAfterFirstRecord);
+    }
+
+    @Test
+    public void replayStopsAtARecordThatFailsItsChecksum() throws IOException {
+        ContactChangeLog changeLog = new ContactChangeLog(changeLogPath);
+        changeLog.sync(changeLog.append(singletonList(ContactChange.add(paul))));
+        changeLog.sync(changeLog.append(singletonList(ContactChange.add(gemma))));
+        changeLog.close();
+
+        try (FileChannel channel = FileChannel.open(changeLogPath, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[] {'X'}), channel.size() - 10);
+        }
+
+        assertThat(replay()).containsExactly(paul);
+    }
+
+    @Test
+    public void replayStartsFromTheCheckpointInsteadOfTheBase() {
+        ContactChangeLog changeLog = new ContactChangeLog(changeLogPath);
+        changeLog.append(singletonList(ContactChange.add(paul)));
+        changeLog.beginCompaction();
+        changeLog.compact(Stream.of(gemma));
+        changeLog.sync(changeLog.append(singletonList(ContactChange.add(paul))));
+        changeLog.close();
+
+        ConcurrentAddressBookRepository.Builder builder = new ConcurrentAddressBookRepository.Builder();
+        int records = new ContactChangeLog(changeLogPath).replay(builder, () -> builder.accept(wes));
+
+        assertThat(records).isEqualTo(2);
+        assertThat(builder.build().findAll()).containsExactly(gemma, paul);
+    }
+
+    @Test
+    public void compactKeepsTheRecordsAppendedWhileTheCheckpointIsWritten() {
+        ContactChangeLog changeLog = new ContactChangeLog(changeLogPath);
+        changeLog.beginCompaction();
+        changeLog.sync(changeLog.append(singletonList(ContactChange.add(wes))));
+        changeLog.append(singletonList(ContactChange.add(paul)));
+
+        changeLog.compact(Stream.of(gemma));
+        changeLog.close();
+
+        assertThat(replay()).containsExactly(gemma, wes, paul);
+    }
+
+    @Test
+    public void compactFailingBeforeTheMoveKeepsTheCurrentLogInUse() {
+        Path temporaryLogPath = changeLogPath.resolveSibling(changeLogPath.getFileName() + ".tmp");
+        ContactChangeLog changeLog = new ContactChangeLog(changeLogPath);
+        changeLog.append(singletonList(ContactChange.add(paul)));
+        changeLog.beginCompaction();
+        changeLog.sync(changeLog.append(singletonList(ContactChange.add(gemma))));
+        long sequence = changeLog.append(singletonList(ContactChange.add(wes)));
+
+        // Deleting the checkpoint while it is written makes reopening it for the records appended meanwhile fail.
+        Throwable caughtException = catchThrowable(() ->
+                changeLog.compact(Stream.of(paul).peek(contact -> delete(temporaryLogPath))));
+        changeLog.checkNotFailed();
+        changeLog.sync(sequence);
+        changeLog.close();
+
+        assertThat(caughtException).isExactlyInstanceOf(PersistenceException.class);
+        assertThat(replay()).containsExactly(paul, gemma, wes);
+    }
+
+    @Test
+    public void checkpointIsWrittenInBoundedRecords() throws IOException {
+        List<Contact> contacts = IntStream.range(0, 2 * ContactChangeLog.CHECKPOINT_BATCH_SIZE + 1)
+                .mapToObj(i -> new Contact("Contact " + i, Gender.FEMALE, LocalDate.ofEpochDay(i)))
+                .collect(toList());
+        ContactChangeLog changeLog = new ContactChangeLog(changeLogPath);
+
+        changeLog.beginCompaction();
+        changeLog.compact(contacts.stream());
+        changeLog.close();
+
+        assertThat(replay()).isEqualTo(contacts);
+        try (FileChannel channel = FileChannel.open(changeLogPath, StandardOpenOption.READ)) {
+            ByteBuffer recordHeader = ByteBuffer.allocate(Integer.BYTES);
+            channel.read(recordHeader, ContactChangeLog.HEADER_SIZE);
+            assertThat(recordHeader.getInt(0)).isLessThan((int) Files.size(changeLogPath) / 2);
+        }
+    }
+
+    @Test
+    public void replayReadsNamesLongerThanSixtyFourKilobytes() {
+        char[] characters = new char[40_000];
+        Arrays.fill(characters, 'é');
+        Contact longNamedContact = new Contact(new String(characters), Gender.MALE, LocalDate.of(1980, 1, 1));
+        ContactChangeLog changeLog = new ContactChangeLog(changeLogPath);
+
+        changeLog.sync(changeLog.append(singletonList(ContactChange.add(longNamedContact))));
+        changeLog.beginCompaction();
+        changeLog.compact(Stream.of(longNamedContact));
+        changeLog.sync(changeLog.append(singletonList(ContactChange.remove(longNamedContact.getFullName()))));
+        changeLog.close();
+
+        assertThat(replay()).isEmpty();
+    }
+
+    @Test
+    public void compactThrowsExceptionWhenItHasNotBegun() {
+        ContactChangeLog changeLog = new ContactChangeLog(changeLogPath);
+
+        Throwable caughtException = catchThrowable(() -> changeLog.compact(Stream.of(gemma)));
+        changeLog.close();
+
+        assertThat(caughtException).isExactlyInstanceOf(IllegalStateException.class);
+        assertThat(caughtException).hasMessage("Compaction has not begun");
+    }
+
+    @Test
+    public void replayThrowsExceptionWhenTheFileIsNotAChangeLog() throws IOException {
+        Files.write(changeLogPath, "Paul Robinson, Male, 15/01/85\n".getBytes());
+        ContactChangeLog changeLog = new ContactChangeLog(changeLogPath);
+
+        Throwable caughtException = catchThrowable(() ->
+                changeLog.replay(new ConcurrentAddressBookRepository.Builder(), () -> { }));
+        changeLog.close();
+
+        assertThat(caughtException).isExactlyInstanceOf(PersistenceException.class);
+        assertThat(caughtException.getCause()).hasMessage(changeLogPath + " is not a valid address book change log");
+    }
+
+    @Test
+    public void appendThrowsExceptionOnceTheLogIsClosed() {
+        ContactChangeLog changeLog = new ContactChangeLog(changeLogPath);
+        changeLog.close();
+
+        Throwable caughtException = catchThrowable(() -> changeLog.append(singletonList(ContactChange.add(paul))));
+
+        assertThat(caughtException).isExactlyInstanceOf(IllegalStateException.class);
+        assertThat(caughtException).hasMessage("Change log is closed");
+    }
+
+    private static void delete(Path path) {
+        try {
+            Files.delete(path);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private List<Contact> replay() {
+        ConcurrentAddressBookRepository.Builder builder = new ConcurrentAddressBookRepository.Builder();
+        ContactChangeLog changeLog = new ContactChangeLog(changeLogPath);
+        changeLog.replay(builder, () -> { });
+        changeLog.close();
+        return builder.build().findAll().collect(toList());
+    }
+}
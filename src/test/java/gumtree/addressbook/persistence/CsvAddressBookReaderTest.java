@@ -2,10 +2,12 @@ package gumtree.addressbook.persistence;
 
 import java.net.URL;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
 
 import gumtree.addressbook.domain.Contact;
 import gumtree.addressbook.domain.Gender;
+import gumtree.addressbook.metrics.MetricsRegistry;
 import org.junit.Test;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -84,6 +86,58 @@ public class CsvAddressBookReaderTest {
         assertThat(actualContactList).containsExactly(paul, gemma, wes);
     }
 
+    @Test
+    public void readPassesEveryContactToTheConsumerInTheOrderTheyAppearInTheAddressBook() {
+        CsvAddressBookReader csvAddressBookReader = new CsvAddressBookReader(getResourceUrl("AddressBookWithMultipleContacts"));
+        List<Contact> consumedContacts = new ArrayList<>();
+
+        csvAddressBookReader.read(consumedContacts::add);
+
+        Contact paul = new Contact("Paul Robinson", Gender.MALE, LocalDate.of(1985, 1, 15));
+        Contact gemma = new Contact("Gemma Lane", Gender.FEMALE, LocalDate.of(1991, 11, 20));
+        Contact wes = new Contact("Wes Jackson", Gender.MALE, LocalDate.of(1974, 8, 14));
+        assertThat(consumedContacts).containsExactly(paul, gemma, wes);
+    }
+
+    @Test
+    public void readPassesContactsReadBeforeAnInvalidRecordToTheConsumer() {
+        CsvAddressBookReader csvAddressBookReader = new CsvAddressBookReader(getResourceUrl("AddressBookWithOneRecordWithInvalidGender"));
+        List<Contact> consumedContacts = new ArrayList<>();
+
+        Throwable caughtException = catchThrowable(() -> csvAddressBookReader.read(consumedContacts::add));
+
+        assertThat(caughtException).isExactlyInstanceOf(PersistenceException.class);
+        assertThat(consumedContacts).containsExactly(new Contact("Paul Robinson", Gender.MALE, LocalDate.of(1985, 1, 15)));
+    }
+
+    @Test
+    public void readRecordsTheTimeSpentInEachPhaseWhenMetricsAreEnabled() {
+        MetricsRegistry metricsRegistry = new MetricsRegistry();
+        CsvAddressBookReader csvAddressBookReader = new CsvAddressBookReader(
+                getResourceUrl("AddressBookWithMultipleContacts"), new DateOfBirthParser(), metricsRegistry);
+
+        List<Contact> actualContactList = csvAddressBookReader.read();
+
+        assertThat(metricsRegistry.getCounters()).containsEntry("load.records", (long) actualContactList.size());
+        assertThat(metricsRegistry.getLatencies())
+                .containsOnlyKeys("load.parse", "load.map", "load.index", "load.total");
+    }
+
+    @Test
+    public void lenientReadSkipsInvalidRecords() {
+        CsvAddressBookReader csvAddressBookReader =
+                new CsvAddressBookReader(getResourceUrl("AddressBookWithOneRecordWithInvalidDateOfBirth"));
+        InvalidRecordCollector invalidRecordCollector = InvalidRecordCollector.lenient(10);
+        List<Contact> consumedContacts = new ArrayList<>();
+
+        csvAddressBookReader.read(consumedContacts::add, invalidRecordCollector);
+
+        assertThat(consumedContacts).contains(new Contact("Paul Robinson", Gender.MALE, LocalDate.of(1985, 1, 15)));
+        assertThat(invalidRecordCollector.getInvalidRecords())
+                .extracting(InvalidRecord::getColumn)
+                .containsExactly(InvalidRecord.Column.DATE_OF_BIRTH);
+    }
+
     private URL getResourceUrl(String csvFilePathInJar) {
         return getClass().getClassLoader().getResource(csvFilePathInJar);
     }
@@ -0,0 +1,157 @@
+package gumtree.addressbook.persistence;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+
+import gumtree.addressbook.domain.Contact;
+import gumtree.addressbook.domain.Gender;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static java.util.Arrays.asList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+public class CsvAddressBookReloaderTest {
+
+    private Contact bill = new Contact("Bill McKnight", Gender.MALE, LocalDate.of(1977, 3, 16));
+    private Contact paul = new Contact("Paul Robinson", Gender.MALE, LocalDate.of(1985, 1, 15));
+    private Contact gemma = new Contact("Gemma Lane", Gender.FEMALE, LocalDate.of(1991, 11, 20));
+    private Contact sarah = new Contact("Sarah Stone", Gender.FEMALE, LocalDate.of(1980, 9, 20));
+
+    private Path directory;
+    private Path csvFilePath;
+
+    @Before
+    public void createAddressBook() throws Exception {
+        directory = Files.createTempDirectory("AddressBook");
+        csvFilePath = directory.resolve("AddressBook.csv");
+        Files.write(csvFilePath, "Bill McKnight, Male, 16/03/77\nPaul Robinson, Male, 15/01/85\n".getBytes());
+    }
+
+    @After
+    public void deleteAddressBook() throws Exception {
+        Files.deleteIfExists(csvFilePath);
+        Files.delete(directory);
+    }
+
+    @Test
+    public void reloadAppliesAppendedRecords() throws Exception {
+        CsvAddressBookReloader reloader = new CsvAddressBookReloader(csvFilePath);
+        AddressBookRepository repository = reloader.getRepository();
+
+        Files.write(csvFilePath, "Bill McKnight, Male, 16/03/77\nPaul Robinson, Male, 15/01/85\nGemma Lane, Female, 20/11/91\n".getBytes());
+        int changes = reloader.reload();
+
+        assertThat(changes).isEqualTo(1);
+        assertThat(repository.countByGender(Gender.FEMALE)).isEqualTo(1);
+        assertThat(repository.findLatestDateOfBirth()).contains(gemma.getDateOfBirth());
+    }
+
+    @Test
+    public void reloadAppliesChangedAndDroppedRecords() throws Exception {
+        CsvAddressBookReloader reloader = new CsvAddressBookReloader(csvFilePath);
+        AddressBookRepository repository = reloader.getRepository();
+
+        Files.write(csvFilePath, "Sarah Stone, Female, 20/09/80\n".getBytes());
+        int changes = reloader.reload();
+
+        assertThat(changes).isEqualTo(2);
+        assertThat(repository.findOldest(10)).containsExactly(sarah);
+        assertThat(repository.countByGender(Gender.MALE)).isZero();
+    }
+
+    @Test
+    public void reloadReturnsZeroWhenTheFileHasNotChanged() {
+        CsvAddressBookReloader reloader = new CsvAddressBookReloader(csvFilePath);
+
+        assertThat(reloader.reload()).isZero();
+    }
+
+    @Test
+    public void reloadKeepsThePreviousStateWhenTheFileIsInvalid() throws Exception {
+        CsvAddressBookReloader reloader = new CsvAddressBookReloader(csvFilePath);
+        AddressBookRepository repository = reloader.getRepository();
+
+        Files.write(csvFilePath, "Bill McKnight, Male, 16/03/77\nPaul Robinson, Unknown, 15/01/85\n".getBytes());
+        Throwable caughtException = catchThrowable(reloader::reload);
+
+        assertThat(caughtException).isExactlyInstanceOf(PersistenceException.class);
+        assertThat(reloader.getLastFailure()).isSameAs(caughtException);
+        assertThat(repository.findOldest(10)).containsExactly(bill, paul);
+    }
+
+    @Test
+    public void startPicksUpChangesInTheBackground() throws Exception {
+        try (CsvAddressBookReloader reloader = new CsvAddressBookReloader(csvFilePath)) {
+            reloader.start(Duration.ofMillis(10));
+
+            Files.write(csvFilePath, "Bill McKnight, Male, 16/03/77\nPaul Robinson, Male, 15/01/85\nSarah Stone, Female, 20/09/80\n".getBytes());
+
+            long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+            while (!reloader.getRepository().findByFullName("Sarah Stone").isPresent() && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            assertThat(reloader.getRepository().findByFullName("Sarah Stone")).contains(sarah);
+        }
+    }
+
+    @Test
+    public void startKeepsPollingAfterAFailedReload() throws Exception {
+        try (CsvAddressBookReloader reloader = new CsvAddressBookReloader(csvFilePath)) {
+            reloader.start(Duration.ofMillis(10));
+
+            Files.write(csvFilePath, "Bill McKnight, Male, 16/03/77\nPaul Robinson, Unknown, 15/01/85\n".getBytes());
+            long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+            while (reloader.getLastFailure() == null && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            Files.write(csvFilePath, "Sarah Stone, Female, 20/09/80\n".getBytes());
+            while (!reloader.getRepository().findByFullName("Sarah Stone").isPresent() && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+
+            assertThat(reloader.getRepository().findOldest(10)).containsExactly(sarah);
+            assertThat(reloader.getLastFailure()).isNull();
+        }
+    }
+
+    @Test
+    public void startThrowsExceptionWhenPollIntervalIsNotPositive() {
+        CsvAddressBookReloader reloader = new CsvAddressBookReloader(csvFilePath);
+
+        Throwable caughtException = catchThrowable(() -> reloader.start(Duration.ZERO));
+
+        assertThat(caughtException).isExactlyInstanceOf(IllegalArgumentException.class);
+        assertThat(caughtException).hasMessage("pollInterval must be positive");
+    }
+
+    @Test
+    public void changesUpdatesTheMatchingOccurrenceOfADuplicateName() {
+        Contact secondBill = new Contact("Bill McKnight", Gender.MALE, LocalDate.of(1990, 1, 1));
+        Contact olderSecondBill = new Contact("Bill McKnight", Gender.MALE, LocalDate.of(1960, 1, 1));
+
+        List<ContactChange> changes = CsvAddressBookReloader.changes(
+                asList(bill, paul, secondBill), asList(bill, paul, olderSecondBill));
+
+        assertThat(changes).containsExactly(ContactChange.update("Bill McKnight", 1, olderSecondBill));
+    }
+
+    @Test
+    public void changesTurnTheRepositoryIntoAFreshLoadOfTheCurrentRecords() {
+        Contact secondGemma = new Contact("Gemma Lane", Gender.FEMALE, LocalDate.of(1985, 1, 15));
+        List<Contact> previous = asList(bill, gemma, paul, secondGemma, sarah);
+        List<Contact> current = asList(bill, secondGemma, gemma);
+        ConcurrentAddressBookRepository repository = new ConcurrentAddressBookRepository(previous);
+
+        repository.apply(CsvAddressBookReloader.changes(previous, current));
+
+        assertThat(repository.findByFullName("Gemma Lane")).contains(secondGemma);
+        assertThat(repository.findOldest(10)).containsExactly(bill, secondGemma, gemma);
+        assertThat(repository.countByGender(Gender.FEMALE)).isEqualTo(2);
+    }
+}
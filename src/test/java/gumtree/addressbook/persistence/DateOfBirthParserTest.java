@@ -0,0 +1,94 @@
+package gumtree.addressbook.persistence;
+
+import java.time.LocalDate;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+public class DateOfBirthParserTest {
+
+    private DateOfBirthParser dateOfBirthParser = new DateOfBirthParser(1940);
+
+    @Test
+    public void parseReturnsDateWithTwoDigitYearInTheCenturyStartingAtTheGivenYear() {
+
+        assertThat(dateOfBirthParser.parse("16/03/77")).isEqualTo(LocalDate.of(1977, 3, 16));
+        assertThat(dateOfBirthParser.parse("16/03/40")).isEqualTo(LocalDate.of(1940, 3, 16));
+        assertThat(dateOfBirthParser.parse("16/03/39")).isEqualTo(LocalDate.of(2039, 3, 16));
+    }
+
+    @Test
+    public void parseReturnsDateWithFourDigitYearAsIs() {
+
+        assertThat(dateOfBirthParser.parse("16/03/1877")).isEqualTo(LocalDate.of(1877, 3, 16));
+    }
+
+    @Test
+    public void parseAcceptsSingleDigitDayAndMonth() {
+
+        assertThat(dateOfBirthParser.parse("1/2/03")).isEqualTo(LocalDate.of(2003, 2, 1));
+    }
+
+    @Test
+    public void parseIgnoresSurroundingWhitespace() {
+
+        assertThat(dateOfBirthParser.parse(" 20/11/91 ")).isEqualTo(LocalDate.of(1991, 11, 20));
+    }
+
+    @Test
+    public void parseTakesIntoAccountLeapYears() {
+
+        assertThat(dateOfBirthParser.parse("29/02/00")).isEqualTo(LocalDate.of(2000, 2, 29));
+        assertThat(dateOfBirthParser.parse("29/02/1904")).isEqualTo(LocalDate.of(1904, 2, 29));
+    }
+
+    @Test
+    public void parseEpochDayReturnsTheSameValueAsLocalDateForEveryDayOfTheCentury() {
+        DateOfBirthParser parser = new DateOfBirthParser(1950);
+
+        for (LocalDate date = LocalDate.of(1950, 1, 1); date.getYear() < 2050; date = date.plusDays(1)) {
+            String text = String.format("%02d/%02d/%02d", date.getDayOfMonth(), date.getMonthValue(), date.getYear() % 100);
+
+            assertThat(parser.parseEpochDay(text, 0, text.length())).isEqualTo(date.toEpochDay());
+        }
+    }
+
+    @Test
+    public void parseEpochDayOnlyReadsTheGivenRange() {
+        String record = "Bill McKnight, Male, 16/03/77";
+
+        long actualEpochDay = dateOfBirthParser.parseEpochDay(record, record.lastIndexOf(',') + 1, record.length());
+
+        assertThat(actualEpochDay).isEqualTo(LocalDate.of(1977, 3, 16).toEpochDay());
+    }
+
+    @Test
+    public void parseThrowsExceptionWhenDateDoesNotExist() {
+
+        Throwable caughtException = catchThrowable(() -> dateOfBirthParser.parse("31/02/77"));
+
+        assertThat(caughtException).isExactlyInstanceOf(IllegalArgumentException.class);
+        assertThat(caughtException).hasMessage("Date of birth must have the format \"dd/MM/yy\"");
+    }
+
+    @Test
+    public void parseThrowsExceptionWhenValueDoesNotHaveTheExpectedFormat() {
+
+        for (String invalidValue : new String[]{"", "invalid dob", "16-03-77", "16/03", "16/03/7", "16/03/977", "123/03/77", "16/03/77x"}) {
+            Throwable caughtException = catchThrowable(() -> dateOfBirthParser.parse(invalidValue));
+
+            assertThat(caughtException).as(invalidValue).isExactlyInstanceOf(IllegalArgumentException.class);
+        }
+    }
+
+    @Test
+    public void constructorThrowsExceptionWhenTwoDigitYearStartIsNegative() {
+
+        Throwable caughtException = catchThrowable(() -> new DateOfBirthParser(-1));
+
+        assertThat(caughtException).isExactlyInstanceOf(IllegalArgumentException.class);
+        assertThat(caughtException).hasMessage("twoDigitYearStart is out of range");
+    }
+}
@@ -0,0 +1,183 @@
+package gumtree.addressbook.persistence;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import gumtree.addressbook.domain.Contact;
+import gumtree.addressbook.domain.Gender;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+public class DurableAddressBookRepositoryTest extends AddressBookRepositoryContract {
+
+    private final List<DurableAddressBookRepository> repositories = new ArrayList<>();
+    private Path directory;
+    private Path changeLogPath;
+
+    @Before
+    public void createDirectory() throws IOException {
+        directory = Files.createTempDirectory("AddressBook");
+        changeLogPath = directory.resolve("AddressBook.log");
+    }
+
+    @After
+    public void deleteDirectory() throws IOException {
+        repositories.forEach(DurableAddressBookRepository::close);
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    @Test
+    public void writesAreReplayedOnTopOfTheBaseWhenTheRepositoryIsOpenedAgain() {
+        Contact renamedPaul = new Contact("Paul Stone", Gender.MALE, paul.getDateOfBirth());
+        DurableAddressBookRepository addressBook = open(asList(paul, gemma));
+
+        addressBook.add(wes);
+        addressBook.update("Paul Robinson", renamedPaul);
+        addressBook.remove("Gemma Lane");
+        addressBook.close();
+
+        assertThat(open(asList(paul, gemma)).findAll()).containsExactly(renamedPaul, wes);
+    }
+
+    @Test
+    public void writesThatTakeNoEffectAreNotLogged() throws IOException {
+        DurableAddressBookRepository addressBook = open(asList(paul, gemma));
+        long sizeBefore = Files.size(changeLogPath);
+
+        boolean removed = addressBook.remove("Wes Jackson");
+
+        assertThat(removed).isFalse();
+        assertThat(Files.size(changeLogPath)).isEqualTo(sizeBefore);
+    }
+
+    @Test
+    public void readersOnlySeeAWriteOnceItIsOnDisk() throws Exception {
+        CountDownLatch syncStarted = new CountDownLatch(1);
+        CountDownLatch syncAllowed = new CountDownLatch(1);
+        ContactChangeLog changeLog = new ContactChangeLog(changeLogPath) {
+            @Override
+            void sync(long sequence) {
+                syncStarted.countDown();
+                try {
+                    syncAllowed.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                super.sync(sequence);
+            }
+        };
+        ConcurrentAddressBookRepository.Builder builder = new ConcurrentAddressBookRepository.Builder();
+        changeLog.replay(builder, () -> asList(paul, gemma).forEach(builder));
+        DurableAddressBookRepository addressBook = new DurableAddressBookRepository(builder.build(), changeLog,
+                DurableAddressBookRepository.DEFAULT_COMPACTION_THRESHOLD);
+        repositories.add(addressBook);
+        ExecutorService writer = Executors.newSingleThreadExecutor();
+
+        try {
+            Future<?> write = writer.submit(() -> addressBook.add(wes));
+            syncStarted.await();
+
+            assertThat(addressBook.findByFullName("Wes Jackson")).isEmpty();
+            assertThat(addressBook.getVersion()).isZero();
+
+            syncAllowed.countDown();
+            write.get(5, TimeUnit.SECONDS);
+            assertThat(addressBook.findByFullName("Wes Jackson")).contains(wes);
+            assertThat(addressBook.getVersion()).isEqualTo(1);
+        } finally {
+            syncAllowed.countDown();
+            writer.shutdownNow();
+        }
+    }
+
+    @Test
+    public void compactReplacesTheBaseWithACheckpointOfTheAddressBook() {
+        DurableAddressBookRepository addressBook = open(asList(paul, gemma));
+        addressBook.add(wes);
+        addressBook.remove("Paul Robinson");
+
+        addressBook.compact();
+        addressBook.add(sarah);
+        addressBook.close();
+
+        assertThat(open(emptyList()).findAll()).containsExactly(gemma, wes, sarah);
+    }
+
+    @Test
+    public void logIsCompactedInTheBackgroundOnceItReachesTheThreshold() {
+        List<Contact> contacts = new ArrayList<>();
+        ConcurrentAddressBookRepository.Builder builder = new ConcurrentAddressBookRepository.Builder();
+        ContactChangeLog changeLog = new ContactChangeLog(changeLogPath);
+        changeLog.replay(builder, () -> { });
+        DurableAddressBookRepository addressBook = new DurableAddressBookRepository(builder.build(), changeLog, 256);
+        repositories.add(addressBook);
+
+        for (int i = 0; i < 100; i++) {
+            Contact contact = new Contact("Person " + i, Gender.FEMALE, LocalDate.of(1980, 1, 1).plusDays(i));
+            contacts.add(contact);
+            addressBook.add(contact);
+            addressBook.remove("Person " + (i - 1));
+        }
+        addressBook.close();
+
+        assertThat(addressBook.getLastCompactionFailure()).isNull();
+        assertThat(changeLog.size()).isLessThan(2_000);
+        assertThat(open(emptyList()).findAll()).containsExactly(contacts.get(99));
+    }
+
+    @Test
+    public void applyThrowsExceptionOnceTheRepositoryIsClosed() {
+        DurableAddressBookRepository addressBook = open(asList(paul, gemma));
+        addressBook.close();
+
+        Throwable caughtException = catchThrowable(() -> addressBook.add(wes));
+
+        assertThat(caughtException).isExactlyInstanceOf(IllegalStateException.class);
+        assertThat(caughtException).hasMessage("Repository is closed");
+        assertThat(addressBook.findAll()).containsExactly(paul, gemma);
+    }
+
+    @Test
+    public void newDurableCsvFileInstanceThrowsExceptionWhenAddressBookPathDoesNotExist() {
+
+        Throwable caughtException = catchThrowable(() -> AddressBookRepositoryFactory.newDurableCsvFileInstance(
+                directory.resolve("does not exist"), changeLogPath));
+
+        assertThat(caughtException).isExactlyInstanceOf(IllegalArgumentException.class);
+        assertThat(caughtException).hasMessage("Address book file does not exist");
+    }
+
+    private DurableAddressBookRepository open(List<Contact> contacts) {
+        DurableAddressBookRepository addressBook =
+                AddressBookRepositoryFactory.newDurableInstance(new IndexedAddressBookRepository(contacts), changeLogPath);
+        repositories.add(addressBook);
+        return addressBook;
+    }
+
+    @Override
+    protected AddressBookRepository newRepository(List<Contact> contacts) {
+        return open(contacts);
+    }
+}
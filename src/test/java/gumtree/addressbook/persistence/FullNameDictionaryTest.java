@@ -0,0 +1,89 @@
+package gumtree.addressbook.persistence;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import static java.util.Arrays.asList;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class FullNameDictionaryTest {
+
+    @Test
+    public void decodeReturnsEveryFullNameUnchanged() {
+        List<String> fullNames = asList("Paul Robinson", "Paul  Robinson", " Paul Robinson ", "", " ", "Paul",
+                "Zoë Åberg", "Zoë Robinson", "Robinson Paul", "Wes Jackson");
+        FullNameDictionary dictionary = dictionaryOf(fullNames);
+
+        for (String fullName : fullNames) {
+            byte[] encoded = dictionary.encode(fullName.getBytes(StandardCharsets.UTF_8));
+
+            assertThat(dictionary.decode(encoded, 0, encoded.length)).isEqualTo(fullName);
+        }
+    }
+
+    @Test
+    public void onlyRepeatedTokensAreInterned() {
+        FullNameDictionary dictionary = dictionaryOf(asList("Paul Robinson", "Paul Jackson", "Wes Jackson", "Zoë Lane"));
+
+        assertThat(dictionary.numberOfTokens()).isEqualTo(2);
+        assertThat(dictionary.encode("Paul Jackson".getBytes(StandardCharsets.UTF_8))).hasSize(2);
+        assertThat(dictionary.encode("Zoë Lane".getBytes(StandardCharsets.UTF_8))).hasSize(1 + 4 + 1 + 4);
+    }
+
+    @Test
+    public void equalFullNamesHaveEqualEncodingsAndDifferentOnesDoNot() {
+        Random random = new Random(7);
+        String[] tokens = {"Ann", "Bob", "Lee", "Ng", "Ó", ""};
+        String[] fullNames = new String[2000];
+        for (int i = 0; i < fullNames.length; i++) {
+            StringBuilder fullName = new StringBuilder(tokens[random.nextInt(tokens.length)]);
+            for (int token = random.nextInt(3); token > 0; token--) {
+                fullName.append(' ').append(tokens[random.nextInt(tokens.length)]);
+            }
+            fullNames[i] = fullName.toString();
+        }
+        FullNameDictionary dictionary = dictionaryOf(asList(fullNames).subList(0, 1000));
+
+        for (int i = 0; i < 200; i++) {
+            String fullName = fullNames[random.nextInt(fullNames.length)];
+            String otherFullName = fullNames[random.nextInt(fullNames.length)];
+            byte[] encoded = dictionary.encode(fullName.getBytes(StandardCharsets.UTF_8));
+            byte[] otherEncoded = dictionary.encode(otherFullName.getBytes(StandardCharsets.UTF_8));
+
+            assertThat(Arrays.equals(encoded, otherEncoded)).isEqualTo(fullName.equals(otherFullName));
+        }
+    }
+
+    @Test
+    public void mostFrequentTokensHaveTheSmallestEncoding() {
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            names.add("Token" + (i % 150) + " Smith");
+        }
+        FullNameDictionary dictionary = dictionaryOf(names);
+
+        assertThat(dictionary.encode("Smith".getBytes(StandardCharsets.UTF_8))).hasSize(1);
+    }
+
+    private static FullNameDictionary dictionaryOf(List<String> fullNames) {
+        byte[][] encodedFullNames = new byte[fullNames.size()][];
+        int length = 0;
+        for (int i = 0; i < fullNames.size(); i++) {
+            encodedFullNames[i] = fullNames.get(i).getBytes(StandardCharsets.UTF_8);
+            length += encodedFullNames[i].length;
+        }
+
+        byte[] arena = new byte[length];
+        int[] offsets = new int[fullNames.size() + 1];
+        for (int i = 0; i < fullNames.size(); i++) {
+            System.arraycopy(encodedFullNames[i], 0, arena, offsets[i], encodedFullNames[i].length);
+            offsets[i + 1] = offsets[i] + encodedFullNames[i].length;
+        }
+        return FullNameDictionary.build(arena, offsets, fullNames.size());
+    }
+}
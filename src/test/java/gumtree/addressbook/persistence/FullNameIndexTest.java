@@ -0,0 +1,111 @@
+package gumtree.addressbook.persistence;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import gumtree.addressbook.domain.Contact;
+import gumtree.addressbook.domain.Gender;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class FullNameIndexTest {
+
+    @Test
+    public void findSimilarReturnsTheSameContactsAsAScan() {
+        Random random = new Random(42);
+        List<Contact> contacts = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            contacts.add(new Contact(randomName(random), Gender.FEMALE, LocalDate.of(1980, 1, 1)));
+        }
+        FullNameIndex fullNameIndex = new FullNameIndex(contacts.size(), row -> contacts.get(row).getFullName());
+
+        for (int i = 0; i < 200; i++) {
+            String query = i % 2 == 0 ? randomName(random) : typo(contacts.get(random.nextInt(contacts.size())).getFullName(), random);
+            int maxDistance = random.nextInt(4);
+
+            assertThat(toContacts(fullNameIndex.findSimilar(query, maxDistance, 50), contacts))
+                    .as("%s within %d", query, maxDistance)
+                    .isEqualTo(FullNameSearches.findSimilar(contacts.stream(), query, maxDistance, 50));
+        }
+    }
+
+    @Test
+    public void findByPrefixReturnsTheSameContactsAsAScan() {
+        Random random = new Random(7);
+        List<Contact> contacts = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            contacts.add(new Contact(randomName(random), Gender.MALE, LocalDate.of(1980, 1, 1)));
+        }
+        FullNameIndex fullNameIndex = new FullNameIndex(contacts.size(), row -> contacts.get(row).getFullName());
+
+        for (int i = 0; i < 200; i++) {
+            String prefix = randomName(random).substring(0, random.nextInt(4));
+            int offset = random.nextInt(20);
+
+            assertThat(toContacts(fullNameIndex.findByPrefix(prefix, offset, 25), contacts))
+                    .isEqualTo(FullNameSearches.findByPrefix(contacts.stream(), prefix, offset, 25));
+        }
+    }
+
+    @Test
+    public void offHeapIndexReturnsTheSameRowsAsTheHeapIndex() {
+        Random random = new Random(11);
+        List<String> fullNames = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            fullNames.add(randomName(random));
+        }
+        FullNameIndex heapIndex = new FullNameIndex(fullNames.size(), fullNames::get);
+        FullNameIndex offHeapIndex = new FullNameIndex(fullNames.size(), fullNames::get, true);
+
+        for (int i = 0; i < 100; i++) {
+            String query = randomName(random);
+
+            assertThat(offHeapIndex.findSimilar(query, 2, 50)).isEqualTo(heapIndex.findSimilar(query, 2, 50));
+            assertThat(offHeapIndex.findByPrefix(query.substring(0, 2), 0, 50))
+                    .isEqualTo(heapIndex.findByPrefix(query.substring(0, 2), 0, 50));
+        }
+    }
+
+    @Test
+    public void containsFullNameOnlyFindsIndexedNames() {
+        List<String> fullNames = Arrays.asList("Wes Jackson", "Gemma Lane", "Gemma Lane", "Paul Robinson");
+        FullNameIndex fullNameIndex = new FullNameIndex(fullNames.size(), fullNames::get);
+
+        assertThat(fullNameIndex.containsFullName("Gemma Lane")).isTrue();
+        assertThat(fullNameIndex.containsFullName("Gemma")).isFalse();
+        assertThat(fullNameIndex.containsFullName("Zoe Ball")).isFalse();
+        assertThat(fullNameIndex.getNumberOfFullNames()).isEqualTo(3);
+    }
+
+    private static List<Contact> toContacts(int[] rows, List<Contact> contacts) {
+        List<Contact> matches = new ArrayList<>();
+        for (int row : rows) {
+            matches.add(contacts.get(row));
+        }
+        return matches;
+    }
+
+    private static String randomName(Random random) {
+        StringBuilder name = new StringBuilder();
+        int length = 3 + random.nextInt(8);
+        for (int i = 0; i < length; i++) {
+            name.append((char) ('a' + random.nextInt(4)));
+        }
+        return name.toString();
+    }
+
+    private static String typo(String name, Random random) {
+        StringBuilder typo = new StringBuilder(name);
+        int position = random.nextInt(typo.length());
+        if (random.nextBoolean()) {
+            typo.setCharAt(position, 'z');
+        } else {
+            typo.deleteCharAt(position);
+        }
+        return typo.toString();
+    }
+}
@@ -0,0 +1,26 @@
+package gumtree.addressbook.persistence;
+
+import java.util.List;
+
+import gumtree.addressbook.domain.Contact;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+public class IndexedAddressBookRepositoryTest extends AddressBookRepositoryContract {
+
+    @Test
+    public void constructorThrowsExceptionWhenListOfContactsIsNull() {
+
+        Throwable caughtException = catchThrowable(() -> new IndexedAddressBookRepository(null));
+
+        assertThat(caughtException).isExactlyInstanceOf(NullPointerException.class);
+        assertThat(caughtException).hasMessage("contacts cannot be null");
+    }
+
+    @Override
+    protected AddressBookRepository newRepository(List<Contact> contacts) {
+        return new IndexedAddressBookRepository(contacts);
+    }
+}
@@ -0,0 +1,59 @@
+package gumtree.addressbook.persistence;
+
+import java.util.List;
+
+import gumtree.addressbook.domain.Contact;
+import gumtree.addressbook.domain.Gender;
+import gumtree.addressbook.metrics.MetricsRegistry;
+import org.junit.Test;
+
+import static java.util.Arrays.asList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+public class InstrumentedAddressBookRepositoryTest extends AddressBookRepositoryContract {
+
+    private MetricsRegistry metricsRegistry = new MetricsRegistry();
+
+    @Test
+    public void queriesRecordTheirLatencyAndTheNumberOfContactsTheyReturn() {
+        AddressBookRepository addressBook = newRepository(asList(paul, gemma, wes, sarah));
+
+        addressBook.countByGender(Gender.MALE);
+        addressBook.findOldest(3);
+
+        assertThat(metricsRegistry.getLatencies().get("repository.countByGender").getCount()).isEqualTo(1);
+        assertThat(metricsRegistry.getLatencies().get("repository.findOldest").getCount()).isEqualTo(1);
+        assertThat(metricsRegistry.getCounters()).containsEntry("repository.findOldest.rows", 3L);
+    }
+
+    @Test
+    public void lookupsCountTheirHitsAndMisses() {
+        AddressBookRepository addressBook = newRepository(asList(paul, gemma, wes));
+
+        addressBook.findByFullName("Paul Robinson");
+        addressBook.findByFullName("Nobody");
+        addressBook.findByFullNames(asList("Wes Jackson", "Gemma Lane", "Nobody"));
+
+        assertThat(metricsRegistry.getCounters())
+                .containsEntry("repository.findByFullName.hits", 1L)
+                .containsEntry("repository.findByFullName.misses", 1L)
+                .containsEntry("repository.findByFullNames.hits", 2L)
+                .containsEntry("repository.findByFullNames.misses", 1L);
+    }
+
+    @Test
+    public void constructorThrowsExceptionWhenMetricsIsNull() {
+
+        Throwable caughtException = catchThrowable(() ->
+                new InstrumentedAddressBookRepository(new InMemoryAddressBookRepository(asList(paul)), null));
+
+        assertThat(caughtException).isExactlyInstanceOf(NullPointerException.class);
+        assertThat(caughtException).hasMessage("metrics cannot be null");
+    }
+
+    @Override
+    protected AddressBookRepository newRepository(List<Contact> contacts) {
+        return new InstrumentedAddressBookRepository(new IndexedAddressBookRepository(contacts), metricsRegistry);
+    }
+}
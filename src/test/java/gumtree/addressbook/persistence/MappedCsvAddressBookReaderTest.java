@@ -0,0 +1,191 @@
+package gumtree.addressbook.persistence;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import gumtree.addressbook.domain.Contact;
+import gumtree.addressbook.domain.Gender;
+import gumtree.addressbook.metrics.MetricsRegistry;
+import org.junit.After;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+public class MappedCsvAddressBookReaderTest {
+
+    private Contact bill = new Contact("Bill McKnight", Gender.MALE, LocalDate.of(1977, 3, 16));
+    private Contact paul = new Contact("Paul Robinson", Gender.MALE, LocalDate.of(1985, 1, 15));
+    private Contact gemma = new Contact("Gemma Lane", Gender.FEMALE, LocalDate.of(1991, 11, 20));
+    private Contact wes = new Contact("Wes Jackson", Gender.MALE, LocalDate.of(1974, 8, 14));
+
+    private Path temporaryAddressBook;
+
+    @After
+    public void deleteTemporaryAddressBook() throws IOException {
+        if (temporaryAddressBook != null) {
+            Files.delete(temporaryAddressBook);
+        }
+    }
+
+    @Test
+    public void readThrowsExceptionWhenThereIsARecordWithLessThanThreeColumns() throws Exception {
+        MappedCsvAddressBookReader csvAddressBookReader = new MappedCsvAddressBookReader(getResourcePath("AddressBookWithOneRecordWithoutFullName"));
+
+        Throwable caughtException = catchThrowable(csvAddressBookReader::read);
+
+        assertThat(caughtException).isExactlyInstanceOf(PersistenceException.class);
+        assertThat(caughtException).hasMessage("Line 1 is invalid. There are missing fields");
+    }
+
+    @Test
+    public void readThrowsExceptionWhenThereIsARecordWithInvalidGenderValue() throws Exception {
+        MappedCsvAddressBookReader csvAddressBookReader = new MappedCsvAddressBookReader(getResourcePath("AddressBookWithOneRecordWithInvalidGender"));
+
+        Throwable caughtException = catchThrowable(csvAddressBookReader::read);
+
+        assertThat(caughtException).isExactlyInstanceOf(PersistenceException.class);
+        assertThat(caughtException).hasMessage("Line 2 is invalid. Gender must be one of \"Male\" or \"Female\". value=\"invalid gender\"");
+    }
+
+    @Test
+    public void readThrowsExceptionWhenDateOfBirthHasInvalidFormat() throws Exception {
+        MappedCsvAddressBookReader csvAddressBookReader = new MappedCsvAddressBookReader(getResourcePath("AddressBookWithOneRecordWithInvalidDateOfBirth"));
+
+        Throwable caughtException = catchThrowable(csvAddressBookReader::read);
+
+        assertThat(caughtException).isExactlyInstanceOf(PersistenceException.class);
+        assertThat(caughtException).hasMessage("Line 3 is invalid. Date of birth must have the format \"dd/MM/yy\". value=\"invalid dob\"");
+    }
+
+    @Test
+    public void readReturnsEmptyListWhenAddressBookIsEmpty() throws Exception {
+        MappedCsvAddressBookReader csvAddressBookReader = new MappedCsvAddressBookReader(getResourcePath("EmptyAddressBook"));
+
+        List<Contact> actualContactList = csvAddressBookReader.read();
+
+        assertThat(actualContactList).isEmpty();
+    }
+
+    @Test
+    public void readReturnsAllContactsInTheAddressBook() throws Exception {
+        MappedCsvAddressBookReader csvAddressBookReader = new MappedCsvAddressBookReader(getResourcePath("AddressBookWithMultipleContacts"));
+
+        List<Contact> actualContactList = csvAddressBookReader.read();
+
+        assertThat(actualContactList).containsExactly(paul, gemma, wes);
+    }
+
+    @Test
+    public void readRecordsTheTimeSpentInEachPhaseWhenMetricsAreEnabled() throws Exception {
+        MetricsRegistry metricsRegistry = new MetricsRegistry();
+        MappedCsvAddressBookReader csvAddressBookReader = new MappedCsvAddressBookReader(
+                getResourcePath("AddressBookWithMultipleContacts"), new DateOfBirthParser(),
+                MappedCsvAddressBookReader.DEFAULT_WINDOW_SIZE, metricsRegistry);
+
+        List<Contact> actualContactList = csvAddressBookReader.read();
+
+        assertThat(metricsRegistry.getCounters()).containsEntry("load.records", (long) actualContactList.size());
+        assertThat(metricsRegistry.getLatencies())
+                .containsOnlyKeys("load.parse", "load.map", "load.index", "load.total");
+    }
+
+    @Test
+    public void readSkipsEmptyLinesAndAcceptsAnyLineSeparator() throws Exception {
+        MappedCsvAddressBookReader csvAddressBookReader = new MappedCsvAddressBookReader(writeAddressBook(
+                "\nPaul Robinson, Male, 15/01/85\r\n\r\nGemma Lane, female, 20/11/91\rWes Jackson, MALE, 14/08/74\n"));
+
+        List<Contact> actualContactList = csvAddressBookReader.read();
+
+        assertThat(actualContactList).containsExactly(paul, gemma, wes);
+    }
+
+    @Test
+    public void readUnescapesQuotedValues() throws Exception {
+        MappedCsvAddressBookReader csvAddressBookReader = new MappedCsvAddressBookReader(writeAddressBook(
+                "\"McKnight, Bill \"\"The Bull\"\"\",Male,\"16/03/77\"\n\"Gemma\nLane\", Female, 20/11/91"));
+
+        List<Contact> actualContactList = csvAddressBookReader.read();
+
+        assertThat(actualContactList).containsExactly(
+                new Contact("McKnight, Bill \"The Bull\"", Gender.MALE, bill.getDateOfBirth()),
+                new Contact("Gemma\nLane", Gender.FEMALE, gemma.getDateOfBirth()));
+    }
+
+    @Test
+    public void readDecodesFullNamesAsUtf8() throws Exception {
+        MappedCsvAddressBookReader csvAddressBookReader = new MappedCsvAddressBookReader(writeAddressBook("Zoë Åberg, Female, 01/02/03"));
+
+        List<Contact> actualContactList = csvAddressBookReader.read();
+
+        assertThat(actualContactList).containsExactly(new Contact("Zoë Åberg", Gender.FEMALE, LocalDate.of(2003, 2, 1)));
+    }
+
+    @Test
+    public void readReturnsTheSameContactsAsCommonsCsvWhenTheFileIsMappedInManyWindows() throws Exception {
+        StringBuilder addressBook = new StringBuilder();
+        for (int i = 0; i < 500; i++) {
+            addressBook.append(String.format("\"Contact, %d\", %s, %02d/%02d/%02d\r\n", i, i % 3 == 0 ? "Female" : "Male", i % 28 + 1, i % 12 + 1, i % 100));
+        }
+        Path addressBookPath = writeAddressBook(addressBook.toString());
+
+        List<Contact> actualContactList = new MappedCsvAddressBookReader(addressBookPath, new DateOfBirthParser(), 50).read();
+
+        List<Contact> expectedContactList = new CsvAddressBookReader(addressBookPath.toUri().toURL()).read();
+        assertThat(actualContactList).hasSize(500).isEqualTo(expectedContactList);
+    }
+
+    @Test
+    public void readThrowsExceptionWhenARecordDoesNotFitInTheMappingWindow() throws Exception {
+        MappedCsvAddressBookReader csvAddressBookReader = new MappedCsvAddressBookReader(
+                writeAddressBook("Bill McKnight, Male, 16/03/77\n"), new DateOfBirthParser(), 10);
+
+        Throwable caughtException = catchThrowable(csvAddressBookReader::read);
+
+        assertThat(caughtException).isExactlyInstanceOf(PersistenceException.class);
+        assertThat(caughtException.getCause()).hasMessage("Record 1 is longer than 10 bytes");
+    }
+
+    @Test
+    public void readPassesContactsReadBeforeAnInvalidRecordToTheConsumer() throws Exception {
+        MappedCsvAddressBookReader csvAddressBookReader = new MappedCsvAddressBookReader(getResourcePath("AddressBookWithOneRecordWithInvalidGender"));
+        List<Contact> consumedContacts = new ArrayList<>();
+
+        catchThrowable(() -> csvAddressBookReader.read(consumedContacts::add));
+
+        assertThat(consumedContacts).containsExactly(paul);
+    }
+
+    @Test
+    public void lenientReadSkipsInvalidRecordsAndCollectsThemUpToTheMaximum() throws Exception {
+        MappedCsvAddressBookReader csvAddressBookReader = new MappedCsvAddressBookReader(writeAddressBook(
+                "Paul Robinson, Male, 15/01/85\nGemma Lane, Unknown, 20/11/91\nBill McKnight, Male\n\nWes Jackson, Male, 14/08/74\nSarah Stone, Female, 31/13/80\n"));
+        InvalidRecordCollector invalidRecordCollector = InvalidRecordCollector.lenient(2);
+        List<Contact> consumedContacts = new ArrayList<>();
+
+        csvAddressBookReader.read(consumedContacts::add, invalidRecordCollector);
+
+        assertThat(consumedContacts).containsExactly(paul, wes);
+        assertThat(invalidRecordCollector.getInvalidRecords()).containsExactly(
+                new InvalidRecord(2, InvalidRecord.Column.GENDER,
+                        "Gender must be one of \"Male\" or \"Female\". value=\"Unknown\""),
+                new InvalidRecord(3, null, "There are missing fields"));
+        assertThat(invalidRecordCollector.getNumberOfInvalidRecords()).isEqualTo(3);
+    }
+
+    private Path writeAddressBook(String content) throws IOException {
+        temporaryAddressBook = Files.createTempFile("AddressBook", ".csv");
+        Files.write(temporaryAddressBook, content.getBytes(StandardCharsets.UTF_8));
+        return temporaryAddressBook;
+    }
+
+    private Path getResourcePath(String csvFilePathInJar) throws Exception {
+        return Paths.get(getClass().getClassLoader().getResource(csvFilePathInJar).toURI());
+    }
+}
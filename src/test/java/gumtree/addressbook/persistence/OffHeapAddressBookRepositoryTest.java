@@ -0,0 +1,66 @@
+package gumtree.addressbook.persistence;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import gumtree.addressbook.domain.Contact;
+import gumtree.addressbook.domain.Gender;
+import org.junit.Test;
+
+import static java.util.Arrays.asList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+public class OffHeapAddressBookRepositoryTest extends AddressBookRepositoryContract {
+
+    @Test
+    public void constructorThrowsExceptionWhenListOfContactsIsNull() {
+
+        Throwable caughtException = catchThrowable(() -> new OffHeapAddressBookRepository(null));
+
+        assertThat(caughtException).isExactlyInstanceOf(NullPointerException.class);
+        assertThat(caughtException).hasMessage("contacts cannot be null");
+    }
+
+    @Test
+    public void findByNameReturnsContactWithNonAsciiFullName() {
+        Contact zoe = new Contact("Zoë Åberg", Gender.FEMALE, LocalDate.of(2003, 2, 1));
+        OffHeapAddressBookRepository addressBook = new OffHeapAddressBookRepository(asList(paul, zoe, wes));
+
+        Optional<Contact> actualContact = addressBook.findByFullName("Zoë Åberg");
+
+        assertThat(actualContact).contains(zoe);
+    }
+
+    @Test
+    public void findByNameFindsEveryContactWhenTheIndexHasManyCollisions() {
+        List<Contact> contacts = new ArrayList<>();
+        for (int i = 0; i < 10000; i++) {
+            contacts.add(new Contact("Contact " + i, i % 2 == 0 ? Gender.MALE : Gender.FEMALE, LocalDate.ofEpochDay(i)));
+        }
+        OffHeapAddressBookRepository addressBook = new OffHeapAddressBookRepository(contacts);
+
+        for (Contact contact : contacts) {
+            assertThat(addressBook.findByFullName(contact.getFullName())).contains(contact);
+        }
+        assertThat(addressBook.findByFullName("Contact 10000")).isEmpty();
+    }
+
+    @Test
+    public void findByDateOfBirthBetweenReturnsContactsBornAcrossAWideRangeOfDates() {
+        Contact ancient = new Contact("Ancient", Gender.MALE, LocalDate.of(1066, 10, 14));
+        Contact future = new Contact("Future", Gender.FEMALE, LocalDate.of(2999, 1, 1));
+        OffHeapAddressBookRepository addressBook = new OffHeapAddressBookRepository(asList(future, paul, ancient));
+
+        List<Contact> actualContacts = addressBook.findByDateOfBirthBetween(LocalDate.MIN, LocalDate.MAX);
+
+        assertThat(actualContacts).containsExactly(ancient, paul, future);
+    }
+
+    @Override
+    protected AddressBookRepository newRepository(List<Contact> contacts) {
+        return new OffHeapAddressBookRepository(contacts);
+    }
+}
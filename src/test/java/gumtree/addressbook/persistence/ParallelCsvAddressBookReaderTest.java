@@ -0,0 +1,198 @@
+package gumtree.addressbook.persistence;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import gumtree.addressbook.domain.Contact;
+import gumtree.addressbook.domain.Gender;
+import gumtree.addressbook.metrics.MetricsRegistry;
+import org.junit.After;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.assertj.core.api.Assertions.tuple;
+
+public class ParallelCsvAddressBookReaderTest {
+
+    private ForkJoinPool forkJoinPool = new ForkJoinPool(4);
+
+    @After
+    public void shutdownForkJoinPool() {
+        forkJoinPool.shutdownNow();
+    }
+
+    @Test
+    public void readReturnsEmptyListWhenAddressBookIsEmpty() throws Exception {
+        List<Contact> actualContactList = newReaderWithOneLinePerChunk("EmptyAddressBook").read();
+
+        assertThat(actualContactList).isEmpty();
+    }
+
+    @Test
+    public void readReturnsAllContactsInTheOrderTheyAppearInTheAddressBook() throws Exception {
+        List<Contact> actualContactList = newReaderWithOneLinePerChunk("AddressBookWithMultipleContacts").read();
+
+        Contact paul = new Contact("Paul Robinson", Gender.MALE, LocalDate.of(1985, 1, 15));
+        Contact gemma = new Contact("Gemma Lane", Gender.FEMALE, LocalDate.of(1991, 11, 20));
+        Contact wes = new Contact("Wes Jackson", Gender.MALE, LocalDate.of(1974, 8, 14));
+        assertThat(actualContactList).containsExactly(paul, gemma, wes);
+    }
+
+    @Test
+    public void readReturnsTheSameContactsAsTheSequentialReaderWhenTheFileIsSplitInManyChunks() throws Exception {
+        Path addressBook = Files.createTempFile("AddressBook", ".csv");
+        try {
+            List<String> lines = new ArrayList<>();
+            for (int i = 0; i < 1000; i++) {
+                lines.add(String.format("Contact %d, %s, %02d/%02d/%02d", i, i % 3 == 0 ? "Female" : "Male", i % 28 + 1, i % 12 + 1, i % 100));
+            }
+            Files.write(addressBook, lines);
+
+            List<Contact> actualContactList = new ParallelCsvAddressBookReader(addressBook, forkJoinPool, 100, new DateOfBirthParser()).read();
+
+            List<Contact> expectedContactList = new CsvAddressBookReader(addressBook.toUri().toURL()).read();
+            assertThat(actualContactList).hasSize(1000).isEqualTo(expectedContactList);
+        } finally {
+            Files.delete(addressBook);
+        }
+    }
+
+    @Test
+    public void readReturnsTheSameContactsAsTheSequentialReaderWhenQuotedValuesContainLineBreaks() throws Exception {
+        Path addressBook = Files.createTempFile("AddressBook", ".csv");
+        try {
+            List<String> lines = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                String fullName = i % 4 == 0 ? "\"Contact\n" + i + "\r\n,\"\"\n\"" : "Contact " + i;
+                lines.add(String.format("%s, %s, %02d/%02d/%02d", fullName, i % 3 == 0 ? "Female" : "Male", i % 28 + 1, i % 12 + 1, i % 100));
+            }
+            Files.write(addressBook, lines);
+
+            List<Contact> actualContactList = new ParallelCsvAddressBookReader(addressBook, forkJoinPool, 1, new DateOfBirthParser()).read();
+
+            List<Contact> expectedContactList = new CsvAddressBookReader(addressBook.toUri().toURL()).read();
+            assertThat(actualContactList).hasSize(200).isEqualTo(expectedContactList);
+            assertThat(actualContactList.get(0).getFullName()).isEqualTo("Contact\n0\r\n,\"\n");
+        } finally {
+            Files.delete(addressBook);
+        }
+    }
+
+    @Test
+    public void readRecordsTheTimeSpentInEachPhaseWhenMetricsAreEnabled() throws Exception {
+        Path addressBook = Files.createTempFile("AddressBook", ".csv");
+        try {
+            List<String> lines = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                String fullName = i % 4 == 0 ? "\"Contact\n" + i + "\"" : "Contact " + i;
+                lines.add(String.format("%s, Male, %02d/%02d/%02d", fullName, i % 28 + 1, i % 12 + 1, i % 100));
+            }
+            Files.write(addressBook, lines);
+            MetricsRegistry metricsRegistry = new MetricsRegistry();
+
+            List<Contact> actualContactList = new ParallelCsvAddressBookReader(
+                    addressBook, forkJoinPool, 1, new DateOfBirthParser(), metricsRegistry).read();
+
+            assertThat(actualContactList).hasSize(200);
+            assertThat(metricsRegistry.getCounters()).containsEntry("load.records", 200L);
+            assertThat(metricsRegistry.getLatencies())
+                    .containsOnlyKeys("load.parse", "load.map", "load.index", "load.total");
+        } finally {
+            Files.delete(addressBook);
+        }
+    }
+
+    @Test
+    public void readThrowsExceptionWithTheRecordNumberInTheWholeFileWhenAnInvalidRecordFollowsAQuotedLineBreak() throws Exception {
+        Path addressBook = Files.createTempFile("AddressBook", ".csv");
+        try {
+            Files.write(addressBook, "\"Paul\nRobinson\", Male, 15/01/85\n\"Gemma\nLane\", Unknown, 20/11/91\n".getBytes());
+            List<Contact> consumedContacts = new ArrayList<>();
+
+            Throwable caughtException = catchThrowable(() -> new ParallelCsvAddressBookReader(addressBook, forkJoinPool, 1, new DateOfBirthParser())
+                    .read(consumedContacts::add));
+
+            assertThat(caughtException).hasMessage("Line 2 is invalid. Gender must be one of \"Male\" or \"Female\". value=\"Unknown\"");
+            assertThat(consumedContacts).containsExactly(new Contact("Paul\nRobinson", Gender.MALE, LocalDate.of(1985, 1, 15)));
+        } finally {
+            Files.delete(addressBook);
+        }
+    }
+
+    @Test
+    public void readThrowsExceptionWithTheRecordNumberInTheWholeFileWhenThereIsARecordWithInvalidGenderValue() throws Exception {
+        ParallelCsvAddressBookReader csvAddressBookReader = newReaderWithOneLinePerChunk("AddressBookWithOneRecordWithInvalidGender");
+
+        Throwable caughtException = catchThrowable(csvAddressBookReader::read);
+
+        assertThat(caughtException).isExactlyInstanceOf(PersistenceException.class);
+        assertThat(caughtException).hasMessage("Line 2 is invalid. Gender must be one of \"Male\" or \"Female\". value=\"invalid gender\"");
+    }
+
+    @Test
+    public void readThrowsExceptionWithTheRecordNumberInTheWholeFileWhenDateOfBirthHasInvalidFormat() throws Exception {
+        ParallelCsvAddressBookReader csvAddressBookReader = newReaderWithOneLinePerChunk("AddressBookWithOneRecordWithInvalidDateOfBirth");
+
+        Throwable caughtException = catchThrowable(csvAddressBookReader::read);
+
+        assertThat(caughtException).isExactlyInstanceOf(PersistenceException.class);
+        assertThat(caughtException).hasMessage("Line 3 is invalid. Date of birth must have the format \"dd/MM/yy\". value=\"invalid dob\"");
+    }
+
+    @Test
+    public void readPassesContactsReadBeforeAnInvalidRecordToTheConsumer() throws Exception {
+        ParallelCsvAddressBookReader csvAddressBookReader = newReaderWithOneLinePerChunk("AddressBookWithOneRecordWithInvalidGender");
+        List<Contact> consumedContacts = new ArrayList<>();
+
+        catchThrowable(() -> csvAddressBookReader.read(consumedContacts::add));
+
+        assertThat(consumedContacts).containsExactly(new Contact("Paul Robinson", Gender.MALE, LocalDate.of(1985, 1, 15)));
+    }
+
+    @Test
+    public void readThrowsExceptionWhenAddressBookFileDoesNotExist() {
+        ParallelCsvAddressBookReader csvAddressBookReader = new ParallelCsvAddressBookReader(Paths.get("does not exist"), forkJoinPool);
+
+        Throwable caughtException = catchThrowable(csvAddressBookReader::read);
+
+        assertThat(caughtException).isExactlyInstanceOf(PersistenceException.class);
+        assertThat(caughtException).hasCauseInstanceOf(IOException.class);
+    }
+
+    @Test
+    public void lenientReadCollectsInvalidRecordsFromEveryChunkInFileOrder() throws Exception {
+        Path addressBook = Files.createTempFile("AddressBook", ".csv");
+        try {
+            Files.write(addressBook, ("Paul Robinson, Male, 15/01/85\nGemma Lane, Unknown, 20/11/91\nBill McKnight, Male\n\nWes Jackson, Male, 14/08/74\nSarah Stone, Female, 31/13/80\n").getBytes());
+            InvalidRecordCollector invalidRecordCollector = InvalidRecordCollector.lenient(10);
+
+            List<Contact> actualContactList = new ArrayList<>();
+            new ParallelCsvAddressBookReader(addressBook, forkJoinPool, 1, new DateOfBirthParser())
+                    .read(actualContactList::add, invalidRecordCollector);
+
+            assertThat(actualContactList).containsExactly(
+                    new Contact("Paul Robinson", Gender.MALE, LocalDate.of(1985, 1, 15)),
+                    new Contact("Wes Jackson", Gender.MALE, LocalDate.of(1974, 8, 14)));
+            assertThat(invalidRecordCollector.getInvalidRecords())
+                    .extracting(InvalidRecord::getRecordNumber, InvalidRecord::getColumn)
+                    .containsExactly(
+                            tuple(2L, InvalidRecord.Column.GENDER),
+                            tuple(3L, null),
+                            tuple(5L, InvalidRecord.Column.DATE_OF_BIRTH));
+        } finally {
+            Files.delete(addressBook);
+        }
+    }
+
+    private ParallelCsvAddressBookReader newReaderWithOneLinePerChunk(String csvFilePathInJar) throws Exception {
+        Path csvFilePath = Paths.get(getClass().getClassLoader().getResource(csvFilePathInJar).toURI());
+        return new ParallelCsvAddressBookReader(csvFilePath, forkJoinPool, 1, new DateOfBirthParser());
+    }
+}
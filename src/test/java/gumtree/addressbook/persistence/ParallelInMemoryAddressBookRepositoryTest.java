@@ -0,0 +1,75 @@
+package gumtree.addressbook.persistence;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import gumtree.addressbook.domain.Contact;
+import gumtree.addressbook.domain.Gender;
+import org.junit.After;
+import org.junit.Test;
+
+import static java.util.Collections.emptyList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+public class ParallelInMemoryAddressBookRepositoryTest extends AddressBookRepositoryContract {
+
+    private ForkJoinPool forkJoinPool = new ForkJoinPool(4);
+
+    @After
+    public void shutdownForkJoinPool() {
+        forkJoinPool.shutdownNow();
+    }
+
+    @Test
+    public void parallelScansReturnTheSameResultsAsSequentialScans() {
+        List<Contact> contacts = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            Gender gender = i % 3 == 0 ? Gender.FEMALE : Gender.MALE;
+            contacts.add(new Contact("Person " + (i % 2_500), gender, LocalDate.of(1950, 1, 1).plusDays(i % 3_650)));
+        }
+        AddressBookRepository sequential = new InMemoryAddressBookRepository(contacts);
+        AddressBookRepository parallel = new InMemoryAddressBookRepository(contacts, forkJoinPool, 1);
+
+        assertThat(parallel.countByGender(Gender.FEMALE)).isEqualTo(sequential.countByGender(Gender.FEMALE));
+        assertThat(parallel.findByFullName("Person 42")).isEqualTo(sequential.findByFullName("Person 42"));
+        assertThat(parallel.findAllByFullName("Person 42")).isEqualTo(sequential.findAllByFullName("Person 42"));
+        assertThat(parallel.findByDateOfBirth(LocalDate.of(1955, 6, 1)))
+                .isEqualTo(sequential.findByDateOfBirth(LocalDate.of(1955, 6, 1)));
+        assertThat(parallel.findByDateOfBirthBetween(LocalDate.of(1952, 1, 1), LocalDate.of(1953, 1, 1)))
+                .isEqualTo(sequential.findByDateOfBirthBetween(LocalDate.of(1952, 1, 1), LocalDate.of(1953, 1, 1)));
+        assertThat(parallel.findOldest(100)).isEqualTo(sequential.findOldest(100));
+        assertThat(parallel.findYoungest(100)).isEqualTo(sequential.findYoungest(100));
+        assertThat(parallel.findByFullNamePrefix("Person 1", 10, 50))
+                .isEqualTo(sequential.findByFullNamePrefix("Person 1", 10, 50));
+        assertThat(parallel.findByFullNameSimilarTo("Persen 12", 2, 50))
+                .isEqualTo(sequential.findByFullNameSimilarTo("Persen 12", 2, 50));
+        assertThat(parallel.aggregate(ContactGrouping.BIRTH_YEAR))
+                .isEqualTo(sequential.aggregate(ContactGrouping.BIRTH_YEAR));
+    }
+
+    @Test
+    public void constructorThrowsExceptionWhenForkJoinPoolIsNull() {
+
+        Throwable caughtException = catchThrowable(() -> new InMemoryAddressBookRepository(emptyList(), null, 1));
+
+        assertThat(caughtException).isExactlyInstanceOf(NullPointerException.class);
+        assertThat(caughtException).hasMessage("forkJoinPool cannot be null");
+    }
+
+    @Test
+    public void constructorThrowsExceptionWhenParallelThresholdIsNotPositive() {
+
+        Throwable caughtException = catchThrowable(() -> new InMemoryAddressBookRepository(emptyList(), forkJoinPool, 0));
+
+        assertThat(caughtException).isExactlyInstanceOf(IllegalArgumentException.class);
+        assertThat(caughtException).hasMessage("parallelThreshold must be positive");
+    }
+
+    @Override
+    protected AddressBookRepository newRepository(List<Contact> contacts) {
+        return new InMemoryAddressBookRepository(contacts, forkJoinPool, 1);
+    }
+}
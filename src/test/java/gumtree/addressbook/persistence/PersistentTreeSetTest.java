@@ -0,0 +1,81 @@
+package gumtree.addressbook.persistence;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PersistentTreeSetTest {
+
+    @Test
+    public void withAndWithoutKeepTheSameElementsAsATreeSet() {
+        Random random = new Random(42);
+        PersistentTreeSet<Integer> set = PersistentTreeSet.empty(Comparator.naturalOrder());
+        TreeSet<Integer> expected = new TreeSet<>();
+
+        for (int i = 0; i < 5000; i++) {
+            Integer element = random.nextInt(1000);
+            if (random.nextInt(3) == 0) {
+                set = set.without(element);
+                expected.remove(element);
+            } else {
+                set = set.with(element);
+                expected.add(element);
+            }
+        }
+
+        assertThat(set).containsExactlyElementsOf(expected);
+        assertThat(set.size()).isEqualTo(expected.size());
+        assertThat(set.first()).isEqualTo(expected.first());
+        assertThat(set.last()).isEqualTo(expected.last());
+    }
+
+    @Test
+    public void olderVersionsAreLeftUnchanged() {
+        PersistentTreeSet<Integer> original = PersistentTreeSet.ofSorted(Comparator.naturalOrder(), range(0, 100));
+
+        PersistentTreeSet<Integer> changed = original.without(50).with(100).without(0);
+
+        assertThat(original).containsExactlyElementsOf(range(0, 100));
+        assertThat(changed).hasSize(99).doesNotContain(0, 50).contains(100);
+    }
+
+    @Test
+    public void withoutReturnsTheSameSetWhenTheElementIsMissing() {
+        PersistentTreeSet<Integer> set = PersistentTreeSet.ofSorted(Comparator.naturalOrder(), range(0, 10));
+
+        assertThat(set.without(20)).isSameAs(set);
+    }
+
+    @Test
+    public void iteratorReturnsTheElementsInTheRangeInAscendingOrder() {
+        PersistentTreeSet<Integer> set = PersistentTreeSet.ofSorted(Comparator.naturalOrder(), range(0, 1000));
+
+        Iterator<Integer> elements = set.iterator(element -> element < 250 ? -1 : element > 260 ? 1 : 0);
+
+        List<Integer> actualElements = new ArrayList<>();
+        elements.forEachRemaining(actualElements::add);
+        assertThat(actualElements).containsExactlyElementsOf(range(250, 261));
+        assertThat(set.iterator(element -> element < 2000 ? -1 : 1).hasNext()).isFalse();
+    }
+
+    @Test
+    public void lastBeforeReturnsTheLargestElementBeforeTheRange() {
+        PersistentTreeSet<Integer> set = PersistentTreeSet.ofSorted(Comparator.naturalOrder(), range(0, 1000));
+
+        assertThat(set.lastBefore(element -> element < 250 ? -1 : 0)).isEqualTo(249);
+        assertThat(set.lastBefore(element -> 0)).isNull();
+    }
+
+    private static List<Integer> range(int from, int to) {
+        return IntStream.range(from, to).boxed().collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,101 @@
+package gumtree.addressbook.persistence;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import gumtree.addressbook.domain.Contact;
+import gumtree.addressbook.domain.Gender;
+import org.junit.After;
+import org.junit.Test;
+
+import static java.util.Collections.emptyList;
+import static java.util.stream.Collectors.toList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+public class ShardedAddressBookRepositoryTest extends AddressBookRepositoryContract {
+
+    private ForkJoinPool forkJoinPool = new ForkJoinPool(4);
+
+    @After
+    public void shutdownForkJoinPool() {
+        forkJoinPool.shutdownNow();
+    }
+
+    @Test
+    public void shardedQueriesReturnTheSameResultsAsASingleRepository() {
+        List<Contact> contacts = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            Gender gender = i % 3 == 0 ? Gender.FEMALE : Gender.MALE;
+            contacts.add(new Contact("Person " + (i % 2_500), gender, LocalDate.of(1950, 1, 1).plusDays(i % 3_650)));
+        }
+        AddressBookRepository single = new IndexedAddressBookRepository(contacts);
+        AddressBookRepository sharded = new ShardedAddressBookRepository(contacts, 7, StorageLayout.COLUMNAR,
+                forkJoinPool);
+
+        assertThat(sharded.findAll().collect(toList())).isEqualTo(contacts);
+        assertThat(sharded.countByGender(Gender.FEMALE)).isEqualTo(single.countByGender(Gender.FEMALE));
+        assertThat(sharded.findByFullName("Person 42")).isEqualTo(single.findByFullName("Person 42"));
+        assertThat(sharded.findAllByFullName("Person 42")).isEqualTo(single.findAllByFullName("Person 42"));
+        List<String> fullNames = Arrays.asList("Person 7", "Nobody", "Person 2499", "Person 7");
+        assertThat(sharded.findByFullNames(fullNames)).isEqualTo(single.findByFullNames(fullNames));
+        assertThat(sharded.findEarliestDateOfBirth()).isEqualTo(single.findEarliestDateOfBirth());
+        assertThat(sharded.findLatestDateOfBirth()).isEqualTo(single.findLatestDateOfBirth());
+        List<Contact> bornOnTheDay = single.findByDateOfBirth(LocalDate.of(1955, 6, 1));
+        assertThat(sharded.findByDateOfBirth(LocalDate.of(1955, 6, 1)))
+                .hasSameSizeAs(bornOnTheDay)
+                .hasSameElementsAs(bornOnTheDay);
+        List<Contact> bornInTheYear = single.findByDateOfBirthBetween(LocalDate.of(1952, 1, 1), LocalDate.of(1953, 1, 1));
+        assertThat(sharded.findByDateOfBirthBetween(LocalDate.of(1952, 1, 1), LocalDate.of(1953, 1, 1)))
+                .hasSameSizeAs(bornInTheYear)
+                .hasSameElementsAs(bornInTheYear)
+                .isSortedAccordingTo((first, second) -> first.getDateOfBirth().compareTo(second.getDateOfBirth()));
+        assertThat(sharded.findOldest(100).stream().map(Contact::getDateOfBirth).collect(toList()))
+                .isEqualTo(single.findOldest(100).stream().map(Contact::getDateOfBirth).collect(toList()));
+        assertThat(sharded.findYoungest(100).stream().map(Contact::getDateOfBirth).collect(toList()))
+                .isEqualTo(single.findYoungest(100).stream().map(Contact::getDateOfBirth).collect(toList()));
+        assertThat(sharded.findByFullNamePrefix("Person 1", 10, 50))
+                .isEqualTo(single.findByFullNamePrefix("Person 1", 10, 50));
+        assertThat(sharded.findByFullNameSimilarTo("Persen 12", 2, 50))
+                .isEqualTo(single.findByFullNameSimilarTo("Persen 12", 2, 50));
+        assertThat(sharded.aggregate(ContactGrouping.BIRTH_YEAR)).isEqualTo(single.aggregate(ContactGrouping.BIRTH_YEAR));
+    }
+
+    @Test
+    public void constructorThrowsExceptionWhenNumberOfShardsIsNotPositive() {
+
+        Throwable caughtException = catchThrowable(() ->
+                new ShardedAddressBookRepository(emptyList(), 0, StorageLayout.INDEXED, forkJoinPool));
+
+        assertThat(caughtException).isExactlyInstanceOf(IllegalArgumentException.class);
+        assertThat(caughtException).hasMessage("numberOfShards must be positive");
+    }
+
+    @Test
+    public void constructorThrowsExceptionWhenNumberOfShardsIsTooLarge() {
+
+        Throwable caughtException = catchThrowable(() ->
+                new ShardedAddressBookRepository(emptyList(), 257, StorageLayout.INDEXED, forkJoinPool));
+
+        assertThat(caughtException).isExactlyInstanceOf(IllegalArgumentException.class);
+        assertThat(caughtException).hasMessage("numberOfShards cannot be more than 256");
+    }
+
+    @Test
+    public void constructorThrowsExceptionWhenForkJoinPoolIsNull() {
+
+        Throwable caughtException = catchThrowable(() ->
+                new ShardedAddressBookRepository(emptyList(), 4, StorageLayout.INDEXED, null));
+
+        assertThat(caughtException).isExactlyInstanceOf(NullPointerException.class);
+        assertThat(caughtException).hasMessage("forkJoinPool cannot be null");
+    }
+
+    @Override
+    protected AddressBookRepository newRepository(List<Contact> contacts) {
+        return new ShardedAddressBookRepository(contacts, 3, StorageLayout.INDEXED, forkJoinPool);
+    }
+}
@@ -3,15 +3,24 @@ package gumtree.addressbook.service;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.stream.Stream;
 
 import gumtree.addressbook.domain.Contact;
 import gumtree.addressbook.domain.Gender;
+import gumtree.addressbook.metrics.MetricsRegistry;
 import gumtree.addressbook.persistence.AddressBookRepository;
+import gumtree.addressbook.persistence.ContactGrouping;
+import gumtree.addressbook.persistence.ContactStatistics;
 import org.junit.Test;
 
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
 import static java.util.Collections.singletonList;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.mockito.Matchers.anyListOf;
 import static org.mockito.Matchers.anyString;
 import static org.mockito.Mockito.*;
 
@@ -44,6 +53,29 @@ public class AddressBookServiceTest {
         assertThat(actualOptionalContact).isEqualTo(expectedOldestPeople);
     }
 
+    @Test
+    public void findYoungestPeopleReturnsEmptyWhenThereIsNoLatestDateOfBirth() {
+        when(mockAddressBookRepository.findLatestDateOfBirth()).thenReturn(Optional.empty());
+
+        List<Contact> actualContacts = addressBookService.findYoungestPeople();
+
+        assertThat(actualContacts).isEmpty();
+        verify(mockAddressBookRepository, never()).findByDateOfBirth(any(LocalDate.class));
+    }
+
+    @Test
+    public void findYoungestPeopleReturnsListOfContactsThatMatchTheLatestDateOfBirth() {
+        LocalDate latestDateOfBirth = LocalDate.of(1991, 11, 20);
+        when(mockAddressBookRepository.findLatestDateOfBirth()).thenReturn(Optional.of(latestDateOfBirth));
+
+        List<Contact> expectedYoungestPeople = singletonList(new Contact("Gemma Lane", Gender.FEMALE, latestDateOfBirth));
+        when(mockAddressBookRepository.findByDateOfBirth(latestDateOfBirth)).thenReturn(expectedYoungestPeople);
+
+        List<Contact> actualContacts = addressBookService.findYoungestPeople();
+
+        assertThat(actualContacts).isEqualTo(expectedYoungestPeople);
+    }
+
     @Test
     public void ageDifferenceInDaysReturnsZeroWhenTheTwoPeopleWereBornOnTheSameDate() {
         Contact tom = new Contact("Tom Ford", Gender.MALE, LocalDate.of(1980, 12, 1));
@@ -137,4 +169,193 @@ public class AddressBookServiceTest {
         assertThat(caughtException).isExactlyInstanceOf(IllegalArgumentException.class);
         assertThat(caughtException).hasMessage("firstPersonFullName not found");
     }
-}
\ No newline at end of file
+
+    @Test
+    public void ageDifferencesInDaysResolvesEveryDistinctNameWithOneRepositoryCall() {
+        Contact sara = new Contact("Sara Stone", Gender.FEMALE, LocalDate.of(1980, 12, 2));
+        Contact tom = new Contact("Tom Ford", Gender.MALE, LocalDate.of(1980, 12, 12));
+        when(mockAddressBookRepository.findByFullNames(asList(sara.getFullName(), tom.getFullName())))
+                .thenReturn(asList(Optional.of(sara), Optional.of(tom)));
+
+        List<AgeDifference> actualAgeDifferences = addressBookService.ageDifferencesInDays(asList(
+                new FullNamePair(sara.getFullName(), tom.getFullName()),
+                new FullNamePair(tom.getFullName(), sara.getFullName())));
+
+        assertThat(actualAgeDifferences).extracting(AgeDifference::getDays).containsExactly(10L, 10L);
+        verify(mockAddressBookRepository, times(1)).findByFullNames(anyListOf(String.class));
+        verify(mockAddressBookRepository, never()).findByFullName(anyString());
+    }
+
+    @Test
+    public void ageDifferencesInDaysReportsMissingNamesPerPair() {
+        Contact sara = new Contact("Sara Stone", Gender.FEMALE, LocalDate.of(1980, 12, 2));
+        when(mockAddressBookRepository.findByFullNames(asList(sara.getFullName(), "not found", "missing")))
+                .thenReturn(asList(Optional.of(sara), Optional.empty(), Optional.empty()));
+
+        List<AgeDifference> actualAgeDifferences = addressBookService.ageDifferencesInDays(asList(
+                new FullNamePair(sara.getFullName(), sara.getFullName()),
+                new FullNamePair(sara.getFullName(), "not found"),
+                new FullNamePair("missing", "not found")));
+
+        assertThat(actualAgeDifferences).extracting(AgeDifference::isFound).containsExactly(true, false, false);
+        assertThat(actualAgeDifferences.get(0).getDays()).isZero();
+        assertThat(actualAgeDifferences.get(1).getMissingFullNames()).containsExactly("not found");
+        assertThat(actualAgeDifferences.get(2).getMissingFullNames()).containsExactly("missing", "not found");
+    }
+
+    @Test
+    public void ageDifferenceGetDaysThrowsExceptionWhenAPersonIsNotFound() {
+        when(mockAddressBookRepository.findByFullNames(asList("Sara Stone", "not found")))
+                .thenReturn(asList(Optional.empty(), Optional.empty()));
+        AgeDifference ageDifference = addressBookService
+                .ageDifferencesInDays(singletonList(new FullNamePair("Sara Stone", "not found"))).get(0);
+
+        Throwable caughtException = catchThrowable(ageDifference::getDays);
+
+        assertThat(caughtException).isExactlyInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    public void ageDifferencesInDaysThrowsExceptionWhenPairsAreNull() {
+        Throwable caughtException = catchThrowable(() -> addressBookService.ageDifferencesInDays(null));
+
+        assertThat(caughtException).isExactlyInstanceOf(NullPointerException.class);
+        assertThat(caughtException).hasMessage("fullNamePairs cannot be null");
+    }
+
+    @Test
+    public void findByFullNamePrefixReturnsTheRepositoryPage() {
+        List<Contact> expectedContacts = singletonList(new Contact("Sara Stone", Gender.FEMALE, LocalDate.of(1980, 12, 2)));
+        when(mockAddressBookRepository.findByFullNamePrefix("Sa", 0, 10)).thenReturn(expectedContacts);
+
+        List<Contact> actualContacts = addressBookService.findByFullNamePrefix("Sa", 0, 10);
+
+        assertThat(actualContacts).isEqualTo(expectedContacts);
+    }
+
+    @Test
+    public void streamPeopleBornBetweenReturnsTheRepositoryStream() {
+        Contact sara = new Contact("Sara Stone", Gender.FEMALE, LocalDate.of(1980, 12, 2));
+        when(mockAddressBookRepository.streamByDateOfBirthBetween(LocalDate.of(1980, 1, 1), LocalDate.of(1981, 1, 1)))
+                .thenReturn(Stream.of(sara));
+
+        Stream<Contact> actualContacts =
+                addressBookService.streamPeopleBornBetween(LocalDate.of(1980, 1, 1), LocalDate.of(1981, 1, 1));
+
+        assertThat(actualContacts).containsExactly(sara);
+    }
+
+    @Test
+    public void findByFullNameSimilarToReturnsTheRepositoryMatches() {
+        List<Contact> expectedContacts = singletonList(new Contact("Sara Stone", Gender.FEMALE, LocalDate.of(1980, 12, 2)));
+        when(mockAddressBookRepository.findByFullNameSimilarTo("Sarah Stone", 1, 10)).thenReturn(expectedContacts);
+
+        List<Contact> actualContacts = addressBookService.findByFullNameSimilarTo("Sarah Stone", 1, 10);
+
+        assertThat(actualContacts).isEqualTo(expectedContacts);
+    }
+
+    @Test
+    public void ageDifferenceWithOldestPolicyUsesTheOldestContactWithEachFullName() {
+        Contact youngBill = new Contact("Bill McKnight", Gender.MALE, LocalDate.of(1990, 1, 1));
+        Contact oldBill = new Contact("Bill McKnight", Gender.MALE, LocalDate.of(1970, 1, 1));
+        Contact paul = new Contact("Paul Robinson", Gender.MALE, LocalDate.of(1970, 1, 11));
+        when(mockAddressBookRepository.findAllByFullName("Bill McKnight")).thenReturn(asList(youngBill, oldBill));
+        when(mockAddressBookRepository.findAllByFullName("Paul Robinson")).thenReturn(singletonList(paul));
+
+        long actualAgeDifference = addressBookService.ageDifferenceInDays("Bill McKnight", "Paul Robinson", DuplicateNamePolicy.OLDEST);
+
+        assertThat(actualAgeDifference).isEqualTo(10);
+    }
+
+    @Test
+    public void ageDifferenceWithYoungestPolicyUsesTheYoungestContactWithEachFullName() {
+        Contact youngBill = new Contact("Bill McKnight", Gender.MALE, LocalDate.of(1990, 1, 1));
+        Contact oldBill = new Contact("Bill McKnight", Gender.MALE, LocalDate.of(1970, 1, 1));
+        Contact paul = new Contact("Paul Robinson", Gender.MALE, LocalDate.of(1990, 1, 11));
+        when(mockAddressBookRepository.findAllByFullName("Bill McKnight")).thenReturn(asList(oldBill, youngBill));
+        when(mockAddressBookRepository.findAllByFullName("Paul Robinson")).thenReturn(singletonList(paul));
+
+        long actualAgeDifference = addressBookService.ageDifferenceInDays("Bill McKnight", "Paul Robinson", DuplicateNamePolicy.YOUNGEST);
+
+        assertThat(actualAgeDifference).isEqualTo(10);
+    }
+
+    @Test
+    public void ageDifferenceWithFirstPolicyUsesTheFirstContactWithEachFullName() {
+        Contact bill = new Contact("Bill McKnight", Gender.MALE, LocalDate.of(1990, 1, 1));
+        Contact paul = new Contact("Paul Robinson", Gender.MALE, LocalDate.of(1990, 1, 11));
+        when(mockAddressBookRepository.findByFullName("Bill McKnight")).thenReturn(Optional.of(bill));
+        when(mockAddressBookRepository.findByFullName("Paul Robinson")).thenReturn(Optional.of(paul));
+
+        long actualAgeDifference = addressBookService.ageDifferenceInDays("Bill McKnight", "Paul Robinson", DuplicateNamePolicy.FIRST);
+
+        assertThat(actualAgeDifference).isEqualTo(10);
+    }
+
+    @Test
+    public void ageDifferenceWithRejectPolicyThrowsExceptionWhenAFullNameIsShared() {
+        Contact paul = new Contact("Paul Robinson", Gender.MALE, LocalDate.of(1990, 1, 11));
+        when(mockAddressBookRepository.findAllByFullName("Bill McKnight")).thenReturn(singletonList(paul));
+        when(mockAddressBookRepository.findAllByFullName("Paul Robinson")).thenReturn(asList(paul, paul));
+
+        Throwable caughtException = catchThrowable(() -> addressBookService.ageDifferenceInDays("Bill McKnight", "Paul Robinson", DuplicateNamePolicy.REJECT));
+
+        assertThat(caughtException).isExactlyInstanceOf(IllegalArgumentException.class);
+        assertThat(caughtException).hasMessage("secondPersonFullName is ambiguous");
+    }
+
+    @Test
+    public void ageDifferenceWithPolicyThrowsExceptionWhenFirstPersonIsNotFound() {
+        when(mockAddressBookRepository.findAllByFullName(anyString())).thenReturn(emptyList());
+
+        Throwable caughtException = catchThrowable(() -> addressBookService.ageDifferenceInDays("not found", "not found", DuplicateNamePolicy.OLDEST));
+
+        assertThat(caughtException).isExactlyInstanceOf(IllegalArgumentException.class);
+        assertThat(caughtException).hasMessage("firstPersonFullName not found");
+    }
+
+    @Test
+    public void ageDifferenceThrowsExceptionWhenPolicyIsNull() {
+
+        Throwable caughtException = catchThrowable(() -> addressBookService.ageDifferenceInDays("Bill McKnight", "Paul Robinson", null));
+
+        assertThat(caughtException).isExactlyInstanceOf(NullPointerException.class);
+        assertThat(caughtException).hasMessage("duplicateNamePolicy cannot be null");
+    }
+
+    @Test
+    public void allAgeDifferencesReturnsTheDifferenceForEveryPairOfMatchingContacts() {
+        Contact youngBill = new Contact("Bill McKnight", Gender.MALE, LocalDate.of(1990, 1, 1));
+        Contact oldBill = new Contact("Bill McKnight", Gender.MALE, LocalDate.of(1970, 1, 1));
+        Contact paul = new Contact("Paul Robinson", Gender.MALE, LocalDate.of(1990, 1, 11));
+        when(mockAddressBookRepository.findAllByFullName("Bill McKnight")).thenReturn(asList(youngBill, oldBill));
+        when(mockAddressBookRepository.findAllByFullName("Paul Robinson")).thenReturn(singletonList(paul));
+
+        List<Long> actualAgeDifferences = addressBookService.allAgeDifferencesInDays("Bill McKnight", "Paul Robinson");
+
+        assertThat(actualAgeDifferences).containsExactly(10L, 7315L);
+    }
+
+    @Test
+    public void ageHistogramAggregatesTheRepositoryByAgeBand() {
+        SortedMap<Integer, ContactStatistics> expectedHistogram = new TreeMap<>();
+        when(mockAddressBookRepository.aggregate(any(ContactGrouping.class))).thenReturn(expectedHistogram);
+
+        SortedMap<Integer, ContactStatistics> actualHistogram = addressBookService.ageHistogram(LocalDate.of(2020, 1, 1), 10);
+
+        assertThat(actualHistogram).isSameAs(expectedHistogram);
+    }
+
+    @Test
+    public void callsRecordTheirLatencyWhenMetricsAreEnabled() {
+        MetricsRegistry metricsRegistry = new MetricsRegistry();
+        AddressBookService instrumentedAddressBookService =
+                new AddressBookService(mockAddressBookRepository, metricsRegistry);
+        when(mockAddressBookRepository.countByGender(Gender.MALE)).thenReturn(3);
+
+        instrumentedAddressBookService.countByGender(Gender.MALE);
+
+        assertThat(metricsRegistry.getLatencies().get("service.countByGender").getCount()).isEqualTo(1);
+    }
+}